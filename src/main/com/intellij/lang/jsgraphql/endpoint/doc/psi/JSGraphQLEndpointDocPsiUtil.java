@@ -9,25 +9,35 @@ package com.intellij.lang.jsgraphql.endpoint.doc.psi;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
 
 import com.google.common.collect.Lists;
-import com.intellij.lang.injection.InjectedLanguageManager;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.endpoint.doc.JSGraphQLEndpointDocTokenTypes;
+import com.intellij.lang.jsgraphql.endpoint.doc.lexer.JSGraphQLEndpointDocLexer;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointFieldDefinition;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointNamedTypeDefinition;
-import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
-import com.intellij.openapi.util.TextRange;
+import com.intellij.lexer.FlexAdapter;
+import com.intellij.lexer.Lexer;
 import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiLanguageInjectionHost;
 import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 
+/**
+ * Utility for the documentation comments placed directly above type and field definitions.
+ * <p>
+ * The documentation comments of a file are collected and their tags are lexed once per version of the file, so highlighting,
+ * completion and quick documentation don't walk comment siblings or depend on the injected documentation PSI.
+ */
 public class JSGraphQLEndpointDocPsiUtil {
 
 	/**
@@ -36,100 +46,133 @@ public class JSGraphQLEndpointDocPsiUtil {
 	 * @param comment the comment to use as a staring point
 	 */
 	public static List<String> getOtherDocTagValues(PsiComment comment) {
+		final Documentation documentation = getFileDocumentation(comment.getContainingFile()).byComment.get(comment);
+		if (documentation == null) {
+			return Collections.emptyList();
+		}
+		final List<String> values = Lists.newArrayList();
+		for (int i = 0; i < documentation.comments.size(); i++) {
+			final String tagValue = documentation.tagValues.get(i);
+			if (tagValue != null && documentation.comments.get(i) != comment) {
+				values.add(tagValue);
+			}
+		}
+		return values;
+	}
 
+	/**
+	 * Gets whether the specified comment is considered documentation, i.e. that it's placed directly above a type or field definition
+	 */
+	public static boolean isDocumentationComment(PsiElement element) {
+		return element instanceof PsiComment && getFileDocumentation(element.getContainingFile()).byComment.containsKey(element);
+	}
 
-		final Project project = comment.getProject();
-		final InjectedLanguageManager injectedLanguageManager = InjectedLanguageManager.getInstance(project);
+	/**
+	 * Gets the PSI comment that starts the documentation for the specified element, or <code>null</code> if no documentation is available
+	 */
+	public static PsiComment getDocumentationStartElement(PsiElement element) {
+		final Documentation documentation = getDocumentationOf(element);
+		return documentation != null ? documentation.comments.get(0) : null;
+	}
 
-		final List<PsiComment> siblings = Lists.newArrayList();
-		getDocumentationCommentSiblings(comment, siblings, PsiElement::getPrevSibling);
-		getDocumentationCommentSiblings(comment, siblings, PsiElement::getNextSibling);
+	/**
+	 * Gets the text of the continuous comments placed directly above the specified element
+	 * @param element type or field definition to get the documentation for
+	 * @return the combined text of the documentation comments, preserving line breaks, or <code>null</code> if no documentation is available
+	 */
+	public static String getDocumentation(PsiElement element) {
+		final Documentation documentation = getDocumentationOf(element);
+		return documentation != null ? documentation.text : null;
+	}
 
-		final List<String> values = Lists.newArrayList();
+	// ---- implementation ----
 
-		for (PsiComment sibling : siblings) {
-			if (sibling instanceof PsiLanguageInjectionHost) {
-				List<Pair<PsiElement, TextRange>> injected = injectedLanguageManager.getInjectedPsiFiles(sibling);
-				if (injected != null) {
-					for (Pair<PsiElement, TextRange> pair : injected) {
-						PsiFile injectedFile = pair.first.getContainingFile();
-						final JSGraphQLEndpointDocTag tag = PsiTreeUtil.findChildOfType(injectedFile, JSGraphQLEndpointDocTag.class);
-						if (tag != null && tag.getDocValue() != null) {
-							values.add(tag.getDocValue().getText());
-						}
-					}
-				}
-			}
-		}
-		return values;
+	private static Documentation getDocumentationOf(PsiElement element) {
+		final PsiFile file = element.getContainingFile();
+		return file != null ? getFileDocumentation(file).byElement.get(element) : null;
 	}
 
-	private static void getDocumentationCommentSiblings(PsiComment comment, List<PsiComment> comments, Function<PsiElement, PsiElement> step) {
-		PsiElement element = step.apply(comment);
+	private static FileDocumentation getFileDocumentation(PsiFile file) {
+		return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(new FileDocumentation(file), file));
+	}
+
+	/**
+	 * Gets the comments directly above a definition, i.e. without a blank line between them, in file order
+	 */
+	private static List<PsiComment> getDocumentationComments(PsiElement definition) {
+		final List<PsiComment> comments = Lists.newArrayList();
+		PsiElement element = definition.getPrevSibling();
 		while (element != null) {
 			if (element instanceof PsiWhiteSpace) {
-				element = step.apply(element);
-			} else if (isDocumentationComment(element)) {
+				if (StringUtils.countMatches(element.getText(), "\n") > 1) {
+					// a blank line, so the comments above it are not directly above the definition
+					break;
+				}
+			} else if (element instanceof PsiComment) {
 				comments.add((PsiComment) element);
-				element = step.apply(element);
 			} else {
 				break;
 			}
+			element = element.getPrevSibling();
 		}
+		Collections.reverse(comments);
+		return comments;
 	}
 
 	/**
-	 * Gets whether the specified comment is considered documentation, i.e. that it's placed directly above a type or field definition
+	 * Gets the value of the first tag in a comment, e.g. 'id' for '# @param id the id of the user'
 	 */
-	public static boolean isDocumentationComment(PsiElement element) {
-		if (element instanceof PsiComment) {
-			PsiElement next = element.getNextSibling();
-			while (next != null) {
-				final boolean isWhiteSpace = next instanceof PsiWhiteSpace;
-				if (next instanceof PsiComment || isWhiteSpace) {
-					if (isWhiteSpace && StringUtils.countMatches(next.getText(), "\n") > 1) {
-						// a blank line before the next element, so this comment is not directly above it
-						break;
-					}
-					next = next.getNextSibling();
-				} else {
-					break;
-				}
-			}
-			if (next instanceof JSGraphQLEndpointFieldDefinition || next instanceof JSGraphQLEndpointNamedTypeDefinition) {
-				return true;
+	private static String getTagValue(Lexer lexer, PsiComment comment) {
+		lexer.start(comment.getText());
+		boolean afterDocName = false;
+		for (IElementType tokenType = lexer.getTokenType(); tokenType != null; lexer.advance(), tokenType = lexer.getTokenType()) {
+			if (tokenType == JSGraphQLEndpointDocTokenTypes.DOCNAME) {
+				afterDocName = true;
+			} else if (tokenType == JSGraphQLEndpointDocTokenTypes.DOCVALUE && afterDocName) {
+				return lexer.getTokenText();
+			} else if (tokenType != TokenType.WHITE_SPACE) {
+				afterDocName = false;
 			}
 		}
-		return false;
+		return null;
 	}
 
 	/**
-	 * Gets the PSI comment that starts the documentation for the specified element, or <code>null</code> if no documentation is available
+	 * The documentation of a type or field definition
 	 */
-	public static PsiComment getDocumentationStartElement(PsiElement element) {
-		final PsiComment comment = PsiTreeUtil.getPrevSiblingOfType(element, PsiComment.class);
-		if(isDocumentationComment(comment)) {
-			final List<PsiComment> siblings = Lists.newArrayList(comment);
-			getDocumentationCommentSiblings(comment, siblings, PsiElement::getPrevSibling);
-			Collections.reverse(siblings);
-			return siblings.get(0);
+	private static class Documentation {
+
+		final List<PsiComment> comments;
+		final List<String> tagValues;
+		final String text;
+
+		Documentation(List<PsiComment> comments, Lexer lexer) {
+			this.comments = comments;
+			this.tagValues = Lists.newArrayListWithExpectedSize(comments.size());
+			for (PsiComment comment : comments) {
+				tagValues.add(getTagValue(lexer, comment));
+			}
+			this.text = comments.stream().map(c -> StringUtils.stripStart(c.getText(), "# ")).collect(Collectors.joining("\n"));
 		}
-		return null;
 	}
 
-	/**
-	 * Gets the text of the continuous comments placed directly above the specified element
-	 * @param element element whose previous siblings are enumerated and included if they're documentation comments
-	 * @return the combined text of the documentation comments, preserving line breaks, or <code>null</code> if no documentation is available
-	 */
-	public static String getDocumentation(PsiElement element) {
-		final PsiComment comment = PsiTreeUtil.getPrevSiblingOfType(element, PsiComment.class);
-		if(isDocumentationComment(comment)) {
-			final List<PsiComment> siblings = Lists.newArrayList(comment);
-			getDocumentationCommentSiblings(comment, siblings, PsiElement::getPrevSibling);
-			Collections.reverse(siblings);
-			return siblings.stream().map(c -> StringUtils.stripStart(c.getText(), "# ")).collect(Collectors.joining("\n"));
+	private static class FileDocumentation {
+
+		final Map<PsiElement, Documentation> byElement = Maps.newHashMap();
+		final Map<PsiComment, Documentation> byComment = Maps.newHashMap();
+
+		FileDocumentation(PsiFile file) {
+			final Lexer lexer = new FlexAdapter(new JSGraphQLEndpointDocLexer());
+			for (PsiElement definition : PsiTreeUtil.findChildrenOfAnyType(file, JSGraphQLEndpointNamedTypeDefinition.class, JSGraphQLEndpointFieldDefinition.class)) {
+				final List<PsiComment> comments = getDocumentationComments(definition);
+				if (!comments.isEmpty()) {
+					final Documentation documentation = new Documentation(comments, lexer);
+					byElement.put(definition, documentation);
+					for (PsiComment comment : comments) {
+						byComment.put(comment, documentation);
+					}
+				}
+			}
 		}
-		return null;
 	}
-}
\ No newline at end of file
+}
@@ -19,33 +19,34 @@ import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.Annotator;
 import com.intellij.lang.jsgraphql.JSGraphQLScalars;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypes;
-import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointAnnotationCatalog;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointImportGraph;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLSchemaEndpointAnnotation;
 import com.intellij.openapi.editor.colors.CodeInsightColors;
 import com.intellij.openapi.util.Key;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.intellij.psi.PsiReference;
-import com.intellij.psi.PsiWhiteSpace;
-import com.intellij.psi.impl.source.tree.LeafPsiElement;
 import com.intellij.psi.tree.TokenSet;
 import com.intellij.psi.util.PsiTreeUtil;
 
 public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 
-	private static final Key<Multimap<String, JSGraphQLEndpointNamedTypeDefinition>> KNOWN_DEFINITIONS = Key.create("JSGraphQLEndpointErrorAnnotator.knownDefinitions");
+	private static final Key<Multimap<String, PsiFile>> KNOWN_DEFINITIONS = Key.create("JSGraphQLEndpointErrorAnnotator.knownDefinitions");
 	private static final Key<List<JSGraphQLSchemaEndpointAnnotation>> ANNOTATIONS = Key.create(JSGraphQLSchemaEndpointAnnotation.class.getName());
+	private static final Key<Multiset<String>> IMPORT_NAMES = Key.create("JSGraphQLEndpointErrorAnnotator.importNames");
+	private static final Key<Map<JSGraphQLEndpointFieldDefinitionSet, Multiset<String>>> FIELD_NAMES = Key.create("JSGraphQLEndpointErrorAnnotator.fieldNames");
 
 	@Override
 	public void annotate(@NotNull PsiElement element, @NotNull AnnotationHolder holder) {
@@ -89,17 +90,8 @@ public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 				holder.createErrorAnnotation(element, "Cannot resolve file " + element.getText());
 			}
 
-			final JSGraphQLEndpointImportDeclaration[] importDeclarations = PsiTreeUtil.getChildrenOfType(element.getContainingFile(), JSGraphQLEndpointImportDeclaration.class);
-			if (importDeclarations != null) {
-				final String importName = element.getText();
-				for (JSGraphQLEndpointImportDeclaration anImport : importDeclarations) {
-					final JSGraphQLEndpointImportFileReference fileReference = anImport.getImportFileReference();
-					if (fileReference != null && fileReference != element) {
-						if (Objects.equals(fileReference.getText(), importName)) {
-							holder.createErrorAnnotation(element, element.getText() + " is imported more than once");
-						}
-					}
-				}
+			if (getImportNames(element.getContainingFile(), holder).count(element.getText()) > 1) {
+				holder.createErrorAnnotation(element, element.getText() + " is imported more than once");
 			}
 
 			return;
@@ -112,18 +104,8 @@ public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 			final String fieldName = identifier.getText();
 			// duplicate fields
 			final JSGraphQLEndpointFieldDefinitionSet fieldDefinitionSet = PsiTreeUtil.getParentOfType(element, JSGraphQLEndpointFieldDefinitionSet.class);
-			if (fieldDefinitionSet != null) {
-				final JSGraphQLEndpointFieldDefinition[] allFields = PsiTreeUtil.getChildrenOfType(fieldDefinitionSet, JSGraphQLEndpointFieldDefinition.class);
-				if (allFields != null) {
-					for (JSGraphQLEndpointFieldDefinition otherField : allFields) {
-						if (otherField == fieldDefinition) {
-							continue;
-						}
-						if (Objects.equals(otherField.getProperty().getIdentifier().getText(), fieldName)) {
-							holder.createErrorAnnotation(identifier, "Field '" + identifier.getText() + "' is declared more than once");
-						}
-					}
-				}
+			if (fieldDefinitionSet != null && getFieldNames(fieldDefinitionSet, holder).count(fieldName) > 1) {
+				holder.createErrorAnnotation(identifier, "Field '" + fieldName + "' is declared more than once");
 			}
 			// field return type must not be input inside non-input types
 			if (fieldDefinition.getCompositeType() != null) {
@@ -139,18 +121,13 @@ public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 				}
 			}
 
-			final JSGraphQLEndpointFieldDefinition overridenField = getOverriddenField(fieldDefinition);
-			if (overridenField != null) {
-				if (!hasSameSignature(fieldDefinition, overridenField)) {
-					final JSGraphQLEndpointInterfaceTypeDefinition overridenInterface = PsiTreeUtil.getParentOfType(overridenField, JSGraphQLEndpointInterfaceTypeDefinition.class);
-					if (overridenInterface != null && overridenInterface.getNamedTypeDef() != null) {
-						int endOffset = fieldDefinition.getProperty().getTextRange().getEndOffset();
-						if (fieldDefinition.getCompositeType() != null) {
-							endOffset = fieldDefinition.getCompositeType().getTextRange().getEndOffset();
-						}
-						holder.createErrorAnnotation(TextRange.create(fieldDefinition.getProperty().getTextOffset(), endOffset), "Field signature doesn't match the field it overrides in interface '" + overridenInterface.getNamedTypeDef().getText() + "'");
-					}
+			final String overriddenInterfaceName = getInterfaceWithDifferentSignature(fieldDefinition);
+			if (overriddenInterfaceName != null) {
+				int endOffset = fieldDefinition.getProperty().getTextRange().getEndOffset();
+				if (fieldDefinition.getCompositeType() != null) {
+					endOffset = fieldDefinition.getCompositeType().getTextRange().getEndOffset();
 				}
+				holder.createErrorAnnotation(TextRange.create(fieldDefinition.getProperty().getTextOffset(), endOffset), "Field signature doesn't match the field it overrides in interface '" + overriddenInterfaceName + "'");
 			}
 
 			return;
@@ -191,8 +168,7 @@ public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 			final PsiElement atAnnotation = annotation.getAtAnnotation();
 			List<JSGraphQLSchemaEndpointAnnotation> annotations = holder.getCurrentAnnotationSession().getUserData(ANNOTATIONS);
 			if (annotations == null) {
-				final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(element.getProject());
-				annotations = configurationProvider.getEndpointAnnotations(element.getContainingFile());
+				annotations = JSGraphQLEndpointAnnotationCatalog.getService(element.getProject()).getAnnotations(element.getContainingFile());
 				holder.getCurrentAnnotationSession().putUserData(ANNOTATIONS, annotations);
 			}
 			boolean knownAnnotation = false;
@@ -263,91 +239,132 @@ public class JSGraphQLEndpointErrorAnnotator implements Annotator {
 
 	}
 
-	private void annotateRedeclarations(@NotNull JSGraphQLEndpointNamedTypeDef element, PsiFile importingFile, Key<Multimap<String, JSGraphQLEndpointNamedTypeDefinition>> key, @NotNull AnnotationHolder holder) {
+	private void annotateRedeclarations(@NotNull JSGraphQLEndpointNamedTypeDef element, PsiFile importingFile, Key<Multimap<String, PsiFile>> key, @NotNull AnnotationHolder holder) {
 		final Key<Boolean> annotationKey = Key.create(element.getContainingFile().getName() + ":" + element.getTextOffset());
 		if (holder.getCurrentAnnotationSession().getUserData(annotationKey) == Boolean.TRUE) {
 			// already annotated about redeclaration
 			return;
 		}
-		Multimap<String, JSGraphQLEndpointNamedTypeDefinition> knownDefinitionsByName = holder.getCurrentAnnotationSession().getUserData(key);
+		// the files that declare each known type name, computed once per annotation session
+		Multimap<String, PsiFile> knownDefinitionsByName = holder.getCurrentAnnotationSession().getUserData(key);
 		if (knownDefinitionsByName == null) {
-			knownDefinitionsByName = HashMultimap.create();
-			for (JSGraphQLEndpointNamedTypeDefinition definition : JSGraphQLEndpointPsiUtil.getKnownDefinitions(importingFile, JSGraphQLEndpointNamedTypeDefinition.class, true, null)) {
-				if (definition.getNamedTypeDef() != null) {
-					knownDefinitionsByName.put(definition.getNamedTypeDef().getText(), definition);
-				}
+			knownDefinitionsByName = ArrayListMultimap.create();
+			for (JSGraphQLEndpointTypeResult<JSGraphQLEndpointNamedTypeDefinition> definition : JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(importingFile, JSGraphQLEndpointNamedTypeDefinition.class, true)) {
+				knownDefinitionsByName.put(definition.name, definition.getFile());
 			}
+			holder.getCurrentAnnotationSession().putUserData(key, knownDefinitionsByName);
 		}
 		final String typeName = element.getText();
-		final Collection<JSGraphQLEndpointNamedTypeDefinition> typesWithSameName = knownDefinitionsByName.get(typeName);
-		if (typesWithSameName != null && typesWithSameName.size() > 1) {
-			final Set<String> files = typesWithSameName.stream().map(t -> "'" + t.getContainingFile().getName() + "'").collect(Collectors.toSet());
+		final Collection<PsiFile> typesWithSameName = knownDefinitionsByName.get(typeName);
+		if (typesWithSameName.size() > 1) {
+			final Set<String> files = typesWithSameName.stream().map(file -> "'" + file.getName() + "'").collect(Collectors.toSet());
 			holder.createErrorAnnotation(element, "'" + typeName + "' is redeclared in " + StringUtils.join(files, ", "));
 			holder.getCurrentAnnotationSession().putUserData(annotationKey, Boolean.TRUE);
 		}
 	}
 
-	private JSGraphQLEndpointFieldDefinition getOverriddenField(JSGraphQLEndpointFieldDefinition override) {
-		final String propertyName = override.getProperty().getIdentifier().getText();
-		final JSGraphQLEndpointObjectTypeDefinition typeDefinition = PsiTreeUtil.getParentOfType(override, JSGraphQLEndpointObjectTypeDefinition.class);
-		if (typeDefinition != null) {
-			final JSGraphQLEndpointImplementsInterfaces implementsInterfaces = PsiTreeUtil.findChildOfType(typeDefinition, JSGraphQLEndpointImplementsInterfaces.class);
-			if (implementsInterfaces != null) {
-				for (JSGraphQLEndpointNamedType namedType : implementsInterfaces.getNamedTypeList()) {
-					final PsiReference reference = namedType.getReference();
-					if (reference != null) {
-						final PsiElement interfaceTypeName = reference.resolve();
-						if (interfaceTypeName != null) {
-							final JSGraphQLEndpointInterfaceTypeDefinition interfaceTypeDefinition = PsiTreeUtil.getParentOfType(interfaceTypeName, JSGraphQLEndpointInterfaceTypeDefinition.class);
-							if (interfaceTypeDefinition != null) {
-								for (JSGraphQLEndpointProperty property : PsiTreeUtil.findChildrenOfType(interfaceTypeDefinition, JSGraphQLEndpointProperty.class)) {
-									if (property.getIdentifier().getText().equals(propertyName)) {
-										return PsiTreeUtil.getParentOfType(property, JSGraphQLEndpointFieldDefinition.class);
-									}
-								}
-							}
-						}
+	/**
+	 * Gets the number of times each import is declared in a file, counted once per annotation session
+	 */
+	private static Multiset<String> getImportNames(PsiFile file, AnnotationHolder holder) {
+		Multiset<String> importNames = holder.getCurrentAnnotationSession().getUserData(IMPORT_NAMES);
+		if (importNames == null) {
+			importNames = HashMultiset.create();
+			final JSGraphQLEndpointImportDeclaration[] importDeclarations = PsiTreeUtil.getChildrenOfType(file, JSGraphQLEndpointImportDeclaration.class);
+			if (importDeclarations != null) {
+				for (JSGraphQLEndpointImportDeclaration anImport : importDeclarations) {
+					final JSGraphQLEndpointImportFileReference fileReference = anImport.getImportFileReference();
+					if (fileReference != null) {
+						importNames.add(fileReference.getText());
 					}
 				}
 			}
+			holder.getCurrentAnnotationSession().putUserData(IMPORT_NAMES, importNames);
 		}
-		return null;
+		return importNames;
 	}
 
 	/**
-	 * Compares the signatures of two fields, ignoring comments, whitespace, and annotations
+	 * Gets the number of times each field name is declared in a field definition set, counted once per annotation session
 	 */
-	private boolean hasSameSignature(JSGraphQLEndpointFieldDefinition override, JSGraphQLEndpointFieldDefinition toImplement) {
-		final StringBuilder toImplementSignature = new StringBuilder();
-		final StringBuilder overrideSignature = new StringBuilder();
-
-		final Ref<StringBuilder> sb = new Ref<>();
-		final PsiElementVisitor visitor = new PsiRecursiveElementVisitor() {
-			@Override
-			public void visitElement(PsiElement element) {
-				if (element instanceof JSGraphQLEndpointAnnotation) {
-					return;
-				}
-				if (element instanceof PsiWhiteSpace) {
-					return;
-				}
-				if (element instanceof PsiComment) {
-					return;
-				}
-				if (element instanceof LeafPsiElement) {
-					sb.get().append(element.getText()).append(" ");
+	private static Multiset<String> getFieldNames(JSGraphQLEndpointFieldDefinitionSet fieldDefinitionSet, AnnotationHolder holder) {
+		Map<JSGraphQLEndpointFieldDefinitionSet, Multiset<String>> fieldNamesBySet = holder.getCurrentAnnotationSession().getUserData(FIELD_NAMES);
+		if (fieldNamesBySet == null) {
+			fieldNamesBySet = Maps.newHashMap();
+			holder.getCurrentAnnotationSession().putUserData(FIELD_NAMES, fieldNamesBySet);
+		}
+		return fieldNamesBySet.computeIfAbsent(fieldDefinitionSet, set -> {
+			final Multiset<String> fieldNames = HashMultiset.create();
+			final JSGraphQLEndpointFieldDefinition[] allFields = PsiTreeUtil.getChildrenOfType(set, JSGraphQLEndpointFieldDefinition.class);
+			if (allFields != null) {
+				for (JSGraphQLEndpointFieldDefinition field : allFields) {
+					fieldNames.add(field.getProperty().getIdentifier().getText());
 				}
-				super.visitElement(element);
 			}
-		};
+			return fieldNames;
+		});
+	}
 
-		sb.set(overrideSignature);
-		override.accept(visitor);
+	/**
+	 * Compares the signature of a field with the signature of the interface field it overrides, if any. The signatures are compared
+	 * using the fingerprints of the scanned definitions, which ignore comments, whitespace, and annotations.
+	 * @return the name of the interface whose field has a different signature, or <code>null</code> if the signatures match or
+	 * the field doesn't override an interface field
+	 */
+	private String getInterfaceWithDifferentSignature(JSGraphQLEndpointFieldDefinition override) {
+		final JSGraphQLEndpointObjectTypeDefinition typeDefinition = PsiTreeUtil.getParentOfType(override, JSGraphQLEndpointObjectTypeDefinition.class);
+		if (typeDefinition == null || typeDefinition.getNamedTypeDef() == null || typeDefinition.getImplementsInterfaces() == null) {
+			return null;
+		}
+		final PsiFile file = override.getContainingFile();
+		final JSGraphQLEndpointImportGraph importGraph = JSGraphQLEndpointImportGraph.getService(file.getProject());
+		final JSGraphQLEndpointDefinition definition = findDefinitionAt(importGraph.getFileDefinitions(file), typeDefinition.getNamedTypeDef());
+		if (definition == null) {
+			return null;
+		}
+		final JSGraphQLEndpointProperty property = override.getProperty();
+		final String fieldName = property.getIdentifier().getText();
+		final Integer signature = definition.getFieldSignatures().get(fieldName);
+		if (signature == null || !Objects.equals(definition.getFieldOffsets().get(fieldName), property.getTextOffset())) {
+			// not a complete field, or a redeclaration of the field which is annotated as such
+			return null;
+		}
+		for (String interfaceName : definition.getImplementedInterfaces()) {
+			final JSGraphQLEndpointDefinition interfaceDefinition = findKnownInterface(importGraph, file, interfaceName);
+			if (interfaceDefinition != null) {
+				final Integer interfaceSignature = interfaceDefinition.getFieldSignatures().get(fieldName);
+				if (interfaceSignature != null) {
+					return interfaceSignature.equals(signature) ? null : interfaceName;
+				}
+			}
+		}
+		return null;
+	}
 
-		sb.set(toImplementSignature);
-		toImplement.accept(visitor);
+	private static JSGraphQLEndpointDefinition findDefinitionAt(Map<String, List<JSGraphQLEndpointDefinition>> fileDefinitions, JSGraphQLEndpointNamedTypeDef namedTypeDef) {
+		final List<JSGraphQLEndpointDefinition> definitions = fileDefinitions.get(namedTypeDef.getText());
+		if (definitions != null) {
+			for (JSGraphQLEndpointDefinition definition : definitions) {
+				if (definition.getOffset() == namedTypeDef.getTextOffset()) {
+					return definition;
+				}
+			}
+		}
+		return null;
+	}
 
-		return toImplementSignature.toString().equals(overrideSignature.toString());
+	/**
+	 * Finds the interface that a name refers to in a file, using the same precedence as resolving the name
+	 */
+	private static JSGraphQLEndpointDefinition findKnownInterface(JSGraphQLEndpointImportGraph importGraph, PsiFile file, String interfaceName) {
+		for (PsiFile knownFile : importGraph.getImportClosure(file).getFiles()) {
+			final List<JSGraphQLEndpointDefinition> definitions = importGraph.getFileDefinitions(knownFile).get(interfaceName);
+			if (definitions != null) {
+				final JSGraphQLEndpointDefinition definition = definitions.get(0);
+				return definition.getKind() == JSGraphQLEndpointDefinition.Kind.Interface ? definition : null;
+			}
+		}
+		return null;
 	}
 
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.completion;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointTypeDefinitionIndex;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointImportGraph;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointPsiUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * The types that can be completed with an auto-import, i.e. the types declared in endpoint files that the completion file doesn't import.
+ * <p>
+ * The candidates of all kinds are found in a single pass over the type definition index, and only the names that match the completion
+ * prefix are looked up. No PSI is loaded for the files that declare the candidates.
+ */
+class JSGraphQLEndpointAutoImportCandidates {
+
+    private final PsiFile file;
+    private final PrefixMatcher prefixMatcher;
+
+    private Multimap<JSGraphQLEndpointDefinition.Kind, Candidate> candidatesByKind;
+
+    JSGraphQLEndpointAutoImportCandidates(@NotNull PsiFile file, @NotNull PrefixMatcher prefixMatcher) {
+        this.file = file;
+        this.prefixMatcher = prefixMatcher;
+    }
+
+    /**
+     * Gets the candidates of the specified kind, finding the candidates of all kinds on the first call
+     */
+    @NotNull
+    Collection<Candidate> getCandidates(@NotNull JSGraphQLEndpointDefinition.Kind kind) {
+        if (candidatesByKind == null) {
+            candidatesByKind = findCandidates();
+        }
+        return candidatesByKind.get(kind);
+    }
+
+    private Multimap<JSGraphQLEndpointDefinition.Kind, Candidate> findCandidates() {
+        final Multimap<JSGraphQLEndpointDefinition.Kind, Candidate> candidates = ArrayListMultimap.create();
+        final Project project = file.getProject();
+        final JSGraphQLEndpointImportGraph.ImportClosure importClosure = JSGraphQLEndpointImportGraph.getService(project).getImportClosure(file);
+        final GlobalSearchScope scope = JSGraphQLEndpointPsiUtil.getImportScopeFromEntryFile(project, null);
+        JSGraphQLEndpointIndexUtil.processKeys(JSGraphQLEndpointTypeDefinitionIndex.NAME, scope, name -> {
+            if (prefixMatcher.prefixMatches(name)) {
+                JSGraphQLEndpointIndexUtil.processDefinitions(JSGraphQLEndpointTypeDefinitionIndex.NAME, name, scope, (virtualFile, definition) -> {
+                    if (!importClosure.contains(virtualFile)) {
+                        candidates.put(definition.getKind(), new Candidate(definition.getName(), virtualFile));
+                    }
+                    return true;
+                });
+            }
+            return true;
+        });
+        return candidates;
+    }
+
+    /**
+     * A type that can be completed by importing the file that declares it
+     */
+    static class Candidate {
+
+        final String name;
+        final VirtualFile fileToImport;
+
+        Candidate(String name, VirtualFile fileToImport) {
+            this.name = name;
+            this.fileToImport = fileToImport;
+        }
+    }
+}
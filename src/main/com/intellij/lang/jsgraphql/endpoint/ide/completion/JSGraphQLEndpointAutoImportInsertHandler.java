@@ -13,7 +13,7 @@ import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointImportDeclaration;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.PsiFile;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.util.PsiTreeUtil;
 
 /**
@@ -21,9 +21,9 @@ import com.intellij.psi.util.PsiTreeUtil;
  */
 public class JSGraphQLEndpointAutoImportInsertHandler implements InsertHandler<LookupElement> {
 
-    private final PsiFile fileToImport;
+    private final VirtualFile fileToImport;
 
-    public JSGraphQLEndpointAutoImportInsertHandler(PsiFile fileToImport) {
+    public JSGraphQLEndpointAutoImportInsertHandler(VirtualFile fileToImport) {
         this.fileToImport = fileToImport;
     }
 
@@ -9,15 +9,19 @@ package com.intellij.lang.jsgraphql.endpoint.ide.completion;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.swing.Icon;
+
 import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.intellij.codeInsight.completion.AddSpaceInsertHandler;
 import com.intellij.codeInsight.completion.CompletionContributor;
 import com.intellij.codeInsight.completion.CompletionParameters;
@@ -30,6 +34,8 @@ import com.intellij.lang.jsgraphql.JSGraphQLScalars;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypes;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypesSets;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointAnnotationCatalog;
 import com.intellij.lang.jsgraphql.endpoint.psi.impl.JSGraphQLEndpointImplementsInterfacesImpl;
 import com.intellij.lang.jsgraphql.icons.JSGraphQLIcons;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
@@ -78,7 +84,9 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 					return;
 				}
 
-				final boolean autoImport = parameters.isExtendedCompletion() || parameters.getCompletionType() == CompletionType.SMART;
+				// types in files that aren't imported yet are only suggested on extended completion, and are looked up once per completion
+				final boolean isAutoImport = parameters.isExtendedCompletion() || parameters.getCompletionType() == CompletionType.SMART;
+				final JSGraphQLEndpointAutoImportCandidates autoImport = isAutoImport ? new JSGraphQLEndpointAutoImportCandidates(file, result.getPrefixMatcher()) : null;
 
 				final PsiElement completionElement = Optional.ofNullable(parameters.getOriginalPosition()).orElse(parameters.getPosition());
 				if (completionElement != null) {
@@ -97,7 +105,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 					}
 
 					// 3.A. top level completions, e.g. keywords and definition annotations
-					if (completeKeywordsAndDefinitionAnnotations(result, autoImport, completionElement, leafBeforeCompletion, parent)) {
+					if (completeKeywordsAndDefinitionAnnotations(result, completionElement, leafBeforeCompletion, parent)) {
 						return;
 					}
 
@@ -116,7 +124,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 						}
 
 						// 4.B. annotations
-						if (completeAnnotations(result, autoImport, file, completionElement)) {
+						if (completeAnnotations(result, file, completionElement)) {
 							return;
 						}
 
@@ -155,16 +163,16 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 		return super.invokeAutoPopup(position, typeChar);
 	}
 
-	private boolean completeImplementableInterface(@NotNull CompletionResultSet result, boolean autoImport, PsiElement completionElement, PsiElement leafBeforeCompletion) {
+	private boolean completeImplementableInterface(@NotNull CompletionResultSet result, @Nullable JSGraphQLEndpointAutoImportCandidates autoImport, PsiElement completionElement, PsiElement leafBeforeCompletion) {
 		if (leafBeforeCompletion != null) {
 			final TokenSet skipping = TokenSet.create(JSGraphQLEndpointTokenTypes.IDENTIFIER, JSGraphQLEndpointTokenTypes.COMMA);
 			final PsiElement implementsBefore = findPreviousLeaf(completionElement, JSGraphQLEndpointTokenTypes.IMPLEMENTS, skipping);
 			if (implementsBefore != null) {
-				final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> availableInterfaceNames = getAvailableInterfaceNames(implementsBefore, autoImport);
+				final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> availableInterfaceNames = getAvailableInterfaceNames(implementsBefore);
 				for (JSGraphQLEndpointTypeResult typeResult : availableInterfaceNames) {
-					LookupElementBuilder element = withAutoImport(LookupElementBuilder.create(typeResult.name), typeResult, autoImport);
-					result.addElement(element);
+					result.addElement(LookupElementBuilder.create(typeResult.name));
 				}
+				addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.Interface, null, getImplementedInterfaceNames(implementsBefore));
 				return true;
 			}
 		}
@@ -210,7 +218,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 		return false;
 	}
 
-	private boolean completeKeywordsAndDefinitionAnnotations(@NotNull CompletionResultSet result, boolean autoImport, PsiElement completionElement, PsiElement leafBeforeCompletion, PsiElement parent) {
+	private boolean completeKeywordsAndDefinitionAnnotations(@NotNull CompletionResultSet result, PsiElement completionElement, PsiElement leafBeforeCompletion, PsiElement parent) {
 		if (parent instanceof JSGraphQLEndpointFile || isTopLevelError(parent)) {
 
 			if (isKeyword(leafBeforeCompletion)) {
@@ -233,14 +241,14 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 				result.addElement(element);
 			}
 
-			completeAnnotations(result, autoImport, completionElement.getContainingFile(), completionElement);
+			completeAnnotations(result, completionElement.getContainingFile(), completionElement);
 
 			return true;
 
 		}
 		if(parent instanceof JSGraphQLEndpointAnnotation && parent.getParent() instanceof JSGraphQLEndpointNamedTypeDefinition) {
 			// completing inside a definition/top level annotation
-			return completeAnnotations(result, autoImport, completionElement.getContainingFile(), completionElement);
+			return completeAnnotations(result, completionElement.getContainingFile(), completionElement);
 		}
 		return false;
 	}
@@ -256,7 +264,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 	}
 
 
-	private boolean completeFieldOrArgumentType(@NotNull CompletionResultSet result, boolean autoImport, PsiElement completionElement) {
+	private boolean completeFieldOrArgumentType(@NotNull CompletionResultSet result, @Nullable JSGraphQLEndpointAutoImportCandidates autoImport, PsiElement completionElement) {
 		final TokenSet skipping = TokenSet.create(JSGraphQLEndpointTokenTypes.LBRACKET);
 		final PsiElement colonBefore = findPreviousLeaf(completionElement, JSGraphQLEndpointTokenTypes.COLON, skipping);
 		if (colonBefore != null) {
@@ -264,60 +272,61 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 				LookupElementBuilder element = LookupElementBuilder.create(scalarType).withIcon(JSGraphQLIcons.Schema.Scalar);
 				result.addElement(element);
 			}
-			for (JSGraphQLEndpointTypeResult enumType : getKnownEnumTypeNames(completionElement, autoImport)) {
+			for (JSGraphQLEndpointTypeResult enumType : getKnownEnumTypeNames(completionElement)) {
 				LookupElementBuilder element = LookupElementBuilder.create(enumType.name).withIcon(JSGraphQLIcons.Schema.Enum);
-				element = withAutoImport(element, enumType, autoImport);
 				result.addElement(element);
 			}
+			addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.Enum, JSGraphQLIcons.Schema.Enum, Collections.emptySet());
 			final boolean isInsideInputValueDefinitions = PsiTreeUtil.getParentOfType(colonBefore, JSGraphQLEndpointInputValueDefinitions.class) != null;
 			final JSGraphQLEndpointInputObjectTypeDefinition inputObjectTypeDefinition = PsiTreeUtil.getParentOfType(colonBefore, JSGraphQLEndpointInputObjectTypeDefinition.class);
 			final boolean isInsideInputType = inputObjectTypeDefinition != null;
 			if (isInsideInputValueDefinitions || isInsideInputType) {
 				// argument (input) or input type definition
-				final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInputObjectTypeDefinition>> knownInputTypeNames = getKnownInputTypeNames(completionElement, autoImport);
+				final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInputObjectTypeDefinition>> knownInputTypeNames = getKnownInputTypeNames(completionElement);
+				final Set<String> excludedInputTypeNames = Sets.newHashSet();
 				if(isInsideInputType) {
 					// input types can only refer to other input types: http://facebook.github.io/graphql/#sec-Input-Objects
 					if(inputObjectTypeDefinition.getNamedTypeDef() != null) {
-						knownInputTypeNames.removeIf(t -> t.name.equals(inputObjectTypeDefinition.getNamedTypeDef().getText()));
+						excludedInputTypeNames.add(inputObjectTypeDefinition.getNamedTypeDef().getText());
+						knownInputTypeNames.removeIf(t -> excludedInputTypeNames.contains(t.name));
 					}
 				}
 				for (JSGraphQLEndpointTypeResult typeResult : knownInputTypeNames) {
 					LookupElementBuilder element = LookupElementBuilder.create(typeResult.name).withIcon(JSGraphQLIcons.Schema.Type);
-					element = withAutoImport(element, typeResult, autoImport);
 					result.addElement(element);
 				}
+				addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.Input, JSGraphQLIcons.Schema.Type, excludedInputTypeNames);
 			} else {
 				// field return type (type, interface, union)
-				for (JSGraphQLEndpointTypeResult typeResult : getAvailableInterfaceNames(completionElement, autoImport)) {
+				for (JSGraphQLEndpointTypeResult typeResult : getAvailableInterfaceNames(completionElement)) {
 					LookupElementBuilder element = LookupElementBuilder.create(typeResult.name).withIcon(JSGraphQLIcons.Schema.Interface);
-					element = withAutoImport(element, typeResult, autoImport);
 					result.addElement(element);
 				}
-				for (JSGraphQLEndpointTypeResult typeResult : getKnownTypeNames(completionElement, autoImport)) {
+				for (JSGraphQLEndpointTypeResult typeResult : getKnownTypeNames(completionElement)) {
 					LookupElementBuilder element = LookupElementBuilder.create(typeResult.name).withIcon(JSGraphQLIcons.Schema.Type);
-					element = withAutoImport(element, typeResult, autoImport);
 					result.addElement(element);
 				}
-				for (JSGraphQLEndpointTypeResult typeResult : getKnownUnionTypeNames(completionElement, autoImport)) {
+				for (JSGraphQLEndpointTypeResult typeResult : getKnownUnionTypeNames(completionElement)) {
 					LookupElementBuilder element = LookupElementBuilder.create(typeResult.name).withIcon(JSGraphQLIcons.Schema.Type);
-					element = withAutoImport(element, typeResult, autoImport);
 					result.addElement(element);
 				}
+				addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.Interface, JSGraphQLIcons.Schema.Interface, getImplementedInterfaceNames(completionElement));
+				addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.ObjectType, JSGraphQLIcons.Schema.Type, Collections.emptySet());
+				addAutoImportCandidates(result, autoImport, JSGraphQLEndpointDefinition.Kind.Union, JSGraphQLIcons.Schema.Type, Collections.emptySet());
 			}
 			return true;
 		}
 		return false;
 	}
 
-	private boolean completeAnnotations(@NotNull CompletionResultSet result, boolean autoImport, PsiFile file, PsiElement completionElement) {
+	private boolean completeAnnotations(@NotNull CompletionResultSet result, PsiFile file, PsiElement completionElement) {
 		final JSGraphQLEndpointFieldDefinition field = PsiTreeUtil.getNextSiblingOfType(completionElement, JSGraphQLEndpointFieldDefinition.class);
 		final JSGraphQLEndpointProperty property = PsiTreeUtil.getNextSiblingOfType(completionElement, JSGraphQLEndpointProperty.class);
 		final JSGraphQLEndpointAnnotation nextAnnotation = PsiTreeUtil.getNextSiblingOfType(completionElement, JSGraphQLEndpointAnnotation.class);
 		final boolean afterAtAnnotation = completionElement.getNode().getElementType() == JSGraphQLEndpointTokenTypes.AT_ANNOTATION;
 		final boolean isTopLevelCompletion = completionElement.getParent() instanceof JSGraphQLEndpointFile;
 		if (afterAtAnnotation || isTopLevelCompletion || field != null || nextAnnotation != null || property != null) {
-			final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(file.getProject());
-			for (JSGraphQLSchemaEndpointAnnotation endpointAnnotation : configurationProvider.getEndpointAnnotations(file)) {
+			for (JSGraphQLSchemaEndpointAnnotation endpointAnnotation : JSGraphQLEndpointAnnotationCatalog.getService(file.getProject()).getAnnotations(file)) {
 				String completion = endpointAnnotation.name;
 				if (!afterAtAnnotation) {
 					completion = "@" + completion;
@@ -338,8 +347,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 		if (annotationArguments != null && leafBeforeCompletion != null) {
 			final JSGraphQLEndpointAnnotation annotation = PsiTreeUtil.getParentOfType(annotationArguments, JSGraphQLEndpointAnnotation.class);
 			if(annotation != null) {
-				final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(file.getProject());
-				for (JSGraphQLSchemaEndpointAnnotation endpointAnnotation : configurationProvider.getEndpointAnnotations(file)) {
+				for (JSGraphQLSchemaEndpointAnnotation endpointAnnotation : JSGraphQLEndpointAnnotationCatalog.getService(file.getProject()).getAnnotations(file)) {
 					if (annotation.getAtAnnotation().getText().equals("@" + endpointAnnotation.name)) {
 						final IElementType elementType = leafBeforeCompletion.getNode().getElementType();
 						if(elementType == JSGraphQLEndpointTokenTypes.LPAREN || elementType == JSGraphQLEndpointTokenTypes.COMMA) {
@@ -419,7 +427,7 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 			final TokenSet skipping = TokenSet.create(JSGraphQLEndpointTokenTypes.LBRACKET);
 			final PsiElement colonBefore = findPreviousLeaf(completionElement, JSGraphQLEndpointTokenTypes.COLON, skipping);
 			if (colonBefore != null) {
-				for (JSGraphQLEndpointTypeResult typeResult : getKnownTypeNames(completionElement, false)) {
+				for (JSGraphQLEndpointTypeResult typeResult : getKnownTypeNames(completionElement)) {
 					LookupElementBuilder element = LookupElementBuilder.create(typeResult.name).withIcon(JSGraphQLIcons.Schema.Type);
 					result.addElement(element);
 				}
@@ -441,12 +449,18 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 		return false;
 	}
 
-	private LookupElementBuilder withAutoImport(LookupElementBuilder element, JSGraphQLEndpointTypeResult typeResult, boolean autoImport) {
-		if(autoImport && typeResult.fileToImport != null) {
-			element = element.withInsertHandler(new JSGraphQLEndpointAutoImportInsertHandler(typeResult.fileToImport));
-			element = element.withTypeText(typeResult.fileToImport.getName(), true);
+	private void addAutoImportCandidates(@NotNull CompletionResultSet result, @Nullable JSGraphQLEndpointAutoImportCandidates autoImport, JSGraphQLEndpointDefinition.Kind kind, @Nullable Icon icon, Set<String> excludedNames) {
+		if(autoImport != null) {
+			for (JSGraphQLEndpointAutoImportCandidates.Candidate candidate : autoImport.getCandidates(kind)) {
+				if(!excludedNames.contains(candidate.name)) {
+					final LookupElementBuilder element = LookupElementBuilder.create(candidate.name)
+							.withIcon(icon)
+							.withInsertHandler(new JSGraphQLEndpointAutoImportInsertHandler(candidate.fileToImport))
+							.withTypeText(candidate.fileToImport.getName(), true);
+					result.addElement(element);
+				}
+			}
 		}
-		return element;
 	}
 
 
@@ -461,39 +475,44 @@ public class JSGraphQLEndpointCompletionContributor extends CompletionContributo
 		return false;
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> getAvailableInterfaceNames(PsiElement implementsToken, boolean autoImport) {
-		final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> available = getKnownInterfaceNames(implementsToken, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> getAvailableInterfaceNames(PsiElement implementsToken) {
+		final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> available = getKnownInterfaceNames(implementsToken);
+		final Set<String> currentInterfaces = getImplementedInterfaceNames(implementsToken);
+		available.removeIf(t -> currentInterfaces.contains(t.name));
+		return available;
+	}
+
+	private Set<String> getImplementedInterfaceNames(PsiElement implementsToken) {
 		final JSGraphQLEndpointImplementsInterfacesImpl implementsInterfaces = PsiTreeUtil.getParentOfType(implementsToken, JSGraphQLEndpointImplementsInterfacesImpl.class);
 		if (implementsInterfaces != null) {
-			final List<String> currentInterfaces = implementsInterfaces.getNamedTypeList().stream().map(type -> type.getIdentifier().getText()).collect(Collectors.toList());
-			available.removeIf(t -> currentInterfaces.contains(t.name));
+			return implementsInterfaces.getNamedTypeList().stream().map(type -> type.getIdentifier().getText()).collect(Collectors.toSet());
 		}
-		return available;
+		return Collections.emptySet();
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> getKnownInterfaceNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointInterfaceTypeDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInterfaceTypeDefinition>> getKnownInterfaceNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointInterfaceTypeDefinition.class, false);
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointObjectTypeDefinition>> getKnownTypeNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointObjectTypeDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointObjectTypeDefinition>> getKnownTypeNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointObjectTypeDefinition.class, false);
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInputObjectTypeDefinition>> getKnownInputTypeNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointInputObjectTypeDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointInputObjectTypeDefinition>> getKnownInputTypeNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointInputObjectTypeDefinition.class, false);
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointEnumTypeDefinition>> getKnownEnumTypeNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointEnumTypeDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointEnumTypeDefinition>> getKnownEnumTypeNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointEnumTypeDefinition.class, false);
 	}
 
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointUnionTypeDefinition>> getKnownUnionTypeNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointUnionTypeDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointUnionTypeDefinition>> getKnownUnionTypeNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointUnionTypeDefinition.class, false);
 	}
 
-	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointAnnotationDefinition>> getKnownAnnotationNames(PsiElement element, boolean autoImport) {
-		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointAnnotationDefinition.class, autoImport);
+	private Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointAnnotationDefinition>> getKnownAnnotationNames(PsiElement element) {
+		return JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(element.getContainingFile(), JSGraphQLEndpointAnnotationDefinition.class, false);
 	}
 
 	private PsiElement findPreviousLeaf(PsiElement start, IElementType typeToFind, TokenSet skipping) {
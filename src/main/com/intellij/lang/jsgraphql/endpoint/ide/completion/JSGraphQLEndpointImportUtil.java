@@ -17,10 +17,14 @@ public class JSGraphQLEndpointImportUtil {
 
 
     public static String getImportName(Project project, PsiFile file) {
+        return getImportName(project, file.getVirtualFile());
+    }
+
+    public static String getImportName(Project project, VirtualFile file) {
         final VirtualFile entryFile = JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile();
         final VirtualFile entryFileDir = entryFile != null ? entryFile.getParent() : null;
         final String name = StringUtils.substringBeforeLast(file.getName(), ".");
-        return getImportName(entryFileDir, file.getVirtualFile(), name);
+        return getImportName(entryFileDir, file, name);
     }
 
     public static String getImportName(VirtualFile entryFileDir, VirtualFile virtualFile, String name) {
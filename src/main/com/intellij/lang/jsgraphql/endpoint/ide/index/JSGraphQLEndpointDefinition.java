@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import com.intellij.lang.jsgraphql.endpoint.psi.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A named type definition in an Endpoint Language file as recorded in the endpoint indexes, e.g. 'type User implements Node'
+ */
+public class JSGraphQLEndpointDefinition {
+
+    public enum Kind {
+        ObjectType(JSGraphQLEndpointObjectTypeDefinition.class),
+        Interface(JSGraphQLEndpointInterfaceTypeDefinition.class),
+        Input(JSGraphQLEndpointInputObjectTypeDefinition.class),
+        Enum(JSGraphQLEndpointEnumTypeDefinition.class),
+        Union(JSGraphQLEndpointUnionTypeDefinition.class),
+        Scalar(JSGraphQLEndpointScalarTypeDefinition.class),
+        Annotation(JSGraphQLEndpointAnnotationDefinition.class);
+
+        private final Class<? extends JSGraphQLEndpointNamedTypeDefinition> psiClass;
+
+        Kind(Class<? extends JSGraphQLEndpointNamedTypeDefinition> psiClass) {
+            this.psiClass = psiClass;
+        }
+
+        /**
+         * @return whether definitions of this kind are parsed as the specified PSI class, e.g. {@link JSGraphQLEndpointNamedTypeDefinition} for all kinds
+         */
+        public boolean isInstanceOf(@NotNull Class<? extends JSGraphQLEndpointNamedTypeDefinition> psiDefinitionClass) {
+            return psiDefinitionClass.isAssignableFrom(psiClass);
+        }
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final List<String> implementedInterfaces;
+    private final int offset;
+    private final Map<String, Integer> fieldOffsets;
+    private final Map<String, Integer> fieldSignatures;
+
+    public JSGraphQLEndpointDefinition(@NotNull String name,
+                                       @NotNull Kind kind,
+                                       @NotNull List<String> implementedInterfaces,
+                                       int offset,
+                                       @NotNull Map<String, Integer> fieldOffsets,
+                                       @NotNull Map<String, Integer> fieldSignatures) {
+        this.name = name;
+        this.kind = kind;
+        this.implementedInterfaces = Collections.unmodifiableList(implementedInterfaces);
+        this.offset = offset;
+        this.fieldOffsets = Collections.unmodifiableMap(fieldOffsets);
+        this.fieldSignatures = Collections.unmodifiableMap(fieldSignatures);
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    @NotNull
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the interfaces that an object type implements, e.g. 'Node' for 'type User implements Node'
+     */
+    @NotNull
+    public List<String> getImplementedInterfaces() {
+        return implementedInterfaces;
+    }
+
+    /**
+     * @return the offset of the definition name in the indexed file
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the fields of an interface or an object type that implements interfaces, such that field overrides can be found without
+     * loading the PSI. The fields of other definitions are not recorded.
+     * @return the offsets of the field names in the indexed file by field name, in declaration order
+     */
+    @NotNull
+    public Map<String, Integer> getFieldOffsets() {
+        return fieldOffsets;
+    }
+
+    /**
+     * Gets the signature fingerprints of the fields returned by {@link #getFieldOffsets()}. Two fields have the same fingerprint when
+     * their names, arguments and types are the same, ignoring whitespace, commas, comments and annotations.
+     * @return the signature fingerprints by field name
+     */
+    @NotNull
+    public Map<String, Integer> getFieldSignatures() {
+        return fieldSignatures;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JSGraphQLEndpointDefinition that = (JSGraphQLEndpointDefinition) o;
+        return offset == that.offset &&
+                name.equals(that.name) &&
+                kind == that.kind &&
+                implementedInterfaces.equals(that.implementedInterfaces) &&
+                fieldOffsets.equals(that.fieldOffsets) &&
+                fieldSignatures.equals(that.fieldSignatures);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, kind, implementedInterfaces, offset, fieldOffsets, fieldSignatures);
+    }
+
+    @Override
+    public String toString() {
+        return "JSGraphQLEndpointDefinition{" +
+                "name='" + name + '\'' +
+                ", kind=" + kind +
+                ", implementedInterfaces=" + implementedInterfaces +
+                ", offset=" + offset +
+                ", fieldOffsets=" + fieldOffsets +
+                ", fieldSignatures=" + fieldSignatures +
+                '}';
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
+import com.intellij.openapi.util.Key;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for the indexes of named type definitions in Endpoint Language files.
+ * Each index maps its keys, e.g. type names, to the definitions in a file that have the key.
+ *
+ * @see JSGraphQLEndpointDefinitionScanner
+ */
+public abstract class JSGraphQLEndpointDefinitionIndexBase extends FileBasedIndexExtension<String, List<JSGraphQLEndpointDefinition>> {
+
+    private static final int VERSION = 3;
+
+    // the endpoint indexes process the same file content, so each file is only scanned once
+    private static final Key<JSGraphQLEndpointDefinitionScanner> SCANNED_FILE = Key.create("JSGraphQL.endpoint.indexed.file");
+
+    private final DataIndexer<String, List<JSGraphQLEndpointDefinition>, FileContent> indexer = inputData -> {
+        final Map<String, List<JSGraphQLEndpointDefinition>> result = Maps.newHashMap();
+        for (JSGraphQLEndpointDefinition definition : getScannedFile(inputData).getDefinitions()) {
+            for (String key : getKeys(definition)) {
+                result.computeIfAbsent(key, k -> Lists.newArrayListWithExpectedSize(1)).add(definition);
+            }
+        }
+        return result;
+    };
+
+    /**
+     * @return the keys that the definition is indexed by in this index
+     */
+    @NotNull
+    protected abstract Collection<String> getKeys(@NotNull JSGraphQLEndpointDefinition definition);
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<JSGraphQLEndpointDefinition>, FileContent> getIndexer() {
+        return indexer;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<JSGraphQLEndpointDefinition>> getValueExternalizer() {
+        return DefinitionsExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JSGraphQLEndpointFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @NotNull
+    static JSGraphQLEndpointDefinitionScanner getScannedFile(@NotNull FileContent inputData) {
+        JSGraphQLEndpointDefinitionScanner scannedFile = inputData.getUserData(SCANNED_FILE);
+        if (scannedFile == null) {
+            scannedFile = JSGraphQLEndpointDefinitionScanner.scan(inputData.getContentAsText());
+            inputData.putUserData(SCANNED_FILE, scannedFile);
+        }
+        return scannedFile;
+    }
+
+    private static class DefinitionsExternalizer implements DataExternalizer<List<JSGraphQLEndpointDefinition>> {
+
+        static final DefinitionsExternalizer INSTANCE = new DefinitionsExternalizer();
+
+        private static final JSGraphQLEndpointDefinition.Kind[] KINDS = JSGraphQLEndpointDefinition.Kind.values();
+
+        @Override
+        public void save(@NotNull DataOutput out, List<JSGraphQLEndpointDefinition> definitions) throws IOException {
+            DataInputOutputUtil.writeINT(out, definitions.size());
+            for (JSGraphQLEndpointDefinition definition : definitions) {
+                IOUtil.writeUTF(out, definition.getName());
+                DataInputOutputUtil.writeINT(out, definition.getKind().ordinal());
+                final List<String> implementedInterfaces = definition.getImplementedInterfaces();
+                DataInputOutputUtil.writeINT(out, implementedInterfaces.size());
+                for (String implementedInterface : implementedInterfaces) {
+                    IOUtil.writeUTF(out, implementedInterface);
+                }
+                DataInputOutputUtil.writeINT(out, definition.getOffset());
+                final Map<String, Integer> fieldOffsets = definition.getFieldOffsets();
+                final Map<String, Integer> fieldSignatures = definition.getFieldSignatures();
+                DataInputOutputUtil.writeINT(out, fieldOffsets.size());
+                for (Map.Entry<String, Integer> fieldOffset : fieldOffsets.entrySet()) {
+                    IOUtil.writeUTF(out, fieldOffset.getKey());
+                    DataInputOutputUtil.writeINT(out, fieldOffset.getValue());
+                    out.writeInt(fieldSignatures.getOrDefault(fieldOffset.getKey(), 0));
+                }
+            }
+        }
+
+        @Override
+        public List<JSGraphQLEndpointDefinition> read(@NotNull DataInput in) throws IOException {
+            final int size = DataInputOutputUtil.readINT(in);
+            final List<JSGraphQLEndpointDefinition> definitions = Lists.newArrayListWithExpectedSize(size);
+            for (int i = 0; i < size; i++) {
+                final String name = IOUtil.readUTF(in);
+                final JSGraphQLEndpointDefinition.Kind kind = KINDS[DataInputOutputUtil.readINT(in)];
+                final int interfaceCount = DataInputOutputUtil.readINT(in);
+                final List<String> implementedInterfaces = Lists.newArrayListWithExpectedSize(interfaceCount);
+                for (int n = 0; n < interfaceCount; n++) {
+                    implementedInterfaces.add(IOUtil.readUTF(in));
+                }
+                final int offset = DataInputOutputUtil.readINT(in);
+                final int fieldCount = DataInputOutputUtil.readINT(in);
+                final Map<String, Integer> fieldOffsets = fieldCount == 0 ? Collections.emptyMap() : Maps.newLinkedHashMap();
+                final Map<String, Integer> fieldSignatures = fieldCount == 0 ? Collections.emptyMap() : Maps.newHashMap();
+                for (int n = 0; n < fieldCount; n++) {
+                    final String fieldName = IOUtil.readUTF(in);
+                    fieldOffsets.put(fieldName, DataInputOutputUtil.readINT(in));
+                    fieldSignatures.put(fieldName, in.readInt());
+                }
+                definitions.add(new JSGraphQLEndpointDefinition(name, kind, implementedInterfaces, offset, fieldOffsets, fieldSignatures));
+            }
+            return definitions;
+        }
+    }
+}
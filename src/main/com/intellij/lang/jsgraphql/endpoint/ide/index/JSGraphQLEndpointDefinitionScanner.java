@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.endpoint.lexer.JSGraphQLEndpointLexer;
+import com.intellij.lexer.FlexAdapter;
+import com.intellij.lexer.Lexer;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypes.*;
+
+/**
+ * Finds the named type definitions and import declarations in an Endpoint Language file using the lexer only,
+ * such that the endpoint indexes don't have to build a PSI tree.
+ */
+public class JSGraphQLEndpointDefinitionScanner {
+
+    private final Lexer lexer;
+    private final List<JSGraphQLEndpointDefinition> definitions = Lists.newArrayList();
+    private final List<JSGraphQLEndpointImport> imports = Lists.newArrayList();
+
+    private JSGraphQLEndpointDefinitionScanner(CharSequence text) {
+        this.lexer = new FlexAdapter(new JSGraphQLEndpointLexer());
+        this.lexer.start(text);
+    }
+
+    /**
+     * Scans the text of an Endpoint Language file
+     */
+    @NotNull
+    public static JSGraphQLEndpointDefinitionScanner scan(@NotNull CharSequence text) {
+        final JSGraphQLEndpointDefinitionScanner scanner = new JSGraphQLEndpointDefinitionScanner(text);
+        scanner.scan();
+        return scanner;
+    }
+
+    /**
+     * @return the named type definitions in file order
+     */
+    @NotNull
+    public List<JSGraphQLEndpointDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * @return the import declarations in file order
+     */
+    @NotNull
+    public List<JSGraphQLEndpointImport> getImports() {
+        return imports;
+    }
+
+    // ---- implementation ----
+
+    private void scan() {
+        int depth = 0;
+        IElementType tokenType = skipIgnoredTokens();
+        while (tokenType != null) {
+            if (tokenType == LBRACE || tokenType == LPAREN || tokenType == LBRACKET) {
+                depth++;
+            } else if (tokenType == RBRACE || tokenType == RPAREN || tokenType == RBRACKET) {
+                depth = Math.max(0, depth - 1);
+            } else if (depth == 0) {
+                final JSGraphQLEndpointDefinition.Kind kind = getDefinitionKind(tokenType);
+                if (kind != null) {
+                    tokenType = scanDefinition(kind);
+                    continue;
+                }
+                if (tokenType == IMPORT) {
+                    tokenType = scanImport();
+                    continue;
+                }
+            }
+            tokenType = nextToken();
+        }
+    }
+
+    private IElementType scanDefinition(JSGraphQLEndpointDefinition.Kind kind) {
+        IElementType tokenType = nextToken();
+        if (tokenType != IDENTIFIER) {
+            return tokenType;
+        }
+        final String name = lexer.getTokenText();
+        final int offset = lexer.getTokenStart();
+        List<String> implementedInterfaces = Collections.emptyList();
+        tokenType = nextToken();
+        if (tokenType == IMPLEMENTS) {
+            implementedInterfaces = Lists.newArrayListWithExpectedSize(1);
+            tokenType = nextToken();
+            while (tokenType == IDENTIFIER || tokenType == COMMA) {
+                if (tokenType == IDENTIFIER) {
+                    implementedInterfaces.add(lexer.getTokenText());
+                }
+                tokenType = nextToken();
+            }
+        }
+        Map<String, Integer> fieldOffsets = Collections.emptyMap();
+        Map<String, Integer> fieldSignatures = Collections.emptyMap();
+        if ((kind == JSGraphQLEndpointDefinition.Kind.Interface || !implementedInterfaces.isEmpty()) && tokenType == LBRACE) {
+            // record the interface fields and the fields that can override them
+            fieldOffsets = Maps.newLinkedHashMap();
+            fieldSignatures = Maps.newHashMap();
+            tokenType = scanFieldDefinitionSet(fieldOffsets, fieldSignatures);
+        }
+        definitions.add(new JSGraphQLEndpointDefinition(name, kind, implementedInterfaces, offset, fieldOffsets, fieldSignatures));
+        return tokenType;
+    }
+
+    /**
+     * Scans the fields of a type, starting at the opening brace
+     * @return the token after the closing brace
+     */
+    private IElementType scanFieldDefinitionSet(Map<String, Integer> fieldOffsets, Map<String, Integer> fieldSignatures) {
+        int depth = 1;
+        IElementType previousTokenType = null;
+        String fieldName = null;
+        StringBuilder signature = null;
+        IElementType tokenType = nextToken();
+        while (tokenType != null) {
+            if (tokenType == AT_ANNOTATION) {
+                // annotations are not part of the signature and don't end the field they're placed on
+                tokenType = skipAnnotation();
+                continue;
+            }
+            if (tokenType == LBRACE || tokenType == LPAREN || tokenType == LBRACKET) {
+                depth++;
+            } else if (tokenType == RBRACE || tokenType == RPAREN || tokenType == RBRACKET) {
+                depth--;
+                if (depth == 0) {
+                    if (fieldName != null) {
+                        fieldSignatures.putIfAbsent(fieldName, signature.toString().hashCode());
+                    }
+                    return nextToken();
+                }
+            } else if (depth == 1 && tokenType == IDENTIFIER && previousTokenType != COLON) {
+                // an identifier that isn't the type after the colon is the field name
+                if (fieldName != null) {
+                    fieldSignatures.putIfAbsent(fieldName, signature.toString().hashCode());
+                }
+                fieldName = lexer.getTokenText();
+                signature = new StringBuilder();
+                fieldOffsets.putIfAbsent(fieldName, lexer.getTokenStart());
+            }
+            if (signature != null && tokenType != COMMA) {
+                // commas are insignificant, so '(a: Int, b: Int)' and '(a: Int b: Int)' have the same signature
+                signature.append(lexer.getTokenText()).append(' ');
+            }
+            if (depth == 1) {
+                previousTokenType = tokenType;
+            }
+            tokenType = nextToken();
+        }
+        if (fieldName != null) {
+            // incomplete type at the end of the file
+            fieldSignatures.putIfAbsent(fieldName, signature.toString().hashCode());
+        }
+        return null;
+    }
+
+    /**
+     * Skips an annotation and its arguments, starting at the annotation name
+     * @return the token after the annotation
+     */
+    private IElementType skipAnnotation() {
+        IElementType tokenType = nextToken();
+        if (tokenType != LPAREN) {
+            return tokenType;
+        }
+        int depth = 0;
+        while (tokenType != null) {
+            if (tokenType == LBRACE || tokenType == LPAREN || tokenType == LBRACKET) {
+                depth++;
+            } else if (tokenType == RBRACE || tokenType == RPAREN || tokenType == RBRACKET) {
+                depth--;
+                if (depth == 0) {
+                    return nextToken();
+                }
+            }
+            tokenType = nextToken();
+        }
+        return null;
+    }
+
+    private IElementType scanImport() {
+        IElementType tokenType = nextToken();
+        if (tokenType == OPEN_QUOTE) {
+            tokenType = nextToken();
+            if (tokenType == STRING_BODY) {
+                imports.add(new JSGraphQLEndpointImport(lexer.getTokenText(), lexer.getTokenStart()));
+                tokenType = nextToken();
+            }
+        }
+        return tokenType;
+    }
+
+    private static JSGraphQLEndpointDefinition.Kind getDefinitionKind(IElementType tokenType) {
+        if (tokenType == TYPE) {
+            return JSGraphQLEndpointDefinition.Kind.ObjectType;
+        } else if (tokenType == INTERFACE) {
+            return JSGraphQLEndpointDefinition.Kind.Interface;
+        } else if (tokenType == INPUT) {
+            return JSGraphQLEndpointDefinition.Kind.Input;
+        } else if (tokenType == ENUM) {
+            return JSGraphQLEndpointDefinition.Kind.Enum;
+        } else if (tokenType == UNION) {
+            return JSGraphQLEndpointDefinition.Kind.Union;
+        } else if (tokenType == SCALAR) {
+            return JSGraphQLEndpointDefinition.Kind.Scalar;
+        } else if (tokenType == ANNOTATION_DEF) {
+            return JSGraphQLEndpointDefinition.Kind.Annotation;
+        }
+        return null;
+    }
+
+    /**
+     * Advances to the next token that isn't whitespace or a comment
+     * @return the token type, or <code>null</code> at the end of the file
+     */
+    private IElementType nextToken() {
+        lexer.advance();
+        return skipIgnoredTokens();
+    }
+
+    private IElementType skipIgnoredTokens() {
+        IElementType tokenType = lexer.getTokenType();
+        while (tokenType == TokenType.WHITE_SPACE || tokenType == LINE_COMMENT) {
+            lexer.advance();
+            tokenType = lexer.getTokenType();
+        }
+        return tokenType;
+    }
+}
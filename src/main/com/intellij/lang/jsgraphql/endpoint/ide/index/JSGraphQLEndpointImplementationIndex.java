@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Indexes Endpoint Language type definitions by the interfaces they implement, e.g. 'Node' for 'type User implements Node'
+ */
+public class JSGraphQLEndpointImplementationIndex extends JSGraphQLEndpointDefinitionIndexBase {
+
+    public static final ID<String, List<JSGraphQLEndpointDefinition>> NAME = ID.create("JSGraphQLEndpointImplementationIndex");
+
+    @NotNull
+    @Override
+    public ID<String, List<JSGraphQLEndpointDefinition>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    protected Collection<String> getKeys(@NotNull JSGraphQLEndpointDefinition definition) {
+        return definition.getImplementedInterfaces();
+    }
+}
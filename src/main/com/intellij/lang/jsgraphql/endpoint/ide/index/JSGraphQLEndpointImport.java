@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * An import declaration in an Endpoint Language file as found by the definition scanner, e.g. 'import "types/User"'
+ */
+public class JSGraphQLEndpointImport {
+
+    private final String fileName;
+    private final int offset;
+
+    public JSGraphQLEndpointImport(@NotNull String fileName, int offset) {
+        this.fileName = fileName;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the imported file name relative to the entry file and without extension, e.g. 'types/User'
+     */
+    @NotNull
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return the offset of the file name in the indexed file
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JSGraphQLEndpointImport that = (JSGraphQLEndpointImport) o;
+        return offset == that.offset && fileName.equals(that.fileName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fileName, offset);
+    }
+
+    @Override
+    public String toString() {
+        return "JSGraphQLEndpointImport{" +
+                "fileName='" + fileName + '\'' +
+                ", offset=" + offset +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.index;
+
+import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointNamedTypeDef;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointNamedTypeDefinition;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointProperty;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.PairProcessor;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Queries the Endpoint Language indexes and maps the indexed definitions back to PSI on demand
+ */
+public class JSGraphQLEndpointIndexUtil {
+
+    /**
+     * Processes the indexed definitions with the specified key, e.g. a type name
+     *
+     * @return false if the processor stopped the processing
+     */
+    public static boolean processDefinitions(@NotNull ID<String, List<JSGraphQLEndpointDefinition>> indexId,
+                                             @NotNull String key,
+                                             @NotNull GlobalSearchScope scope,
+                                             @NotNull PairProcessor<VirtualFile, JSGraphQLEndpointDefinition> processor) {
+        return FileBasedIndex.getInstance().processValues(indexId, key, null, (file, definitions) -> {
+            for (JSGraphQLEndpointDefinition definition : definitions) {
+                if (!processor.process(file, definition)) {
+                    return false;
+                }
+            }
+            return true;
+        }, scope);
+    }
+
+    /**
+     * Processes the keys of all indexed definitions in the specified scope
+     *
+     * @return false if the processor stopped the processing
+     */
+    public static boolean processKeys(@NotNull ID<String, List<JSGraphQLEndpointDefinition>> indexId,
+                                      @NotNull GlobalSearchScope scope,
+                                      @NotNull Processor<String> processor) {
+        return FileBasedIndex.getInstance().processAllKeys(indexId, processor, scope, null);
+    }
+
+    /**
+     * Resolves an imported file name, which is always relative to the directory of the endpoint entry file
+     *
+     * @param fileName the file name as written in the import declaration, i.e. without the file extension
+     * @return the imported file, or <code>null</code> if it doesn't exist
+     */
+    @Nullable
+    public static VirtualFile resolveImport(@NotNull Project project, @NotNull String fileName) {
+        final VirtualFile entryFile = JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile();
+        if (entryFile != null && entryFile.getParent() != null) {
+            if (fileName.startsWith(".") || fileName.startsWith("/")) {
+                // we're always relative to the entry file, so return null in case a relative-to-current-file is attempted
+                return null;
+            }
+            return entryFile.getParent().findFileByRelativePath(fileName + "." + JSGraphQLEndpointFileType.INSTANCE.getDefaultExtension());
+        }
+        return null;
+    }
+
+    /**
+     * Gets the PSI definition of an indexed definition
+     *
+     * @return the definition, or <code>null</code> if it is no longer present at the indexed offset or isn't an instance of the specified class
+     */
+    @Nullable
+    public static <T extends JSGraphQLEndpointNamedTypeDefinition> T findDefinitionElement(@NotNull PsiFile psiFile,
+                                                                                           @NotNull JSGraphQLEndpointDefinition definition,
+                                                                                           @NotNull Class<T> psiDefinitionClass) {
+        final PsiElement elementAtOffset = psiFile.findElementAt(definition.getOffset());
+        final T definitionElement = PsiTreeUtil.getParentOfType(elementAtOffset, psiDefinitionClass, false);
+        if (definitionElement != null) {
+            final JSGraphQLEndpointNamedTypeDef namedTypeDef = definitionElement.getNamedTypeDef();
+            if (namedTypeDef != null && definition.getName().equals(namedTypeDef.getText())) {
+                return definitionElement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the PSI property of an indexed field
+     *
+     * @return the property, or <code>null</code> if it is no longer present at the indexed offset
+     * @see JSGraphQLEndpointDefinition#getFieldOffsets()
+     */
+    @Nullable
+    public static JSGraphQLEndpointProperty findFieldElement(@NotNull PsiFile psiFile, @NotNull String fieldName, int fieldOffset) {
+        final PsiElement elementAtOffset = psiFile.findElementAt(fieldOffset);
+        final JSGraphQLEndpointProperty property = PsiTreeUtil.getParentOfType(elementAtOffset, JSGraphQLEndpointProperty.class, false);
+        if (property != null && fieldName.equals(property.getName())) {
+            return property;
+        }
+        return null;
+    }
+}
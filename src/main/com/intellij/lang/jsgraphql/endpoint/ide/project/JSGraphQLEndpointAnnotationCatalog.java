@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.project;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointAnnotationDefinition;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointArgumentsDefinition;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointInputValueDefinition;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLSchemaEndpointAnnotation;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLSchemaEndpointAnnotationArgument;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The annotations that can be used in an Endpoint Language file, i.e. the annotations in graphql.config.json followed by the
+ * annotation definitions in the file and the files it imports.
+ * <p>
+ * The configured annotations are only re-read when the config file changes, and the annotation definitions of each file are cached
+ * against the modification stamp of that file, so the annotator and completion don't re-read the config or rescan the imports.
+ */
+public class JSGraphQLEndpointAnnotationCatalog {
+
+    private final Project project;
+
+    public static JSGraphQLEndpointAnnotationCatalog getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLEndpointAnnotationCatalog.class);
+    }
+
+    public JSGraphQLEndpointAnnotationCatalog(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Gets the annotations that can be used in the specified file
+     */
+    @NotNull
+    public List<JSGraphQLSchemaEndpointAnnotation> getAnnotations(@NotNull PsiFile file) {
+        final List<JSGraphQLSchemaEndpointAnnotation> annotations = Lists.newArrayList(JSGraphQLConfigurationProvider.getService(project).getConfiguredEndpointAnnotations());
+        for (PsiFile knownFile : JSGraphQLEndpointImportGraph.getService(project).getImportClosure(file).getFiles()) {
+            annotations.addAll(getFileAnnotations(knownFile));
+        }
+        return annotations;
+    }
+
+    // ---- implementation ----
+
+    private static List<JSGraphQLSchemaEndpointAnnotation> getFileAnnotations(PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(computeFileAnnotations(file), file));
+    }
+
+    private static List<JSGraphQLSchemaEndpointAnnotation> computeFileAnnotations(PsiFile file) {
+        final List<JSGraphQLSchemaEndpointAnnotation> annotations = Lists.newArrayList();
+        for (List<JSGraphQLEndpointDefinition> definitions : JSGraphQLEndpointImportGraph.getService(file.getProject()).getFileDefinitions(file).values()) {
+            for (JSGraphQLEndpointDefinition definition : definitions) {
+                if (definition.getKind() != JSGraphQLEndpointDefinition.Kind.Annotation) {
+                    continue;
+                }
+                final JSGraphQLSchemaEndpointAnnotation annotation = new JSGraphQLSchemaEndpointAnnotation();
+                annotation.name = definition.getName();
+                final JSGraphQLEndpointAnnotationDefinition annotationDefinition = JSGraphQLEndpointIndexUtil.findDefinitionElement(file, definition, JSGraphQLEndpointAnnotationDefinition.class);
+                final JSGraphQLEndpointArgumentsDefinition argumentsDefinition = annotationDefinition != null ? annotationDefinition.getArgumentsDefinition() : null;
+                if (argumentsDefinition != null && argumentsDefinition.getInputValueDefinitions() != null) {
+                    for (JSGraphQLEndpointInputValueDefinition argument : argumentsDefinition.getInputValueDefinitions().getInputValueDefinitionList()) {
+                        final JSGraphQLSchemaEndpointAnnotationArgument argumentConfig = new JSGraphQLSchemaEndpointAnnotationArgument();
+                        argumentConfig.name = argument.getInputValueDefinitionIdentifier().getText();
+                        if (argument.getCompositeType() != null) {
+                            argumentConfig.type = argument.getCompositeType().getText();
+                        }
+                        annotation.arguments.add(argumentConfig);
+                    }
+                }
+                annotations.add(annotation);
+            }
+        }
+        return Collections.unmodifiableList(annotations);
+    }
+}
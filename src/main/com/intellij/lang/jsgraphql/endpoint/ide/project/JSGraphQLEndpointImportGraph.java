@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.project;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinitionScanner;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointImport;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.*;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the imports of Endpoint Language files and the type definitions that each file declares.
+ * <p>
+ * The definitions of a file are cached against the modification stamp of that file, so an edit to an imported file only rescans
+ * the edited file. The imported files are re-resolved when the importing file changes, or when endpoint files are added,
+ * removed, moved or renamed.
+ */
+public class JSGraphQLEndpointImportGraph {
+
+    private final Project project;
+
+    // changes when the file an import resolves to may have changed
+    private final SimpleModificationTracker importResolutionTracker = new SimpleModificationTracker();
+
+    public static JSGraphQLEndpointImportGraph getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLEndpointImportGraph.class);
+    }
+
+    public JSGraphQLEndpointImportGraph(Project project) {
+        this.project = project;
+        VirtualFileManager.getInstance().addVirtualFileListener(new VirtualFileAdapter() {
+            @Override
+            public void contentsChanged(@NotNull VirtualFileEvent event) {
+                if(JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON.equals(event.getFileName())) {
+                    // the entry file that imports are relative to may have changed
+                    importResolutionTracker.incModificationCount();
+                }
+            }
+
+            @Override
+            public void fileCreated(@NotNull VirtualFileEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
+            @Override
+            public void fileDeleted(@NotNull VirtualFileEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
+            @Override
+            public void fileMoved(@NotNull VirtualFileMoveEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
+            @Override
+            public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
+                if(VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
+                    importResolutionTracker.incModificationCount();
+                }
+            }
+        }, project);
+    }
+
+    /**
+     * Gets the files that the specified file can refer to types in, i.e. the file itself and the files it imports
+     */
+    @NotNull
+    public ImportClosure getImportClosure(@NotNull PsiFile file) {
+        final PsiFile originalFile = file.getOriginalFile();
+        return CachedValuesManager.getCachedValue(originalFile, () -> CachedValueProvider.Result.create(computeImportClosure(originalFile), originalFile, importResolutionTracker));
+    }
+
+    /**
+     * Gets the type definitions declared in a file by name, in file order
+     */
+    @NotNull
+    public Map<String, List<JSGraphQLEndpointDefinition>> getFileDefinitions(@NotNull PsiFile file) {
+        return getScannedFile(file).definitions;
+    }
+
+    // ---- implementation ----
+
+    private ImportClosure computeImportClosure(PsiFile file) {
+        final List<PsiFile> files = Lists.newArrayList(file);
+        final PsiManager psiManager = PsiManager.getInstance(project);
+        for (JSGraphQLEndpointImport endpointImport : getScannedFile(file).imports) {
+            final VirtualFile importedFile = JSGraphQLEndpointIndexUtil.resolveImport(project, endpointImport.getFileName());
+            if(importedFile != null && importedFile.getFileType() == JSGraphQLEndpointFileType.INSTANCE) {
+                final PsiFile importedPsiFile = psiManager.findFile(importedFile);
+                if(importedPsiFile != null && !files.contains(importedPsiFile)) {
+                    files.add(importedPsiFile);
+                }
+            }
+        }
+        return new ImportClosure(files);
+    }
+
+    private static ScannedFile getScannedFile(PsiFile file) {
+        // scans the text of the file rather than the PSI tree, which doesn't have to be loaded for imported files
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(new ScannedFile(JSGraphQLEndpointDefinitionScanner.scan(file.getViewProvider().getContents())), file));
+    }
+
+    private void onFileAddedOrRemoved(VirtualFile file) {
+        if(file.isDirectory() || file.getFileType() == JSGraphQLEndpointFileType.INSTANCE) {
+            importResolutionTracker.incModificationCount();
+        }
+    }
+
+    private static class ScannedFile {
+
+        final Map<String, List<JSGraphQLEndpointDefinition>> definitions;
+        final List<JSGraphQLEndpointImport> imports;
+
+        ScannedFile(JSGraphQLEndpointDefinitionScanner scanner) {
+            final Map<String, List<JSGraphQLEndpointDefinition>> definitionsByName = Maps.newLinkedHashMap();
+            for (JSGraphQLEndpointDefinition definition : scanner.getDefinitions()) {
+                definitionsByName.computeIfAbsent(definition.getName(), name -> Lists.newArrayListWithExpectedSize(1)).add(definition);
+            }
+            this.definitions = Collections.unmodifiableMap(definitionsByName);
+            this.imports = scanner.getImports();
+        }
+    }
+
+    /**
+     * The files that an endpoint file can refer to types in
+     */
+    public static class ImportClosure {
+
+        private final List<PsiFile> files;
+
+        ImportClosure(List<PsiFile> files) {
+            this.files = Collections.unmodifiableList(files);
+        }
+
+        /**
+         * @return the importing file followed by the files it imports, in import order
+         */
+        @NotNull
+        public List<PsiFile> getFiles() {
+            return files;
+        }
+
+        /**
+         * @return whether the specified file is the importing file or one of its imports
+         */
+        public boolean contains(@NotNull VirtualFile virtualFile) {
+            for (PsiFile file : files) {
+                if(virtualFile.equals(file.getVirtualFile())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
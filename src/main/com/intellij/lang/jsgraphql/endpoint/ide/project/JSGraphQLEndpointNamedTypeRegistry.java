@@ -7,37 +7,47 @@
  */
 package com.intellij.lang.jsgraphql.endpoint.ide.project;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
 import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLElementType;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLNamedType;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLNamedTypeRegistry;
-import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLPropertyType;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.*;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
-import com.intellij.psi.impl.AnyPsiChangeListener;
-import com.intellij.psi.impl.PsiManagerImpl;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
 /**
  * Registry for resolving references to PSI Elements in the Endpoint language.
+ * <p>
+ * The types declared by each endpoint file are cached against the modification stamp of that file, and the registry merges the
+ * per-file types. An edit to an endpoint file only recomputes the types of that file, and edits to other files don't affect the registry.
  */
 public class JSGraphQLEndpointNamedTypeRegistry implements JSGraphQLNamedTypeRegistry {
 
     private final JSGraphQLConfigurationProvider configurationProvider;
     private final Project project;
 
-    private final Map<Project, Map<String, JSGraphQLNamedType>> endpointTypesByName = Maps.newConcurrentMap();
-    private final Map<Project, PsiFile> endpointEntryPsiFile = Maps.newConcurrentMap();
+    // the endpoint files that contribute types, which only change when files are added, removed, moved or renamed
+    private volatile EndpointFiles endpointFiles;
+
+    // the merge of the per-file types that was last computed
+    private volatile MergedNamedTypes mergedNamedTypes;
 
     public static JSGraphQLEndpointNamedTypeRegistry getService(@NotNull Project project) {
         return ServiceManager.getService(project, JSGraphQLEndpointNamedTypeRegistry.class);
@@ -46,14 +56,30 @@ public class JSGraphQLEndpointNamedTypeRegistry implements JSGraphQLNamedTypeReg
     public JSGraphQLEndpointNamedTypeRegistry(Project project) {
         this.project = project;
         this.configurationProvider = JSGraphQLConfigurationProvider.getService(project);
-        project.getMessageBus().connect().subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener.Adapter() {
+        VirtualFileManager.getInstance().addVirtualFileListener(new VirtualFileAdapter() {
+            @Override
+            public void fileCreated(@NotNull VirtualFileEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
+            @Override
+            public void fileDeleted(@NotNull VirtualFileEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
+            @Override
+            public void fileMoved(@NotNull VirtualFileMoveEvent event) {
+                onFileAddedOrRemoved(event.getFile());
+            }
+
             @Override
-            public void beforePsiChanged(boolean isPhysical) {
-                // clear the cache on each PSI change
-                endpointTypesByName.clear();
-                endpointEntryPsiFile.clear();
+            public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
+                if(VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
+                    // a rename can change the file type
+                    endpointFiles = null;
+                }
             }
-        });
+        }, project);
     }
 
     public boolean hasEndpointEntryFile() {
@@ -61,13 +87,11 @@ public class JSGraphQLEndpointNamedTypeRegistry implements JSGraphQLNamedTypeReg
     }
 
     private PsiFile getEndpointEntryPsiFile() {
-        return endpointEntryPsiFile.computeIfAbsent(project, p -> {
-            final VirtualFile endpointEntryFile = configurationProvider.getEndpointEntryFile();
-            if (endpointEntryFile != null) {
-                return PsiManager.getInstance(project).findFile(endpointEntryFile);
-            }
-            return null;
-        });
+        final VirtualFile endpointEntryFile = configurationProvider.getEndpointEntryFile();
+        if (endpointEntryFile != null && endpointEntryFile.isValid()) {
+            return PsiManager.getInstance(project).findFile(endpointEntryFile);
+        }
+        return null;
     }
 
     @Override
@@ -80,57 +104,135 @@ public class JSGraphQLEndpointNamedTypeRegistry implements JSGraphQLNamedTypeReg
     }
 
     private Map<String, JSGraphQLNamedType> computeNamedTypes() {
-        return endpointTypesByName.computeIfAbsent(project, p -> {
-            final Map<String, JSGraphQLNamedType> result = Maps.newConcurrentMap();
-            final PsiFile entryPsiFile = getEndpointEntryPsiFile();
-            if (entryPsiFile != null) {
-                Collection<JSGraphQLEndpointNamedTypeDefinition> endpointNamedTypeDefinitions = JSGraphQLEndpointPsiUtil.getKnownDefinitions(
-                        entryPsiFile,
-                        JSGraphQLEndpointNamedTypeDefinition.class,
-                        true,
-                        null
-                );
-                for (JSGraphQLEndpointNamedTypeDefinition typeDefinition : endpointNamedTypeDefinitions) {
-                    if (typeDefinition.getNamedTypeDef() != null) {
-                        final String typeName = typeDefinition.getNamedTypeDef().getText();
-                        final JSGraphQLNamedType namedType = new JSGraphQLNamedType(typeDefinition, typeDefinition.getNamedTypeDef());
-                        final JSGraphQLEndpointFieldDefinitionSet fieldDefinitionSet = PsiTreeUtil.findChildOfType(typeDefinition, JSGraphQLEndpointFieldDefinitionSet.class);
-                        if (fieldDefinitionSet != null) {
-                            final JSGraphQLEndpointFieldDefinition[] fields = PsiTreeUtil.getChildrenOfType(fieldDefinitionSet, JSGraphQLEndpointFieldDefinition.class);
-                            if (fields != null) {
-                                for (JSGraphQLEndpointFieldDefinition field : fields) {
-                                    final JSGraphQLEndpointCompositeType propertyValueType = field.getCompositeType();
-                                    if (propertyValueType != null) {
-                                        String propertyValueTypeName = null;
-                                        if (propertyValueType.getListType() != null) {
-                                            final JSGraphQLEndpointNamedType listItemType = propertyValueType.getListType().getNamedType();
-                                            if (listItemType != null) {
-                                                propertyValueTypeName = listItemType.getText();
-                                            }
-                                        } else if (propertyValueType.getNamedType() != null) {
-                                            propertyValueTypeName = propertyValueType.getNamedType().getText();
-                                        }
-                                        if (propertyValueTypeName != null) {
-                                            namedType.properties.put(
-                                                    field.getProperty().getText(),
-                                                    new JSGraphQLPropertyType(field.getProperty(), namedType, propertyValueTypeName)
-                                            );
-                                        }
+        final List<Map<String, JSGraphQLNamedType>> fileNamedTypes = Lists.newArrayList();
+        for (PsiFile file : getEndpointFiles()) {
+            if (file.isValid()) {
+                fileNamedTypes.add(getFileNamedTypes(file));
+            }
+        }
+        MergedNamedTypes merged = mergedNamedTypes;
+        if (merged == null || !merged.isMergeOf(fileNamedTypes)) {
+            merged = new MergedNamedTypes(fileNamedTypes);
+            mergedNamedTypes = merged;
+        }
+        return merged.namedTypes;
+    }
+
+    /**
+     * Gets the endpoint files that contribute types, which are the entry file followed by the endpoint files that can be imported
+     */
+    private List<PsiFile> getEndpointFiles() {
+        final PsiFile entryPsiFile = getEndpointEntryPsiFile();
+        if (entryPsiFile == null) {
+            return Collections.emptyList();
+        }
+        EndpointFiles files = endpointFiles;
+        if (files == null || !files.entryFile.equals(entryPsiFile)) {
+            final List<PsiFile> psiFiles = Lists.newArrayList(entryPsiFile);
+            final Collection<VirtualFile> knownFiles = FileTypeIndex.getFiles(JSGraphQLEndpointFileType.INSTANCE, JSGraphQLEndpointPsiUtil.getImportScopeFromEntryFile(project, entryPsiFile.getVirtualFile()));
+            final PsiManager psiManager = PsiManager.getInstance(project);
+            for (VirtualFile knownFile : knownFiles) {
+                final PsiFile psiFile = psiManager.findFile(knownFile);
+                if (psiFile != null && !psiFile.equals(entryPsiFile)) {
+                    psiFiles.add(psiFile);
+                }
+            }
+            files = new EndpointFiles(entryPsiFile, psiFiles);
+            endpointFiles = files;
+        }
+        return files.files;
+    }
+
+    /**
+     * Gets the types declared in an endpoint file, which are recomputed only when the file changes
+     */
+    private static Map<String, JSGraphQLNamedType> getFileNamedTypes(PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(computeFileNamedTypes(file), file));
+    }
+
+    private static Map<String, JSGraphQLNamedType> computeFileNamedTypes(PsiFile file) {
+        final Map<String, JSGraphQLNamedType> result = Maps.newLinkedHashMap();
+        for (JSGraphQLEndpointNamedTypeDefinition typeDefinition : PsiTreeUtil.findChildrenOfType(file, JSGraphQLEndpointNamedTypeDefinition.class)) {
+            if (typeDefinition.getNamedTypeDef() != null) {
+                final String typeName = typeDefinition.getNamedTypeDef().getText();
+                final JSGraphQLNamedType namedType = new JSGraphQLNamedType(typeDefinition, typeDefinition.getNamedTypeDef());
+                final JSGraphQLEndpointFieldDefinitionSet fieldDefinitionSet = PsiTreeUtil.findChildOfType(typeDefinition, JSGraphQLEndpointFieldDefinitionSet.class);
+                if (fieldDefinitionSet != null) {
+                    final JSGraphQLEndpointFieldDefinition[] fields = PsiTreeUtil.getChildrenOfType(fieldDefinitionSet, JSGraphQLEndpointFieldDefinition.class);
+                    if (fields != null) {
+                        for (JSGraphQLEndpointFieldDefinition field : fields) {
+                            final JSGraphQLEndpointCompositeType propertyValueType = field.getCompositeType();
+                            if (propertyValueType != null) {
+                                String propertyValueTypeName = null;
+                                if (propertyValueType.getListType() != null) {
+                                    final JSGraphQLEndpointNamedType listItemType = propertyValueType.getListType().getNamedType();
+                                    if (listItemType != null) {
+                                        propertyValueTypeName = listItemType.getText();
                                     }
+                                } else if (propertyValueType.getNamedType() != null) {
+                                    propertyValueTypeName = propertyValueType.getNamedType().getText();
+                                }
+                                if (propertyValueTypeName != null) {
+                                    namedType.addProperty(field.getProperty(), field.getProperty().getText(), propertyValueTypeName);
                                 }
                             }
                         }
-                        result.put(typeName, namedType);
-                        if (JSGraphQLElementType.QUERY_KIND.equals(typeName)) {
-                            // also use Query for anonymous queries that are selection sets
-                            result.put(JSGraphQLElementType.SELECTION_SET_KIND, namedType);
-                        }
                     }
                 }
+                namedType.completeProperties();
+                result.put(typeName, namedType);
+                if (JSGraphQLElementType.QUERY_KIND.equals(typeName)) {
+                    // also use Query for anonymous queries that are selection sets
+                    result.put(JSGraphQLElementType.SELECTION_SET_KIND, namedType);
+                }
             }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void onFileAddedOrRemoved(VirtualFile file) {
+        if (file.isDirectory() || file.getFileType() == JSGraphQLEndpointFileType.INSTANCE) {
+            endpointFiles = null;
+        }
+    }
+
+    private static class EndpointFiles {
+        final PsiFile entryFile;
+        final List<PsiFile> files;
+        EndpointFiles(PsiFile entryFile, List<PsiFile> files) {
+            this.entryFile = entryFile;
+            this.files = files;
+        }
+    }
 
-            return result;
+    private static class MergedNamedTypes {
 
-        });
+        final List<Map<String, JSGraphQLNamedType>> fileNamedTypes;
+        final Map<String, JSGraphQLNamedType> namedTypes;
+
+        MergedNamedTypes(List<Map<String, JSGraphQLNamedType>> fileNamedTypes) {
+            this.fileNamedTypes = fileNamedTypes;
+            final Map<String, JSGraphQLNamedType> merged = Maps.newHashMap();
+            for (Map<String, JSGraphQLNamedType> namedTypes : fileNamedTypes) {
+                // the first declaration wins, starting with the entry file
+                namedTypes.forEach(merged::putIfAbsent);
+            }
+            this.namedTypes = Collections.unmodifiableMap(merged);
+        }
+
+        /**
+         * @return whether this merge was computed from the same per-file types, i.e. none of the files have changed since
+         */
+        boolean isMergeOf(List<Map<String, JSGraphQLNamedType>> otherFileNamedTypes) {
+            if (fileNamedTypes.size() != otherFileNamedTypes.size()) {
+                return false;
+            }
+            for (int i = 0; i < fileNamedTypes.size(); i++) {
+                if (fileNamedTypes.get(i) != otherFileNamedTypes.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
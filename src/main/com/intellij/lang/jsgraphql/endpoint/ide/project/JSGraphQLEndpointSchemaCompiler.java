@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.project;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.lang.jsgraphql.endpoint.doc.psi.JSGraphQLEndpointDocPsiUtil;
+import com.intellij.lang.jsgraphql.endpoint.psi.*;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles the Endpoint Language files of a project into a schema in the GraphQL schema language, such that the schema used for
+ * GraphQL files doesn't depend on the language service.
+ * <p>
+ * The schema contains the definitions of the entry file followed by the definitions of the files it imports, directly or indirectly.
+ * Each file is compiled separately and cached against its modification stamp, so recompiling the schema after an edit only compiles
+ * the edited file. Annotations are specific to the Endpoint Language and are left out.
+ */
+public class JSGraphQLEndpointSchemaCompiler {
+
+    private static final String[] OPERATIONS = {"query", "mutation", "subscription"};
+    private static final String[] DEFAULT_OPERATION_TYPES = {"Query", "Mutation", "Subscription"};
+
+    private final Project project;
+
+    // the number of times a file has been compiled, which only grows by the number of changed files on each compile
+    private final AtomicInteger compiledFileCount = new AtomicInteger();
+
+    public static JSGraphQLEndpointSchemaCompiler getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLEndpointSchemaCompiler.class);
+    }
+
+    public JSGraphQLEndpointSchemaCompiler(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Compiles the schema from the endpoint entry file
+     * @return the schema, or <code>null</code> if the project doesn't have an endpoint entry file
+     */
+    @Nullable
+    public SchemaWithVersionResponse compile() {
+        final VirtualFile entryFile = JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile();
+        if (entryFile == null || !entryFile.isValid()) {
+            return null;
+        }
+        final PsiFile entryPsiFile = PsiManager.getInstance(project).findFile(entryFile);
+        if (!(entryPsiFile instanceof JSGraphQLEndpointFile)) {
+            return null;
+        }
+
+        final StringBuilder schema = new StringBuilder();
+        final Set<String> typeNames = Sets.newHashSet();
+        final String[] operationTypes = new String[OPERATIONS.length];
+        for (PsiFile file : getSchemaFiles(entryPsiFile)) {
+            final CompiledFile compiledFile = getCompiledFile(file);
+            for (CompiledDefinition definition : compiledFile.definitions) {
+                // the first declaration wins, starting with the entry file
+                if (typeNames.add(definition.name)) {
+                    schema.append(definition.text).append('\n');
+                }
+            }
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                if (operationTypes[i] == null) {
+                    operationTypes[i] = compiledFile.operationTypes.get(OPERATIONS[i]);
+                }
+            }
+        }
+
+        final boolean hasSchemaDefinition = operationTypes[0] != null || operationTypes[1] != null || operationTypes[2] != null;
+        if (hasSchemaDefinition) {
+            final StringBuilder schemaDefinition = new StringBuilder("schema {\n");
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                if (operationTypes[i] != null) {
+                    schemaDefinition.append("  ").append(OPERATIONS[i]).append(": ").append(operationTypes[i]).append('\n');
+                }
+            }
+            schema.insert(0, schemaDefinition.append("}\n\n"));
+        } else {
+            // without a schema definition the operation types are found by name
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                if (typeNames.contains(DEFAULT_OPERATION_TYPES[i])) {
+                    operationTypes[i] = DEFAULT_OPERATION_TYPES[i];
+                }
+            }
+        }
+
+        final SchemaWithVersionResponse schemaWithVersion = new SchemaWithVersionResponse();
+        schemaWithVersion.setSchema(schema.toString());
+        schemaWithVersion.setQueryType(operationTypes[0]);
+        schemaWithVersion.setMutationType(operationTypes[1]);
+        schemaWithVersion.setSubscriptionType(operationTypes[2]);
+        schemaWithVersion.setUrl(entryFile.getPath());
+        return schemaWithVersion;
+    }
+
+    // ---- implementation ----
+
+    /**
+     * Gets the entry file followed by the files it imports, breadth first
+     */
+    private List<PsiFile> getSchemaFiles(PsiFile entryFile) {
+        final JSGraphQLEndpointImportGraph importGraph = JSGraphQLEndpointImportGraph.getService(project);
+        final Set<PsiFile> files = Sets.newLinkedHashSet();
+        final Deque<PsiFile> pending = new ArrayDeque<>();
+        pending.add(entryFile);
+        while (!pending.isEmpty()) {
+            final PsiFile file = pending.remove();
+            if (files.add(file)) {
+                pending.addAll(importGraph.getImportClosure(file).getFiles());
+            }
+        }
+        return Lists.newArrayList(files);
+    }
+
+    int getCompiledFileCount() {
+        return compiledFileCount.get();
+    }
+
+    private CompiledFile getCompiledFile(PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(compileFile(file), file));
+    }
+
+    private CompiledFile compileFile(PsiFile file) {
+        compiledFileCount.incrementAndGet();
+        final List<CompiledDefinition> definitions = Lists.newArrayList();
+        final Map<String, String> operationTypes = Maps.newHashMap();
+        for (PsiElement child : file.getChildren()) {
+            if (child instanceof JSGraphQLEndpointNamedTypeDefinition) {
+                final JSGraphQLEndpointNamedTypeDefinition definition = (JSGraphQLEndpointNamedTypeDefinition) child;
+                if (definition.getNamedTypeDef() != null) {
+                    final String text = compileDefinition(definition);
+                    if (text != null) {
+                        definitions.add(new CompiledDefinition(definition.getNamedTypeDef().getText(), text));
+                    }
+                }
+            } else if (child instanceof JSGraphQLEndpointSchemaDefinition) {
+                final JSGraphQLEndpointOperationTypeDefinitionSet operationSet = ((JSGraphQLEndpointSchemaDefinition) child).getOperationTypeDefinitionSet();
+                if (operationSet != null) {
+                    for (JSGraphQLEndpointOperationTypeDefinition operation : operationSet.getOperationTypeDefinitionList()) {
+                        if (operation.getNamedType() != null) {
+                            operationTypes.putIfAbsent(operation.getFirstChild().getText(), operation.getNamedType().getText());
+                        }
+                    }
+                }
+            }
+        }
+        return new CompiledFile(definitions, operationTypes);
+    }
+
+    /**
+     * Compiles a definition to the GraphQL schema language
+     * @return the definition, or <code>null</code> for annotation definitions which only apply to the Endpoint Language
+     */
+    @Nullable
+    private static String compileDefinition(JSGraphQLEndpointNamedTypeDefinition definition) {
+        final StringBuilder sb = new StringBuilder();
+        appendDocumentation(sb, definition, "");
+        final String name = definition.getNamedTypeDef().getText();
+        if (definition instanceof JSGraphQLEndpointObjectTypeDefinition) {
+            final JSGraphQLEndpointObjectTypeDefinition objectType = (JSGraphQLEndpointObjectTypeDefinition) definition;
+            sb.append("type ").append(name);
+            if (objectType.getImplementsInterfaces() != null) {
+                final List<JSGraphQLEndpointNamedType> interfaces = objectType.getImplementsInterfaces().getNamedTypeList();
+                for (int i = 0; i < interfaces.size(); i++) {
+                    sb.append(i == 0 ? " implements " : ", ").append(interfaces.get(i).getText());
+                }
+            }
+            appendFields(sb, objectType.getFieldDefinitionSet(), true);
+        } else if (definition instanceof JSGraphQLEndpointInterfaceTypeDefinition) {
+            sb.append("interface ").append(name);
+            appendFields(sb, ((JSGraphQLEndpointInterfaceTypeDefinition) definition).getFieldDefinitionSet(), true);
+        } else if (definition instanceof JSGraphQLEndpointInputObjectTypeDefinition) {
+            sb.append("input ").append(name);
+            appendFields(sb, ((JSGraphQLEndpointInputObjectTypeDefinition) definition).getFieldDefinitionSet(), false);
+        } else if (definition instanceof JSGraphQLEndpointEnumTypeDefinition) {
+            sb.append("enum ").append(name).append(" {\n");
+            final JSGraphQLEndpointEnumValueDefinitionSet valueSet = ((JSGraphQLEndpointEnumTypeDefinition) definition).getEnumValueDefinitionSet();
+            if (valueSet != null) {
+                for (JSGraphQLEndpointEnumValueDefinition value : valueSet.getEnumValueDefinitionList()) {
+                    sb.append("  ").append(value.getIdentifier().getText()).append('\n');
+                }
+            }
+            sb.append("}\n");
+        } else if (definition instanceof JSGraphQLEndpointUnionTypeDefinition) {
+            sb.append("union ").append(name).append(" =");
+            final JSGraphQLEndpointUnionMemberSet memberSet = ((JSGraphQLEndpointUnionTypeDefinition) definition).getUnionMemberSet();
+            if (memberSet != null) {
+                final List<JSGraphQLEndpointUnionMember> members = memberSet.getUnionMemberList();
+                for (int i = 0; i < members.size(); i++) {
+                    sb.append(i == 0 ? " " : " | ").append(members.get(i).getIdentifier().getText());
+                }
+            }
+            sb.append('\n');
+        } else if (definition instanceof JSGraphQLEndpointScalarTypeDefinition) {
+            sb.append("scalar ").append(name).append('\n');
+        } else {
+            return null;
+        }
+        return sb.toString();
+    }
+
+    private static void appendFields(StringBuilder sb, @Nullable JSGraphQLEndpointFieldDefinitionSet fieldDefinitionSet, boolean withArguments) {
+        sb.append(" {\n");
+        if (fieldDefinitionSet != null) {
+            for (JSGraphQLEndpointFieldDefinition field : fieldDefinitionSet.getFieldDefinitionList()) {
+                if (field.getCompositeType() == null) {
+                    // incomplete field
+                    continue;
+                }
+                appendDocumentation(sb, field, "  ");
+                sb.append("  ").append(field.getProperty().getText());
+                final JSGraphQLEndpointArgumentsDefinition arguments = field.getArgumentsDefinition();
+                if (withArguments && arguments != null && arguments.getInputValueDefinitions() != null) {
+                    sb.append('(');
+                    final List<JSGraphQLEndpointInputValueDefinition> argumentList = arguments.getInputValueDefinitions().getInputValueDefinitionList();
+                    for (int i = 0; i < argumentList.size(); i++) {
+                        final JSGraphQLEndpointInputValueDefinition argument = argumentList.get(i);
+                        if (i > 0) {
+                            sb.append(", ");
+                        }
+                        sb.append(argument.getInputValueDefinitionIdentifier().getText()).append(": ");
+                        appendType(sb, argument.getCompositeType());
+                    }
+                    sb.append(')');
+                }
+                sb.append(": ");
+                appendType(sb, field.getCompositeType());
+                sb.append('\n');
+            }
+        }
+        sb.append("}\n");
+    }
+
+    private static void appendType(StringBuilder sb, @Nullable JSGraphQLEndpointCompositeType compositeType) {
+        if (compositeType == null) {
+            return;
+        }
+        // the type may contain whitespace, e.g. '[ User ]'
+        final String text = compositeType.getText();
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static void appendDocumentation(StringBuilder sb, PsiElement element, String indent) {
+        final String documentation = JSGraphQLEndpointDocPsiUtil.getDocumentation(element);
+        if (documentation != null) {
+            for (String line : documentation.split("\n")) {
+                sb.append(indent).append("# ").append(line).append('\n');
+            }
+        }
+    }
+
+    private static class CompiledDefinition {
+        final String name;
+        final String text;
+        CompiledDefinition(String name, String text) {
+            this.name = name;
+            this.text = text;
+        }
+    }
+
+    private static class CompiledFile {
+        final List<CompiledDefinition> definitions;
+        final Map<String, String> operationTypes;
+        CompiledFile(List<CompiledDefinition> definitions, Map<String, String> operationTypes) {
+            this.definitions = Collections.unmodifiableList(definitions);
+            this.operationTypes = Collections.unmodifiableMap(operationTypes);
+        }
+    }
+}
@@ -7,20 +7,24 @@
  */
 package com.intellij.lang.jsgraphql.endpoint.ide.search;
 
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointImplementationIndex;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
 import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointNamedTypeRegistry;
 import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Ref;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.QueryExecutor;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
-
 /**
  * Provides a list of 'type' implementations for an 'interface' definition in a GraphQL Endpoint file.
  * Also provides implementations of interface fields that have an override in implementing types.
@@ -54,42 +58,44 @@ public class JSGraphQLEndpointDefinitionsSearchExecutor implements QueryExecutor
         if (sourceNamedTypeDef.get() != null && sourceInterfaceDefinition.get() != null) {
 
             final String interfaceName = sourceNamedTypeDef.get().getText();
+            final String propertyName = sourceProperty.get() != null ? sourceProperty.get().getName() : null;
+
+            final Project project = sourceElement.getProject();
+            if (!JSGraphQLEndpointNamedTypeRegistry.getService(project).hasEndpointEntryFile()) {
+                // types are only known relative to the entry file
+                return true;
+            }
+            final GlobalSearchScope scope = JSGraphQLEndpointPsiUtil.getImportScopeFromEntryFile(project, null);
+            final PsiManager psiManager = PsiManager.getInstance(project);
 
-            final JSGraphQLEndpointNamedTypeRegistry typeRegistry = JSGraphQLEndpointNamedTypeRegistry.getService(sourceElement.getProject());
-            typeRegistry.enumerateTypes(jsGraphQLNamedType -> {
-                if (jsGraphQLNamedType.definitionElement instanceof JSGraphQLEndpointObjectTypeDefinition) {
-                    final JSGraphQLEndpointObjectTypeDefinition typeDefinition = (JSGraphQLEndpointObjectTypeDefinition) jsGraphQLNamedType.definitionElement;
-                    final JSGraphQLEndpointImplementsInterfaces implementsInterfaces = typeDefinition.getImplementsInterfaces();
-                    if (implementsInterfaces != null) {
-                        for (JSGraphQLEndpointNamedType namedType : implementsInterfaces.getNamedTypeList()) {
-                            if (interfaceName.equals(namedType.getName())) {
-                                if (sourceProperty.get() == null) {
-                                    // type implements the interface
-                                    consumer.process(typeDefinition.getNamedTypeDef());
-                                } else {
-                                    // locate field overrides
-                                    final String propertyName = sourceProperty.get().getName();
-                                    jsGraphQLNamedType.definitionElement.accept(new PsiRecursiveElementVisitor() {
-                                        @Override
-                                        public void visitElement(PsiElement element) {
-                                            if (element instanceof JSGraphQLEndpointProperty) {
-                                                if ((Objects.equals(propertyName, ((JSGraphQLEndpointProperty) element).getName()))) {
-                                                    consumer.process(element);
-                                                }
-                                                return; // don't visit deeper than properties
-                                            }
-                                            super.visitElement(element);
-                                        }
-                                    });
-                                }
-                                break;
-                            }
+            // the implementation index only contains the types that implement the interface, and the fields they declare
+            return JSGraphQLEndpointIndexUtil.processDefinitions(JSGraphQLEndpointImplementationIndex.NAME, interfaceName, scope, (file, definition) -> {
+                if (definition.getKind() != JSGraphQLEndpointDefinition.Kind.ObjectType) {
+                    return true;
+                }
+                final PsiFile psiFile = psiManager.findFile(file);
+                if (psiFile == null) {
+                    return true;
+                }
+                if (propertyName == null) {
+                    // type implements the interface
+                    final JSGraphQLEndpointObjectTypeDefinition typeDefinition = JSGraphQLEndpointIndexUtil.findDefinitionElement(psiFile, definition, JSGraphQLEndpointObjectTypeDefinition.class);
+                    if (typeDefinition != null) {
+                        return consumer.process(typeDefinition.getNamedTypeDef());
+                    }
+                } else {
+                    // field override
+                    final Integer fieldOffset = definition.getFieldOffsets().get(propertyName);
+                    if (fieldOffset != null) {
+                        final JSGraphQLEndpointProperty property = JSGraphQLEndpointIndexUtil.findFieldElement(psiFile, propertyName, fieldOffset);
+                        if (property != null) {
+                            return consumer.process(property);
                         }
                     }
                 }
+                return true;
             });
 
-
         }
         return true;
     }
@@ -15,7 +15,7 @@ import org.jetbrains.annotations.Nullable;
 import com.intellij.lang.ASTNode;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypes;
-import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -107,17 +107,9 @@ public class JSGraphQLEndpointImportFileReferencePsiElement extends JSGraphQLEnd
 		@Override
 		public PsiElement resolve() {
 			final Project project = this.getElement().getProject();
-			final VirtualFile entryFile = JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile();
-			if(entryFile != null && entryFile.getParent() != null) {
-				final String fileName = nameIdentifier.getText();
-				if(fileName.startsWith(".") || fileName.startsWith("/")) {
-					// we're always relative to the entry file, so return null in case a relative-to-current-file is attempted
-					return null;
-				}
-				final VirtualFile importedFile = entryFile.getParent().findFileByRelativePath(fileName + "." + JSGraphQLEndpointFileType.INSTANCE.getDefaultExtension());
-				if(importedFile != null) {
-					return PsiManager.getInstance(project).findFile(importedFile);
-				}
+			final VirtualFile importedFile = JSGraphQLEndpointIndexUtil.resolveImport(project, nameIdentifier.getText());
+			if(importedFile != null) {
+				return PsiManager.getInstance(project).findFile(importedFile);
 			}
 			return null;
 		}
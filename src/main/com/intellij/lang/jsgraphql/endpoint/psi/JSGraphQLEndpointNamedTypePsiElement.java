@@ -9,7 +9,6 @@ package com.intellij.lang.jsgraphql.endpoint.psi;
 
 import static com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointImportFileReferencePsiElement.*;
 
-import java.util.Collection;
 
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -66,15 +65,7 @@ public class JSGraphQLEndpointNamedTypePsiElement extends JSGraphQLEndpointPsiEl
 				@Nullable
 				@Override
 				public PsiElement resolve() {
-					final Collection<JSGraphQLEndpointNamedTypeDefinition> definitions = JSGraphQLEndpointPsiUtil.getKnownDefinitions(
-							self.getContainingFile(),
-							JSGraphQLEndpointNamedTypeDefinition.class,
-							false,
-							null
-					);
-					final JSGraphQLEndpointNamedTypeDefinition resolvedElement = definitions.stream()
-							.filter(d -> d.getNamedTypeDef() != null && d.getNamedTypeDef().getText().equals(nameIdentifier.getText()))
-							.findFirst().orElse(null);
+					final JSGraphQLEndpointNamedTypeDefinition resolvedElement = JSGraphQLEndpointPsiUtil.findKnownDefinition(self.getContainingFile(), nameIdentifier.getText());
 					if(resolvedElement != null) {
 						return resolvedElement.getNamedTypeDef();
 					}
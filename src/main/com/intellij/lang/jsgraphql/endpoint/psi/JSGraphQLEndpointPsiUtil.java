@@ -7,9 +7,11 @@
  */
 package com.intellij.lang.jsgraphql.endpoint.psi;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
 import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointTokenTypes;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.*;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointImportGraph;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Ref;
@@ -18,17 +20,14 @@ import com.intellij.psi.*;
 import com.intellij.psi.impl.source.SourceTreeToPsiMap;
 import com.intellij.psi.impl.source.tree.Factory;
 import com.intellij.psi.impl.source.tree.LeafElement;
-import com.intellij.psi.search.FileTypeIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopesCore;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.IncorrectOperationException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class JSGraphQLEndpointPsiUtil {
 
@@ -67,72 +66,87 @@ public class JSGraphQLEndpointPsiUtil {
             boolean includeAutoImportTypes,
             Ref<Collection<PsiFile>> importedFiles) {
 
-		final Set<T> definitions = Sets.newHashSet();
-
-		final Set<PsiFile> files = Sets.newHashSet(file);
-		final JSGraphQLEndpointImportDeclaration[] importDeclarations = PsiTreeUtil.getChildrenOfType(file, JSGraphQLEndpointImportDeclaration.class);
-		if (importDeclarations != null) {
-			for (JSGraphQLEndpointImportDeclaration importDeclaration : importDeclarations) {
-				final JSGraphQLEndpointImportFileReference[] importFileReferences = PsiTreeUtil.getChildrenOfType(importDeclaration, JSGraphQLEndpointImportFileReference.class);
-				if (importFileReferences != null) {
-					for (JSGraphQLEndpointImportFileReference importFileReference : importFileReferences) {
-						final PsiReference reference = importFileReference.getReference();
-						if (reference != null) {
-							final PsiElement importedFile = reference.resolve();
-							if (importedFile instanceof JSGraphQLEndpointFile) {
-								files.add((PsiFile) importedFile);
-							}
-						}
+		final List<T> definitions = Lists.newArrayList();
+		for (JSGraphQLEndpointTypeResult<T> typeResult : findKnownDefinitions(file, psiDefinitionClass, includeAutoImportTypes, importedFiles)) {
+			final T definition = typeResult.getElement();
+			if (definition != null) {
+				definitions.add(definition);
+			}
+		}
+		return definitions;
+	}
+
+	/**
+	 * Gets the names of known definitions from the cached imports and the endpoint indexes, without loading the PSI of the files that declare them
+	 * @see #getKnownDefinitions(PsiFile, Class, boolean, Ref)
+	 */
+	public static <T extends JSGraphQLEndpointNamedTypeDefinition> Collection<JSGraphQLEndpointTypeResult<T>> getKnownDefinitionNames(PsiFile file, Class<T> psiDefinitionClass, boolean autoImport) {
+		return findKnownDefinitions(file, psiDefinitionClass, autoImport, null);
+	}
+
+	/**
+	 * Finds the known definition with the specified name, preferring a definition in the specified file over imported definitions
+	 * @return the definition, or <code>null</code> if no definition is known by the name
+	 */
+	@Nullable
+	public static JSGraphQLEndpointNamedTypeDefinition findKnownDefinition(PsiFile file, String name) {
+		final JSGraphQLEndpointImportGraph importGraph = JSGraphQLEndpointImportGraph.getService(file.getProject());
+		for (PsiFile knownFile : importGraph.getImportClosure(file).getFiles()) {
+			final List<JSGraphQLEndpointDefinition> definitions = importGraph.getFileDefinitions(knownFile).get(name);
+			if (definitions != null) {
+				for (JSGraphQLEndpointDefinition definition : definitions) {
+					final JSGraphQLEndpointNamedTypeDefinition definitionElement = JSGraphQLEndpointIndexUtil.findDefinitionElement(knownFile, definition, JSGraphQLEndpointNamedTypeDefinition.class);
+					if (definitionElement != null) {
+						return definitionElement;
 					}
 				}
 			}
 		}
+		return null;
+	}
+
+	private static <T extends JSGraphQLEndpointNamedTypeDefinition> List<JSGraphQLEndpointTypeResult<T>> findKnownDefinitions(
+			PsiFile file,
+			Class<T> psiDefinitionClass,
+			boolean includeAutoImportTypes,
+			@Nullable Ref<Collection<PsiFile>> importedFiles) {
+
+		final List<JSGraphQLEndpointTypeResult<T>> definitions = Lists.newArrayList();
+		final Project project = file.getProject();
+		final JSGraphQLEndpointImportGraph importGraph = JSGraphQLEndpointImportGraph.getService(project);
+		final JSGraphQLEndpointImportGraph.ImportClosure importClosure = importGraph.getImportClosure(file);
+
+		if (importedFiles != null) {
+			importedFiles.set(Sets.newHashSet(importClosure.getFiles()));
+		}
 
-		if(importedFiles != null) {
-            importedFiles.set(Sets.newHashSet(files));
-        }
-
-		if(includeAutoImportTypes) {
-			final Collection<VirtualFile> knownFiles = FileTypeIndex.getFiles(JSGraphQLEndpointFileType.INSTANCE, getImportScopeFromEntryFile(file.getProject(), null));
-			final PsiManager psiManager = PsiManager.getInstance(file.getProject());
-			knownFiles.forEach(virtualFile ->{
-				final PsiFile psiFile = psiManager.findFile(virtualFile);
-				if(psiFile != null) {
-					files.add(psiFile);
+		for (PsiFile knownFile : importClosure.getFiles()) {
+			for (List<JSGraphQLEndpointDefinition> fileDefinitions : importGraph.getFileDefinitions(knownFile).values()) {
+				for (JSGraphQLEndpointDefinition definition : fileDefinitions) {
+					if (definition.getKind().isInstanceOf(psiDefinitionClass)) {
+						definitions.add(new JSGraphQLEndpointTypeResult<>(knownFile, definition, psiDefinitionClass));
+					}
 				}
-			});
+			}
 		}
 
-		for (PsiFile psiFile : files) {
-			final Collection<T> definitionElements = PsiTreeUtil.findChildrenOfType(psiFile, psiDefinitionClass);
-			for (T definition : definitionElements) {
-				final JSGraphQLEndpointNamedTypeDef namedTypeDef = definition.getNamedTypeDef();
-				if (namedTypeDef != null) {
-					definitions.add(definition);
+		if (includeAutoImportTypes) {
+			final GlobalSearchScope scope = getImportScopeFromEntryFile(project, null);
+			final PsiManager psiManager = PsiManager.getInstance(project);
+			JSGraphQLEndpointIndexUtil.processKeys(JSGraphQLEndpointTypeDefinitionIndex.NAME, scope, name -> JSGraphQLEndpointIndexUtil.processDefinitions(JSGraphQLEndpointTypeDefinitionIndex.NAME, name, scope, (virtualFile, definition) -> {
+				if (definition.getKind().isInstanceOf(psiDefinitionClass) && !importClosure.contains(virtualFile)) {
+					final PsiFile fileToImport = psiManager.findFile(virtualFile);
+					if (fileToImport != null) {
+						definitions.add(new JSGraphQLEndpointTypeResult<>(fileToImport, definition, psiDefinitionClass));
+					}
 				}
-			}
+				return true;
+			}));
 		}
 
 		return definitions;
 	}
 
-	/**
-	 * Maps getKnownDefinitions to their corresponding names
-	 */
-	public static <T extends JSGraphQLEndpointNamedTypeDefinition> Collection<JSGraphQLEndpointTypeResult<T>> getKnownDefinitionNames(PsiFile file, Class<T> psiDefinitionClass, boolean autoImport) {
-        final Ref<Collection<PsiFile>> importedFiles = new Ref<>();
-        return getKnownDefinitions(file, psiDefinitionClass, autoImport, importedFiles).stream()
-				.filter(d -> d.getNamedTypeDef() != null)
-				.map(d -> {
-                    PsiFile fileToImport = d.getContainingFile();
-                    if(importedFiles.get().contains(fileToImport)) {
-                        fileToImport = null;
-                    }
-                    return new JSGraphQLEndpointTypeResult<>(d.getNamedTypeDef().getText(), d, fileToImport);
-                })
-				.collect(Collectors.toList());
-	}
-
 	/**
 	 * Renames an identifier, e.g. during a refactoring
 	 */
@@ -7,21 +7,44 @@
  */
 package com.intellij.lang.jsgraphql.endpoint.psi;
 
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointDefinition;
+import com.intellij.lang.jsgraphql.endpoint.ide.index.JSGraphQLEndpointIndexUtil;
 import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * A known type definition as found in the endpoint indexes.
+ * The PSI element of the definition is only looked up if {@link #getElement()} is called.
+ */
 public class JSGraphQLEndpointTypeResult<T extends JSGraphQLEndpointNamedTypeDefinition> {
 
     public final String name;
 
-    public final T element;
+    private final PsiFile file;
+    private final JSGraphQLEndpointDefinition definition;
+    private final Class<T> psiDefinitionClass;
 
-    @Nullable
-    public final PsiFile fileToImport;
+    public JSGraphQLEndpointTypeResult(@NotNull PsiFile file, @NotNull JSGraphQLEndpointDefinition definition, @NotNull Class<T> psiDefinitionClass) {
+        this.name = definition.getName();
+        this.file = file;
+        this.definition = definition;
+        this.psiDefinitionClass = psiDefinitionClass;
+    }
 
-    public JSGraphQLEndpointTypeResult(String name, T element, @Nullable PsiFile fileToImport) {
-        this.name = name;
-        this.element = element;
-        this.fileToImport = fileToImport;
+    /**
+     * @return the file that declares the type
+     */
+    @NotNull
+    public PsiFile getFile() {
+        return file;
+    }
+
+    /**
+     * @return the PSI definition, or <code>null</code> if the file has changed since it was indexed
+     */
+    @Nullable
+    public T getElement() {
+        return JSGraphQLEndpointIndexUtil.findDefinitionElement(file, definition, psiDefinitionClass);
     }
 }
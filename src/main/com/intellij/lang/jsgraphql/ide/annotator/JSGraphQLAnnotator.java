@@ -15,8 +15,12 @@ import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.lang.javascript.psi.JSFile;
 import com.intellij.lang.javascript.psi.ecma6.JSStringTemplateExpression;
 import com.intellij.lang.jsgraphql.ide.project.JSGraphQLLanguageUIProjectService;
+import com.intellij.lang.jsgraphql.ide.project.JSGraphQLFragmentDependencyGraph;
+import com.intellij.lang.jsgraphql.ide.project.JSGraphQLPsiSearchHelper;
 import com.intellij.lang.jsgraphql.ide.injection.JSGraphQLLanguageInjectionUtil;
 import com.intellij.lang.jsgraphql.ide.project.toolwindow.JSGraphQLErrorResult;
+import com.intellij.lang.jsgraphql.ide.validation.JSGraphQLValidationError;
+import com.intellij.lang.jsgraphql.ide.validation.JSGraphQLValidator;
 import com.intellij.lang.jsgraphql.languageservice.JSGraphQLNodeLanguageServiceClient;
 import com.intellij.lang.jsgraphql.languageservice.api.Annotation;
 import com.intellij.lang.jsgraphql.languageservice.api.AnnotationsResponse;
@@ -24,6 +28,7 @@ import com.intellij.lang.jsgraphql.languageservice.api.Pos;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLErrorContextAware;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLFile;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLPsiElement;
+import com.intellij.lang.jsgraphql.schema.ide.project.JSGraphQLSchemaLanguageProjectService;
 import com.intellij.lang.jsgraphql.schema.psi.JSGraphQLSchemaFile;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
@@ -40,6 +45,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class JSGraphQLAnnotator extends ExternalAnnotator<JSGraphQLAnnotationResult, JSGraphQLAnnotationResult> {
 
@@ -58,7 +64,14 @@ public class JSGraphQLAnnotator extends ExternalAnnotator<JSGraphQLAnnotationRes
                 }
                 if (buffer.length() > 0) {
                     final String environment = JSGraphQLLanguageInjectionUtil.getEnvironment(file);
-                    final AnnotationsResponse annotations = JSGraphQLNodeLanguageServiceClient.getAnnotations(buffer.toString(), file.getProject(), environment);
+                    final CharSequence graphQLBuffer = buffer;
+                    final AnnotationsResponse annotations = withValidationFallback(
+                            JSGraphQLNodeLanguageServiceClient.getAnnotations(buffer.toString(), file.getProject(), environment),
+                            environment,
+                            () -> {
+                                final JSGraphQLValidator validator = JSGraphQLSchemaLanguageProjectService.getService(file.getProject()).getValidator(file);
+                                return validator != null ? validate(validator, graphQLBuffer, file, editor) : null;
+                            });
                     if(annotations != null) {
                         for (Annotation annotation : annotations.getAnnotations()) {
                             LogicalPosition from = getLogicalPosition(annotation.getFrom());
@@ -149,6 +162,39 @@ public class JSGraphQLAnnotator extends ExternalAnnotator<JSGraphQLAnnotationRes
 
     // --- implementation ----
 
+    /**
+     * Uses the annotations from the language service whenever it's running, and only validates in-process when it isn't, e.g. when Node isn't configured
+     *
+     * @param languageServiceAnnotations the language service annotations, or <code>null</code> if the service didn't respond
+     * @param validation                 validates the buffer in-process, returning <code>null</code> if no schema is available
+     */
+    @Nullable
+    static AnnotationsResponse withValidationFallback(@Nullable AnnotationsResponse languageServiceAnnotations,
+                                                      @Nullable String environment,
+                                                      @NotNull Supplier<AnnotationsResponse> validation) {
+        if (languageServiceAnnotations != null || JSGraphQLLanguageInjectionUtil.RELAY_ENVIRONMENT.equals(environment)) {
+            // Relay.QL templates use Relay specific rules that are only implemented by the language service
+            return languageServiceAnnotations;
+        }
+        return validation.get();
+    }
+
+    /**
+     * Validates the buffer in-process, such that only the operations and fragments that changed since the last pass are validated again
+     */
+    private AnnotationsResponse validate(JSGraphQLValidator validator, CharSequence buffer, PsiFile file, Editor editor) {
+        final JSGraphQLPsiSearchHelper searchHelper = JSGraphQLPsiSearchHelper.getService(file.getProject());
+        final JSGraphQLFragmentDependencyGraph fragmentDependencyGraph = JSGraphQLFragmentDependencyGraph.getService(file.getProject());
+        final List<JSGraphQLValidationError> errors = validator.validate(buffer, searchHelper::getFragmentTypeCondition, fragmentDependencyGraph::findCycle);
+        final AnnotationsResponse annotations = new AnnotationsResponse();
+        for (JSGraphQLValidationError error : errors) {
+            final LogicalPosition from = editor.offsetToLogicalPosition(error.getStartOffset());
+            final LogicalPosition to = editor.offsetToLogicalPosition(error.getEndOffset());
+            annotations.getAnnotations().add(new Annotation(error.getMessage(), "error", new Pos(from.line, from.column), new Pos(to.line, to.column)));
+        }
+        return annotations;
+    }
+
     private PsiElement getPsiElementAtErrorOffset(PsiFile psiFile, int offset) {
         PsiElement element = psiFile.findElementAt(offset);
         if(element instanceof JSGraphQLPsiElement) {
@@ -8,6 +8,7 @@
 package com.intellij.lang.jsgraphql.ide.completion;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
@@ -36,6 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.util.List;
+import java.util.Set;
 
 
 public class JSGraphQLCompletionContributor extends CompletionContributor {
@@ -148,16 +150,26 @@ public class JSGraphQLCompletionContributor extends CompletionContributor {
 
                     if(isFragmentSpreadCompletion && (hints.getHints() == null || hints.getHints().isEmpty())) {
 
-                        // also complete on fragments across files
-                        final List<JSGraphQLFragmentDefinitionPsiElement> knownFragmentDefinitions = JSGraphQLPsiSearchHelper.getService(project).getKnownFragmentDefinitions();
-                        for (JSGraphQLFragmentDefinitionPsiElement fragmentDefinition : knownFragmentDefinitions) {
+                        // also complete on fragments across files, using the fragment index to only visit the names that match the prefix
+                        final CompletionResultSet fragmentResult = result;
+                        final PrefixMatcher prefixMatcher = fragmentResult.getPrefixMatcher();
+                        final JSGraphQLSchemaLanguageProjectService schemaService = JSGraphQLSchemaLanguageProjectService.getService(project);
+                        final PsiElement selectionSetPosition = originalPosition != null ? originalPosition : parameters.getPosition();
+                        final String selectionSetTypeName = schemaService.getSelectionSetTypeName(selectionSetPosition);
+                        final Set<String> completedFragmentNames = Sets.newHashSet();
+                        JSGraphQLPsiSearchHelper.getService(project).processKnownFragmentDefinitions(prefixMatcher::prefixMatches, fragmentDefinition -> {
                             final String fragmentName = fragmentDefinition.getName();
-                            if(fragmentName != null) {
-                                final JSGraphQLNamedTypePsiElement fragmentOnType = fragmentDefinition.getFragmentOnType();
-                                final String tailText = fragmentOnType != null ? " - fragment " + fragmentName +  " on " + fragmentOnType.getName() : "";
-                                result.addElement(LookupElementBuilder.create(fragmentName).bold().withIcon(JSGraphQLIcons.Schema.Fragment).withTailText(tailText));
+                            final String typeCondition = fragmentDefinition.getTypeCondition();
+                            if(selectionSetTypeName != null && typeCondition != null && !schemaService.isPossibleFragmentSpread(selectionSetPosition, selectionSetTypeName, typeCondition)) {
+                                // the fragment can't be spread in the current selection set
+                                return true;
                             }
-                        }
+                            if(completedFragmentNames.add(fragmentName)) {
+                                final String tailText = typeCondition != null ? " - fragment " + fragmentName +  " on " + typeCondition : "";
+                                fragmentResult.addElement(LookupElementBuilder.create(fragmentName).bold().withIcon(JSGraphQLIcons.Schema.Fragment).withTailText(tailText));
+                            }
+                            return !fragmentResult.isStopped();
+                        });
 
                     }
                 }
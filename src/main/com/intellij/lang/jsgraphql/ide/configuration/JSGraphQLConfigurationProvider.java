@@ -8,10 +8,10 @@
 package com.intellij.lang.jsgraphql.ide.configuration;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.intellij.ide.plugins.PluginManager;
-import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import com.intellij.lang.jsgraphql.ide.endpoints.JSGraphQLEndpoint;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
@@ -25,14 +25,19 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileAdapter;
 import com.intellij.openapi.vfs.VirtualFileEvent;
 import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileMoveEvent;
+import com.intellij.openapi.vfs.VirtualFilePropertyEvent;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
@@ -44,8 +49,9 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
 
@@ -61,6 +67,15 @@ public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
     private final Object endpointsLock = new Object();
     private PluginDescriptor pluginDescriptor;
 
+    // the annotations in the config file that was last read, which are re-read when the config file is modified
+    private volatile ConfiguredAnnotations configuredAnnotations;
+
+    // config file url -> the 'schema' section that was last read from the config, which is re-read when the config file is modified
+    private final Map<String, ConfiguredSchema> configuredSchemas = Maps.newConcurrentMap();
+
+    // directory url -> url of the directory containing the nearest config, or "" for directories without a config
+    private final Map<String, String> nearestConfigBaseDirUrls = Maps.newConcurrentMap();
+
     public JSGraphQLConfigurationProvider(@NotNull Project myProject) {
         this.myProject = myProject;
         this.pluginDescriptor = PluginManager.getPlugin(PluginId.getId("com.intellij.lang.jsgraphql"));
@@ -84,6 +99,46 @@ public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
         return null;
     }
 
+    /**
+     * Gets the directory of the graphql.config.json that applies to a file, i.e. the nearest config in the directory of the file or
+     * one of its parents inside the content root. Projects such as monorepos can have a config, and thereby a schema, per directory.
+     * @param file the file to get the config directory for
+     * @return the directory of the nearest config, or the project configuration base dir if no config applies to the file
+     */
+    @Nullable
+    public VirtualFile getConfigurationBaseDir(@Nullable VirtualFile file) {
+        if(file == null || !file.isInLocalFileSystem()) {
+            return getConfigurationBaseDir();
+        }
+        final VirtualFile directory = file.isDirectory() ? file : file.getParent();
+        if(directory == null) {
+            return getConfigurationBaseDir();
+        }
+        String baseDirUrl = nearestConfigBaseDirUrls.get(directory.getUrl());
+        if(baseDirUrl == null) {
+            baseDirUrl = "";
+            final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(myProject).getFileIndex();
+            final VirtualFile contentRoot = fileIndex.getContentRootForFile(directory);
+            for(VirtualFile dir = directory; dir != null; dir = dir.getParent()) {
+                if(dir.findChild(GRAPHQL_CONFIG_JSON) != null) {
+                    baseDirUrl = dir.getUrl();
+                    break;
+                }
+                if(dir.equals(contentRoot)) {
+                    break;
+                }
+            }
+            nearestConfigBaseDirUrls.put(directory.getUrl(), baseDirUrl);
+        }
+        if(!baseDirUrl.isEmpty()) {
+            final VirtualFile baseDir = VirtualFileManager.getInstance().findFileByUrl(baseDirUrl);
+            if(baseDir != null) {
+                return baseDir;
+            }
+        }
+        return getConfigurationBaseDir();
+    }
+
     public void setConfigurationBasDirFromModule(Module module) {
         for (VirtualFile virtualFile : ModuleRootManager.getInstance(module).getContentRoots()) {
             if(virtualFile.isValid() && virtualFile.isDirectory()) {
@@ -180,44 +235,73 @@ public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
         return Lists.newArrayList(); // no config yet
     }
 
-    public List<JSGraphQLSchemaEndpointAnnotation> getEndpointAnnotations(PsiFile psiFile) {
-        final List<JSGraphQLSchemaEndpointAnnotation> annotations = Lists.newArrayList();
+    /**
+     * Gets the endpoint annotations declared in graphql.config.json, which are only re-read when the config file changes
+     */
+    public List<JSGraphQLSchemaEndpointAnnotation> getConfiguredEndpointAnnotations() {
         final VirtualFile configFile = getGraphQLConfigFile();
-        if(configFile != null) {
+        if(configFile == null) {
+            return Collections.emptyList();
+        }
+        ConfiguredAnnotations configured = configuredAnnotations;
+        if(configured == null || !configured.isReadFrom(configFile)) {
+            // the stamp is taken before reading, so a concurrent modification causes another read
+            final long modificationStamp = configFile.getModificationStamp();
+            final List<JSGraphQLSchemaEndpointAnnotation> annotations = Lists.newArrayList();
             final JSGraphQLConfiguration configuration = getConfiguration(configFile);
-            if (configuration != null) {
-                if (configuration.schema != null && configuration.schema.endpoint != null) {
-                    if(configuration.schema.endpoint.annotations != null) {
-	                    annotations.addAll(configuration.schema.endpoint.annotations);
-                    }
+            if (configuration != null && configuration.schema != null && configuration.schema.endpoint != null) {
+                if(configuration.schema.endpoint.annotations != null) {
+                    annotations.addAll(configuration.schema.endpoint.annotations);
                 }
             }
+            configured = new ConfiguredAnnotations(configFile.getUrl(), modificationStamp, annotations);
+            configuredAnnotations = configured;
         }
+        return configured.annotations;
+    }
 
-        // also include in-language annotations (could eventually remove the need for the config file annotations)
-        final Collection<JSGraphQLEndpointTypeResult<JSGraphQLEndpointAnnotationDefinition>> languageAnnotations = JSGraphQLEndpointPsiUtil.getKnownDefinitionNames(
-                psiFile,
-                JSGraphQLEndpointAnnotationDefinition.class,
-                false
-        );
-        for (JSGraphQLEndpointTypeResult<JSGraphQLEndpointAnnotationDefinition> languageAnnotation : languageAnnotations) {
-            final JSGraphQLSchemaEndpointAnnotation annotationConfig = new JSGraphQLSchemaEndpointAnnotation();
-            annotationConfig.name = languageAnnotation.name;
-            final JSGraphQLEndpointArgumentsDefinition argumentsDefinition = languageAnnotation.element.getArgumentsDefinition();
-            if(argumentsDefinition != null && argumentsDefinition.getInputValueDefinitions() != null) {
-                for (JSGraphQLEndpointInputValueDefinition argument : argumentsDefinition.getInputValueDefinitions().getInputValueDefinitionList()) {
-                    final JSGraphQLSchemaEndpointAnnotationArgument argumentConfig = new JSGraphQLSchemaEndpointAnnotationArgument();
-                    argumentConfig.name = argument.getInputValueDefinitionIdentifier().getText();
-                    if(argument.getCompositeType() != null) {
-                        argumentConfig.type = argument.getCompositeType().getText();
-                    }
-                    annotationConfig.arguments.add(argumentConfig);
-                }
-            }
-            annotations.add(annotationConfig);
+    /**
+     * Gets the 'schema' section of the graphql.config.json in a directory, which is only re-read when the config file changes
+     * @param configBaseDir the directory that contains the config
+     * @return the schema configuration, or <code>null</code> if the directory has no config or the config has no 'schema' section
+     */
+    @Nullable
+    public JSGraphQLSchemaConfiguration getSchemaConfiguration(@NotNull VirtualFile configBaseDir) {
+        final VirtualFile configFile = configBaseDir.findChild(GRAPHQL_CONFIG_JSON);
+        if(configFile == null) {
+            return null;
+        }
+        ConfiguredSchema configured = configuredSchemas.get(configFile.getUrl());
+        if(configured == null || configured.modificationStamp != configFile.getModificationStamp()) {
+            // the stamp is taken before reading, so a concurrent modification causes another read
+            final long modificationStamp = configFile.getModificationStamp();
+            final JSGraphQLConfiguration configuration = getConfiguration(configFile);
+            configured = new ConfiguredSchema(modificationStamp, configuration != null ? configuration.schema : null);
+            configuredSchemas.put(configFile.getUrl(), configured);
         }
+        return configured.schema;
+    }
 
-        return annotations;
+    /**
+     * Gets the schema file of the graphql.config.json in a directory, i.e. the file named by 'schema.file', which is relative to the
+     * directory unless it's an absolute path. A config without a 'schema' section uses the graphql.schema.json next to it, if any.
+     * @param configBaseDir the directory that contains the config
+     * @return the schema file, or <code>null</code> if the config doesn't name a schema file or the file doesn't exist
+     */
+    @Nullable
+    public VirtualFile getSchemaFile(@NotNull VirtualFile configBaseDir) {
+        final JSGraphQLSchemaConfiguration schemaConfiguration = getSchemaConfiguration(configBaseDir);
+        if(schemaConfiguration == null) {
+            return configBaseDir.findChild(GRAPHQL_DEFAULT_SCHEMA);
+        }
+        if(StringUtil.isEmpty(schemaConfiguration.file)) {
+            return null;
+        }
+        final String path = FileUtil.toSystemIndependentName(schemaConfiguration.file);
+        if(FileUtil.isAbsolute(path)) {
+            return LocalFileSystem.getInstance().findFileByPath(path);
+        }
+        return configBaseDir.findFileByRelativePath(path);
     }
 
     // ---- VirtualFileListener ----
@@ -262,9 +346,39 @@ public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
         }
     }
 
+    @Override
+    public void fileCreated(@NotNull VirtualFileEvent event) {
+        onConfigFileAddedOrRemoved(event.getFile(), event.getFileName());
+    }
+
+    @Override
+    public void fileDeleted(@NotNull VirtualFileEvent event) {
+        onConfigFileAddedOrRemoved(event.getFile(), event.getFileName());
+    }
+
+    @Override
+    public void fileMoved(@NotNull VirtualFileMoveEvent event) {
+        onConfigFileAddedOrRemoved(event.getFile(), event.getFileName());
+    }
+
+    @Override
+    public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
+        if(VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
+            onConfigFileAddedOrRemoved(event.getFile(), String.valueOf(event.getOldValue()));
+            onConfigFileAddedOrRemoved(event.getFile(), String.valueOf(event.getNewValue()));
+        }
+    }
+
 
     // ---- implementation ----
 
+    private void onConfigFileAddedOrRemoved(VirtualFile file, String fileName) {
+        if(GRAPHQL_CONFIG_JSON.equals(fileName) || file.isDirectory()) {
+            // the nearest config of any directory may have changed, and the cached directory urls may be outdated
+            nearestConfigBaseDirUrls.clear();
+        }
+    }
+
     private void detectConfigurationBaseDir() {
 
         VirtualFile baseDir = myProject.getBaseDir();
@@ -335,4 +449,27 @@ public class JSGraphQLConfigurationProvider extends VirtualFileAdapter {
         return null;
     }
 
+    private static class ConfiguredSchema {
+        final long modificationStamp;
+        final JSGraphQLSchemaConfiguration schema;
+        ConfiguredSchema(long modificationStamp, JSGraphQLSchemaConfiguration schema) {
+            this.modificationStamp = modificationStamp;
+            this.schema = schema;
+        }
+    }
+
+    private static class ConfiguredAnnotations {
+        final String configFileUrl;
+        final long modificationStamp;
+        final List<JSGraphQLSchemaEndpointAnnotation> annotations;
+        ConfiguredAnnotations(String configFileUrl, long modificationStamp, List<JSGraphQLSchemaEndpointAnnotation> annotations) {
+            this.configFileUrl = configFileUrl;
+            this.modificationStamp = modificationStamp;
+            this.annotations = Collections.unmodifiableList(annotations);
+        }
+        boolean isReadFrom(VirtualFile configFile) {
+            return configFileUrl.equals(configFile.getUrl()) && modificationStamp == configFile.getModificationStamp();
+        }
+    }
+
 }
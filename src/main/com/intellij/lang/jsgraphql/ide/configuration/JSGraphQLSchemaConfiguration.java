@@ -9,6 +9,10 @@ package com.intellij.lang.jsgraphql.ide.configuration;
 
 public class JSGraphQLSchemaConfiguration {
 
+	public String file;
+
+	public JSGraphQLSchemaRequestConfiguration request;
+
 	public JSGraphQLSchemaEndpointConfiguration endpoint;
 
 }
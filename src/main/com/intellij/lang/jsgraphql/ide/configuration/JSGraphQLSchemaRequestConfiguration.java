@@ -0,0 +1,22 @@
+/**
+ *  Copyright (c) 2015-present, Jim Kynde Meyer
+ *  All rights reserved.
+ *
+ *  This source code is licensed under the MIT license found in the
+ *  LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.configuration;
+
+import java.util.Map;
+
+public class JSGraphQLSchemaRequestConfiguration {
+
+	public String url;
+
+	public String method = "POST";
+
+	public boolean postIntrospectionQuery = true;
+
+	public Map<String, Object> options;
+
+}
@@ -22,6 +22,7 @@ import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.lang.annotation.Annotation;
 import com.intellij.lang.annotation.HighlightSeverity;
 import com.intellij.lang.jsgraphql.JSGraphQLTokenTypes;
+import com.intellij.lang.jsgraphql.ide.project.JSGraphQLFragmentDependencyGraph;
 import com.intellij.lang.jsgraphql.psi.*;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
@@ -54,7 +55,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -113,8 +113,7 @@ public class JSGraphQLQueryContextHighlightVisitor implements HighlightVisitor,
 
             final Color borderColor = EditorColorsManager.getInstance().getGlobalScheme().getColor(EditorColors.TEARLINE_COLOR);
             final TextAttributes textAttributes = new TextAttributes(null, null, borderColor, EffectType.ROUNDED_BOX, Font.PLAIN);
-            final HashSet<JSGraphQLFragmentDefinitionPsiElement> foundFragments = Sets.newHashSet();
-            findFragmentsInsideOperation(operationAtCursor, foundFragments, null);
+            final Set<JSGraphQLFragmentDefinitionPsiElement> foundFragments = findFragmentsInsideOperation(operationAtCursor);
             for (PsiElement psiElement : file.getChildren()) {
                 boolean showAsUsed = false;
                 if (psiElement instanceof JSGraphQLFragmentDefinitionPsiElement) {
@@ -330,8 +329,7 @@ public class JSGraphQLQueryContextHighlightVisitor implements HighlightVisitor,
 
                 final PsiElement operationAtCursor = getOperationAtCursor(psiFile, null);
                 if (operationAtCursor != null) {
-                    final HashSet<JSGraphQLFragmentDefinitionPsiElement> foundFragments = Sets.newHashSet();
-                    findFragmentsInsideOperation(operationAtCursor, foundFragments, null);
+                    final Set<JSGraphQLFragmentDefinitionPsiElement> foundFragments = findFragmentsInsideOperation(operationAtCursor);
                     Set<PsiElement> queryElements = Sets.newHashSet(foundFragments);
                     queryElements.add(operationAtCursor);
                     final StringBuilder query = new StringBuilder(editorLength);
@@ -519,14 +517,47 @@ public class JSGraphQLQueryContextHighlightVisitor implements HighlightVisitor,
     }
 
     /**
-     * Locates the fragments used from inside an operation, and the fragments, if any, that are used from within those fragments
+     * Locates the fragments in the same file that an operation depends on, using the project fragment dependency graph
+     *
+     * @param operation the operation to find used fragments for
+     * @return the fragment definitions in the file of the operation that are spread directly or indirectly from the operation
+     */
+    private static Set<JSGraphQLFragmentDefinitionPsiElement> findFragmentsInsideOperation(PsiElement operation) {
+        final Set<JSGraphQLFragmentDefinitionPsiElement> foundFragments = Sets.newHashSet();
+        final Project project = operation.getProject();
+        final Set<String> fragmentSpreads = Sets.newLinkedHashSet();
+        for (JSGraphQLNamedTypePsiElement namedType : PsiTreeUtil.findChildrenOfType(operation, JSGraphQLNamedTypePsiElement.class)) {
+            if (namedType.isDefinition() && namedType.getTypeContext() == JSGraphQLNamedTypeContext.Fragment) {
+                fragmentSpreads.add(namedType.getName());
+            }
+        }
+        if (!fragmentSpreads.isEmpty()) {
+            final Set<String> fragmentNames = JSGraphQLFragmentDependencyGraph.getService(project).getTransitiveDependencies(fragmentSpreads);
+            if (fragmentNames == null) {
+                // the dependency graph relies on the indexes, so resolve the fragments from the PSI while indexing
+                resolveFragmentsInsideOperation(operation, foundFragments, null);
+                return foundFragments;
+            }
+            for (PsiElement psiElement : operation.getContainingFile().getChildren()) {
+                if (psiElement instanceof JSGraphQLFragmentDefinitionPsiElement) {
+                    if (fragmentNames.contains(((JSGraphQLFragmentDefinitionPsiElement) psiElement).getName())) {
+                        foundFragments.add((JSGraphQLFragmentDefinitionPsiElement) psiElement);
+                    }
+                }
+            }
+        }
+        return foundFragments;
+    }
+
+    /**
+     * Locates the fragments used from inside an operation, and the fragments, if any, that are used from within those fragments, by resolving the fragment spreads
      *
      * @param operationOrFragment the operation to find used fragments for
      * @param foundFragments      a set to add the found fragments to
      * @param findMore            optional function to stop once a specific fragment has been found
      */
-    private static void findFragmentsInsideOperation(PsiElement operationOrFragment, Set<JSGraphQLFragmentDefinitionPsiElement> foundFragments,
-                                                     Function<JSGraphQLFragmentDefinitionPsiElement, Boolean> findMore) {
+    private static void resolveFragmentsInsideOperation(PsiElement operationOrFragment, Set<JSGraphQLFragmentDefinitionPsiElement> foundFragments,
+                                                        Function<JSGraphQLFragmentDefinitionPsiElement, Boolean> findMore) {
 
         operationOrFragment.accept(new PsiRecursiveElementVisitor() {
 
@@ -554,7 +585,7 @@ public class JSGraphQLQueryContextHighlightVisitor implements HighlightVisitor,
                                             return;
                                         }
                                         // also look for fragments inside this fragment
-                                        findFragmentsInsideOperation(fragment, foundFragments, findMore);
+                                        resolveFragmentsInsideOperation(fragment, foundFragments, findMore);
                                     }
                                 }
                             }
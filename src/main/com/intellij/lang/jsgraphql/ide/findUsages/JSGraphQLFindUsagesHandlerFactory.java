@@ -7,18 +7,36 @@
  */
 package com.intellij.lang.jsgraphql.ide.findUsages;
 
+import com.google.common.collect.Lists;
 import com.intellij.find.findUsages.*;
 import com.intellij.ide.DataManager;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLDefinitionIndexUtil;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLOperationDefinitionIndex;
+import com.intellij.lang.jsgraphql.ide.project.JSGraphQLFragmentDependencyGraph;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLFragmentDefinitionPsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedPsiElement;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
 import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.ProjectAndLibrariesScope;
+import com.intellij.usageView.UsageInfo;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 /**
- * Find usages handler factory which includes the GraphQL schema virtual file in the "Project and Libraries" scope
+ * Find usages handler factory which includes the GraphQL schema virtual file in the "Project and Libraries" scope,
+ * and limits searches for fragment usages to the files that spread the fragment.
+ * The named operations that use a fragment indirectly, via other fragments, are included as usages of the fragment.
  */
 public class JSGraphQLFindUsagesHandlerFactory extends FindUsagesHandlerFactory {
 
@@ -52,6 +70,14 @@ public class JSGraphQLFindUsagesHandlerFactory extends FindUsagesHandlerFactory
                     return options;
                 }
 
+                @Override
+                public boolean processElementUsages(@NotNull PsiElement element, @NotNull Processor<UsageInfo> processor, @NotNull FindUsagesOptions options) {
+                    if(!super.processElementUsages(element, processor, restrictToFragmentDependents(element, options))) {
+                        return false;
+                    }
+                    return processIndirectOperationUsages(element, processor, options);
+                }
+
             };
         }
 
@@ -70,6 +96,69 @@ public class JSGraphQLFindUsagesHandlerFactory extends FindUsagesHandlerFactory
         }
     }
 
+    /**
+     * Fragments can only be used from the files that spread them, so the search is limited to the files the fragment dependency graph knows of
+     */
+    private static FindUsagesOptions restrictToFragmentDependents(PsiElement element, FindUsagesOptions options) {
+        if(options.isSearchForTextOccurrences) {
+            return options;
+        }
+        final Set<VirtualFile> dependentFiles = ApplicationManager.getApplication().runReadAction((Computable<Set<VirtualFile>>) () -> {
+            if(element instanceof JSGraphQLNamedTypePsiElement && element.getParent() instanceof JSGraphQLFragmentDefinitionPsiElement) {
+                final String fragmentName = ((JSGraphQLNamedTypePsiElement) element).getName();
+                if(fragmentName != null) {
+                    return JSGraphQLFragmentDependencyGraph.getService(element.getProject()).getDependentFiles(fragmentName);
+                }
+            }
+            return null;
+        });
+        if(dependentFiles != null) {
+            final FindUsagesOptions restricted = options.clone();
+            restricted.searchScope = options.searchScope.intersectWith(GlobalSearchScope.filesScope(element.getProject(), dependentFiles));
+            return restricted;
+        }
+        return options;
+    }
+
+    /**
+     * Reports the named operations that use a fragment through the fragments they spread, since those operations don't contain a spread of the fragment itself
+     */
+    private static boolean processIndirectOperationUsages(PsiElement element, Processor<UsageInfo> processor, FindUsagesOptions options) {
+        if(!(options.searchScope instanceof GlobalSearchScope)) {
+            return true;
+        }
+        final GlobalSearchScope searchScope = (GlobalSearchScope) options.searchScope;
+        final List<UsageInfo> usages = ApplicationManager.getApplication().runReadAction((Computable<List<UsageInfo>>) () -> {
+            if(!(element instanceof JSGraphQLNamedTypePsiElement) || !(element.getParent() instanceof JSGraphQLFragmentDefinitionPsiElement)) {
+                return Collections.emptyList();
+            }
+            final String fragmentName = ((JSGraphQLNamedTypePsiElement) element).getName();
+            final Set<String> operationNames = fragmentName != null ? JSGraphQLFragmentDependencyGraph.getService(element.getProject()).getDependentOperations(fragmentName) : null;
+            if(operationNames == null) {
+                return Collections.emptyList();
+            }
+            final List<UsageInfo> operationUsages = Lists.newArrayList();
+            for (String operationName : operationNames) {
+                JSGraphQLDefinitionIndexUtil.processDefinitions(JSGraphQLOperationDefinitionIndex.NAME, operationName, searchScope, (file, definition) -> {
+                    if(!definition.getFragmentSpreads().contains(fragmentName)) {
+                        final JSGraphQLNamedTypePsiElement operationNameElement = JSGraphQLDefinitionIndexUtil.findDefinitionElement(element.getProject(), file, definition);
+                        if(operationNameElement != null) {
+                            operationUsages.add(new UsageInfo(operationNameElement));
+                        }
+                    }
+                    return true;
+                });
+            }
+            return operationUsages;
+        });
+        for (UsageInfo usage : usages) {
+            if(!processor.process(usage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * GraphQL find usages dialog which includes the GraphQL schema file as a library
      */
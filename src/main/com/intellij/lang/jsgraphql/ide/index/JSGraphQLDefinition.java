@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A top-level GraphQL definition as recorded in the definition indexes, e.g. 'fragment Foo on User'.
+ * Fragments and operations also record the names of the fragments they spread.
+ */
+public class JSGraphQLDefinition {
+
+    public enum Kind {
+        Fragment,
+        Query,
+        Mutation,
+        Subscription,
+        ObjectType,
+        Interface,
+        Union,
+        Scalar,
+        Enum,
+        Input;
+
+        public boolean isOperation() {
+            return this == Query || this == Mutation || this == Subscription;
+        }
+
+        public boolean isType() {
+            return !isOperation() && this != Fragment;
+        }
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final String typeCondition;
+    private final int offset;
+    private final List<String> fragmentSpreads;
+
+    public JSGraphQLDefinition(@NotNull String name, @NotNull Kind kind, @Nullable String typeCondition, int offset) {
+        this(name, kind, typeCondition, offset, Collections.emptyList());
+    }
+
+    public JSGraphQLDefinition(@NotNull String name, @NotNull Kind kind, @Nullable String typeCondition, int offset, @NotNull List<String> fragmentSpreads) {
+        this.name = name;
+        this.kind = kind;
+        this.typeCondition = typeCondition;
+        this.offset = offset;
+        this.fragmentSpreads = Collections.unmodifiableList(fragmentSpreads);
+    }
+
+    /**
+     * @return the definition name, or an empty string for anonymous operations
+     */
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAnonymous() {
+        return name.isEmpty();
+    }
+
+    @NotNull
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the type condition of a fragment, e.g. 'User' in 'fragment Foo on User', or <code>null</code> for other kinds
+     */
+    @Nullable
+    public String getTypeCondition() {
+        return typeCondition;
+    }
+
+    /**
+     * @return the offset of the definition name in the indexed file (for JS files this is the offset in the host file)
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the distinct names of the fragments spread directly inside a fragment or operation, e.g. 'Bar' for '{ ...Bar }'
+     */
+    @NotNull
+    public List<String> getFragmentSpreads() {
+        return fragmentSpreads;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JSGraphQLDefinition that = (JSGraphQLDefinition) o;
+        return offset == that.offset &&
+                name.equals(that.name) &&
+                kind == that.kind &&
+                Objects.equals(typeCondition, that.typeCondition) &&
+                fragmentSpreads.equals(that.fragmentSpreads);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, kind, typeCondition, offset, fragmentSpreads);
+    }
+
+    @Override
+    public String toString() {
+        return "JSGraphQLDefinition{" +
+                "name='" + name + '\'' +
+                ", kind=" + kind +
+                ", typeCondition='" + typeCondition + '\'' +
+                ", offset=" + offset +
+                ", fragmentSpreads=" + fragmentSpreads +
+                '}';
+    }
+}
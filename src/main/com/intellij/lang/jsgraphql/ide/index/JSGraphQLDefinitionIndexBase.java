@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.JSGraphQLFileType;
+import com.intellij.lang.jsgraphql.ide.findUsages.JSGraphQLFindUsagesUtil;
+import com.intellij.lang.jsgraphql.schema.JSGraphQLSchemaFileType;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.Key;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for the indexes of top-level GraphQL definitions in GraphQL files and GraphQL tagged templates.
+ * By default an index maps a definition name to the named definitions of its kind in a file.
+ *
+ * @see JSGraphQLDefinitionScanner
+ */
+public abstract class JSGraphQLDefinitionIndexBase extends FileBasedIndexExtension<String, List<JSGraphQLDefinition>> {
+
+    private static final int VERSION = 2;
+
+    private static final FileType[] FILE_TYPES = JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.toArray(new FileType[JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.size()]);
+
+    // the definition indexes process the same file content, so the definitions are only scanned once per file
+    private static final Key<List<JSGraphQLDefinition>> DEFINITIONS = Key.create("JSGraphQL.indexed.definitions");
+
+    private final DataIndexer<String, List<JSGraphQLDefinition>, FileContent> indexer = inputData -> {
+        final Map<String, List<JSGraphQLDefinition>> result = Maps.newHashMap();
+        for (JSGraphQLDefinition definition : getDefinitions(inputData)) {
+            if (!definition.isAnonymous() && accept(definition)) {
+                result.computeIfAbsent(definition.getName(), name -> Lists.newArrayListWithExpectedSize(1)).add(definition);
+            }
+        }
+        return result;
+    };
+
+    /**
+     * @return whether the definition belongs in this index
+     */
+    protected abstract boolean accept(@NotNull JSGraphQLDefinition definition);
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<JSGraphQLDefinition>, FileContent> getIndexer() {
+        return indexer;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<JSGraphQLDefinition>> getValueExternalizer() {
+        return DefinitionsExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(FILE_TYPES);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @NotNull
+    protected static List<JSGraphQLDefinition> getDefinitions(@NotNull FileContent inputData) {
+        List<JSGraphQLDefinition> definitions = inputData.getUserData(DEFINITIONS);
+        if (definitions == null) {
+            definitions = scanDefinitions(inputData.getFileType(), inputData.getContentAsText());
+            inputData.putUserData(DEFINITIONS, definitions);
+        }
+        return definitions;
+    }
+
+    /**
+     * Scans the definitions in the text of a file the same way the indexes do
+     */
+    @NotNull
+    public static List<JSGraphQLDefinition> scanDefinitions(@NotNull FileType fileType, @NotNull CharSequence text) {
+        if (fileType == JSGraphQLFileType.INSTANCE || fileType == JSGraphQLSchemaFileType.INSTANCE) {
+            return JSGraphQLDefinitionScanner.scanGraphQL(text);
+        } else if (containsTemplate(text)) {
+            return JSGraphQLDefinitionScanner.scanJavaScript(text);
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean containsTemplate(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '`') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class DefinitionsExternalizer implements DataExternalizer<List<JSGraphQLDefinition>> {
+
+        static final DefinitionsExternalizer INSTANCE = new DefinitionsExternalizer();
+
+        private static final JSGraphQLDefinition.Kind[] KINDS = JSGraphQLDefinition.Kind.values();
+
+        @Override
+        public void save(@NotNull DataOutput out, List<JSGraphQLDefinition> definitions) throws IOException {
+            DataInputOutputUtil.writeINT(out, definitions.size());
+            for (JSGraphQLDefinition definition : definitions) {
+                IOUtil.writeUTF(out, definition.getName());
+                DataInputOutputUtil.writeINT(out, definition.getKind().ordinal());
+                final String typeCondition = definition.getTypeCondition();
+                out.writeBoolean(typeCondition != null);
+                if (typeCondition != null) {
+                    IOUtil.writeUTF(out, typeCondition);
+                }
+                DataInputOutputUtil.writeINT(out, definition.getOffset());
+                final List<String> fragmentSpreads = definition.getFragmentSpreads();
+                DataInputOutputUtil.writeINT(out, fragmentSpreads.size());
+                for (String fragmentSpread : fragmentSpreads) {
+                    IOUtil.writeUTF(out, fragmentSpread);
+                }
+            }
+        }
+
+        @Override
+        public List<JSGraphQLDefinition> read(@NotNull DataInput in) throws IOException {
+            final int size = DataInputOutputUtil.readINT(in);
+            final List<JSGraphQLDefinition> definitions = Lists.newArrayListWithExpectedSize(size);
+            for (int i = 0; i < size; i++) {
+                final String name = IOUtil.readUTF(in);
+                final JSGraphQLDefinition.Kind kind = KINDS[DataInputOutputUtil.readINT(in)];
+                final String typeCondition = in.readBoolean() ? IOUtil.readUTF(in) : null;
+                final int offset = DataInputOutputUtil.readINT(in);
+                final int fragmentSpreadCount = DataInputOutputUtil.readINT(in);
+                final List<String> fragmentSpreads = Lists.newArrayListWithExpectedSize(fragmentSpreadCount);
+                for (int s = 0; s < fragmentSpreadCount; s++) {
+                    fragmentSpreads.add(IOUtil.readUTF(in));
+                }
+                definitions.add(new JSGraphQLDefinition(name, kind, typeCondition, offset, fragmentSpreads));
+            }
+            return definitions;
+        }
+    }
+}
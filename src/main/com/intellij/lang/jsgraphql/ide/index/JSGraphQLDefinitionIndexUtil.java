@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import com.intellij.lang.injection.InjectedLanguageManager;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLFile;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
+import com.intellij.lang.jsgraphql.schema.psi.JSGraphQLSchemaFile;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.PairProcessor;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Queries the GraphQL definition indexes and maps the indexed definitions back to PSI on demand
+ */
+public class JSGraphQLDefinitionIndexUtil {
+
+    /**
+     * Processes the indexed definitions with the specified name
+     *
+     * @return false if the processor stopped the processing
+     */
+    public static boolean processDefinitions(@NotNull ID<String, List<JSGraphQLDefinition>> indexId,
+                                             @NotNull String name,
+                                             @NotNull GlobalSearchScope scope,
+                                             @NotNull PairProcessor<VirtualFile, JSGraphQLDefinition> processor) {
+        return FileBasedIndex.getInstance().processValues(indexId, name, null, (file, definitions) -> {
+            for (JSGraphQLDefinition definition : definitions) {
+                if (!processor.process(file, definition)) {
+                    return false;
+                }
+            }
+            return true;
+        }, scope);
+    }
+
+    /**
+     * Processes the names of all indexed definitions in the specified scope
+     *
+     * @return false if the processor stopped the processing
+     */
+    public static boolean processNames(@NotNull ID<String, List<JSGraphQLDefinition>> indexId,
+                                       @NotNull GlobalSearchScope scope,
+                                       @NotNull Processor<String> processor) {
+        return FileBasedIndex.getInstance().processAllKeys(indexId, processor, scope, null);
+    }
+
+    /**
+     * Gets the PSI name element of an indexed definition, parsing the file or template injection that contains it
+     *
+     * @return the name element, or <code>null</code> if the definition is no longer present at the indexed offset
+     */
+    @Nullable
+    public static JSGraphQLNamedTypePsiElement findDefinitionElement(@NotNull Project project, @NotNull VirtualFile file, @NotNull JSGraphQLDefinition definition) {
+        final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null) {
+            return null;
+        }
+        final PsiElement elementAtOffset;
+        if (psiFile instanceof JSGraphQLFile || psiFile instanceof JSGraphQLSchemaFile) {
+            elementAtOffset = psiFile.findElementAt(definition.getOffset());
+        } else {
+            // GraphQL template in a JS file where the offset is in the host file
+            elementAtOffset = InjectedLanguageManager.getInstance(project).findInjectedElementAt(psiFile, definition.getOffset());
+        }
+        final JSGraphQLNamedTypePsiElement nameElement = PsiTreeUtil.getParentOfType(elementAtOffset, JSGraphQLNamedTypePsiElement.class, false);
+        if (nameElement != null && definition.getName().equals(nameElement.getName())) {
+            return nameElement;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.JSGraphQLKeywords;
+import com.intellij.lang.jsgraphql.ide.injection.JSGraphQLLanguageInjectionUtil;
+import com.intellij.lang.jsgraphql.lexer.JSGraphQLTokenizer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Finds the top-level definitions and the fragment spreads they contain in GraphQL buffers and GraphQL tagged templates without using the language service.
+ * The indexes run while the Node.js language service may not be available, so the scanner only relies on the
+ * token structure of the GraphQL grammar as read by {@link JSGraphQLTokenizer}.
+ */
+public class JSGraphQLDefinitionScanner {
+
+    private final JSGraphQLTokenizer tokenizer;
+    private final int baseOffset;
+    private final List<JSGraphQLDefinition> definitions;
+
+    private JSGraphQLDefinitionScanner(CharSequence text, int baseOffset, List<JSGraphQLDefinition> definitions) {
+        this.tokenizer = new JSGraphQLTokenizer(text);
+        this.baseOffset = baseOffset;
+        this.definitions = definitions;
+    }
+
+    /**
+     * Scans a GraphQL buffer for definitions
+     */
+    @NotNull
+    public static List<JSGraphQLDefinition> scanGraphQL(@NotNull CharSequence text) {
+        final List<JSGraphQLDefinition> definitions = Lists.newArrayList();
+        new JSGraphQLDefinitionScanner(text, 0, definitions).scan();
+        return definitions;
+    }
+
+    /**
+     * Scans the supported GraphQL tagged templates in a JavaScript or TypeScript buffer for definitions.
+     * Offsets are relative to the start of the JavaScript buffer.
+     */
+    @NotNull
+    public static List<JSGraphQLDefinition> scanJavaScript(@NotNull CharSequence text) {
+        final List<JSGraphQLDefinition> definitions = Lists.newArrayList();
+        final int length = text.length();
+        int i = 0;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                i = skipUntil(text, i + 2, "\n");
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                i = skipUntil(text, i + 2, "*/");
+            } else if (c == '"' || c == '\'') {
+                i = skipJavaScriptString(text, i + 1, c);
+            } else if (c == '`') {
+                final int templateEnd = findTemplateEnd(text, i + 1);
+                if (isGraphQLTag(getTemplateTag(text, i))) {
+                    // blank out placeholders to keep the offsets of the GraphQL definitions intact
+                    final StringBuilder graphQL = new StringBuilder(text.subSequence(i + 1, Math.min(templateEnd, length)));
+                    blankPlaceholders(graphQL);
+                    new JSGraphQLDefinitionScanner(graphQL, i + 1, definitions).scan();
+                }
+                i = templateEnd + 1;
+            } else {
+                i++;
+            }
+        }
+        return definitions;
+    }
+
+    // ---- GraphQL ----
+
+    private void scan() {
+        int braceDepth = 0;
+        int parenDepth = 0;
+        boolean extension = false;
+        // a selection set can only start an anonymous query at the start of the buffer or after another definition
+        boolean definitionExpected = true;
+        // the fragment spreads of the fragment or operation that is currently being scanned
+        List<String> fragmentSpreads = null;
+        while (nextToken()) {
+            final boolean closingBrace = tokenizer.is("}");
+            if (tokenizer.is("{")) {
+                if (braceDepth == 0 && parenDepth == 0 && definitionExpected) {
+                    // query shorthand, e.g. '{ viewer { id } }'
+                    fragmentSpreads = addDefinition("", JSGraphQLDefinition.Kind.Query, null, tokenizer.getStart());
+                }
+                braceDepth++;
+            } else if (closingBrace) {
+                braceDepth = Math.max(0, braceDepth - 1);
+                if (braceDepth == 0 && parenDepth == 0) {
+                    fragmentSpreads = null;
+                }
+            } else if (tokenizer.is("(")) {
+                parenDepth++;
+            } else if (tokenizer.is(")")) {
+                parenDepth = Math.max(0, parenDepth - 1);
+            } else if (tokenizer.is("...")) {
+                if (braceDepth > 0 && fragmentSpreads != null) {
+                    scanFragmentSpread(fragmentSpreads);
+                }
+            } else if (braceDepth == 0 && parenDepth == 0 && tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                final String keyword = tokenizer.getText();
+                if (JSGraphQLKeywords.EXTEND.equals(keyword)) {
+                    // extensions add to a type that is defined elsewhere
+                    extension = true;
+                } else {
+                    final JSGraphQLDefinition.Kind kind = getDefinitionKind(keyword);
+                    if (kind != null && !extension) {
+                        fragmentSpreads = scanDefinition(kind);
+                    }
+                    extension = false;
+                }
+            }
+            definitionExpected = closingBrace && braceDepth == 0 && parenDepth == 0;
+        }
+    }
+
+    /**
+     * @return the list to add the fragment spreads of the definition to, or <code>null</code> if the definition can't contain fragment spreads
+     */
+    private List<String> scanDefinition(JSGraphQLDefinition.Kind kind) {
+        final int keywordStart = tokenizer.getStart();
+        if (!nextToken()) {
+            return null;
+        }
+        if (tokenizer.getKind() != JSGraphQLTokenizer.Kind.NAME) {
+            // anonymous operation, re-visit the token to keep track of the nesting
+            tokenizer.reset(tokenizer.getStart());
+            return kind.isOperation() ? addDefinition("", kind, null, keywordStart) : null;
+        }
+        final String name = tokenizer.getText();
+        final int nameStart = tokenizer.getStart();
+        if (kind == JSGraphQLDefinition.Kind.Fragment) {
+            if (JSGraphQLKeywords.FRAGMENT_ON.equals(name)) {
+                // anonymous Relay Classic fragment, e.g. 'fragment on User'
+                return null;
+            }
+            String typeCondition = null;
+            final int afterName = tokenizer.getEnd();
+            if (nextToken() && tokenizer.isName(JSGraphQLKeywords.FRAGMENT_ON) && nextToken() && tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                typeCondition = tokenizer.getText();
+            } else {
+                tokenizer.reset(afterName);
+            }
+            return addDefinition(name, kind, typeCondition, nameStart);
+        }
+        return addDefinition(name, kind, null, nameStart);
+    }
+
+    private List<String> addDefinition(String name, JSGraphQLDefinition.Kind kind, String typeCondition, int nameStart) {
+        if (kind == JSGraphQLDefinition.Kind.Fragment || kind.isOperation()) {
+            // the list is filled in as the selection sets of the definition are scanned
+            final List<String> fragmentSpreads = Lists.newArrayListWithExpectedSize(2);
+            definitions.add(new JSGraphQLDefinition(name, kind, typeCondition, baseOffset + nameStart, fragmentSpreads));
+            return fragmentSpreads;
+        }
+        definitions.add(new JSGraphQLDefinition(name, kind, typeCondition, baseOffset + nameStart));
+        return null;
+    }
+
+    private void scanFragmentSpread(List<String> fragmentSpreads) {
+        final int afterDots = tokenizer.getEnd();
+        if (nextToken() && tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+            final String fragmentName = tokenizer.getText();
+            if (JSGraphQLKeywords.FRAGMENT_ON.equals(fragmentName)) {
+                // inline fragment
+                return;
+            }
+            if (!fragmentSpreads.contains(fragmentName)) {
+                fragmentSpreads.add(fragmentName);
+            }
+        } else {
+            // inline fragment without a type condition, or a template placeholder
+            tokenizer.reset(afterDots);
+        }
+    }
+
+    private static JSGraphQLDefinition.Kind getDefinitionKind(String keyword) {
+        switch (keyword) {
+            case JSGraphQLKeywords.FRAGMENT:
+                return JSGraphQLDefinition.Kind.Fragment;
+            case JSGraphQLKeywords.QUERY:
+                return JSGraphQLDefinition.Kind.Query;
+            case JSGraphQLKeywords.MUTATION:
+                return JSGraphQLDefinition.Kind.Mutation;
+            case JSGraphQLKeywords.SUBSCRIPTION:
+                return JSGraphQLDefinition.Kind.Subscription;
+            case JSGraphQLKeywords.TYPE:
+                return JSGraphQLDefinition.Kind.ObjectType;
+            case JSGraphQLKeywords.INTERFACE:
+                return JSGraphQLDefinition.Kind.Interface;
+            case JSGraphQLKeywords.UNION:
+                return JSGraphQLDefinition.Kind.Union;
+            case JSGraphQLKeywords.SCALAR:
+                return JSGraphQLDefinition.Kind.Scalar;
+            case JSGraphQLKeywords.ENUM:
+                return JSGraphQLDefinition.Kind.Enum;
+            case JSGraphQLKeywords.INPUT:
+                return JSGraphQLDefinition.Kind.Input;
+        }
+        return null;
+    }
+
+    /**
+     * Advances to the next significant token, skipping strings since they can't contain definitions or fragment spreads
+     *
+     * @return false if the end of the buffer was reached
+     */
+    private boolean nextToken() {
+        while (tokenizer.next()) {
+            if (tokenizer.getKind() != JSGraphQLTokenizer.Kind.STRING && tokenizer.getKind() != JSGraphQLTokenizer.Kind.BLOCK_STRING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- JavaScript ----
+
+    private static String getTemplateTag(CharSequence text, int backtickOffset) {
+        int end = backtickOffset;
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0) {
+            final char c = text.charAt(start - 1);
+            if (Character.isJavaIdentifierPart(c) || c == '.') {
+                start--;
+            } else {
+                break;
+            }
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    private static boolean isGraphQLTag(String tag) {
+        if (JSGraphQLLanguageInjectionUtil.SUPPORTED_TAG_NAMES.contains(tag)) {
+            return true;
+        }
+        // a builder pattern that ends in a tagged template, e.g. someQueryAPI.graphql``
+        final int lastDot = tag.lastIndexOf('.');
+        return lastDot != -1 && JSGraphQLLanguageInjectionUtil.SUPPORTED_TAG_NAMES.contains(tag.substring(lastDot + 1));
+    }
+
+    /**
+     * @return the offset of the closing backtick, or the buffer length for an unterminated template
+     */
+    private static int findTemplateEnd(CharSequence text, int i) {
+        final int length = text.length();
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '`') {
+                return i;
+            } else if (c == '$' && i + 1 < length && text.charAt(i + 1) == '{') {
+                i = skipPlaceholder(text, i + 2);
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private static int skipPlaceholder(CharSequence text, int i) {
+        final int length = text.length();
+        int depth = 1;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            } else if (c == '"' || c == '\'') {
+                i = skipJavaScriptString(text, i + 1, c);
+                continue;
+            } else if (c == '`') {
+                i = findTemplateEnd(text, i + 1) + 1;
+                continue;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    private static void blankPlaceholders(StringBuilder text) {
+        final int end = text.length();
+        int i = 0;
+        while (i < end) {
+            final char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '$' && i + 1 < end && text.charAt(i + 1) == '{') {
+                final int placeholderEnd = Math.min(skipPlaceholder(text, i + 2), end);
+                for (int p = i; p < placeholderEnd; p++) {
+                    if (text.charAt(p) != '\n') {
+                        text.setCharAt(p, ' ');
+                    }
+                }
+                i = placeholderEnd;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static int skipJavaScriptString(CharSequence text, int i, char quote) {
+        final int length = text.length();
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote || c == '\n') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    // ---- utils ----
+
+    private static int skipUntil(CharSequence text, int i, String terminator) {
+        final int length = text.length();
+        while (i < length) {
+            if (startsWith(text, i, terminator)) {
+                return i + terminator.length();
+            }
+            i++;
+        }
+        return length;
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the fragments and operations that spread a fragment by the fragment name, e.g. 'Foo' for 'query { ...Foo }'.
+ * Anonymous operations are included.
+ */
+public class JSGraphQLFragmentSpreadIndex extends JSGraphQLDefinitionIndexBase {
+
+    public static final ID<String, List<JSGraphQLDefinition>> NAME = ID.create("JSGraphQLFragmentSpreadIndex");
+
+    private final DataIndexer<String, List<JSGraphQLDefinition>, FileContent> indexer = inputData -> {
+        final Map<String, List<JSGraphQLDefinition>> result = Maps.newHashMap();
+        for (JSGraphQLDefinition definition : getDefinitions(inputData)) {
+            for (String fragmentSpread : definition.getFragmentSpreads()) {
+                result.computeIfAbsent(fragmentSpread, name -> Lists.newArrayListWithExpectedSize(1)).add(definition);
+            }
+        }
+        return result;
+    };
+
+    @NotNull
+    @Override
+    public ID<String, List<JSGraphQLDefinition>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<JSGraphQLDefinition>, FileContent> getIndexer() {
+        return indexer;
+    }
+
+    @Override
+    protected boolean accept(@NotNull JSGraphQLDefinition definition) {
+        return !definition.getFragmentSpreads().isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Indexes named query, mutation and subscription definitions by name
+ */
+public class JSGraphQLOperationDefinitionIndex extends JSGraphQLDefinitionIndexBase {
+
+    public static final ID<String, List<JSGraphQLDefinition>> NAME = ID.create("JSGraphQLOperationDefinitionIndex");
+
+    @NotNull
+    @Override
+    public ID<String, List<JSGraphQLDefinition>> getName() {
+        return NAME;
+    }
+
+    @Override
+    protected boolean accept(@NotNull JSGraphQLDefinition definition) {
+        return definition.getKind().isOperation();
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.intellij.ProjectTopics;
+import com.intellij.lang.jsgraphql.ide.findUsages.JSGraphQLFindUsagesUtil;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLDefinition;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLDefinitionIndexUtil;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLFragmentSpreadIndex;
+import com.intellij.lang.jsgraphql.ide.validation.JSGraphQLValidator;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the graph of fragment spreads between the fragments and operations in the project.
+ * The graph is built from the fragment spread index, and the edges of files that change afterwards are re-read from the index on demand the next time the graph is queried.
+ * Queries on the graph are proportional to the number of spreads they visit, and return <code>null</code> while the graph can't be built during indexing.
+ */
+public class JSGraphQLFragmentDependencyGraph {
+
+    private static final FileType[] FILE_TYPES = JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.toArray(new FileType[JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.size()]);
+
+    private final Project myProject;
+    private final GlobalSearchScope searchScope;
+
+    private final Object lock = new Object();
+
+    // the fragments and operations with their spreads, per file
+    private final Map<VirtualFile, List<JSGraphQLDefinition>> fileDefinitions = Maps.newHashMap();
+
+    // fragment name -> the fragments it spreads, counted once for each definition that contributes the edge
+    private final Map<String, Multiset<String>> fragmentDependencies = Maps.newHashMap();
+
+    // fragment name -> the definitions that spread it
+    private final Map<String, Multiset<JSGraphQLDefinition>> fragmentDependents = Maps.newHashMap();
+
+    // fragment name -> the files that spread it
+    private final Map<String, Multiset<VirtualFile>> fragmentDependentFiles = Maps.newHashMap();
+
+    private final Set<VirtualFile> dirtyFiles = Sets.newHashSet();
+    private boolean rebuildRequired = true;
+
+    public static JSGraphQLFragmentDependencyGraph getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLFragmentDependencyGraph.class);
+    }
+
+    public JSGraphQLFragmentDependencyGraph(@NotNull final Project project) {
+        myProject = project;
+        searchScope = GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.projectScope(myProject), FILE_TYPES);
+
+        // mark edited files, including the host files of GraphQL templates
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+        }, project);
+
+        final MessageBusConnection connection = project.getMessageBus().connect(project);
+
+        // mark files that are created, deleted or changed outside the editor
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                synchronized (lock) {
+                    for (VFileEvent event : events) {
+                        final VirtualFile file = event.getFile();
+                        if (file != null && !file.isDirectory()) {
+                            markDirty(file);
+                        } else {
+                            // directory changes can affect any number of files
+                            rebuildRequired = true;
+                        }
+                    }
+                }
+            }
+        });
+
+        // the project scope changes with the content roots
+        connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+            @Override
+            public void rootsChanged(ModuleRootEvent event) {
+                synchronized (lock) {
+                    rebuildRequired = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the fragments that are spread directly or indirectly from the specified fragment spreads, including the spreads themselves
+     *
+     * @param fragmentSpreads the names of the fragments spread directly, e.g. from an operation
+     * @return the names of all the fragments the spreads depend on, or <code>null</code> if the graph can't be built while indexing is in progress
+     */
+    @Nullable
+    public Set<String> getTransitiveDependencies(@NotNull Collection<String> fragmentSpreads) {
+        synchronized (lock) {
+            if (!update()) {
+                return null;
+            }
+            final Set<String> visited = Sets.newLinkedHashSet();
+            final Deque<String> queue = new ArrayDeque<>(fragmentSpreads);
+            while (!queue.isEmpty()) {
+                final String fragmentName = queue.removeFirst();
+                if (visited.add(fragmentName)) {
+                    queue.addAll(getDependencies(fragmentName));
+                }
+            }
+            return visited;
+        }
+    }
+
+    /**
+     * Gets the named operations that use a fragment, either by spreading it directly, or by spreading fragments that depend on it
+     *
+     * @param fragmentName the fragment name
+     * @return the names of the operations that depend on the fragment, or <code>null</code> if the graph can't be built while indexing is in progress
+     */
+    @Nullable
+    public Set<String> getDependentOperations(@NotNull String fragmentName) {
+        synchronized (lock) {
+            if (!update()) {
+                return null;
+            }
+            final Set<String> operations = Sets.newLinkedHashSet();
+            final Set<String> visited = Sets.newHashSet();
+            final Deque<String> queue = new ArrayDeque<>();
+            queue.add(fragmentName);
+            while (!queue.isEmpty()) {
+                final String name = queue.removeFirst();
+                if (!visited.add(name)) {
+                    continue;
+                }
+                final Multiset<JSGraphQLDefinition> dependents = fragmentDependents.get(name);
+                if (dependents != null) {
+                    for (JSGraphQLDefinition dependent : dependents.elementSet()) {
+                        if (dependent.getKind() == JSGraphQLDefinition.Kind.Fragment) {
+                            queue.add(dependent.getName());
+                        } else if (!dependent.isAnonymous()) {
+                            operations.add(dependent.getName());
+                        }
+                    }
+                }
+            }
+            return operations;
+        }
+    }
+
+    /**
+     * Finds a cycle of fragment spreads through the specified fragment
+     *
+     * @return the fragment names that form the cycle, starting with the specified fragment, which is spread by the last one, or an empty list if there is no cycle.
+     * Returns <code>null</code> if the graph can't be built while indexing is in progress
+     * @see JSGraphQLValidator#findFragmentCycle
+     */
+    @Nullable
+    public List<String> findCycle(@NotNull String fragmentName) {
+        synchronized (lock) {
+            if (!update()) {
+                return null;
+            }
+            return JSGraphQLValidator.findFragmentCycle(fragmentName, this::getDependencies);
+        }
+    }
+
+    /**
+     * Gets the files that spread the specified fragment directly
+     *
+     * @return the files, or <code>null</code> if the graph can't be built while indexing is in progress
+     */
+    @Nullable
+    public Set<VirtualFile> getDependentFiles(@NotNull String fragmentName) {
+        synchronized (lock) {
+            if (!update()) {
+                return null;
+            }
+            final Multiset<VirtualFile> files = fragmentDependentFiles.get(fragmentName);
+            return files != null ? Sets.newHashSet(files.elementSet()) : Collections.emptySet();
+        }
+    }
+
+    private Collection<String> getDependencies(String fragmentName) {
+        final Multiset<String> dependencies = fragmentDependencies.get(fragmentName);
+        return dependencies != null ? dependencies.elementSet() : Collections.emptySet();
+    }
+
+    // ---- graph maintenance ----
+
+    private void markDirty(@Nullable PsiFile psiFile) {
+        if (psiFile != null) {
+            final VirtualFile virtualFile = psiFile.getVirtualFile();
+            if (virtualFile != null) {
+                synchronized (lock) {
+                    markDirty(virtualFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a file to have its edges re-read if it's in the graph scope, or if it was in the graph before, e.g. a deleted file
+     */
+    private void markDirty(@NotNull VirtualFile file) {
+        if (fileDefinitions.containsKey(file) || (file.isValid() && searchScope.contains(file))) {
+            dirtyFiles.add(file);
+        }
+    }
+
+    /**
+     * Brings the graph up to date
+     *
+     * @return false if the graph could not be built because indexing is in progress
+     */
+    private boolean update() {
+        if (!rebuildRequired && dirtyFiles.isEmpty()) {
+            return true;
+        }
+        if (DumbService.isDumb(myProject)) {
+            return false;
+        }
+        try {
+            if (rebuildRequired) {
+                fileDefinitions.clear();
+                fragmentDependencies.clear();
+                fragmentDependents.clear();
+                fragmentDependentFiles.clear();
+                getDefinitionsWithSpreads(searchScope).forEach(this::addFile);
+                rebuildRequired = false;
+            } else {
+                final List<VirtualFile> filesInScope = Lists.newArrayList();
+                for (VirtualFile dirtyFile : dirtyFiles) {
+                    removeFile(dirtyFile);
+                    if (dirtyFile.isValid() && searchScope.contains(dirtyFile)) {
+                        filesInScope.add(dirtyFile);
+                    }
+                }
+                if (!filesInScope.isEmpty()) {
+                    getDefinitionsWithSpreads(GlobalSearchScope.filesScope(myProject, filesInScope)).forEach(this::addFile);
+                }
+            }
+        } catch (IndexNotReadyException e) {
+            rebuildRequired = true;
+            return false;
+        }
+        dirtyFiles.clear();
+        return true;
+    }
+
+    /**
+     * Gets the definitions that spread fragments from the fragment spread index, which also covers unsaved documents
+     */
+    @NotNull
+    private Map<VirtualFile, List<JSGraphQLDefinition>> getDefinitionsWithSpreads(@NotNull GlobalSearchScope scope) {
+        // a definition is indexed once for each fragment it spreads
+        final Map<VirtualFile, Set<JSGraphQLDefinition>> definitions = Maps.newHashMap();
+        final List<String> fragmentNames = Lists.newArrayList();
+        JSGraphQLDefinitionIndexUtil.processNames(JSGraphQLFragmentSpreadIndex.NAME, scope, fragmentNames::add);
+        for (String fragmentName : fragmentNames) {
+            JSGraphQLDefinitionIndexUtil.processDefinitions(JSGraphQLFragmentSpreadIndex.NAME, fragmentName, scope, (file, definition) -> {
+                definitions.computeIfAbsent(file, f -> Sets.newLinkedHashSet()).add(definition);
+                return true;
+            });
+        }
+        final Map<VirtualFile, List<JSGraphQLDefinition>> definitionsByFile = Maps.newHashMapWithExpectedSize(definitions.size());
+        definitions.forEach((file, fileDefinitions) -> definitionsByFile.put(file, Lists.newArrayList(fileDefinitions)));
+        return definitionsByFile;
+    }
+
+    private void addFile(VirtualFile file, List<JSGraphQLDefinition> definitions) {
+        if (definitions.isEmpty()) {
+            return;
+        }
+        fileDefinitions.put(file, definitions);
+        for (JSGraphQLDefinition definition : definitions) {
+            for (String fragmentSpread : definition.getFragmentSpreads()) {
+                if (definition.getKind() == JSGraphQLDefinition.Kind.Fragment) {
+                    fragmentDependencies.computeIfAbsent(definition.getName(), name -> HashMultiset.create()).add(fragmentSpread);
+                }
+                fragmentDependents.computeIfAbsent(fragmentSpread, name -> HashMultiset.create()).add(definition);
+                fragmentDependentFiles.computeIfAbsent(fragmentSpread, name -> HashMultiset.create()).add(file);
+            }
+        }
+    }
+
+    private void removeFile(VirtualFile file) {
+        final List<JSGraphQLDefinition> definitions = fileDefinitions.remove(file);
+        if (definitions == null) {
+            return;
+        }
+        for (JSGraphQLDefinition definition : definitions) {
+            for (String fragmentSpread : definition.getFragmentSpreads()) {
+                if (definition.getKind() == JSGraphQLDefinition.Kind.Fragment) {
+                    remove(fragmentDependencies, definition.getName(), fragmentSpread);
+                }
+                remove(fragmentDependents, fragmentSpread, definition);
+                remove(fragmentDependentFiles, fragmentSpread, file);
+            }
+        }
+    }
+
+    private static <T> void remove(Map<String, Multiset<T>> multimap, String key, T value) {
+        final Multiset<T> values = multimap.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                multimap.remove(key);
+            }
+        }
+    }
+}
@@ -9,26 +9,25 @@ package com.intellij.lang.jsgraphql.ide.project;
 
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.intellij.lang.jsgraphql.JSGraphQLTokenTypes;
 import com.intellij.lang.jsgraphql.ide.findUsages.JSGraphQLFindUsagesUtil;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLDefinition;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLDefinitionIndexUtil;
+import com.intellij.lang.jsgraphql.ide.index.JSGraphQLFragmentDefinitionIndex;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLFragmentDefinitionPsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Ref;
-import com.intellij.psi.impl.AnyPsiChangeListener;
-import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.PsiSearchHelper;
-import com.intellij.psi.search.UsageSearchContext;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Enables cross-file searches for PSI references and fragment completion
@@ -38,7 +37,6 @@ public class JSGraphQLPsiSearchHelper {
     private static final FileType[] FILE_TYPES = JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.toArray(new FileType[JSGraphQLFindUsagesUtil.INCLUDED_FILE_TYPES.size()]);
 
     private final Project myProject;
-    private final Map<String, JSGraphQLNamedTypePsiElement> fragmentDefinitionsByName = Maps.newConcurrentMap();
     private final GlobalSearchScope searchScope;
 
     public static JSGraphQLPsiSearchHelper getService(@NotNull Project project) {
@@ -49,17 +47,10 @@ public class JSGraphQLPsiSearchHelper {
     public JSGraphQLPsiSearchHelper(@NotNull final Project project) {
         myProject = project;
         searchScope = GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.projectScope(myProject), FILE_TYPES);
-        project.getMessageBus().connect().subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener.Adapter() {
-            @Override
-            public void beforePsiChanged(boolean isPhysical) {
-                // clear the cache on each PSI change
-                fragmentDefinitionsByName.clear();
-            }
-        });
     }
 
     /**
-     * Gets the fragment name element that is the source of a fragment usage by searching across files
+     * Gets the fragment name element that is the source of a fragment usage by looking up the fragment definition index
      *
      * @param fragmentUsage a specific fragment usage, e.g. '...FragmentName'
      * @return the fragment definition that the usage references, e.g. 'fragment FragmentName'
@@ -67,24 +58,19 @@ public class JSGraphQLPsiSearchHelper {
     public JSGraphQLNamedTypePsiElement resolveFragmentReference(@NotNull JSGraphQLNamedTypePsiElement fragmentUsage) {
         final String fragmentName = fragmentUsage.getName();
         if (fragmentName != null) {
-            final JSGraphQLNamedTypePsiElement cachedResult = fragmentDefinitionsByName.get(fragmentName);
-            if (cachedResult != null) {
-                return cachedResult;
-            }
             final Ref<JSGraphQLNamedTypePsiElement> fragmentDefinitionRef = new Ref<>();
             try {
-                PsiSearchHelper.SERVICE.getInstance(myProject).processElementsWithWord((element, offsetInElement) -> {
-                    if (element instanceof JSGraphQLNamedTypePsiElement && element.getParent() instanceof JSGraphQLFragmentDefinitionPsiElement) {
-                        if (!element.equals(fragmentUsage)) {
+                JSGraphQLDefinitionIndexUtil.processDefinitions(JSGraphQLFragmentDefinitionIndex.NAME, fragmentName, searchScope, (file, definition) -> {
+                    final JSGraphQLNamedTypePsiElement fragmentDefinition = JSGraphQLDefinitionIndexUtil.findDefinitionElement(myProject, file, definition);
+                    if (fragmentDefinition != null && fragmentDefinition.getParent() instanceof JSGraphQLFragmentDefinitionPsiElement) {
+                        if (!fragmentDefinition.equals(fragmentUsage)) {
                             // only consider as a reference if the element is not the usage element
-                            final JSGraphQLNamedTypePsiElement fragmentDefinition = (JSGraphQLNamedTypePsiElement) element;
-                            fragmentDefinitionsByName.put(fragmentName, fragmentDefinition);
                             fragmentDefinitionRef.set(fragmentDefinition);
                         }
                         return false;
                     }
                     return true;
-                }, searchScope, fragmentName, UsageSearchContext.IN_CODE, true, true);
+                });
             } catch (IndexNotReadyException e) {
                 // can't search yet (e.g. during project startup)
             }
@@ -94,28 +80,52 @@ public class JSGraphQLPsiSearchHelper {
     }
 
     /**
-     * Finds all fragment definition across files in the project
+     * Gets the type condition of a fragment by looking up the fragment definition index
      *
-     * @return a list of known fragment definitions, or an empty list if the index is not yet ready
+     * @param fragmentName the name of the fragment, e.g. 'Foo' for 'fragment Foo on User'
+     * @return the type condition, e.g. 'User', an empty string if the type condition can't be determined, or <code>null</code> if no fragment has the name
      */
-    public List<JSGraphQLFragmentDefinitionPsiElement> getKnownFragmentDefinitions() {
+    @Nullable
+    public String getFragmentTypeCondition(@NotNull String fragmentName) {
+        final Ref<String> typeConditionRef = new Ref<>();
         try {
-            final List<JSGraphQLFragmentDefinitionPsiElement> fragmentDefinitions = Lists.newArrayList();
-            PsiSearchHelper.SERVICE.getInstance(myProject).processElementsWithWord((psiElement, offsetInElement) -> {
-                if (psiElement.getNode().getElementType() == JSGraphQLTokenTypes.KEYWORD && psiElement.getParent() instanceof JSGraphQLFragmentDefinitionPsiElement) {
-                    final JSGraphQLFragmentDefinitionPsiElement fragmentDefinition = (JSGraphQLFragmentDefinitionPsiElement) psiElement.getParent();
-                    final String fragmentName = fragmentDefinition.getName();
-                    if (fragmentName != null) {
-                        fragmentDefinitions.add(fragmentDefinition);
-                    }
+            JSGraphQLDefinitionIndexUtil.processDefinitions(JSGraphQLFragmentDefinitionIndex.NAME, fragmentName, searchScope, (file, definition) -> {
+                final String typeCondition = definition.getTypeCondition();
+                typeConditionRef.set(typeCondition != null ? typeCondition : "");
+                return false;
+            });
+        } catch (IndexNotReadyException e) {
+            // can't search yet (e.g. during project startup), so the fragment can't be ruled out
+            return "";
+        }
+        return typeConditionRef.get();
+    }
+
+    /**
+     * Processes the fragment definitions across files in the project using the fragment definition index
+     *
+     * @param nameFilter  the fragment names to process, e.g. the names that match the completion prefix
+     * @param processor   the processor that receives the definitions, and returns false to stop processing
+     */
+    public void processKnownFragmentDefinitions(@NotNull Condition<String> nameFilter, @NotNull Processor<JSGraphQLDefinition> processor) {
+        try {
+            final List<String> fragmentNames = Lists.newArrayList();
+            JSGraphQLDefinitionIndexUtil.processNames(JSGraphQLFragmentDefinitionIndex.NAME, searchScope, fragmentName -> {
+                if (nameFilter.value(fragmentName)) {
+                    fragmentNames.add(fragmentName);
                 }
                 return true;
-            }, searchScope, "fragment", UsageSearchContext.IN_CODE, true, true);
-            return fragmentDefinitions;
+            });
+            for (String fragmentName : fragmentNames) {
+                ProgressManager.checkCanceled();
+                final boolean proceed = JSGraphQLDefinitionIndexUtil.processDefinitions(JSGraphQLFragmentDefinitionIndex.NAME, fragmentName, searchScope, (file, definition) -> processor.process(definition));
+                if (!proceed) {
+                    return;
+                }
+            }
         } catch (IndexNotReadyException e) {
             // can't search yet (e.g. during project startup)
         }
-        return Collections.emptyList();
     }
 
 }
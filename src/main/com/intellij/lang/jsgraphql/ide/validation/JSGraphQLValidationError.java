@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.validation;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A validation error in a GraphQL buffer, e.g. a field that the schema doesn't declare
+ * @see JSGraphQLValidator
+ */
+public class JSGraphQLValidationError {
+
+    private final int startOffset;
+    private final int endOffset;
+    private final String message;
+
+    public JSGraphQLValidationError(int startOffset, int endOffset, @NotNull String message) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.message = message;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    @NotNull
+    public String getMessage() {
+        return message;
+    }
+
+    JSGraphQLValidationError withOffset(int delta) {
+        return delta == 0 ? this : new JSGraphQLValidationError(startOffset + delta, endOffset + delta, message);
+    }
+
+    @Override
+    public String toString() {
+        return startOffset + "-" + endOffset + ": " + message;
+    }
+}
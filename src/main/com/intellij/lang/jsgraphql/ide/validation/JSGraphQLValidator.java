@@ -0,0 +1,1459 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.validation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.lang.jsgraphql.lexer.JSGraphQLTokenizer;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLSchemaDefinitionReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Validates GraphQL operations and fragments against a schema without using the language service.
+ * <p>
+ * The validator checks that types, fields and arguments are known to the schema, that argument values and variables fit the types
+ * they're used as, that fragments can be spread where they're used and don't spread themselves, and that fields with the same
+ * response name can be merged. Each operation and fragment in a buffer is validated on its own, and the result is reused for as
+ * long as the text of the definition and the type conditions of the fragments it spreads are unchanged, so editing one operation
+ * in a large file only validates that operation again. The checks that span definitions are run on the reused results.
+ * <p>
+ * A validator is bound to a schema and can be shared between threads.
+ */
+public class JSGraphQLValidator {
+
+    private static final int MAX_CACHED_DEFINITIONS = 4096;
+
+    private static final Set<String> BUILT_IN_SCALARS = Sets.newHashSet("String", "Boolean", "Int", "Float", "ID");
+    private static final Set<String> OPERATION_KEYWORDS = Sets.newHashSet("query", "mutation", "subscription");
+    private static final Set<String> TYPE_SYSTEM_KEYWORDS = Sets.newHashSet("schema", "scalar", "type", "interface", "union", "enum", "input", "directive", "extend");
+    private static final List<JSGraphQLIntrospectionSchema.Directive> BUILT_IN_DIRECTIVES = JSGraphQLSchemaDefinitionReader.read(
+            "directive @skip(if: Boolean!) on FIELD | FRAGMENT_SPREAD | INLINE_FRAGMENT\n" +
+            "directive @include(if: Boolean!) on FIELD | FRAGMENT_SPREAD | INLINE_FRAGMENT\n"
+    ).getDirectives();
+
+    // the type condition of fragments that are known but can't be checked, e.g. when fragments in other files aren't resolved
+    private static final String UNCHECKED_FRAGMENT = "";
+
+    private final JSGraphQLIntrospectionSchema schema;
+    private final Map<String, JSGraphQLIntrospectionSchema.Directive> directives = Maps.newHashMap();
+    private final Map<String, Map<String, JSGraphQLIntrospectionSchema.Field>> fieldsByTypeName = Maps.newConcurrentMap();
+    private final Map<String, Set<String>> possibleTypesByTypeName = Maps.newConcurrentMap();
+    private final Cache<String, DefinitionResult> definitionResults = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_DEFINITIONS).build();
+    private final AtomicInteger validatedDefinitionCount = new AtomicInteger();
+
+    public JSGraphQLValidator(@NotNull JSGraphQLIntrospectionSchema schema) {
+        this.schema = schema;
+        for (JSGraphQLIntrospectionSchema.Directive directive : BUILT_IN_DIRECTIVES) {
+            directives.put(directive.getName(), directive);
+        }
+        for (JSGraphQLIntrospectionSchema.Directive directive : schema.getDirectives()) {
+            directives.put(directive.getName(), directive);
+        }
+    }
+
+    /**
+     * Validates the operations and fragments in a GraphQL buffer
+     * @param text the GraphQL buffer, which may contain JavaScript template placeholders
+     * @param externalFragmentTypeConditions gets the type condition of a fragment that is defined outside the buffer, an empty string if the fragment exists
+     *                                       but its type condition is unknown, or <code>null</code> if the fragment is unknown.
+     *                                       If <code>null</code> is passed, spreads of fragments outside the buffer aren't checked
+     * @return the errors, ordered by definition
+     */
+    @NotNull
+    public List<JSGraphQLValidationError> validate(@NotNull CharSequence text, @Nullable Function<String, String> externalFragmentTypeConditions) {
+        return validate(text, externalFragmentTypeConditions, null);
+    }
+
+    /**
+     * Validates the operations and fragments in a GraphQL buffer
+     * @param fragmentCycles finds the cycle of fragment spreads through a fragment across the project, as {@link #findFragmentCycle(String, Function)} does,
+     *                       or returns <code>null</code> if the project fragments aren't known, in which case only the fragments in the buffer are checked for cycles
+     * @see #validate(CharSequence, Function)
+     */
+    @NotNull
+    public List<JSGraphQLValidationError> validate(@NotNull CharSequence text,
+                                                   @Nullable Function<String, String> externalFragmentTypeConditions,
+                                                   @Nullable Function<String, List<String>> fragmentCycles) {
+        final List<DefinitionRange> definitions = splitDefinitions(text);
+        final Map<String, DefinitionRange> fragments = Maps.newHashMap();
+        for (DefinitionRange definition : definitions) {
+            if(definition.kind == DefinitionKind.FRAGMENT && definition.name != null) {
+                fragments.putIfAbsent(definition.name, definition);
+            }
+        }
+        final Function<String, String> fragmentTypeConditions = fragmentName -> {
+            final DefinitionRange fragment = fragments.get(fragmentName);
+            if(fragment != null) {
+                return fragment.typeCondition != null ? fragment.typeCondition : UNCHECKED_FRAGMENT;
+            }
+            return externalFragmentTypeConditions != null ? externalFragmentTypeConditions.apply(fragmentName) : UNCHECKED_FRAGMENT;
+        };
+
+        final List<JSGraphQLValidationError> errors = Lists.newArrayList();
+        final Set<String> operationNames = Sets.newHashSet();
+        final Set<String> fragmentNames = Sets.newHashSet();
+        int operationCount = 0;
+        for (DefinitionRange definition : definitions) {
+            if(definition.kind == DefinitionKind.OPERATION) {
+                operationCount++;
+            }
+        }
+        for (DefinitionRange definition : definitions) {
+            if(definition.kind == DefinitionKind.TYPE_SYSTEM) {
+                // schema definitions in a query buffer are validated by the schema tooling
+                continue;
+            }
+            if(definition.kind == DefinitionKind.UNKNOWN) {
+                errors.add(new JSGraphQLValidationError(definition.nameStart, definition.nameEnd, "Syntax Error: Unexpected " + describeToken(text, definition.nameStart, definition.nameEnd) + "."));
+                continue;
+            }
+            definition.result = getDefinitionResult(text, definition, fragmentTypeConditions);
+            for (JSGraphQLValidationError error : definition.result.errors) {
+                errors.add(error.withOffset(definition.start));
+            }
+            if(definition.kind == DefinitionKind.OPERATION) {
+                if(definition.name == null) {
+                    if(operationCount > 1) {
+                        errors.add(new JSGraphQLValidationError(definition.nameStart, definition.nameEnd, "This anonymous operation must be the only defined operation."));
+                    }
+                } else if(!operationNames.add(definition.name)) {
+                    errors.add(new JSGraphQLValidationError(definition.nameStart, definition.nameEnd, "There can be only one operation named \"" + definition.name + "\"."));
+                }
+            } else if(definition.name != null && !fragmentNames.add(definition.name)) {
+                errors.add(new JSGraphQLValidationError(definition.nameStart, definition.nameEnd, "There can be only one fragment named \"" + definition.name + "\"."));
+            }
+        }
+        validateFragmentCycles(definitions, fragments, fragmentCycles, errors);
+        final FieldMergeValidator fieldMergeValidator = new FieldMergeValidator(fragments, errors);
+        for (DefinitionRange definition : definitions) {
+            if(definition.result != null && definition.result.selectionSet != null) {
+                fieldMergeValidator.validate(definition.result.selectionSet, definition.start);
+            }
+        }
+        for (DefinitionRange definition : definitions) {
+            if(definition.kind == DefinitionKind.OPERATION) {
+                validateVariables(definition, fragments, errors);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return the number of operations and fragments that have been validated, as opposed to reused from an earlier validation
+     */
+    int getValidatedDefinitionCount() {
+        return validatedDefinitionCount.get();
+    }
+
+    // ---- definitions ----
+
+    private enum DefinitionKind {
+        OPERATION, FRAGMENT, TYPE_SYSTEM, UNKNOWN
+    }
+
+    /**
+     * The text range of a top level definition in a buffer, and the names it declares and uses
+     */
+    private static class DefinitionRange {
+        DefinitionKind kind;
+        int start;
+        int end;
+        String name;
+        int nameStart;
+        int nameEnd;
+        String typeCondition;
+        final List<String> fragmentSpreads = Lists.newArrayListWithExpectedSize(2);
+        // the offset of the first spread of each fragment in fragmentSpreads
+        final List<Integer> fragmentSpreadStarts = Lists.newArrayListWithExpectedSize(2);
+        DefinitionResult result;
+    }
+
+    /**
+     * The outcome of validating a single definition. Offsets are relative to the start of the definition, such that the result
+     * can be reused when the definition moves within the buffer.
+     */
+    private static class DefinitionResult {
+        final List<JSGraphQLValidationError> errors;
+        final List<VariableDefinition> variableDefinitions;
+        final List<VariableUsage> variableUsages;
+        // the fields of the definition, or null if the definition has a syntax error
+        final SelectionSetNode selectionSet;
+        DefinitionResult(List<JSGraphQLValidationError> errors, List<VariableDefinition> variableDefinitions, List<VariableUsage> variableUsages, SelectionSetNode selectionSet) {
+            this.errors = errors;
+            this.variableDefinitions = variableDefinitions;
+            this.variableUsages = variableUsages;
+            this.selectionSet = selectionSet;
+        }
+    }
+
+    /**
+     * The fields and fragment spreads of a selection set. The fields of inline fragments are included, each with the type it's selected on.
+     */
+    private static class SelectionSetNode {
+        final List<FieldNode> fields = Lists.newArrayListWithExpectedSize(4);
+        final Set<String> fragmentSpreads = Sets.newLinkedHashSetWithExpectedSize(0);
+    }
+
+    private static class FieldNode {
+        final String responseName;
+        final String fieldName;
+        final Map<String, String> arguments;
+        final String parentType;
+        final String type;
+        final int start;
+        final int end;
+        SelectionSetNode selectionSet;
+        /**
+         * @param parentType the type the field is selected on, or <code>null</code> if unknown
+         * @param type the type of the field, or <code>null</code> if unknown
+         */
+        FieldNode(String responseName, String fieldName, Map<String, String> arguments, String parentType, String type, int start, int end) {
+            this.responseName = responseName;
+            this.fieldName = fieldName;
+            this.arguments = arguments;
+            this.parentType = parentType;
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class VariableDefinition {
+        final String name;
+        final String type;
+        final boolean hasNonNullDefaultValue;
+        final int start;
+        final int end;
+        VariableDefinition(String name, String type, boolean hasNonNullDefaultValue, int start, int end) {
+            this.name = name;
+            this.type = type;
+            this.hasNonNullDefaultValue = hasNonNullDefaultValue;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class VariableUsage {
+        final String name;
+        final String locationType;
+        final boolean locationHasDefaultValue;
+        final int start;
+        final int end;
+        VariableUsage(String name, String locationType, boolean locationHasDefaultValue, int start, int end) {
+            this.name = name;
+            this.locationType = locationType;
+            this.locationHasDefaultValue = locationHasDefaultValue;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private DefinitionResult getDefinitionResult(CharSequence text, DefinitionRange definition, Function<String, String> fragmentTypeConditions) {
+        // the result depends on the text of the definition and the type conditions of the fragments it spreads
+        final StringBuilder key = new StringBuilder(definition.end - definition.start + 32);
+        key.append(text, definition.start, definition.end).append('\u0000');
+        for (String fragmentSpread : definition.fragmentSpreads) {
+            final String typeCondition = fragmentTypeConditions.apply(fragmentSpread);
+            key.append(fragmentSpread).append('=').append(typeCondition != null ? typeCondition : "?").append(';');
+        }
+        final String cacheKey = key.toString();
+        DefinitionResult result = definitionResults.getIfPresent(cacheKey);
+        if(result == null) {
+            result = new DefinitionValidator(text, definition, fragmentTypeConditions).validate();
+            validatedDefinitionCount.incrementAndGet();
+            definitionResults.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the variables used by an operation, including the variables used by the fragments it spreads, are defined
+     * with a type that fits where they're used, and that each variable it defines is used
+     */
+    private void validateVariables(DefinitionRange operation, Map<String, DefinitionRange> fragments, List<JSGraphQLValidationError> errors) {
+        final DefinitionResult result = operation.result;
+        final Map<String, VariableDefinition> definitions = Maps.newHashMap();
+        for (VariableDefinition variableDefinition : result.variableDefinitions) {
+            definitions.putIfAbsent(variableDefinition.name, variableDefinition);
+        }
+        final Set<String> usedVariables = Sets.newHashSet();
+        boolean spreadsExternalFragments = false;
+
+        // the operation itself and the fragments in the buffer that it spreads, directly or indirectly
+        final List<DefinitionRange> scopes = Lists.newArrayList(operation);
+        final Set<String> visitedFragments = Sets.newHashSet();
+        for (int i = 0; i < scopes.size(); i++) {
+            final DefinitionRange scope = scopes.get(i);
+            for (String fragmentSpread : scope.fragmentSpreads) {
+                final DefinitionRange fragment = fragments.get(fragmentSpread);
+                if(fragment == null || fragment.result == null) {
+                    spreadsExternalFragments = true;
+                } else if(visitedFragments.add(fragmentSpread)) {
+                    scopes.add(fragment);
+                }
+            }
+            for (VariableUsage usage : scope.result.variableUsages) {
+                usedVariables.add(usage.name);
+                final VariableDefinition definition = definitions.get(usage.name);
+                final int start = scope.start + usage.start;
+                final int end = scope.start + usage.end;
+                if(definition == null) {
+                    final String message = operation.name != null ?
+                            "Variable \"$" + usage.name + "\" is not defined by operation \"" + operation.name + "\"." :
+                            "Variable \"$" + usage.name + "\" is not defined.";
+                    errors.add(new JSGraphQLValidationError(start, end, message));
+                } else if(usage.locationType != null && !isVariableUsageAllowed(definition, usage)) {
+                    errors.add(new JSGraphQLValidationError(start, end,
+                            "Variable \"$" + usage.name + "\" of type \"" + definition.type + "\" used in position expecting type \"" + usage.locationType + "\"."));
+                }
+            }
+        }
+        if(spreadsExternalFragments) {
+            // the variables may be used by fragments in other files
+            return;
+        }
+        for (VariableDefinition definition : result.variableDefinitions) {
+            if(!usedVariables.contains(definition.name)) {
+                final String message = operation.name != null ?
+                        "Variable \"$" + definition.name + "\" is never used in operation \"" + operation.name + "\"." :
+                        "Variable \"$" + definition.name + "\" is never used.";
+                errors.add(new JSGraphQLValidationError(operation.start + definition.start, operation.start + definition.end, message));
+            }
+        }
+    }
+
+    /**
+     * Finds a cycle of fragment spreads through a fragment, i.e. a path of spreads that leads from the fragment back to itself.
+     * Each fragment is visited at most once, so the search is proportional to the number of spreads between the fragments.
+     * @param fragmentName the fragment to find a cycle through
+     * @param fragmentSpreads gets the names of the fragments that a fragment spreads directly, or an empty collection for unknown fragments
+     * @return the fragments on the cycle, starting with the specified fragment, which is spread by the last fragment, or an empty list if there is no cycle
+     */
+    @NotNull
+    public static List<String> findFragmentCycle(@NotNull String fragmentName, @NotNull Function<String, Collection<String>> fragmentSpreads) {
+        final Set<String> visited = Sets.newHashSet(fragmentName);
+        final List<String> path = Lists.newArrayList(fragmentName);
+        // iterative depth-first search where each stack entry holds the remaining spreads of the fragment on the path
+        final Deque<Iterator<String>> pending = new ArrayDeque<>();
+        pending.push(fragmentSpreads.apply(fragmentName).iterator());
+        while (!pending.isEmpty()) {
+            final Iterator<String> remaining = pending.peek();
+            if(!remaining.hasNext()) {
+                pending.pop();
+                path.remove(path.size() - 1);
+                continue;
+            }
+            final String next = remaining.next();
+            if(next.equals(fragmentName)) {
+                return path;
+            }
+            if(visited.add(next)) {
+                // a fragment that was visited before can't lead back to the fragment, or the cycle would have been found already
+                path.add(next);
+                pending.push(fragmentSpreads.apply(next).iterator());
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Checks that the fragments in the buffer don't spread themselves, directly or via other fragments.
+     * Each cycle is reported once, on the spread in the first fragment of the buffer that is part of it.
+     */
+    private static void validateFragmentCycles(List<DefinitionRange> definitions, Map<String, DefinitionRange> fragments,
+                                               @Nullable Function<String, List<String>> fragmentCycles, List<JSGraphQLValidationError> errors) {
+        final Set<String> reportedFragments = Sets.newHashSet();
+        for (DefinitionRange definition : definitions) {
+            if(definition.kind != DefinitionKind.FRAGMENT || definition.name == null || fragments.get(definition.name) != definition || reportedFragments.contains(definition.name)) {
+                continue;
+            }
+            List<String> cycle = fragmentCycles != null ? fragmentCycles.apply(definition.name) : null;
+            if(cycle == null) {
+                cycle = findFragmentCycle(definition.name, fragmentName -> {
+                    final DefinitionRange fragment = fragments.get(fragmentName);
+                    return fragment != null ? fragment.fragmentSpreads : Collections.emptyList();
+                });
+            }
+            if(cycle.isEmpty()) {
+                continue;
+            }
+            final String spreadName = cycle.size() > 1 ? cycle.get(1) : definition.name;
+            final int spreadIndex = definition.fragmentSpreads.indexOf(spreadName);
+            if(spreadIndex == -1) {
+                // the project fragments are out of date with the buffer
+                continue;
+            }
+            reportedFragments.addAll(cycle);
+            final List<String> via = Lists.newArrayList();
+            for (String name : cycle.subList(1, cycle.size())) {
+                via.add("\"" + name + "\"");
+            }
+            final int start = definition.fragmentSpreadStarts.get(spreadIndex);
+            errors.add(new JSGraphQLValidationError(start, start + spreadName.length(),
+                    "Cannot spread fragment \"" + definition.name + "\" within itself" + (via.isEmpty() ? "." : " via " + String.join(", ", via) + ".")));
+        }
+    }
+
+    private static boolean isVariableUsageAllowed(VariableDefinition definition, VariableUsage usage) {
+        String locationType = usage.locationType;
+        if(isNonNull(locationType) && !isNonNull(definition.type) && (definition.hasNonNullDefaultValue || usage.locationHasDefaultValue)) {
+            // a default value makes up for a nullable variable type
+            locationType = nullable(locationType);
+        }
+        return isTypeSubTypeOf(definition.type, locationType);
+    }
+
+    private static boolean isTypeSubTypeOf(String type, String superType) {
+        if(type.equals(superType)) {
+            return true;
+        }
+        if(isNonNull(superType)) {
+            return isNonNull(type) && isTypeSubTypeOf(nullable(type), nullable(superType));
+        }
+        if(isNonNull(type)) {
+            return isTypeSubTypeOf(nullable(type), superType);
+        }
+        if(isList(superType)) {
+            return isList(type) && isTypeSubTypeOf(itemType(type), itemType(superType));
+        }
+        return false;
+    }
+
+    /**
+     * Splits a buffer into its top level definitions by following the nesting of braces, brackets and parentheses
+     */
+    private static List<DefinitionRange> splitDefinitions(CharSequence text) {
+        final List<DefinitionRange> definitions = Lists.newArrayList();
+        final JSGraphQLTokenizer tokenizer = new JSGraphQLTokenizer(text);
+        tokenizer.next();
+        while (tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+            final DefinitionRange definition = new DefinitionRange();
+            definition.start = tokenizer.getStart();
+            definition.nameStart = tokenizer.getStart();
+            definition.nameEnd = tokenizer.getEnd();
+            if(tokenizer.is("{")) {
+                definition.kind = DefinitionKind.OPERATION;
+            } else if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && OPERATION_KEYWORDS.contains(tokenizer.getText())) {
+                definition.kind = DefinitionKind.OPERATION;
+                tokenizer.next();
+                if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                    definition.name = tokenizer.getText();
+                    definition.nameStart = tokenizer.getStart();
+                    definition.nameEnd = tokenizer.getEnd();
+                }
+            } else if(tokenizer.isName("fragment")) {
+                definition.kind = DefinitionKind.FRAGMENT;
+                tokenizer.next();
+                if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && !tokenizer.isName("on")) {
+                    definition.name = tokenizer.getText();
+                    definition.nameStart = tokenizer.getStart();
+                    definition.nameEnd = tokenizer.getEnd();
+                    tokenizer.next();
+                    if(tokenizer.isName("on")) {
+                        tokenizer.next();
+                        if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                            definition.typeCondition = tokenizer.getText();
+                        }
+                    }
+                }
+            } else if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && TYPE_SYSTEM_KEYWORDS.contains(tokenizer.getText())) {
+                definition.kind = DefinitionKind.TYPE_SYSTEM;
+            } else {
+                definition.kind = DefinitionKind.UNKNOWN;
+            }
+
+            // find the end of the definition, which is the closing brace of its outermost selection set or body
+            tokenizer.reset(definition.start);
+            tokenizer.next();
+            int depth = 0;
+            definition.end = tokenizer.getEnd();
+            while (tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                if(depth == 0 && tokenizer.getStart() > definition.start && definition.kind != DefinitionKind.OPERATION && definition.kind != DefinitionKind.FRAGMENT) {
+                    // definitions without a body, e.g. 'scalar Date', end where the next definition starts
+                    if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && (TYPE_SYSTEM_KEYWORDS.contains(tokenizer.getText()) || OPERATION_KEYWORDS.contains(tokenizer.getText()) || tokenizer.isName("fragment"))) {
+                        break;
+                    }
+                }
+                if(definition.kind == DefinitionKind.UNKNOWN && depth == 0 && tokenizer.getStart() > definition.start) {
+                    break;
+                }
+                definition.end = tokenizer.getEnd();
+                if(tokenizer.is("{") || tokenizer.is("(") || tokenizer.is("[")) {
+                    depth++;
+                } else if(tokenizer.is("}") || tokenizer.is(")") || tokenizer.is("]")) {
+                    depth = Math.max(0, depth - 1);
+                    if(depth == 0 && tokenizer.is("}")) {
+                        tokenizer.next();
+                        break;
+                    }
+                } else if(tokenizer.is("...")) {
+                    tokenizer.next();
+                    if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && !tokenizer.isName("on")) {
+                        if(!definition.fragmentSpreads.contains(tokenizer.getText())) {
+                            definition.fragmentSpreads.add(tokenizer.getText());
+                            definition.fragmentSpreadStarts.add(tokenizer.getStart());
+                        }
+                    }
+                    continue;
+                }
+                tokenizer.next();
+            }
+            definitions.add(definition);
+        }
+        return definitions;
+    }
+
+    // ---- overlapping fields ----
+
+    /**
+     * A field collected from a selection set, with the offset of the definition that declares it
+     */
+    private static class CollectedField {
+        final FieldNode node;
+        final int definitionStart;
+        CollectedField(FieldNode node, int definitionStart) {
+            this.node = node;
+            this.definitionStart = definitionStart;
+        }
+    }
+
+    /**
+     * The fields of a selection set by response name, and the fragments it spreads
+     */
+    private static class CollectedFields {
+        final Map<String, List<CollectedField>> fieldsByResponseName = Maps.newLinkedHashMap();
+        final Set<String> fragmentSpreads;
+        CollectedFields(SelectionSetNode selectionSet, int definitionStart) {
+            for (FieldNode field : selectionSet.fields) {
+                fieldsByResponseName.computeIfAbsent(field.responseName, responseName -> Lists.newArrayListWithExpectedSize(1)).add(new CollectedField(field, definitionStart));
+            }
+            fragmentSpreads = selectionSet.fragmentSpreads;
+        }
+    }
+
+    private static class Conflict {
+        final String responseName;
+        final String reason;
+        final CollectedField field;
+        Conflict(String responseName, String reason, CollectedField field) {
+            this.responseName = responseName;
+            this.reason = reason;
+            this.field = field;
+        }
+    }
+
+    /**
+     * Checks that the fields a selection set selects under the same response name, directly or via fragments in the buffer, can be
+     * merged into a single field of the response, following the OverlappingFieldsCanBeMerged rule of graphql-js.
+     * Fragments in other files aren't compared.
+     */
+    private class FieldMergeValidator {
+
+        private final Map<String, DefinitionRange> fragments;
+        private final List<JSGraphQLValidationError> errors;
+        private final Map<String, CollectedFields> fragmentFields = Maps.newHashMap();
+        private final Set<String> comparedFragmentPairs = Sets.newHashSet();
+        private final Set<String> reportedConflicts = Sets.newHashSet();
+
+        FieldMergeValidator(Map<String, DefinitionRange> fragments, List<JSGraphQLValidationError> errors) {
+            this.fragments = fragments;
+            this.errors = errors;
+        }
+
+        /**
+         * Checks a selection set and the selection sets nested in it
+         */
+        void validate(SelectionSetNode selectionSet, int definitionStart) {
+            for (Conflict conflict : findConflictsWithinSelectionSet(selectionSet, definitionStart)) {
+                final int start = conflict.field.definitionStart + conflict.field.node.start;
+                final int end = conflict.field.definitionStart + conflict.field.node.end;
+                final String message = "Fields \"" + conflict.responseName + "\" conflict because " + conflict.reason + ". Use different aliases on the fields to fetch both if this was intentional.";
+                // a conflict between fragments is found again for each selection set that spreads them
+                if(reportedConflicts.add(start + ":" + message)) {
+                    errors.add(new JSGraphQLValidationError(start, end, message));
+                }
+            }
+            for (FieldNode field : selectionSet.fields) {
+                if(field.selectionSet != null) {
+                    validate(field.selectionSet, definitionStart);
+                }
+            }
+        }
+
+        private List<Conflict> findConflictsWithinSelectionSet(SelectionSetNode selectionSet, int definitionStart) {
+            final List<Conflict> conflicts = Lists.newArrayListWithExpectedSize(0);
+            final CollectedFields fields = new CollectedFields(selectionSet, definitionStart);
+            for (List<CollectedField> sameResponseName : fields.fieldsByResponseName.values()) {
+                for (int i = 0; i < sameResponseName.size(); i++) {
+                    for (int j = i + 1; j < sameResponseName.size(); j++) {
+                        addConflict(conflicts, findConflict(false, sameResponseName.get(i), sameResponseName.get(j)));
+                    }
+                }
+            }
+            final List<String> fragmentNames = Lists.newArrayList(fields.fragmentSpreads);
+            for (int i = 0; i < fragmentNames.size(); i++) {
+                collectConflictsBetweenFieldsAndFragment(conflicts, Sets.newHashSet(), false, fields, fragmentNames.get(i));
+                for (int j = i + 1; j < fragmentNames.size(); j++) {
+                    collectConflictsBetweenFragments(conflicts, false, fragmentNames.get(i), fragmentNames.get(j));
+                }
+            }
+            return conflicts;
+        }
+
+        private List<Conflict> findConflictsBetweenSubSelectionSets(boolean areMutuallyExclusive, CollectedField field1, CollectedField field2) {
+            final List<Conflict> conflicts = Lists.newArrayListWithExpectedSize(0);
+            final CollectedFields fields1 = new CollectedFields(field1.node.selectionSet, field1.definitionStart);
+            final CollectedFields fields2 = new CollectedFields(field2.node.selectionSet, field2.definitionStart);
+            collectConflictsBetween(conflicts, areMutuallyExclusive, fields1, fields2);
+            for (String fragmentName : fields2.fragmentSpreads) {
+                collectConflictsBetweenFieldsAndFragment(conflicts, Sets.newHashSet(), areMutuallyExclusive, fields1, fragmentName);
+            }
+            for (String fragmentName : fields1.fragmentSpreads) {
+                collectConflictsBetweenFieldsAndFragment(conflicts, Sets.newHashSet(), areMutuallyExclusive, fields2, fragmentName);
+            }
+            for (String fragmentName1 : fields1.fragmentSpreads) {
+                for (String fragmentName2 : fields2.fragmentSpreads) {
+                    collectConflictsBetweenFragments(conflicts, areMutuallyExclusive, fragmentName1, fragmentName2);
+                }
+            }
+            return conflicts;
+        }
+
+        private void collectConflictsBetweenFieldsAndFragment(List<Conflict> conflicts, Set<String> comparedFragments, boolean areMutuallyExclusive, CollectedFields fields, String fragmentName) {
+            if(!comparedFragments.add(fragmentName)) {
+                return;
+            }
+            final CollectedFields fragment = getFragmentFields(fragmentName);
+            if(fragment == null) {
+                return;
+            }
+            collectConflictsBetween(conflicts, areMutuallyExclusive, fields, fragment);
+            for (String referencedFragmentName : fragment.fragmentSpreads) {
+                collectConflictsBetweenFieldsAndFragment(conflicts, comparedFragments, areMutuallyExclusive, fields, referencedFragmentName);
+            }
+        }
+
+        private void collectConflictsBetweenFragments(List<Conflict> conflicts, boolean areMutuallyExclusive, String fragmentName1, String fragmentName2) {
+            if(fragmentName1.equals(fragmentName2)) {
+                return;
+            }
+            final String pair = fragmentName1.compareTo(fragmentName2) < 0 ? fragmentName1 + ':' + fragmentName2 : fragmentName2 + ':' + fragmentName1;
+            // comparing fragments that aren't mutually exclusive covers the mutually exclusive comparison
+            if(comparedFragmentPairs.contains(pair + ":false") || !comparedFragmentPairs.add(pair + ":" + areMutuallyExclusive)) {
+                return;
+            }
+            final CollectedFields fragment1 = getFragmentFields(fragmentName1);
+            final CollectedFields fragment2 = getFragmentFields(fragmentName2);
+            if(fragment1 == null || fragment2 == null) {
+                return;
+            }
+            collectConflictsBetween(conflicts, areMutuallyExclusive, fragment1, fragment2);
+            for (String referencedFragmentName : fragment2.fragmentSpreads) {
+                collectConflictsBetweenFragments(conflicts, areMutuallyExclusive, fragmentName1, referencedFragmentName);
+            }
+            for (String referencedFragmentName : fragment1.fragmentSpreads) {
+                collectConflictsBetweenFragments(conflicts, areMutuallyExclusive, referencedFragmentName, fragmentName2);
+            }
+        }
+
+        private void collectConflictsBetween(List<Conflict> conflicts, boolean areMutuallyExclusive, CollectedFields fields1, CollectedFields fields2) {
+            for (Map.Entry<String, List<CollectedField>> entry : fields1.fieldsByResponseName.entrySet()) {
+                final List<CollectedField> sameResponseName = fields2.fieldsByResponseName.get(entry.getKey());
+                if(sameResponseName == null) {
+                    continue;
+                }
+                for (CollectedField field1 : entry.getValue()) {
+                    for (CollectedField field2 : sameResponseName) {
+                        addConflict(conflicts, findConflict(areMutuallyExclusive, field1, field2));
+                    }
+                }
+            }
+        }
+
+        @Nullable
+        private Conflict findConflict(boolean parentFieldsAreMutuallyExclusive, CollectedField field1, CollectedField field2) {
+            final FieldNode node1 = field1.node;
+            final FieldNode node2 = field2.node;
+            if(node1 == node2) {
+                return null;
+            }
+            // fields on different object types can't both be in the response, so only their types have to be compatible
+            final boolean areMutuallyExclusive = parentFieldsAreMutuallyExclusive || (node1.parentType != null && node2.parentType != null &&
+                    !node1.parentType.equals(node2.parentType) &&
+                    getKind(node1.parentType) == JSGraphQLIntrospectionSchema.Kind.OBJECT && getKind(node2.parentType) == JSGraphQLIntrospectionSchema.Kind.OBJECT);
+            if(!areMutuallyExclusive) {
+                if(!node1.fieldName.equals(node2.fieldName)) {
+                    return new Conflict(node1.responseName, "\"" + node1.fieldName + "\" and \"" + node2.fieldName + "\" are different fields", field1);
+                }
+                if(!node1.arguments.equals(node2.arguments)) {
+                    return new Conflict(node1.responseName, "they have differing arguments", field1);
+                }
+            }
+            if(node1.type != null && node2.type != null && doTypesConflict(node1.type, node2.type)) {
+                return new Conflict(node1.responseName, "they return conflicting types \"" + node1.type + "\" and \"" + node2.type + "\"", field1);
+            }
+            if(node1.selectionSet != null && node2.selectionSet != null) {
+                final List<Conflict> subConflicts = findConflictsBetweenSubSelectionSets(areMutuallyExclusive, field1, field2);
+                if(!subConflicts.isEmpty()) {
+                    final List<String> reasons = Lists.newArrayListWithExpectedSize(subConflicts.size());
+                    for (Conflict subConflict : subConflicts) {
+                        reasons.add("subfields \"" + subConflict.responseName + "\" conflict because " + subConflict.reason);
+                    }
+                    return new Conflict(node1.responseName, String.join(" and ", reasons), field1);
+                }
+            }
+            return null;
+        }
+
+        private boolean doTypesConflict(String type1, String type2) {
+            final boolean isList1 = !isNonNull(type1) && isList(type1);
+            final boolean isList2 = !isNonNull(type2) && isList(type2);
+            if(isList1) {
+                return !isList2 || doTypesConflict(itemType(type1), itemType(type2));
+            }
+            if(isList2) {
+                return true;
+            }
+            if(isNonNull(type1)) {
+                return !isNonNull(type2) || doTypesConflict(nullable(type1), nullable(type2));
+            }
+            if(isNonNull(type2)) {
+                return true;
+            }
+            if(isLeaf(getKind(type1)) || isLeaf(getKind(type2))) {
+                return !type1.equals(type2);
+            }
+            return false;
+        }
+
+        @Nullable
+        private CollectedFields getFragmentFields(String fragmentName) {
+            CollectedFields fields = fragmentFields.get(fragmentName);
+            if(fields == null) {
+                final DefinitionRange fragment = fragments.get(fragmentName);
+                if(fragment == null || fragment.result == null || fragment.result.selectionSet == null) {
+                    return null;
+                }
+                fields = new CollectedFields(fragment.result.selectionSet, fragment.start);
+                fragmentFields.put(fragmentName, fields);
+            }
+            return fields;
+        }
+
+        private void addConflict(List<Conflict> conflicts, @Nullable Conflict conflict) {
+            if(conflict != null) {
+                conflicts.add(conflict);
+            }
+        }
+    }
+
+    // ---- validation of a single definition ----
+
+    private static class SyntaxError extends RuntimeException {
+        final int start;
+        final int end;
+        SyntaxError(int start, int end, String message) {
+            super(message, null, false, false);
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private class DefinitionValidator {
+
+        private final CharSequence text;
+        private final DefinitionRange definition;
+        private final Function<String, String> fragmentTypeConditions;
+        private final JSGraphQLTokenizer tokenizer;
+
+        private final List<JSGraphQLValidationError> errors = Lists.newArrayListWithExpectedSize(0);
+        private final List<VariableDefinition> variableDefinitions = Lists.newArrayListWithExpectedSize(0);
+        private final List<VariableUsage> variableUsages = Lists.newArrayListWithExpectedSize(0);
+        private final SelectionSetNode selectionSet = new SelectionSetNode();
+        private int previousEnd;
+
+        DefinitionValidator(CharSequence text, DefinitionRange definition, Function<String, String> fragmentTypeConditions) {
+            this.text = text;
+            this.definition = definition;
+            this.fragmentTypeConditions = fragmentTypeConditions;
+            this.tokenizer = new JSGraphQLTokenizer(text, definition.start, definition.end);
+            this.previousEnd = definition.start;
+        }
+
+        DefinitionResult validate() {
+            try {
+                tokenizer.next();
+                validateDefinition();
+                if(tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                    throw unexpected();
+                }
+            } catch (SyntaxError e) {
+                error(e.start, e.end, "Syntax Error: " + e.getMessage());
+                return new DefinitionResult(errors, variableDefinitions, variableUsages, null);
+            }
+            return new DefinitionResult(errors, variableDefinitions, variableUsages, selectionSet);
+        }
+
+        private void validateDefinition() {
+            if(tokenizer.is("{")) {
+                // query shorthand
+                selectionSet(getRootType("query", definition.start, definition.start + 1), selectionSet);
+                return;
+            }
+            if(tokenizer.isName("fragment")) {
+                next();
+                final String fragmentName = expectName();
+                if("on".equals(fragmentName)) {
+                    throw new SyntaxError(previousEnd - 2, previousEnd, "Unexpected Name \"on\".");
+                }
+                expectKeyword("on");
+                final int typeConditionStart = tokenizer.getStart();
+                final String typeCondition = expectName();
+                final String fragmentType = typeCondition(typeCondition, typeConditionStart, previousEnd, fragmentName);
+                directives("FRAGMENT_DEFINITION");
+                selectionSet(fragmentType, selectionSet);
+                return;
+            }
+            final int keywordStart = tokenizer.getStart();
+            final String operation = expectName();
+            final int keywordEnd = previousEnd;
+            if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                next();
+            }
+            if(tokenizer.is("(")) {
+                variableDefinitions();
+            }
+            directives(operation.toUpperCase());
+            selectionSet(getRootType(operation, keywordStart, keywordEnd), selectionSet);
+        }
+
+        @Nullable
+        private String getRootType(String operation, int start, int end) {
+            final String rootType;
+            switch (operation) {
+                case "mutation":
+                    rootType = schema.getMutationType();
+                    break;
+                case "subscription":
+                    rootType = schema.getSubscriptionType();
+                    break;
+                default:
+                    rootType = schema.getQueryType();
+            }
+            if(rootType == null) {
+                error(start, end, "query".equals(operation) ? "Schema does not define the required query root type." : "Schema is not configured for " + operation + "s.");
+                return null;
+            }
+            return isComposite(getKind(rootType)) ? rootType : null;
+        }
+
+        // ---- selections ----
+
+        /**
+         * Consumes a selection set, adding its fields and fragment spreads to a node
+         */
+        private void selectionSet(@Nullable String parentType, SelectionSetNode node) {
+            expect("{");
+            if(tokenizer.is("}")) {
+                throw expected("Name");
+            }
+            while (!tokenizer.is("}")) {
+                if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.EOF) {
+                    throw expected("Name");
+                }
+                selection(parentType, node);
+            }
+            next();
+        }
+
+        private void selection(@Nullable String parentType, SelectionSetNode node) {
+            if(tokenizer.is("...")) {
+                next();
+                if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME && !tokenizer.isName("on")) {
+                    fragmentSpread(parentType, node);
+                    return;
+                }
+                // inline fragment
+                String fragmentType = parentType;
+                if(tokenizer.isName("on")) {
+                    next();
+                    final int typeConditionStart = tokenizer.getStart();
+                    final String typeCondition = expectName();
+                    fragmentType = typeCondition(typeCondition, typeConditionStart, previousEnd, null);
+                    if(fragmentType != null && parentType != null && !doTypesOverlap(parentType, fragmentType)) {
+                        error(typeConditionStart, previousEnd, "Fragment cannot be spread here as objects of type \"" + parentType + "\" can never be of type \"" + fragmentType + "\".");
+                    }
+                }
+                directives("INLINE_FRAGMENT");
+                // the fields of an inline fragment are merged with the fields around it
+                selectionSet(fragmentType, node);
+                return;
+            }
+            field(parentType, node);
+        }
+
+        private void fragmentSpread(@Nullable String parentType, SelectionSetNode node) {
+            final int nameStart = tokenizer.getStart();
+            final String fragmentName = expectName();
+            final int nameEnd = previousEnd;
+            directives("FRAGMENT_SPREAD");
+            node.fragmentSpreads.add(fragmentName);
+            final String typeCondition = fragmentTypeConditions.apply(fragmentName);
+            if(typeCondition == null) {
+                error(nameStart, nameEnd, "Unknown fragment \"" + fragmentName + "\".");
+            } else if(parentType != null && isComposite(getKind(typeCondition)) && !doTypesOverlap(parentType, typeCondition)) {
+                error(nameStart, nameEnd, "Fragment \"" + fragmentName + "\" cannot be spread here as objects of type \"" + parentType + "\" can never be of type \"" + typeCondition + "\".");
+            }
+        }
+
+        private void field(@Nullable String parentType, SelectionSetNode node) {
+            final int start = tokenizer.getStart();
+            int nameStart = start;
+            String fieldName = expectName();
+            final String responseName = fieldName;
+            int nameEnd = previousEnd;
+            if(tokenizer.is(":")) {
+                // alias
+                next();
+                nameStart = tokenizer.getStart();
+                fieldName = expectName();
+                nameEnd = previousEnd;
+            }
+            String fieldType = null;
+            List<JSGraphQLIntrospectionSchema.InputValue> argumentDefinitions = null;
+            if(parentType != null) {
+                if("__typename".equals(fieldName)) {
+                    fieldType = "String!";
+                    argumentDefinitions = Collections.emptyList();
+                } else if(("__schema".equals(fieldName) || "__type".equals(fieldName)) && parentType.equals(schema.getQueryType())) {
+                    // introspection, which is only checked if the schema includes the introspection types
+                    final String introspectionType = "__schema".equals(fieldName) ? "__Schema" : "__Type";
+                    fieldType = schema.getType(introspectionType) != null ? introspectionType : null;
+                } else {
+                    final JSGraphQLIntrospectionSchema.Field field = getField(parentType, fieldName);
+                    if(field == null) {
+                        error(nameStart, nameEnd, "Cannot query field \"" + fieldName + "\" on type \"" + parentType + "\".");
+                    } else {
+                        fieldType = field.getType();
+                        argumentDefinitions = field.getArgs();
+                    }
+                }
+            }
+            final Map<String, String> arguments = arguments(argumentDefinitions, fieldName, parentType, nameStart, nameEnd);
+            final FieldNode fieldNode = new FieldNode(responseName, fieldName, arguments, parentType, fieldType, start - definition.start, nameEnd - definition.start);
+            node.fields.add(fieldNode);
+            directives("FIELD");
+            final String fieldTypeName = fieldType != null ? namedType(fieldType) : null;
+            final boolean isComposite = fieldTypeName != null && isComposite(getKind(fieldTypeName));
+            if(tokenizer.is("{")) {
+                if(fieldTypeName != null && !isComposite && getKind(fieldTypeName) != null) {
+                    error(nameStart, nameEnd, "Field \"" + fieldName + "\" must not have a selection since type \"" + fieldType + "\" has no subfields.");
+                }
+                fieldNode.selectionSet = new SelectionSetNode();
+                selectionSet(isComposite ? fieldTypeName : null, fieldNode.selectionSet);
+            } else if(isComposite) {
+                error(nameStart, nameEnd, "Field \"" + fieldName + "\" of type \"" + fieldType + "\" must have a selection of subfields. Did you mean \"" + fieldName + " { ... }\"?");
+            }
+        }
+
+        @Nullable
+        private String typeCondition(String typeName, int start, int end, @Nullable String fragmentName) {
+            final JSGraphQLIntrospectionSchema.Kind kind = getKind(typeName);
+            if(kind == null) {
+                error(start, end, "Unknown type \"" + typeName + "\".");
+                return null;
+            }
+            if(!isComposite(kind)) {
+                error(start, end, (fragmentName != null ? "Fragment \"" + fragmentName + "\"" : "Fragment") + " cannot condition on non composite type \"" + typeName + "\".");
+                return null;
+            }
+            return typeName;
+        }
+
+        // ---- arguments and directives ----
+
+        /**
+         * Checks the arguments of a field or directive
+         * @param ownerName the name of the field or directive
+         * @param parentType the type that declares the field, or <code>null</code> for directives
+         * @return the provided arguments, mapped to the tokens of their values
+         */
+        private Map<String, String> arguments(@Nullable List<JSGraphQLIntrospectionSchema.InputValue> argumentDefinitions, String ownerName, @Nullable String parentType, int start, int end) {
+            Map<String, String> providedArguments = Collections.emptyMap();
+            if(tokenizer.is("(")) {
+                next();
+                if(tokenizer.is(")")) {
+                    throw expected("Name");
+                }
+                providedArguments = Maps.newHashMap();
+                while (!tokenizer.is(")")) {
+                    final int argumentStart = tokenizer.getStart();
+                    final String argumentName = expectName();
+                    final int argumentEnd = previousEnd;
+                    expect(":");
+                    final JSGraphQLIntrospectionSchema.InputValue argumentDefinition = argumentDefinitions != null ? findInputValue(argumentDefinitions, argumentName) : null;
+                    if(argumentDefinitions != null && argumentDefinition == null) {
+                        error(argumentStart, argumentEnd, "Unknown argument \"" + argumentName + "\" " +
+                                (parentType != null ? "on field \"" + ownerName + "\" of type \"" + parentType + "\"" : "on directive \"@" + ownerName + "\"") + ".");
+                    }
+                    if(providedArguments.containsKey(argumentName)) {
+                        error(argumentStart, argumentEnd, "There can be only one argument named \"" + argumentName + "\".");
+                    }
+                    final int valueStart = tokenizer.getStart();
+                    value(argumentDefinition != null ? argumentDefinition.getType() : null, argumentDefinition != null && argumentDefinition.getDefaultValue() != null, argumentName, false);
+                    providedArguments.put(argumentName, valueTokens(valueStart, previousEnd));
+                }
+                next();
+            }
+            if(argumentDefinitions != null) {
+                for (JSGraphQLIntrospectionSchema.InputValue argumentDefinition : argumentDefinitions) {
+                    if(isNonNull(argumentDefinition.getType()) && argumentDefinition.getDefaultValue() == null && !providedArguments.containsKey(argumentDefinition.getName())) {
+                        error(start, end, (parentType != null ? "Field \"" + ownerName + "\"" : "Directive \"@" + ownerName + "\"") + " argument \"" + argumentDefinition.getName() + "\" of type \"" + argumentDefinition.getType() + "\" is required but not provided.");
+                    }
+                }
+            }
+            return providedArguments;
+        }
+
+        /**
+         * @return the tokens of a value separated by single spaces, such that values that only differ in white space and commas are equal
+         */
+        private String valueTokens(int start, int end) {
+            final JSGraphQLTokenizer valueTokenizer = new JSGraphQLTokenizer(text, start, end);
+            final StringBuilder tokens = new StringBuilder(end - start);
+            while (valueTokenizer.next()) {
+                if(tokens.length() > 0) {
+                    tokens.append(' ');
+                }
+                tokens.append(valueTokenizer.getText());
+            }
+            return tokens.toString();
+        }
+
+        private void directives(String location) {
+            while (tokenizer.is("@")) {
+                final int start = tokenizer.getStart();
+                next();
+                final String directiveName = expectName();
+                final int end = previousEnd;
+                final JSGraphQLIntrospectionSchema.Directive directive = directives.get(directiveName);
+                if(directive != null && !directive.getLocations().isEmpty() && !directive.getLocations().contains(location)) {
+                    error(start, end, "Directive \"" + directiveName + "\" may not be used on " + location + ".");
+                }
+                // directives that the schema doesn't define are left to the client, e.g. '@client' or '@connection'
+                arguments(directive != null ? directive.getArgs() : null, directiveName, null, start, end);
+            }
+        }
+
+        private void variableDefinitions() {
+            next();
+            if(tokenizer.is(")")) {
+                throw expected("\"$\"");
+            }
+            final Set<String> variableNames = Sets.newHashSet();
+            while (!tokenizer.is(")")) {
+                final int start = tokenizer.getStart();
+                expect("$");
+                final String variableName = expectName();
+                final int end = previousEnd;
+                expect(":");
+                final int typeStart = tokenizer.getStart();
+                final String type = typeReference();
+                final String typeName = namedType(type);
+                final JSGraphQLIntrospectionSchema.Kind kind = getKind(typeName);
+                if(kind == null) {
+                    error(typeStart, previousEnd, "Unknown type \"" + typeName + "\".");
+                } else if(!isInput(kind)) {
+                    error(typeStart, previousEnd, "Variable \"$" + variableName + "\" cannot be non-input type \"" + type + "\".");
+                }
+                boolean hasNonNullDefaultValue = false;
+                if(tokenizer.is("=")) {
+                    next();
+                    hasNonNullDefaultValue = !tokenizer.isName("null");
+                    value(kind != null && isInput(kind) ? type : null, false, variableName, true);
+                }
+                directives("VARIABLE_DEFINITION");
+                if(!variableNames.add(variableName)) {
+                    error(start, end, "There can be only one variable named \"" + variableName + "\".");
+                }
+                variableDefinitions.add(new VariableDefinition(variableName, type, hasNonNullDefaultValue, start - definition.start, end - definition.start));
+            }
+            next();
+        }
+
+        private String typeReference() {
+            final String type;
+            if(tokenizer.is("[")) {
+                next();
+                final String itemType = typeReference();
+                expect("]");
+                type = "[" + itemType + "]";
+            } else {
+                type = expectName();
+            }
+            if(tokenizer.is("!")) {
+                next();
+                return type + "!";
+            }
+            return type;
+        }
+
+        // ---- values ----
+
+        /**
+         * Consumes an argument value or variable default value and reports a problem with the value
+         * @param name the argument name, or the variable name for default values
+         * @param isConst true for default values, which can't use variables
+         */
+        private void value(@Nullable String expectedType, boolean locationHasDefaultValue, String name, boolean isConst) {
+            final int start = tokenizer.getStart();
+            final String problem = checkValue(expectedType, locationHasDefaultValue, isConst);
+            if(problem != null) {
+                final CharSequence valueText = text.subSequence(start, previousEnd);
+                final String abbreviatedValueText = valueText.length() > 40 ? valueText.subSequence(0, 37) + "..." : valueText.toString();
+                final String subject = isConst ? "Variable \"$" + name + "\" has invalid default value" : "Argument \"" + name + "\" has invalid value";
+                error(start, previousEnd, subject + " " + abbreviatedValueText.replace('\n', ' ') + ": " + problem + ".");
+            }
+        }
+
+        /**
+         * Consumes a value and checks that it fits the expected type
+         * @param expectedType the type of the argument, input field or variable that the value is for, or <code>null</code> if unknown
+         * @return the problem with the value, or <code>null</code> if the value is valid
+         */
+        @Nullable
+        private String checkValue(@Nullable String expectedType, boolean locationHasDefaultValue, boolean isConst) {
+            if(tokenizer.is("$")) {
+                if(isConst) {
+                    throw unexpected();
+                }
+                final int start = tokenizer.getStart();
+                next();
+                final String variableName = expectName();
+                variableUsages.add(new VariableUsage(variableName, expectedType, locationHasDefaultValue, start - definition.start, previousEnd - definition.start));
+                return null;
+            }
+            if(tokenizer.isName("null")) {
+                next();
+                return expectedType != null && isNonNull(expectedType) ? "expected type \"" + expectedType + "\", found null" : null;
+            }
+            String type = expectedType != null ? nullable(expectedType) : null;
+            if(tokenizer.is("[")) {
+                next();
+                final boolean isListType = type != null && isList(type);
+                String problem = null;
+                while (!tokenizer.is("]")) {
+                    if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.EOF) {
+                        throw expected("\"]\"");
+                    }
+                    final String itemProblem = checkValue(isListType ? itemType(type) : null, false, isConst);
+                    if(problem == null) {
+                        problem = itemProblem;
+                    }
+                }
+                next();
+                if(type != null && !isListType && !isCustomScalar(type)) {
+                    return "expected type \"" + expectedType + "\"";
+                }
+                return problem;
+            }
+            while (type != null && isList(type)) {
+                // a single value is coerced to a list of one item
+                type = nullable(itemType(type));
+            }
+            final JSGraphQLIntrospectionSchema.Kind kind = type != null ? getKind(type) : null;
+            if(tokenizer.is("{")) {
+                return checkObjectValue(expectedType, type, kind, isConst);
+            }
+            final JSGraphQLTokenizer.Kind tokenKind = tokenizer.getKind();
+            final String literal = tokenizer.getText();
+            if(tokenKind == JSGraphQLTokenizer.Kind.PUNCTUATOR || tokenKind == JSGraphQLTokenizer.Kind.EOF) {
+                throw unexpected();
+            }
+            next();
+            if(kind == null || isCustomScalar(type)) {
+                return null;
+            }
+            boolean valid = false;
+            switch (tokenKind) {
+                case INT:
+                    valid = ("Int".equals(type) && isInt(literal)) || "Float".equals(type) || "ID".equals(type);
+                    break;
+                case FLOAT:
+                    valid = "Float".equals(type);
+                    break;
+                case STRING:
+                case BLOCK_STRING:
+                    valid = "String".equals(type) || "ID".equals(type);
+                    break;
+                case NAME:
+                    if("true".equals(literal) || "false".equals(literal)) {
+                        valid = "Boolean".equals(type);
+                    } else if(kind == JSGraphQLIntrospectionSchema.Kind.ENUM) {
+                        final JSGraphQLIntrospectionSchema.Type enumType = schema.getType(type);
+                        if(enumType != null) {
+                            for (JSGraphQLIntrospectionSchema.EnumValue enumValue : enumType.getEnumValues()) {
+                                if(literal.equals(enumValue.getName())) {
+                                    valid = true;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return valid ? null : "expected type \"" + expectedType + "\"";
+        }
+
+        @Nullable
+        private String checkObjectValue(@Nullable String expectedType, @Nullable String type, @Nullable JSGraphQLIntrospectionSchema.Kind kind, boolean isConst) {
+            next();
+            final JSGraphQLIntrospectionSchema.Type inputType = kind == JSGraphQLIntrospectionSchema.Kind.INPUT_OBJECT ? schema.getType(type) : null;
+            String problem = null;
+            if(kind != null && inputType == null && !isCustomScalar(type)) {
+                problem = "expected type \"" + expectedType + "\"";
+            }
+            final Set<String> fieldNames = Sets.newHashSet();
+            while (!tokenizer.is("}")) {
+                if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.EOF) {
+                    throw expected("Name");
+                }
+                final String fieldName = expectName();
+                expect(":");
+                final JSGraphQLIntrospectionSchema.InputValue fieldDefinition = inputType != null ? findInputValue(inputType.getInputFields(), fieldName) : null;
+                if(inputType != null && fieldDefinition == null && problem == null) {
+                    problem = "unknown field \"" + fieldName + "\" on input type \"" + type + "\"";
+                }
+                fieldNames.add(fieldName);
+                final String fieldProblem = checkValue(fieldDefinition != null ? fieldDefinition.getType() : null, fieldDefinition != null && fieldDefinition.getDefaultValue() != null, isConst);
+                if(problem == null && fieldProblem != null) {
+                    problem = "in field \"" + fieldName + "\": " + fieldProblem;
+                }
+            }
+            next();
+            if(inputType != null && problem == null) {
+                for (JSGraphQLIntrospectionSchema.InputValue inputField : inputType.getInputFields()) {
+                    if(isNonNull(inputField.getType()) && inputField.getDefaultValue() == null && !fieldNames.contains(inputField.getName())) {
+                        return "missing required field \"" + inputField.getName() + "\" of type \"" + inputField.getType() + "\"";
+                    }
+                }
+            }
+            return problem;
+        }
+
+        // ---- tokens ----
+
+        private void next() {
+            previousEnd = tokenizer.getEnd();
+            tokenizer.next();
+        }
+
+        private String expectName() {
+            if(tokenizer.getKind() != JSGraphQLTokenizer.Kind.NAME) {
+                throw expected("Name");
+            }
+            final String name = tokenizer.getText();
+            next();
+            return name;
+        }
+
+        private void expectKeyword(String keyword) {
+            if(!tokenizer.isName(keyword)) {
+                throw expected("\"" + keyword + "\"");
+            }
+            next();
+        }
+
+        private void expect(String punctuator) {
+            if(!tokenizer.is(punctuator)) {
+                throw expected("\"" + punctuator + "\"");
+            }
+            next();
+        }
+
+        private SyntaxError expected(String expected) {
+            return syntaxError("Expected " + expected + ", found " + describeToken(text, tokenizer.getStart(), tokenizer.getEnd()) + ".");
+        }
+
+        private SyntaxError unexpected() {
+            return syntaxError("Unexpected " + describeToken(text, tokenizer.getStart(), tokenizer.getEnd()) + ".");
+        }
+
+        private SyntaxError syntaxError(String message) {
+            if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.EOF) {
+                // report at the end of the definition
+                return new SyntaxError(Math.max(definition.start, previousEnd - 1), previousEnd, message);
+            }
+            return new SyntaxError(tokenizer.getStart(), tokenizer.getEnd(), message);
+        }
+
+        private void error(int start, int end, String message) {
+            errors.add(new JSGraphQLValidationError(start - definition.start, end - definition.start, message));
+        }
+    }
+
+    // ---- schema ----
+
+    @Nullable
+    private JSGraphQLIntrospectionSchema.Kind getKind(@Nullable String typeName) {
+        if(typeName == null) {
+            return null;
+        }
+        final JSGraphQLIntrospectionSchema.Type type = schema.getType(typeName);
+        if(type != null) {
+            return type.getKind();
+        }
+        // the schema language omits the built-in scalars
+        return BUILT_IN_SCALARS.contains(typeName) ? JSGraphQLIntrospectionSchema.Kind.SCALAR : null;
+    }
+
+    private boolean isCustomScalar(@Nullable String typeName) {
+        return typeName != null && getKind(typeName) == JSGraphQLIntrospectionSchema.Kind.SCALAR && !BUILT_IN_SCALARS.contains(typeName);
+    }
+
+    @Nullable
+    private JSGraphQLIntrospectionSchema.Field getField(String typeName, String fieldName) {
+        return fieldsByTypeName.computeIfAbsent(typeName, name -> {
+            final JSGraphQLIntrospectionSchema.Type type = schema.getType(name);
+            if(type == null || type.getFields().isEmpty()) {
+                return Collections.emptyMap();
+            }
+            final Map<String, JSGraphQLIntrospectionSchema.Field> fields = Maps.newHashMapWithExpectedSize(type.getFields().size());
+            for (JSGraphQLIntrospectionSchema.Field field : type.getFields()) {
+                fields.put(field.getName(), field);
+            }
+            return fields;
+        }).get(fieldName);
+    }
+
+    /**
+     * @return whether an object can be of both types, e.g. an object type and an interface it implements
+     */
+    private boolean doTypesOverlap(String typeName, String otherTypeName) {
+        if(typeName.equals(otherTypeName)) {
+            return true;
+        }
+        final Set<String> possibleTypes = getPossibleTypes(typeName);
+        final Set<String> otherPossibleTypes = getPossibleTypes(otherTypeName);
+        if(possibleTypes.isEmpty() || otherPossibleTypes.isEmpty()) {
+            // the implementations aren't known
+            return true;
+        }
+        for (String possibleType : possibleTypes) {
+            if(otherPossibleTypes.contains(possibleType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> getPossibleTypes(String typeName) {
+        return possibleTypesByTypeName.computeIfAbsent(typeName, name -> {
+            final JSGraphQLIntrospectionSchema.Type type = schema.getType(name);
+            if(type == null) {
+                return Collections.emptySet();
+            }
+            if(type.getKind() == JSGraphQLIntrospectionSchema.Kind.OBJECT) {
+                return Collections.singleton(name);
+            }
+            return Sets.newHashSet(type.getPossibleTypes());
+        });
+    }
+
+    @Nullable
+    private static JSGraphQLIntrospectionSchema.InputValue findInputValue(List<JSGraphQLIntrospectionSchema.InputValue> inputValues, String name) {
+        for (JSGraphQLIntrospectionSchema.InputValue inputValue : inputValues) {
+            if(name.equals(inputValue.getName())) {
+                return inputValue;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isComposite(@Nullable JSGraphQLIntrospectionSchema.Kind kind) {
+        return kind == JSGraphQLIntrospectionSchema.Kind.OBJECT || kind == JSGraphQLIntrospectionSchema.Kind.INTERFACE || kind == JSGraphQLIntrospectionSchema.Kind.UNION;
+    }
+
+    private static boolean isLeaf(@Nullable JSGraphQLIntrospectionSchema.Kind kind) {
+        return kind == JSGraphQLIntrospectionSchema.Kind.SCALAR || kind == JSGraphQLIntrospectionSchema.Kind.ENUM;
+    }
+
+    private static boolean isInput(@Nullable JSGraphQLIntrospectionSchema.Kind kind) {
+        return kind == JSGraphQLIntrospectionSchema.Kind.SCALAR || kind == JSGraphQLIntrospectionSchema.Kind.ENUM || kind == JSGraphQLIntrospectionSchema.Kind.INPUT_OBJECT;
+    }
+
+    // ---- type notation, e.g. '[User!]!' ----
+
+    private static boolean isNonNull(String type) {
+        return type.endsWith("!");
+    }
+
+    private static String nullable(String type) {
+        return isNonNull(type) ? type.substring(0, type.length() - 1) : type;
+    }
+
+    private static boolean isList(String type) {
+        return type.startsWith("[");
+    }
+
+    private static String itemType(String listType) {
+        final String type = nullable(listType);
+        return type.substring(1, type.length() - 1);
+    }
+
+    private static String namedType(String type) {
+        int start = 0;
+        int end = type.length();
+        while (start < end && type.charAt(start) == '[') {
+            start++;
+        }
+        while (end > start && (type.charAt(end - 1) == ']' || type.charAt(end - 1) == '!')) {
+            end--;
+        }
+        return type.substring(start, end);
+    }
+
+    private static boolean isInt(String literal) {
+        try {
+            Integer.parseInt(literal);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String describeToken(CharSequence text, int start, int end) {
+        if(start >= end) {
+            return "<EOF>";
+        }
+        final String token = text.subSequence(start, end).toString();
+        final char first = token.charAt(0);
+        if(Character.isLetter(first) || first == '_') {
+            return "Name \"" + token + "\"";
+        }
+        return "\"" + (token.length() > 20 ? token.substring(0, 17) + "..." : token) + "\"";
+    }
+}
@@ -17,6 +17,16 @@ public class Annotation {
 
     private boolean errorInContext = true;
 
+    public Annotation() {
+    }
+
+    public Annotation(String message, String severity, Pos from, Pos to) {
+        this.message = message;
+        this.severity = severity;
+        this.from = from;
+        this.to = to;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -79,9 +79,26 @@ public class JSGraphQLLexer extends LexerBase {
             return;
         }
 
-        // get the response using the client
-        response = JSGraphQLNodeLanguageServiceClient.getTokens(bufferAsString, project, environment);
+        // the highlighting lexer and the parser lexer tokenize the same buffer, so share the tokens between them
+        final JSGraphQLLexerTokenCache tokenCache = project != null && !project.isDisposed() ? JSGraphQLLexerTokenCache.getService(project) : null;
+        if (tokenCache != null) {
+            final List<JSGraphQLToken> cachedTokens = tokenCache.getTokens(bufferAsString, startOffset, endOffset, environment);
+            if (cachedTokens != null) {
+                tokens = cachedTokens;
+                if (tokens.size() > 0) {
+                    advance();
+                }
+                return;
+            }
+        }
 
+        // get the response using the client, unless it was recorded in a previous session, e.g. for the persisted schema
+        response = tokenCache != null ? tokenCache.takePreloadedResponse(bufferAsString, environment) : null;
+        if (response == null) {
+            response = JSGraphQLNodeLanguageServiceClient.getTokens(bufferAsString, project, environment);
+        }
+
+        final boolean cacheable = response != null;
         if (response == null) {
             // blank
             response = new TokensResponse();
@@ -156,6 +173,10 @@ public class JSGraphQLLexer extends LexerBase {
             tokens.add(new JSGraphQLToken(tokenType, token));
         }
         verifyTokens();
+        if (tokenCache != null && cacheable) {
+            // don't cache the dummy token used when the language service isn't available
+            tokens = tokenCache.putTokens(bufferAsString, startOffset, endOffset, environment, tokens);
+        }
         if (tokens.size() > 0) {
             advance();
         }
@@ -0,0 +1,174 @@
+/**
+ *  Copyright (c) 2015-present, Jim Kynde Meyer
+ *  All rights reserved.
+ *
+ *  This source code is licensed under the MIT license found in the
+ *  LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.lexer;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.intellij.lang.jsgraphql.languageservice.api.TokensResponse;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the token streams returned by the language service between the lexers that are created for the same buffer.
+ * The highlighting lexer and the PSI parser lexer both tokenize the same document (or injected host range), so
+ * the second lexer to start is served from this cache instead of doing another language service round trip.
+ * Entries are keyed by a hash of the buffer text and the lexed range, which changes whenever the document is modified,
+ * so the cache doesn't retain the buffers themselves.
+ * Language service responses can also be preloaded, e.g. for the persisted schema, such that a buffer can be lexed before the service has started.
+ * A preloaded response is only used once, since the tokens lexed from it are cached like any other tokens.
+ */
+public class JSGraphQLLexerTokenCache implements Disposable {
+
+    private static final int MAX_ENTRIES = 32;
+
+    private final Map<CacheKey, List<JSGraphQLToken>> tokensByBuffer = new LinkedHashMap<CacheKey, List<JSGraphQLToken>>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, List<JSGraphQLToken>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final Map<String, TokensResponse> preloadedResponses = Maps.newConcurrentMap();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public static JSGraphQLLexerTokenCache getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLLexerTokenCache.class);
+    }
+
+    /**
+     * Gets the previously lexed tokens for the specified buffer range
+     *
+     * @return the shared, unmodifiable token list, or <code>null</code> if the buffer range hasn't been lexed yet
+     */
+    @Nullable
+    public List<JSGraphQLToken> getTokens(@NotNull String buffer, int startOffset, int endOffset, @Nullable String environment) {
+        final CacheKey key = new CacheKey(buffer, startOffset, endOffset, environment);
+        final List<JSGraphQLToken> tokens;
+        synchronized (tokensByBuffer) {
+            tokens = tokensByBuffer.get(key);
+        }
+        if (tokens != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return tokens;
+    }
+
+    /**
+     * Stores the tokens for a buffer range such that other lexers can reuse them
+     *
+     * @return the unmodifiable token list that was put into the cache
+     */
+    @NotNull
+    public List<JSGraphQLToken> putTokens(@NotNull String buffer, int startOffset, int endOffset, @Nullable String environment, @NotNull List<JSGraphQLToken> tokens) {
+        final List<JSGraphQLToken> sharedTokens = Collections.unmodifiableList(tokens);
+        final CacheKey key = new CacheKey(buffer, startOffset, endOffset, environment);
+        synchronized (tokensByBuffer) {
+            tokensByBuffer.put(key, sharedTokens);
+        }
+        if (environment == null && !preloadedResponses.isEmpty()) {
+            // the buffer has been lexed, so a recorded response for it is no longer needed
+            preloadedResponses.remove(buffer);
+        }
+        return sharedTokens;
+    }
+
+    /**
+     * Makes a previously recorded language service response available to lexers of the exact same buffer outside any injection environment
+     */
+    public void preloadResponse(@NotNull String buffer, @NotNull TokensResponse response) {
+        preloadedResponses.put(buffer, response);
+    }
+
+    /**
+     * Takes the preloaded language service response for a buffer, removing it from the cache
+     *
+     * @return the response, or <code>null</code> if no response was preloaded for the buffer
+     */
+    @Nullable
+    public TokensResponse takePreloadedResponse(@NotNull String buffer, @Nullable String environment) {
+        if (environment != null || preloadedResponses.isEmpty()) {
+            return null;
+        }
+        return preloadedResponses.remove(buffer);
+    }
+
+    public void clear() {
+        synchronized (tokensByBuffer) {
+            tokensByBuffer.clear();
+        }
+        preloadedResponses.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+
+    /**
+     * @return the number of lexers that were served tokens from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lexers that had to lex their buffer range, i.e. that weren't served from the cache
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private static class CacheKey {
+
+        private final HashCode bufferHash;
+        private final int bufferLength;
+        private final int startOffset;
+        private final int endOffset;
+        private final String environment;
+
+        CacheKey(String buffer, int startOffset, int endOffset, String environment) {
+            this.bufferHash = Hashing.murmur3_128().hashUnencodedChars(buffer);
+            this.bufferLength = buffer.length();
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.environment = environment;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return bufferLength == cacheKey.bufferLength &&
+                    startOffset == cacheKey.startOffset &&
+                    endOffset == cacheKey.endOffset &&
+                    Objects.equals(environment, cacheKey.environment) &&
+                    bufferHash.equals(cacheKey.bufferHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bufferHash, bufferLength, startOffset, endOffset, environment);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.lexer;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Splits GraphQL text into the tokens of the GraphQL grammar without using the language service.
+ * Whitespace, commas and comments are skipped, and so are JavaScript template placeholders such as '${fragment}',
+ * which can't occur in GraphQL, such that GraphQL in tagged templates can be tokenized as-is.
+ * Comments are returned as tokens when {@link #setIncludeComments(boolean)} is set, e.g. to keep them with the definition they precede.
+ */
+public class JSGraphQLTokenizer {
+
+    public enum Kind {
+        NAME, INT, FLOAT, STRING, BLOCK_STRING, PUNCTUATOR, COMMENT, EOF
+    }
+
+    private final CharSequence text;
+    private final int endOffset;
+
+    private int offset;
+    private Kind kind;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean includeComments;
+
+    public JSGraphQLTokenizer(@NotNull CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    public JSGraphQLTokenizer(@NotNull CharSequence text, int startOffset, int endOffset) {
+        this.text = text;
+        this.offset = startOffset;
+        this.endOffset = endOffset;
+        this.kind = Kind.EOF;
+        this.tokenStart = startOffset;
+        this.tokenEnd = startOffset;
+    }
+
+    /**
+     * @param includeComments whether comments are returned as {@link Kind#COMMENT} tokens rather than skipped
+     */
+    public void setIncludeComments(boolean includeComments) {
+        this.includeComments = includeComments;
+    }
+
+    /**
+     * Advances to the next token
+     * @return false if the end of the text was reached, in which case the token kind is {@link Kind#EOF}
+     */
+    public boolean next() {
+        while (offset < endOffset) {
+            final char c = text.charAt(offset);
+            if(c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == '\uFEFF' || Character.isWhitespace(c)) {
+                offset++;
+            } else if(c == '#') {
+                final int commentStart = offset;
+                while (offset < endOffset && text.charAt(offset) != '\n' && text.charAt(offset) != '\r') {
+                    offset++;
+                }
+                if(includeComments) {
+                    kind = Kind.COMMENT;
+                    tokenStart = commentStart;
+                    tokenEnd = offset;
+                    return true;
+                }
+            } else if(c == '$' && offset + 1 < endOffset && text.charAt(offset + 1) == '{') {
+                skipPlaceholder();
+            } else {
+                tokenStart = offset;
+                if(isNameStart(c)) {
+                    while (offset < endOffset && isNamePart(text.charAt(offset))) {
+                        offset++;
+                    }
+                    kind = Kind.NAME;
+                } else if(c == '-' || isDigit(c)) {
+                    kind = scanNumber();
+                } else if(c == '"') {
+                    if(startsWith("\"\"\"")) {
+                        scanBlockString();
+                        kind = Kind.BLOCK_STRING;
+                    } else {
+                        scanString();
+                        kind = Kind.STRING;
+                    }
+                } else if(c == '.' && startsWith("...")) {
+                    offset += 3;
+                    kind = Kind.PUNCTUATOR;
+                } else {
+                    offset++;
+                    kind = Kind.PUNCTUATOR;
+                }
+                tokenEnd = offset;
+                return true;
+            }
+        }
+        kind = Kind.EOF;
+        tokenStart = endOffset;
+        tokenEnd = endOffset;
+        return false;
+    }
+
+    /**
+     * Continues tokenizing at the specified offset
+     */
+    public void reset(int offset) {
+        this.offset = offset;
+        this.kind = Kind.EOF;
+        this.tokenStart = offset;
+        this.tokenEnd = offset;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getStart() {
+        return tokenStart;
+    }
+
+    public int getEnd() {
+        return tokenEnd;
+    }
+
+    @NotNull
+    public String getText() {
+        return text.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    /**
+     * @return whether the current token is the specified punctuator, e.g. '{' or '...'
+     */
+    public boolean is(@NotNull String punctuator) {
+        return kind == Kind.PUNCTUATOR && tokenEnd - tokenStart == punctuator.length() && regionMatches(tokenStart, punctuator);
+    }
+
+    /**
+     * @return whether the current token is the specified name or keyword
+     */
+    public boolean isName(@NotNull String name) {
+        return kind == Kind.NAME && tokenEnd - tokenStart == name.length() && regionMatches(tokenStart, name);
+    }
+
+    /**
+     * @return the value of the current string token with escapes and block string indentation resolved
+     */
+    @NotNull
+    public String getStringValue() {
+        if(kind == Kind.BLOCK_STRING) {
+            final int contentEnd = Math.max(tokenStart + 3, tokenEnd - 3);
+            return dedentBlockString(text.subSequence(tokenStart + 3, contentEnd).toString().replace("\\\"\"\"", "\"\"\""));
+        }
+        final StringBuilder sb = new StringBuilder(tokenEnd - tokenStart);
+        final int contentEnd = tokenEnd > tokenStart + 1 && text.charAt(tokenEnd - 1) == '"' ? tokenEnd - 1 : tokenEnd;
+        for (int i = tokenStart + 1; i < contentEnd; i++) {
+            final char c = text.charAt(i);
+            if(c == '\\' && i + 1 < contentEnd) {
+                final char escaped = text.charAt(++i);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if(i + 4 < contentEnd) {
+                            try {
+                                sb.append((char) Integer.parseInt(text.subSequence(i + 1, i + 5).toString(), 16));
+                                i += 4;
+                                break;
+                            } catch (NumberFormatException ignored) {
+                                // not a unicode escape, keep as-is
+                            }
+                        }
+                        sb.append('u');
+                        break;
+                    default: sb.append(escaped);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ---- implementation ----
+
+    private Kind scanNumber() {
+        boolean isFloat = false;
+        if(text.charAt(offset) == '-') {
+            offset++;
+        }
+        skipDigits();
+        if(offset < endOffset && text.charAt(offset) == '.' && !startsWith("...")) {
+            isFloat = true;
+            offset++;
+            skipDigits();
+        }
+        if(offset < endOffset && (text.charAt(offset) == 'e' || text.charAt(offset) == 'E')) {
+            isFloat = true;
+            offset++;
+            if(offset < endOffset && (text.charAt(offset) == '+' || text.charAt(offset) == '-')) {
+                offset++;
+            }
+            skipDigits();
+        }
+        return isFloat ? Kind.FLOAT : Kind.INT;
+    }
+
+    private void skipDigits() {
+        while (offset < endOffset && isDigit(text.charAt(offset))) {
+            offset++;
+        }
+    }
+
+    private void scanString() {
+        offset++;
+        while (offset < endOffset) {
+            final char c = text.charAt(offset);
+            if(c == '\\') {
+                offset += 2;
+            } else if(c == '"') {
+                offset++;
+                return;
+            } else if(c == '\n' || c == '\r') {
+                // unterminated string
+                return;
+            } else {
+                offset++;
+            }
+        }
+        offset = endOffset;
+    }
+
+    private void scanBlockString() {
+        offset += 3;
+        while (offset < endOffset) {
+            if(text.charAt(offset) == '\\' && startsWith("\\\"\"\"")) {
+                offset += 4;
+            } else if(startsWith("\"\"\"")) {
+                offset += 3;
+                return;
+            } else {
+                offset++;
+            }
+        }
+        offset = endOffset;
+    }
+
+    private void skipPlaceholder() {
+        int depth = 0;
+        offset++;
+        while (offset < endOffset) {
+            final char c = text.charAt(offset++);
+            if(c == '{') {
+                depth++;
+            } else if(c == '}' && --depth == 0) {
+                return;
+            }
+        }
+    }
+
+    private boolean startsWith(String prefix) {
+        return offset + prefix.length() <= endOffset && regionMatches(offset, prefix);
+    }
+
+    private boolean regionMatches(int start, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if(text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String dedentBlockString(String raw) {
+        final String[] lines = raw.split("\r\n|\n|\r", -1);
+        int commonIndent = Integer.MAX_VALUE;
+        for (int i = 1; i < lines.length; i++) {
+            final String line = lines[i];
+            int indent = 0;
+            while (indent < line.length() && (line.charAt(indent) == ' ' || line.charAt(indent) == '\t')) {
+                indent++;
+            }
+            if(indent < line.length()) {
+                commonIndent = Math.min(commonIndent, indent);
+            }
+        }
+        int first = 0;
+        int last = lines.length - 1;
+        while (first <= last && lines[first].trim().isEmpty()) {
+            first++;
+        }
+        while (last >= first && lines[last].trim().isEmpty()) {
+            last--;
+        }
+        final StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = first; i <= last; i++) {
+            if(i > first) {
+                sb.append('\n');
+            }
+            final String line = lines[i];
+            sb.append(i > 0 && commonIndent != Integer.MAX_VALUE && line.length() >= commonIndent ? line.substring(commonIndent) : line);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -74,9 +74,9 @@ public class JSGraphQLNamedPropertyPsiElement extends JSGraphQLNamedPsiElement {
         final JSGraphQLSchemaLanguageProjectService schemaService = JSGraphQLSchemaLanguageProjectService.getService(getProject());
         final String propertyOwnerType = schemaService.getTypeName(typedReferenceElement);
         if(propertyOwnerType != null) {
-            final JSGraphQLNamedType namedType = schemaService.getNamedType(propertyOwnerType);
+            final JSGraphQLNamedType namedType = schemaService.getNamedType(typedReferenceElement, propertyOwnerType);
             if(namedType != null) {
-                final JSGraphQLPropertyType propertyType = namedType.properties.get(getName());
+                final JSGraphQLPropertyType propertyType = namedType.getProperty(getName());
                 if(propertyType != null) {
                     if(propertyType.propertyValueTypeName != null) {
                         if(JSGraphQLSchemaLanguageProjectService.SCALAR_TYPES.contains(propertyType.propertyValueTypeName)) {
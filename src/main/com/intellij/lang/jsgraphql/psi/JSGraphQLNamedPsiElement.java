@@ -142,7 +142,7 @@ public class JSGraphQLNamedPsiElement extends JSGraphQLPsiElement implements Psi
 
                 private JSGraphQLSchemaLanguageProjectService service;
                 private PsiElement cachedResolvedReference;
-                private int cachedSchemaVersion = -1;
+                private long cachedSchemaVersion = -1;
 
                 @Nullable
                 @Override
@@ -158,7 +158,7 @@ public class JSGraphQLNamedPsiElement extends JSGraphQLPsiElement implements Psi
                         // since endpoint language files are editable
                         return service.getReference(self);
                     }
-                    final int currentSchemaVersion = service.getSchemaVersion();
+                    final long currentSchemaVersion = service.getSchemaSnapshot(self).getVersion();
                     if(currentSchemaVersion != cachedSchemaVersion) {
                         cachedSchemaVersion = currentSchemaVersion;
                         cachedResolvedReference = service.getReference(self);
@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.project;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.languageservice.JSGraphQLNodeLanguageServiceClient;
+import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
+import com.intellij.lang.jsgraphql.languageservice.api.Token;
+import com.intellij.lang.jsgraphql.languageservice.api.TokensResponse;
+import com.intellij.lang.jsgraphql.lexer.JSGraphQLLexerTokenCache;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchemaExternalizer;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLSchemaDefinitionReader;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persists the last schema loaded by the language service under the IDE system directory, such that the schema
+ * can be shown, resolved against and documented as soon as a project is opened, before the language service has started.
+ * <p>
+ * Besides the schema text and root types, the language service tokens for the schema text are stored, since the schema
+ * file can't be lexed without the language service. The tokens are preloaded into the {@link JSGraphQLLexerTokenCache}.
+ * The types of the schema are stored as well, so they can be published before the schema file has been parsed.
+ * The persisted schema is keyed by the configuration directory and is only used while the graphql.config.json and the
+ * schema source it configures are unchanged. Once the language service loads the schema, it replaces the persisted one.
+ */
+public class JSGraphQLSchemaDiskCache {
+
+    private final static Logger log = Logger.getInstance(JSGraphQLSchemaDiskCache.class);
+
+    private static final int MAGIC = 0x4a534751; // "JSGQ"
+    private static final int FORMAT_VERSION = 2;
+
+    private final Project project;
+
+    // the schema text and url that was last written or read, to avoid rewriting an unchanged schema
+    private final Object savedLock = new Object();
+    private String savedSchema;
+    private String savedUrl;
+
+    public JSGraphQLSchemaDiskCache(@NotNull Project project) {
+        this.project = project;
+    }
+
+    public static JSGraphQLSchemaDiskCache getService(@NotNull Project project) {
+        return ServiceManager.getService(project, JSGraphQLSchemaDiskCache.class);
+    }
+
+    /**
+     * Loads the persisted schema of the project and preloads its tokens for the schema file lexer.
+     * Reads the cache file, so this must be called on a pooled thread.
+     * @return the schema, or <code>null</code> if no schema has been persisted or its sources have changed since
+     */
+    @Nullable
+    public PersistedSchema load() {
+        final File file = getCacheFile();
+        if(file == null || !file.isFile()) {
+            return null;
+        }
+        final long fileLength = file.length();
+        try(InputStream fileStream = Files.newInputStream(file.toPath()); DataInputStream in = new DataInputStream(new BufferedInputStream(fileStream))) {
+            if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != getSourceHash()) {
+                return null;
+            }
+            final SchemaWithVersionResponse schemaWithVersion = new SchemaWithVersionResponse();
+            schemaWithVersion.setVersion(in.readInt());
+            schemaWithVersion.setUrl(readString(in, fileLength));
+            schemaWithVersion.setQueryType(readString(in, fileLength));
+            schemaWithVersion.setMutationType(readString(in, fileLength));
+            schemaWithVersion.setSubscriptionType(readString(in, fileLength));
+            final String schema = readString(in, fileLength);
+            schemaWithVersion.setSchema(schema);
+
+            // token types and kinds are few, so the tokens refer to them by their index in a string table
+            final String[] strings = new String[readLength(in, fileLength)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(in, fileLength);
+            }
+            final int tokenCount = readLength(in, fileLength);
+            final List<Token> tokens = Lists.newArrayListWithExpectedSize(tokenCount);
+            for (int i = 0; i < tokenCount; i++) {
+                final Token token = new Token();
+                token.setType(strings[in.readInt()]);
+                token.setKind(strings[in.readInt()]);
+                token.setStart(in.readInt());
+                token.setEnd(in.readInt());
+                token.setText(schema.substring(token.getStart(), token.getEnd()));
+                tokens.add(token);
+            }
+            final JSGraphQLIntrospectionSchema introspectionSchema = JSGraphQLIntrospectionSchemaExternalizer.read(in, (int) Math.min(fileLength, Integer.MAX_VALUE));
+            final TokensResponse tokensResponse = new TokensResponse();
+            tokensResponse.setTokens(tokens);
+            JSGraphQLLexerTokenCache.getService(project).preloadResponse(schema, tokensResponse);
+
+            synchronized (savedLock) {
+                savedSchema = schema;
+                savedUrl = schemaWithVersion.getUrl();
+            }
+            return new PersistedSchema(schemaWithVersion, introspectionSchema);
+        } catch (IOException | RuntimeException e) {
+            // a truncated or otherwise unreadable cache file is simply ignored, and replaced on the next save
+            log.warn("Unable to read the persisted GraphQL schema from " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Persists a schema loaded by the language service on a pooled thread, unless it's the schema that is already persisted
+     */
+    public void saveInBackground(@NotNull SchemaWithVersionResponse schemaWithVersion) {
+        if(StringUtil.isEmpty(schemaWithVersion.getSchema())) {
+            return;
+        }
+        synchronized (savedLock) {
+            if(Objects.equals(savedSchema, schemaWithVersion.getSchema()) && Objects.equals(savedUrl, schemaWithVersion.getUrl())) {
+                return;
+            }
+        }
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+            final TokensResponse tokensResponse = JSGraphQLNodeLanguageServiceClient.getTokens(schemaWithVersion.getSchema(), project, null);
+            if(tokensResponse == null) {
+                return;
+            }
+            final JSGraphQLIntrospectionSchema introspectionSchema = JSGraphQLSchemaDefinitionReader.read(schemaWithVersion.getSchema());
+            synchronized (savedLock) {
+                try {
+                    save(schemaWithVersion, tokensResponse, introspectionSchema);
+                    savedSchema = schemaWithVersion.getSchema();
+                    savedUrl = schemaWithVersion.getUrl();
+                } catch (IOException e) {
+                    log.warn("Unable to persist the GraphQL schema", e);
+                }
+            }
+        });
+    }
+
+    // ---- implementation ----
+
+    private void save(SchemaWithVersionResponse schemaWithVersion, TokensResponse tokensResponse, JSGraphQLIntrospectionSchema introspectionSchema) throws IOException {
+        final File file = getCacheFile();
+        if(file == null) {
+            return;
+        }
+        final String schema = schemaWithVersion.getSchema();
+        final Map<String, Integer> stringIndexes = Maps.newLinkedHashMap();
+        for (Token token : tokensResponse.getTokens()) {
+            if(token.getStart() < 0 || token.getEnd() < token.getStart() || token.getEnd() > schema.length()) {
+                // the tokens don't match the schema text, so they can't be used to lex it
+                return;
+            }
+            stringIndexes.putIfAbsent(StringUtil.notNullize(token.getType()), stringIndexes.size());
+            stringIndexes.putIfAbsent(StringUtil.notNullize(token.getKind()), stringIndexes.size());
+        }
+
+        // write to a temporary file first, such that a crash or concurrent load never sees a partially written schema
+        final Path target = file.toPath();
+        Files.createDirectories(target.getParent());
+        final Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            try(OutputStream fileStream = Files.newOutputStream(temp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(getSourceHash());
+                out.writeInt(schemaWithVersion.getVersion());
+                writeString(out, schemaWithVersion.getUrl());
+                writeString(out, schemaWithVersion.getQueryType());
+                writeString(out, schemaWithVersion.getMutationType());
+                writeString(out, schemaWithVersion.getSubscriptionType());
+                writeString(out, schema);
+                out.writeInt(stringIndexes.size());
+                for (String string : stringIndexes.keySet()) {
+                    writeString(out, string);
+                }
+                out.writeInt(tokensResponse.getTokens().size());
+                for (Token token : tokensResponse.getTokens()) {
+                    out.writeInt(stringIndexes.get(StringUtil.notNullize(token.getType())));
+                    out.writeInt(stringIndexes.get(StringUtil.notNullize(token.getKind())));
+                    out.writeInt(token.getStart());
+                    out.writeInt(token.getEnd());
+                }
+                JSGraphQLIntrospectionSchemaExternalizer.write(introspectionSchema, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gets the file the schema of the project is persisted in, named by a hash of the configuration directory path
+     */
+    @Nullable
+    private File getCacheFile() {
+        String configPath = JSGraphQLConfigurationProvider.getService(project).getConfigurationBasePath();
+        if(configPath == null) {
+            configPath = project.getBasePath();
+        }
+        if(configPath == null) {
+            return null;
+        }
+        final String fileName = new BigInteger(1, digest(configPath.getBytes(StandardCharsets.UTF_8))).toString(16) + ".schema";
+        return new File(new File(PathManager.getSystemPath(), "jsgraphql"), fileName);
+    }
+
+    /**
+     * Computes a hash of the sources the schema is loaded from, i.e. the graphql.config.json contents and the schema file or
+     * endpoint entry file that it configures, if any. Remote schemas can't be checked without requesting them, so those are
+     * revalidated once the language service loads the schema.
+     */
+    private long getSourceHash() {
+        return ApplicationManager.getApplication().runReadAction((Computable<Long>) () -> {
+            final StringBuilder sources = new StringBuilder();
+            final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(project);
+            final VirtualFile configFile = configurationProvider.getGraphQLConfigFile();
+            if(configFile != null) {
+                try {
+                    sources.append(new String(configFile.contentsToByteArray(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    sources.append(configFile.getTimeStamp());
+                }
+                final JSGraphQLSchemaSource schemaSource = configFile.getParent() != null ? JSGraphQLSchemaSource.forConfig(project, configFile.getParent()) : null;
+                appendFileStamp(sources, schemaSource != null ? schemaSource.getFile() : null);
+                appendFileStamp(sources, configurationProvider.getEndpointEntryFile());
+            }
+            return ByteBuffer.wrap(digest(sources.toString().getBytes(StandardCharsets.UTF_8))).getLong();
+        });
+    }
+
+    private static void appendFileStamp(StringBuilder sources, @Nullable VirtualFile file) {
+        if(file != null) {
+            sources.append('\n').append(file.getPath()).append(':').append(file.getTimeStamp()).append(':').append(file.getLength());
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long fileLength) throws IOException {
+        final int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        if(length > fileLength) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the length of a table, which can't exceed the file length in a file that was written completely
+     */
+    private static int readLength(DataInputStream in, long fileLength) throws IOException {
+        final int length = in.readInt();
+        if(length < 0 || length > fileLength) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * A schema loaded from the disk cache, along with its types
+     */
+    public static class PersistedSchema {
+
+        private final SchemaWithVersionResponse schemaWithVersion;
+        private final JSGraphQLIntrospectionSchema introspectionSchema;
+
+        PersistedSchema(SchemaWithVersionResponse schemaWithVersion, JSGraphQLIntrospectionSchema introspectionSchema) {
+            this.schemaWithVersion = schemaWithVersion;
+            this.introspectionSchema = introspectionSchema;
+        }
+
+        @NotNull
+        public SchemaWithVersionResponse getSchemaWithVersion() {
+            return schemaWithVersion;
+        }
+
+        /**
+         * @return the types and directives of the persisted schema, which were read from its schema text when it was persisted
+         */
+        @NotNull
+        public JSGraphQLIntrospectionSchema getIntrospectionSchema() {
+            return introspectionSchema;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.intellij.ide.projectView.ViewSettings;
 import com.intellij.ide.projectView.impl.nodes.BasePsiNode;
 import com.intellij.ide.util.treeView.AbstractTreeNode;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaDiff;
 import com.intellij.lang.jsgraphql.schema.psi.JSGraphQLSchemaFile;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Iconable;
@@ -19,6 +20,7 @@ import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.util.messages.MessageBusConnection;
+import com.intellij.util.ui.UIUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -73,8 +75,8 @@ public class JSGraphQLSchemaFileNode extends BasePsiNode<PsiFile> implements JSG
     // ---- JSGraphQLSchemaLanguageServiceListener ----
 
     @Override
-    public void onSchemaReloaded() {
-        apply(updatePresentationData(new PresentationData()));
+    public void onSchemaReloaded(@NotNull JSGraphQLSchemaDiff diff) {
+        UIUtil.invokeLaterIfNeeded(() -> apply(updatePresentationData(new PresentationData())));
     }
 
 
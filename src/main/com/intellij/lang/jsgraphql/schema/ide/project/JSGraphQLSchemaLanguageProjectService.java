@@ -8,19 +8,26 @@
 package com.intellij.lang.jsgraphql.schema.ide.project;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.intellij.ide.projectView.ProjectView;
 import com.intellij.ide.projectView.impl.AbstractProjectViewPane;
 import com.intellij.ide.projectView.impl.ProjectViewPane;
 import com.intellij.lang.ASTNode;
+import com.intellij.lang.injection.InjectedLanguageManager;
+import com.intellij.lang.jsgraphql.JSGraphQLKeywords;
 import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointNamedTypeRegistry;
+import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointSchemaCompiler;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointArgumentsDefinition;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointFile;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointInputValueDefinition;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointNamedType;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointNamedTypeDefinition;
+import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointObjectTypeDefinition;
 import com.intellij.lang.jsgraphql.endpoint.psi.JSGraphQLEndpointProperty;
 import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
 import com.intellij.lang.jsgraphql.ide.project.JSGraphQLLanguageServiceListener;
+import com.intellij.lang.jsgraphql.ide.validation.JSGraphQLValidator;
 import com.intellij.lang.jsgraphql.languageservice.JSGraphQLNodeLanguageServiceClient;
 import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
 import com.intellij.lang.jsgraphql.psi.*;
@@ -29,10 +36,18 @@ import com.intellij.lang.jsgraphql.schema.JSGraphQLSchemaLanguage;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLNamedType;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLNamedTypeRegistry;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLPropertyType;
+import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaDiff;
 import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaFileElements;
+import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaSnapshot;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
 import com.intellij.lang.jsgraphql.schema.psi.JSGraphQLSchemaFile;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
@@ -41,13 +56,24 @@ import com.intellij.openapi.editor.ex.EditorEx;
 import com.intellij.openapi.fileEditor.*;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.ui.LoadingNode;
+import com.intellij.util.Alarm;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.ui.UIUtil;
 import org.jetbrains.annotations.NotNull;
@@ -59,11 +85,13 @@ import javax.swing.event.TreeModelListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
-import java.util.Collections;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -72,9 +100,9 @@ import java.util.stream.Collectors;
 public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerListener, JSGraphQLLanguageServiceListener, Disposable {
 
     public static final Key<Boolean> IS_GRAPHQL_SCHEMA_VIRTUAL_FILE = Key.create("JSGraphQL.schema.file");
-    public static final Key<Boolean> IS_GRAPHQL_SCHEMA_FILE_LISTENER_ADDED = Key.create("JSGraphQL.schema.file.listener.added");
     public static Set<String> SCALAR_TYPES = Sets.newHashSet("String", "String!", "Boolean", "Boolean!", "Int", "Int!", "Float", "Float!", "ID", "ID!");
 
+    private static final Key<String> SCHEMA_CONFIG_BASE_DIR_URL = Key.create("JSGraphQL.schema.config.baseDir");
     private static final Key<TreeModelListener> SCHEMA_TREE_MODEL_LISTENER = Key.create("JSGraphQL.schema.tree.model.listener");
     private static final Key<Boolean> SCHEMA_TREE_SELECT_ON_INSERT = Key.create("JSGraphQL.schema.tree.model.select");
 
@@ -83,16 +111,55 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
     private Project project;
     private JSGraphQLSchemaFileElements schemaFileElements;
 
+    // the schemas of the other graphql.config.json files in the project, e.g. one per service in a monorepo
+    private final JSGraphQLSchemaRegistry schemaRegistry = new JSGraphQLSchemaRegistry(MAX_RETAINED_CONFIG_SCHEMA_CHARS);
+    private static final long MAX_RETAINED_CONFIG_SCHEMA_CHARS = 16 * 1024 * 1024;
+
     private final Object reloadLock = new Object();
     private final JSGraphQLEndpointNamedTypeRegistry endpointNamedTypeRegistry;
 
+    // recompiles the schema of projects that use the Endpoint Language after endpoint files have been edited
+    private final JSGraphQLEndpointSchemaCompiler endpointSchemaCompiler;
+    private final Alarm endpointSchemaAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    private static final int ENDPOINT_SCHEMA_RELOAD_DELAY_MILLIS = 500;
+
+    // changes whenever the types of a schema are reloaded
+    private final ModificationTracker schemaVersionTracker = JSGraphQLSchemaSnapshot::getLatestVersion;
+
     public JSGraphQLSchemaLanguageProjectService(@NotNull final Project project) {
         this.project = project;
         this.endpointNamedTypeRegistry = JSGraphQLEndpointNamedTypeRegistry.getService(project);
+        this.endpointSchemaCompiler = JSGraphQLEndpointSchemaCompiler.getService(project);
 
         final MessageBusConnection connection = project.getMessageBus().connect(this);
         connection.subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, this);
         connection.subscribe(JSGraphQLLanguageServiceListener.TOPIC, this);
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                onPsiChanged(event);
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                onPsiChanged(event);
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                onPsiChanged(event);
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                onPsiChanged(event);
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                onPsiChanged(event);
+            }
+        }, this);
 
         // mark restored schema files as viewers
         final FileEditorManager fileEditorManager = FileEditorManager.getInstance(project);
@@ -119,8 +186,30 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
         return getOrCreateSchemaFileElements().getSchemaUrl();
     }
 
-    public int getSchemaVersion() {
-        return getOrCreateSchemaFileElements().getSchemaVersion();
+    /**
+     * @return the current snapshot of the types in the project schema. The snapshot version changes whenever the schema is reloaded
+     */
+    public JSGraphQLSchemaSnapshot getSchemaSnapshot() {
+        return getOrCreateSchemaFileElements().getSnapshot();
+    }
+
+    /**
+     * Gets the current snapshot of the schema that applies to an element, which is the schema of the nearest graphql.config.json
+     * @param context the element to get the schema snapshot for
+     * @return the current snapshot of the types in the schema
+     */
+    public JSGraphQLSchemaSnapshot getSchemaSnapshot(@Nullable PsiElement context) {
+        return getSchemaFileElements(context).getSnapshot();
+    }
+
+    /**
+     * Gets the validator for queries against the current schema that applies to an element
+     * @param context the element that determines the schema, e.g. the file that contains the queries
+     * @return the validator, or <code>null</code> if the schema hasn't been loaded yet
+     */
+    @Nullable
+    public JSGraphQLValidator getValidator(@Nullable PsiElement context) {
+        return getSchemaSnapshot(context).getValidator();
     }
 
     /**
@@ -143,7 +232,7 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
                 }
             }
         }
-        final JSGraphQLNamedType namedType = getOrCreateSchemaFileElements().getNamedType(propertyPsiElement);
+        final JSGraphQLNamedType namedType = getSchemaFileElements(propertyPsiElement).getNamedType(propertyPsiElement);
         return namedType != null ? namedType.getName() : null;
     }
 
@@ -158,6 +247,51 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
         return getOrCreateSchemaFileElements().getNamedType(typeName);
     }
 
+    /**
+     * Gets the named type that has the specified type name in the schema that applies to an element
+     * @param context the element that determines the schema, e.g. a field in a query
+     * @param typeName the name of the type to get
+     * @return the corresponding named type, or <code>null</code> if the type is unknown
+     */
+    @Nullable
+    public JSGraphQLNamedType getNamedType(@Nullable PsiElement context, @NotNull String typeName) {
+        return getSchemaFileElements(context).getNamedType(typeName);
+    }
+
+    /**
+     * Gets the name of the schema type that the selection set surrounding the specified element selects fields from
+     * @param element an element inside a selection set, e.g. the position of a '...' fragment spread
+     * @return the type name, or <code>null</code> if the type is unknown
+     */
+    @Nullable
+    public String getSelectionSetTypeName(@NotNull PsiElement element) {
+        final PsiElement scope = getEnclosingScope(element);
+        final JSGraphQLNamedType namedType = scope != null ? getScopeType(scope, getTypeRegistry(element)) : null;
+        return namedType != null ? namedType.getName() : null;
+    }
+
+    /**
+     * Gets whether a fragment with the specified type condition can be spread in a selection set of the specified type
+     * @param context the element that determines the schema, e.g. the position of a '...' fragment spread
+     * @param selectionSetTypeName the type of the selection set, e.g. 'User'
+     * @param typeCondition the type condition of the fragment, e.g. 'Node' in 'fragment Foo on Node'
+     * @return false if the types are known not to overlap, true otherwise
+     */
+    public boolean isPossibleFragmentSpread(@NotNull PsiElement context, @NotNull String selectionSetTypeName, @NotNull String typeCondition) {
+        if(selectionSetTypeName.equals(typeCondition)) {
+            return true;
+        }
+        final JSGraphQLNamedTypeRegistry typeRegistry = getTypeRegistry(context);
+        final JSGraphQLNamedType selectionSetType = typeRegistry.getNamedType(selectionSetTypeName);
+        final JSGraphQLNamedType fragmentType = typeRegistry.getNamedType(typeCondition);
+        if(selectionSetType == null || fragmentType == null) {
+            // don't rule out types that aren't known by the schema
+            return true;
+        }
+        // interfaces and unions can overlap with other types, whereas two different object types never do
+        return !isObjectType(selectionSetType) || !isObjectType(fragmentType);
+    }
+
     /**
      * Gets whether the project uses the Endpoint Language to define the schema
      * @return true if the project is configured with a .graphqle entry file
@@ -180,11 +314,14 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
         final PsiFile containingFile = element.getContainingFile();
         if(containingFile instanceof JSGraphQLSchemaFile && !isProjectSchemaFile(containingFile.getVirtualFile())) {
             // schema file that's not the in-memory project schema
-            final SchemaWithVersionResponse schemaWithVersion = new SchemaWithVersionResponse();
-            schemaFileElements = new JSGraphQLSchemaFileElements(schemaWithVersion, (JSGraphQLSchemaFile) containingFile);
+            // the elements are cached until the file changes to avoid collecting the types again for every reference
+            schemaFileElements = CachedValuesManager.getCachedValue(containingFile, () -> {
+                final SchemaWithVersionResponse schemaWithVersion = new SchemaWithVersionResponse();
+                return CachedValueProvider.Result.create(new JSGraphQLSchemaFileElements(schemaWithVersion, (JSGraphQLSchemaFile) containingFile), containingFile);
+            });
         } else {
-            // use project schema
-            schemaFileElements = getOrCreateSchemaFileElements();
+            // use the schema of the config that applies to the element
+            schemaFileElements = getSchemaFileElements(element);
         }
         if(element instanceof JSGraphQLNamedPsiElement) {
             JSGraphQLNamedPsiElement namedElement = (JSGraphQLNamedPsiElement)element;
@@ -193,8 +330,9 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
                     final String nameToFind = namedElement.getName();
                     if(nameToFind != null) {
                         final JSGraphQLNamedType namedType = endpointNamedTypeRegistry.getNamedType(nameToFind);
-                        if(namedType != null && namedType.definitionElement instanceof JSGraphQLEndpointNamedTypeDefinition) {
-                            final JSGraphQLEndpointNamedTypeDefinition namedTypeDefinition = (JSGraphQLEndpointNamedTypeDefinition) namedType.definitionElement;
+                        final PsiElement definitionElement = namedType != null ? namedType.getDefinitionElement() : null;
+                        if(definitionElement instanceof JSGraphQLEndpointNamedTypeDefinition) {
+                            final JSGraphQLEndpointNamedTypeDefinition namedTypeDefinition = (JSGraphQLEndpointNamedTypeDefinition) definitionElement;
                             return namedTypeDefinition.getNamedTypeDef();
                         } else {
                             return null;
@@ -202,21 +340,19 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
                     }
                 }
                 // not using endpoint, so element references a JSGraphQLNamedType in the GraphQL schema file
-                for (PsiElement definition : schemaFileElements.getFile().getChildren()) {
-                    final JSGraphQLNamedPsiElement definitionName = PsiTreeUtil.findChildOfType(definition, JSGraphQLNamedPsiElement.class);
-                    if(definitionName != null) {
-                        if(Objects.equals(namedElement.getName(), definitionName.getName())) {
-                            if(definitionName == element) {
-                                // potential self reference, but make sure it's a valid one
-                                if(definitionName instanceof JSGraphQLNamedTypePsiElement) {
-                                    if(((JSGraphQLNamedTypePsiElement) definitionName).getTypeContext() == JSGraphQLNamedTypeContext.Unknown) {
-                                        // ignore self-references inside schema { query: Query } etc.
-                                        continue;
-                                    }
+                final String nameToFind = namedElement.getName();
+                if(nameToFind != null) {
+                    for (JSGraphQLNamedPsiElement definitionName : schemaFileElements.getDefinitionNameElements(nameToFind)) {
+                        if(definitionName == element) {
+                            // potential self reference, but make sure it's a valid one
+                            if(definitionName instanceof JSGraphQLNamedTypePsiElement) {
+                                if(((JSGraphQLNamedTypePsiElement) definitionName).getTypeContext() == JSGraphQLNamedTypeContext.Unknown) {
+                                    // ignore self-references inside schema { query: Query } etc.
+                                    continue;
                                 }
                             }
-                            return definitionName;
                         }
+                        return definitionName;
                     }
                 }
             } else if(element instanceof JSGraphQLNamedPropertyPsiElement) {
@@ -373,6 +509,10 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
     @Override
     public void onProcessHandlerTextAvailable(String text) {
         if(text != null && text.startsWith("Loaded schema from")) {
+            if(JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile() != null) {
+                // the schema is compiled from the endpoint files in-process
+                return;
+            }
             // console.log from js-graphql-language-service languageService.js which signals a schema was loaded
             synchronized (reloadLock) {
                 if(project.isDisposed()) {
@@ -380,8 +520,11 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
                 }
                 UIUtil.invokeLaterIfNeeded(() -> {
                     if(schemaFileElements != null) {
-                        // reload
-                        reloadSchemaFileElements(schemaFileElements);
+                        // reload, fetching the schema and computing the changes off the EDT
+                        final JSGraphQLSchemaFileElements currentSchemaFileElements = schemaFileElements;
+                        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                            reloadSchemaFileElements(currentSchemaFileElements, JSGraphQLNodeLanguageServiceClient.getSchemaWithVersion(project), true);
+                        });
                     } else {
                         // first load
                         getOrCreateSchemaFileElements();
@@ -396,34 +539,125 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
 
     @Nullable
     private PsiElement resolveSchemaPropertyReferenceElement(@NotNull JSGraphQLNamedPropertyPsiElement propertyPsiElement, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
-        final JSGraphQLSchemaPropertyPath propertyPath = getPropertyPath(propertyPsiElement, namedTypeRegistry);
-        if(propertyPath != null) {
-            JSGraphQLNamedType currentType = propertyPath.declaringType;
-            JSGraphQLPropertyType currentPropertyType = null;
-            for (String property : propertyPath.properties) {
-                if(currentType != null) {
-                    currentPropertyType = currentType.properties.get(property);
-                    if (currentPropertyType == null) {
-                        // unknown property in the schema
-                        return null;
-                    }
-                    if (currentPropertyType.propertyValueTypeName == null) {
-                        return null;
-                    }
-                    currentType = namedTypeRegistry.getNamedType(currentPropertyType.propertyValueTypeName);
-                }
+        final JSGraphQLPropertyType propertyType = resolveSchemaPropertyType(propertyPsiElement, namedTypeRegistry);
+        if(propertyType != null) {
+            if(log.isDebugEnabled() && !Objects.equals(propertyType.getPropertyName(), propertyPsiElement.getName())) {
+                // wrong property resolved
+                log.debug("Wrong property resolved", propertyPsiElement, propertyType.getPropertyElement());
+            }
+            return propertyType.getPropertyElement();
+        }
+        return null;
+    }
+
+    @Nullable
+    private JSGraphQLPropertyType resolveSchemaPropertyType(@NotNull JSGraphQLNamedPropertyPsiElement propertyPsiElement, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
+        if(propertyPsiElement.getContainingFile() instanceof JSGraphQLSchemaFile) {
+            // no need to resolve property paths for psi elements inside schema file
+            // this is only needed in regular GraphQL files
+            return null;
+        }
+        PsiElement scope = getEnclosingScope(propertyPsiElement);
+        if(scope instanceof JSGraphQLFieldPsiElement && ((JSGraphQLFieldPsiElement) scope).getNameElement() == propertyPsiElement) {
+            // the property names the field, so it's declared by the type of the selection set that contains the field
+            scope = getEnclosingScope(scope);
+        }
+        final JSGraphQLNamedType declaringType = scope != null ? getScopeType(scope, namedTypeRegistry) : null;
+        if(declaringType != null) {
+            final JSGraphQLPropertyType propertyType = declaringType.getProperty(propertyPsiElement.getName());
+            if(propertyType != null && propertyType.propertyValueTypeName != null) {
+                return propertyType;
             }
-            if(currentPropertyType != null) {
-                if(log.isDebugEnabled() && !Objects.equals(currentPropertyType.getPropertyName(), propertyPsiElement.getName())) {
-                    // wrong property resolved
-                    log.debug("Wrong property resolved", propertyPsiElement, currentPropertyType.propertyElement);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the element that determines the type of the selection set that an element is part of, i.e. the closest field,
+     * fragment definition, inline fragment, or top level definition that contains the element
+     */
+    @Nullable
+    private static PsiElement getEnclosingScope(@NotNull PsiElement element) {
+        PsiElement parent = element.getParent();
+        while(parent != null && !(parent instanceof PsiFile)) {
+            if(parent instanceof JSGraphQLFieldPsiElement || parent instanceof JSGraphQLFragmentDefinitionPsiElement || parent instanceof JSGraphQLInlineFragmentPsiElement) {
+                return parent;
+            }
+            if(parent.getParent() instanceof PsiFile) {
+                // top level definition, e.g. a query or mutation
+                return parent;
+            }
+            parent = parent.getParent();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the schema type that a scope selects fields from, e.g. the value type of a field or the type condition of a fragment.
+     * Scope types are cached per file until the file or the schema changes, and each scope type is resolved from the type
+     * of its enclosing scope, so resolving the fields of a query only visits each selection set once.
+     * @see #getEnclosingScope(PsiElement)
+     */
+    @Nullable
+    private JSGraphQLNamedType getScopeType(@NotNull PsiElement scope, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
+        final PsiFile file = scope.getContainingFile();
+        if(file == null) {
+            return computeScopeType(scope, namedTypeRegistry);
+        }
+        final Map<PsiElement, JSGraphQLScopeType> scopeTypes = CachedValuesManager.getCachedValue(file, () -> {
+            final Map<PsiElement, JSGraphQLScopeType> map = Maps.newConcurrentMap();
+            return CachedValueProvider.Result.create(map, PsiModificationTracker.MODIFICATION_COUNT, schemaVersionTracker);
+        });
+        JSGraphQLScopeType scopeType = scopeTypes.get(scope);
+        if(scopeType == null || scopeType.namedTypeRegistry != namedTypeRegistry) {
+            scopeType = new JSGraphQLScopeType(namedTypeRegistry, computeScopeType(scope, namedTypeRegistry));
+            scopeTypes.put(scope, scopeType);
+        }
+        return scopeType.namedType;
+    }
+
+    @Nullable
+    private JSGraphQLNamedType computeScopeType(@NotNull PsiElement scope, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
+        if(scope instanceof JSGraphQLFieldPsiElement) {
+            // the value type of the field that owns the selection set
+            final JSGraphQLNamedPropertyPsiElement nameElement = ((JSGraphQLFieldPsiElement) scope).getNameElement();
+            final JSGraphQLPropertyType propertyType = nameElement != null ? resolveSchemaPropertyType(nameElement, namedTypeRegistry) : null;
+            return propertyType != null ? namedTypeRegistry.getNamedType(propertyType.propertyValueTypeName) : null;
+        }
+        if(scope instanceof JSGraphQLFragmentDefinitionPsiElement || scope instanceof JSGraphQLInlineFragmentPsiElement) {
+            for (JSGraphQLNamedTypePsiElement fragmentType : PsiTreeUtil.getChildrenOfTypeAsList(scope, JSGraphQLNamedTypePsiElement.class)) {
+                if(fragmentType.isAtom()) {
+                    // we're looking for the schema type and not the name of the fragment definition
+                    return namedTypeRegistry.getNamedType(fragmentType.getName());
                 }
-                return currentPropertyType.propertyElement;
             }
+            if(scope instanceof JSGraphQLInlineFragmentPsiElement) {
+                // inline fragments without a type condition, e.g. '... @include(if: $foo)', select from the enclosing type
+                final PsiElement enclosingScope = getEnclosingScope(scope);
+                return enclosingScope != null ? getScopeType(enclosingScope, namedTypeRegistry) : null;
+            }
+            return null;
+        }
+        // we're at a top level declaration, so we need to use a type alias such as 'Query', 'Mutation', 'Subscription' to determine the type
+        final ASTNode node = scope.getNode();
+        if(node != null && node.getElementType() instanceof JSGraphQLElementType) {
+            return namedTypeRegistry.getNamedType(((JSGraphQLElementType) node.getElementType()).getKind());
         }
         return null;
     }
 
+    private JSGraphQLNamedTypeRegistry getTypeRegistry(@Nullable PsiElement context) {
+        return endpointNamedTypeRegistry.hasEndpointEntryFile() ? endpointNamedTypeRegistry : getSchemaFileElements(context);
+    }
+
+    private static boolean isObjectType(@NotNull JSGraphQLNamedType namedType) {
+        final PsiElement definitionElement = namedType.getDefinitionElement();
+        if(definitionElement instanceof JSGraphQLEndpointObjectTypeDefinition) {
+            return true;
+        }
+        return definitionElement instanceof JSGraphQLPsiElement && JSGraphQLKeywords.TYPE.equals(((JSGraphQLPsiElement) definitionElement).getKeyword());
+    }
+
 	private PsiElement resolveSchemaAttributeReferenceElement(JSGraphQLAttributePsiElement element, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
 
 		if(element.getContainingFile() instanceof JSGraphQLSchemaFile) {
@@ -509,7 +743,7 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
 
 						for (String property : propertyNames) {
 							if(currentType != null) {
-								currentPropertyType = currentType.properties.get(property);
+								currentPropertyType = currentType.getProperty(property);
 								if (currentPropertyType == null) {
 									// unknown property in the schema
 									return null;
@@ -522,7 +756,7 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
 						}
 
 						if(currentPropertyType != null) {
-							return currentPropertyType.propertyElement;
+							return currentPropertyType.getPropertyElement();
 						}
 
 
@@ -535,158 +769,316 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
 		return null;
 	}
 
-    private static class JSGraphQLSchemaPropertyPath {
-        final List<String> properties = Lists.newArrayList();
-        final JSGraphQLNamedType declaringType;
-        public JSGraphQLSchemaPropertyPath(JSGraphQLNamedType declaringType) {
-            this.declaringType = declaringType;
+    private static class JSGraphQLScopeType {
+        final JSGraphQLNamedTypeRegistry namedTypeRegistry;
+        final JSGraphQLNamedType namedType;
+        JSGraphQLScopeType(JSGraphQLNamedTypeRegistry namedTypeRegistry, JSGraphQLNamedType namedType) {
+            this.namedTypeRegistry = namedTypeRegistry;
+            this.namedType = namedType;
         }
     }
 
-    @Nullable
-    @SuppressWarnings("unchecked")
-    private JSGraphQLSchemaPropertyPath getPropertyPath(@NotNull JSGraphQLNamedPropertyPsiElement propertyPsiElement, JSGraphQLNamedTypeRegistry namedTypeRegistry) {
-
-        if(propertyPsiElement.getContainingFile() instanceof JSGraphQLSchemaFile) {
-            // no need to resolve property paths for psi elements inside schema file
-            // this is only needed in regular GraphQL files
-            return null;
+    private JSGraphQLSchemaFileElements getOrCreateSchemaFileElements() {
+        if(schemaFileElements == null) {
+            final boolean hasEndpointEntryFile = JSGraphQLConfigurationProvider.getService(project).getEndpointEntryFile() != null;
+            final SchemaWithVersionResponse schemaWithVersion = hasEndpointEntryFile ? null : JSGraphQLNodeLanguageServiceClient.getSchemaWithVersion(project);
+            final boolean hasSchema = schemaWithVersion != null && StringUtil.isNotEmpty(schemaWithVersion.getSchema());
+            if(hasSchema) {
+                JSGraphQLSchemaDiskCache.getService(project).saveInBackground(schemaWithVersion);
+            }
+            final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(project);
+            final String schemaFileName = getSchemaFileName();
+            final String schemaText = hasSchema ? schemaWithVersion.getSchema() : "";
+            final JSGraphQLSchemaFile file = (JSGraphQLSchemaFile) psiFileFactory.createFileFromText(
+                    schemaFileName,
+                    JSGraphQLSchemaLanguage.INSTANCE,
+                    schemaText
+            );
+            file.getVirtualFile().putUserData(IS_GRAPHQL_SCHEMA_VIRTUAL_FILE, true);
+            schemaFileElements = new JSGraphQLSchemaFileElements(hasSchema ? schemaWithVersion : new SchemaWithVersionResponse(), file);
+            if(hasEndpointEntryFile) {
+                // compiling loads the PSI of every endpoint file, so it's done on a pooled thread the same way edits are recompiled
+                // a compiled endpoint schema isn't persisted, so the schema starts out empty rather than from the disk cache
+                endpointSchemaAlarm.addRequest(this::reloadEndpointSchema, 0);
+            } else if(!hasSchema) {
+                // the language service hasn't loaded the schema yet, so start out with the schema persisted by a previous session
+                // the schema is revalidated when the language service signals that it has loaded the schema
+                final JSGraphQLSchemaFileElements emptySchemaFileElements = schemaFileElements;
+                ApplicationManager.getApplication().executeOnPooledThread(() -> loadPersistedSchema(emptySchemaFileElements));
+            }
         }
+        return schemaFileElements;
+    }
 
-        String declaringTypeName = null;
-        PsiElement declaringTypeElement = null;
-
-        // get the type from a fragment definition or inline fragment
-        final PsiElement declaringFragmentElement = PsiTreeUtil.getParentOfType(propertyPsiElement, JSGraphQLFragmentDefinitionPsiElement.class, JSGraphQLInlineFragmentPsiElement.class);
-        if(declaringFragmentElement != null) {
-            final JSGraphQLNamedTypePsiElement[] fragmentTypes = PsiTreeUtil.getChildrenOfType(declaringFragmentElement, JSGraphQLNamedTypePsiElement.class);
-            if(fragmentTypes != null) {
-                for (JSGraphQLNamedTypePsiElement fragmentType : fragmentTypes) {
-                    if (fragmentType.isAtom()) {
-                        // we're looking for the schema type and not the name of the fragment definition
-                        declaringTypeName = fragmentType.getName();
-                        declaringTypeElement = declaringFragmentElement;
-                        break;
-                    }
-                }
+    /**
+     * Loads the schema persisted by a previous session into the empty project schema, publishing its persisted types right away.
+     * Without a persisted schema the schema file named by the project config is read instead.
+     */
+    private void loadPersistedSchema(JSGraphQLSchemaFileElements emptySchemaFileElements) {
+        if(project.isDisposed()) {
+            return;
+        }
+        final JSGraphQLSchemaDiskCache.PersistedSchema persistedSchema = JSGraphQLSchemaDiskCache.getService(project).load();
+        if(persistedSchema == null) {
+            // no previous session either, so read the schema file named by the project config directly
+            // a schema url is left to the language service, which requests it for the project config
+            final VirtualFile baseDir = JSGraphQLConfigurationProvider.getService(project).getConfigurationBaseDir();
+            final JSGraphQLSchemaSource schemaSource = baseDir != null ? JSGraphQLSchemaSource.forConfig(project, baseDir) : null;
+            if(schemaSource != null && schemaSource.getFile() != null) {
+                readSchemaInBackground(schemaSource, () -> schemaFileElements);
             }
+            return;
         }
-
-        // get the type from a top-level operation definition, e.g. query, mutation, subscription
-        if(declaringTypeElement == null) {
-            final PsiFile file = propertyPsiElement.getContainingFile();
-            PsiElement parent = propertyPsiElement.getParent();
-            while(parent != null) {
-                if(parent.getParent() != file) {
-                    parent = parent.getParent();
-                } else {
-                    // we're at a top level declaration, so we need to use a type alias such as 'Query', 'Mutation', 'Subscription' to determine the type
-                    final ASTNode node = parent.getNode();
-                    if(node.getElementType() instanceof JSGraphQLElementType) {
-                        final JSGraphQLElementType elementType = (JSGraphQLElementType) node.getElementType();
-                        declaringTypeName = elementType.getKind();
-                        declaringTypeElement = parent;
-                    }
-                    break;
+        final SchemaWithVersionResponse schemaWithVersion = persistedSchema.getSchemaWithVersion();
+        final boolean loaded = ApplicationManager.getApplication().runReadAction((Computable<Boolean>) () -> {
+            synchronized (reloadLock) {
+                if(project.isDisposed() || schemaFileElements != emptySchemaFileElements || emptySchemaFileElements.getFile().getTextLength() > 0) {
+                    // a schema from the language service has been loaded in the meantime
+                    return false;
                 }
+                emptySchemaFileElements.setIntrospectionSchema(persistedSchema.getIntrospectionSchema(), schemaWithVersion);
+                return true;
             }
+        });
+        if(loaded) {
+            reloadSchemaFileElements(emptySchemaFileElements, schemaWithVersion, false);
         }
+    }
 
-        // finally, if we found the type name, return the property path that the psi element belongs to
-        if(declaringTypeName != null) {
-            final JSGraphQLNamedType namedType = namedTypeRegistry.getNamedType(declaringTypeName);
-            if(namedType != null) {
-                final JSGraphQLSchemaPropertyPath ret = new JSGraphQLSchemaPropertyPath(namedType);
-                final Set<JSGraphQLNamedPropertyPsiElement> addedPropertyNameElements = Sets.newHashSet();
-                PsiElement parent = propertyPsiElement.getParent();
-                while(parent != null && parent != declaringTypeElement) {
-                    if(parent instanceof JSGraphQLFieldPsiElement) {
-                        final JSGraphQLFieldPsiElement fieldPsiElement = (JSGraphQLFieldPsiElement) parent;
-                        final JSGraphQLNamedPropertyPsiElement nameElement = fieldPsiElement.getNameElement();
-                        if(nameElement != null && addedPropertyNameElements.add(nameElement)) {
-                            ret.properties.add(nameElement.getName());
-                        }
-                    }
-                    parent = parent.getParent();
-                }
-                // we want the properties in top-down order, starting at the declaring type
-                Collections.reverse(ret.properties);
-                if(addedPropertyNameElements.add(propertyPsiElement)) {
-                    ret.properties.add(propertyPsiElement.getName());
-                }
-                return ret;
-            }
+    private void onPsiChanged(PsiTreeChangeEvent event) {
+        if(event.getFile() instanceof JSGraphQLEndpointFile && schemaFileElements != null) {
+            // wait for typing to pause before recompiling, which only compiles the edited files again
+            endpointSchemaAlarm.cancelAllRequests();
+            endpointSchemaAlarm.addRequest(this::reloadEndpointSchema, ENDPOINT_SCHEMA_RELOAD_DELAY_MILLIS);
         }
+    }
 
-        return null;
+    private void reloadEndpointSchema() {
+        final JSGraphQLSchemaFileElements currentSchemaFileElements = schemaFileElements;
+        if(project.isDisposed() || currentSchemaFileElements == null) {
+            return;
+        }
+        final SchemaWithVersionResponse schemaWithVersion = ApplicationManager.getApplication().runReadAction((Computable<SchemaWithVersionResponse>) endpointSchemaCompiler::compile);
+        // the endpoint schema is recompiled on every pause in typing, so it's not written to the disk cache
+        reloadSchemaFileElements(currentSchemaFileElements, schemaWithVersion, false);
     }
 
-    private JSGraphQLSchemaFileElements getOrCreateSchemaFileElements() {
-        if(schemaFileElements == null) {
-            final SchemaWithVersionResponse schemaWithVersion = JSGraphQLNodeLanguageServiceClient.getSchemaWithVersion(project);
-            final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(project);
-            final String schemaFileName = getSchemaFileName();
-            final String schemaText = schemaWithVersion != null ? schemaWithVersion.getSchema() : "";
-            final JSGraphQLSchemaFile file = (JSGraphQLSchemaFile) psiFileFactory.createFileFromText(
-                    schemaFileName,
+    /**
+     * Gets the schema that applies to an element, which is the schema of the nearest graphql.config.json.
+     * The project config is served by the language service and always kept, whereas the schemas of other configs are read from the
+     * file or url in the 'schema' section of the config when first used, and are evicted by the registry when they haven't been used recently.
+     * @param context the element to get the schema for
+     * @return the schema of the nearest config that configures a schema file or url, or the project schema
+     */
+    private JSGraphQLSchemaFileElements getSchemaFileElements(@Nullable PsiElement context) {
+        final VirtualFile baseDir = getConfigurationBaseDir(context);
+        if(baseDir == null || baseDir.equals(JSGraphQLConfigurationProvider.getService(project).getConfigurationBaseDir())) {
+            return getOrCreateSchemaFileElements();
+        }
+        final JSGraphQLSchemaSource schemaSource = JSGraphQLSchemaSource.forConfig(project, baseDir);
+        if(schemaSource == null) {
+            // the config doesn't have a schema of its own, e.g. it only declares endpoints, so the project schema applies
+            return getOrCreateSchemaFileElements();
+        }
+        return schemaRegistry.getOrLoad(baseDir.getUrl(), schemaSource.getModificationStamp(), () -> {
+            final JSGraphQLSchemaFile file = (JSGraphQLSchemaFile) PsiFileFactory.getInstance(project).createFileFromText(
+                    getSchemaFileName(baseDir, baseDir.getName()),
                     JSGraphQLSchemaLanguage.INSTANCE,
-                    schemaText
+                    ""
             );
             file.getVirtualFile().putUserData(IS_GRAPHQL_SCHEMA_VIRTUAL_FILE, true);
-            schemaFileElements = new JSGraphQLSchemaFileElements(schemaWithVersion, file);
+            file.getVirtualFile().putUserData(SCHEMA_CONFIG_BASE_DIR_URL, baseDir.getUrl());
+            final JSGraphQLSchemaFileElements configSchemaFileElements = new JSGraphQLSchemaFileElements(new SchemaWithVersionResponse(), file);
+            readSchemaInBackground(schemaSource, () -> schemaRegistry.contains(configSchemaFileElements) ? configSchemaFileElements : null);
+            return configSchemaFileElements;
+        });
+    }
+
+    /**
+     * Gets the directory of the graphql.config.json that applies to an element
+     */
+    @Nullable
+    private VirtualFile getConfigurationBaseDir(@Nullable PsiElement context) {
+        final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(project);
+        PsiFile file = context != null ? context.getContainingFile() : null;
+        if(file == null) {
+            return configurationProvider.getConfigurationBaseDir();
         }
-        return schemaFileElements;
+        final VirtualFile schemaVirtualFile = file.getOriginalFile().getVirtualFile();
+        if(isProjectSchemaFile(schemaVirtualFile)) {
+            // in-memory schema files remember the config they were loaded for
+            final String baseDirUrl = schemaVirtualFile.getUserData(SCHEMA_CONFIG_BASE_DIR_URL);
+            final VirtualFile baseDir = baseDirUrl != null ? VirtualFileManager.getInstance().findFileByUrl(baseDirUrl) : null;
+            return baseDir != null ? baseDir : configurationProvider.getConfigurationBaseDir();
+        }
+        // GraphQL injected in JavaScript uses the config of the JavaScript file
+        file = InjectedLanguageManager.getInstance(project).getTopLevelFile(file);
+        return configurationProvider.getConfigurationBaseDir(file != null ? file.getOriginalFile().getVirtualFile() : null);
     }
 
-    @SuppressWarnings("CodeBlock2Expr")
-    private void reloadSchemaFileElements(JSGraphQLSchemaFileElements schemaFileElements) {
-        final SchemaWithVersionResponse schemaWithVersion = JSGraphQLNodeLanguageServiceClient.getSchemaWithVersion(project);
-        if(schemaWithVersion != null) {
-            // update the psi schema file
-            UIUtil.invokeLaterIfNeeded(() -> {
-                ApplicationManager.getApplication().runWriteAction(() -> {
-                    if(project.isDisposed()) {
+    /**
+     * Reads the schema of a GraphQL config from its introspection file, schema language file, or url with progress in the background,
+     * and shows it as the schema unless the language service has provided a schema in the meantime.
+     * The types are published directly from the schema that was read, so they don't depend on parsing the printed schema file.
+     * @param schemaSource the file or url configured by the 'schema' section of the config
+     * @param schemaFileElements supplies the schema to update once the source has been read, or <code>null</code> if the schema is no longer in use
+     */
+    private void readSchemaInBackground(@NotNull JSGraphQLSchemaSource schemaSource, @NotNull Supplier<JSGraphQLSchemaFileElements> schemaFileElements) {
+        UIUtil.invokeLaterIfNeeded(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+            new Task.Backgroundable(project, "Reading GraphQL schema from " + schemaSource.getName(), true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    indicator.setIndeterminate(false);
+                    final JSGraphQLIntrospectionSchema introspectionSchema;
+                    try {
+                        introspectionSchema = schemaSource.read(indicator);
+                    } catch (IOException e) {
+                        log.warn("Unable to read the GraphQL schema from " + schemaSource.getUrl(), e);
+                        Notifications.Bus.notify(new Notification("GraphQL", "JS GraphQL", "Unable to read the GraphQL schema from '" + schemaSource.getUrl() + "': " + e.getMessage(), NotificationType.WARNING), project);
                         return;
                     }
-                    final Document document = PsiDocumentManager.getInstance(project).getDocument(schemaFileElements.getFile());
-                    if(document != null) {
-
-                        // only change the PSI by re-parsing when the schema url or text is different
-                        if(isNewSchemaUrl(schemaFileElements, schemaWithVersion) || !Objects.equals(document.getText(), schemaWithVersion.getSchema())) {
-
-                            // reload the schema via a listener once the schema file psi has been updated
-                            schemaFileElements.onPendingReloadSchema(schemaWithVersion);
-                            if (!Boolean.TRUE.equals(project.getUserData(IS_GRAPHQL_SCHEMA_FILE_LISTENER_ADDED))) {
-                                PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
-                                    @Override
-                                    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
-                                        if (event.getParent() == schemaFileElements.getFile()) {
-                                            schemaFileElements.reloadSchema();
-                                            schemaFileElements.getFile().setName(getSchemaFileName());
-                                            project.getMessageBus().syncPublisher(JSGraphQLSchemaLanguageServiceListener.TOPIC).onSchemaReloaded();
-                                            final ProjectView projectView = ProjectView.getInstance(project);
-                                            if (projectView != null && projectView.getCurrentProjectViewPane() instanceof ProjectViewPane) {
-                                                projectView.refresh();
-                                            }
-                                        }
-                                    }
-                                }, project);
-                                project.putUserData(IS_GRAPHQL_SCHEMA_FILE_LISTENER_ADDED, true);
+                    final SchemaWithVersionResponse schemaWithVersion = new SchemaWithVersionResponse();
+                    schemaWithVersion.setSchema(introspectionSchema.toSchemaDefinition());
+                    schemaWithVersion.setQueryType(introspectionSchema.getQueryType());
+                    schemaWithVersion.setMutationType(introspectionSchema.getMutationType());
+                    schemaWithVersion.setSubscriptionType(introspectionSchema.getSubscriptionType());
+                    schemaWithVersion.setUrl(schemaSource.getUrl());
+                    // the types are published from this thread, so the snapshot isn't built on the EDT
+                    final JSGraphQLSchemaFileElements updatedSchemaFileElements = ApplicationManager.getApplication().runReadAction((Computable<JSGraphQLSchemaFileElements>) () -> {
+                        synchronized (reloadLock) {
+                            final JSGraphQLSchemaFileElements currentSchemaFileElements = schemaFileElements.get();
+                            if(project.isDisposed() || currentSchemaFileElements == null || currentSchemaFileElements.getFile().getTextLength() > 0) {
+                                // the language service schema replaces the schema file contents, so only an empty schema file is updated
+                                return null;
                             }
+                            currentSchemaFileElements.setIntrospectionSchema(introspectionSchema, schemaWithVersion);
+                            return currentSchemaFileElements;
+                        }
+                    });
+                    if(updatedSchemaFileElements != null) {
+                        reloadSchemaFileElements(updatedSchemaFileElements, schemaWithVersion, true);
+                    }
+                }
+            }.queue();
+        });
+    }
 
-                            // finally, update the document to cause the re-parse and schema file psi update
-                            document.setText(schemaWithVersion.getSchema());
+    /**
+     * Updates the schema file to a new schema. The changes to the schema text are computed on a pooled thread,
+     * such that the write action on the EDT only has to replace the text of the changed definitions.
+     * The snapshot of the updated types is then built and published from the same pooled thread.
+     * Must not be called while holding a read action.
+     * @param persist whether to save the schema of the project config to the disk cache for the next session
+     */
+    private void reloadSchemaFileElements(JSGraphQLSchemaFileElements schemaFileElements, SchemaWithVersionResponse schemaWithVersion, boolean persist) {
+        if(schemaWithVersion == null) {
+            return;
+        }
+        if(persist && schemaFileElements == this.schemaFileElements) {
+            // the disk cache holds the schema of the project config for the next session
+            JSGraphQLSchemaDiskCache.getService(project).saveInBackground(schemaWithVersion);
+        }
+        final Application application = ApplicationManager.getApplication();
+        if(application.isDispatchThread()) {
+            application.executeOnPooledThread(() -> computeSchemaFileUpdate(schemaFileElements, schemaWithVersion));
+        } else {
+            computeSchemaFileUpdate(schemaFileElements, schemaWithVersion);
+        }
+    }
 
-                        }
+    private void computeSchemaFileUpdate(JSGraphQLSchemaFileElements schemaFileElements, SchemaWithVersionResponse schemaWithVersion) {
+        final Ref<Document> documentRef = new Ref<>();
+        final Ref<CharSequence> textRef = new Ref<>();
+        final Ref<Long> modificationStampRef = new Ref<>();
+        ApplicationManager.getApplication().runReadAction(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+            final Document document = PsiDocumentManager.getInstance(project).getDocument(schemaFileElements.getFile());
+            if(document != null) {
+                documentRef.set(document);
+                textRef.set(document.getImmutableCharSequence());
+                modificationStampRef.set(document.getModificationStamp());
+            }
+        });
+        if(documentRef.isNull()) {
+            return;
+        }
 
-                    }
-                });
-            });
+        // only change the PSI by re-parsing when the schema url or text is different
+        if(!isNewSchemaUrl(schemaFileElements, schemaWithVersion) && StringUtil.equals(textRef.get(), schemaWithVersion.getSchema())) {
+            return;
+        }
+        final JSGraphQLSchemaDiff diff = JSGraphQLSchemaDiff.compute(textRef.get(), schemaWithVersion.getSchema());
+
+        final Ref<Boolean> applied = Ref.create(false);
+        ApplicationManager.getApplication().invokeAndWait(() -> ApplicationManager.getApplication().runWriteAction(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+            final Document document = documentRef.get();
+            JSGraphQLSchemaDiff diffToApply = diff;
+            if(document.getModificationStamp() != modificationStampRef.get()) {
+                // the schema file changed while the diff was computed, e.g. by a more recent reload
+                if(!isNewSchemaUrl(schemaFileElements, schemaWithVersion) && StringUtil.equals(document.getImmutableCharSequence(), schemaWithVersion.getSchema())) {
+                    return;
+                }
+                diffToApply = JSGraphQLSchemaDiff.compute(document.getImmutableCharSequence(), schemaWithVersion.getSchema());
+            }
+            applySchemaFileUpdate(schemaFileElements, schemaWithVersion, document, diffToApply);
+            applied.set(true);
+        }), ModalityState.defaultModalityState());
+        if(!applied.get()) {
+            return;
+        }
+
+        // the snapshot and validator are built from the re-parsed PSI here rather than on the EDT
+        final JSGraphQLSchemaDiff reloadedDiff = ApplicationManager.getApplication().runReadAction((Computable<JSGraphQLSchemaDiff>) () -> {
+            if(project.isDisposed()) {
+                return null;
+            }
+            return schemaFileElements.reloadSchema();
+        });
+        if(reloadedDiff == null) {
+            // a more recent update on another thread has already reloaded the types
+            return;
+        }
+        if(schemaFileElements != this.schemaFileElements) {
+            // the schema of another config has grown, so make sure the registry is within budget
+            schemaRegistry.evictLeastRecentlyUsed();
+        }
+        project.getMessageBus().syncPublisher(JSGraphQLSchemaLanguageServiceListener.TOPIC).onSchemaReloaded(reloadedDiff);
+        UIUtil.invokeLaterIfNeeded(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+            final ProjectView projectView = ProjectView.getInstance(project);
+            if (projectView != null && projectView.getCurrentProjectViewPane() instanceof ProjectViewPane) {
+                projectView.refresh();
+            }
+        });
+    }
+
+    private void applySchemaFileUpdate(JSGraphQLSchemaFileElements schemaFileElements, SchemaWithVersionResponse schemaWithVersion, Document document, JSGraphQLSchemaDiff diff) {
+        schemaFileElements.onPendingReloadSchema(schemaWithVersion, diff);
+        if (schemaFileElements == this.schemaFileElements) {
+            schemaFileElements.getFile().setName(getSchemaFileName());
         }
+
+        // only the text of the changed definitions is replaced to keep the PSI of the other definitions
+        diff.applyTo(document);
+        PsiDocumentManager.getInstance(project).commitDocument(document);
     }
 
     private String getSchemaFileName() {
         final VirtualFile baseDir = JSGraphQLConfigurationProvider.getService(project).getConfigurationBaseDir();
+        return getSchemaFileName(baseDir, project.getName());
+    }
+
+    private String getSchemaFileName(@Nullable VirtualFile baseDir, String defaultName) {
         if(baseDir != null) {
             final Module moduleByName = ModuleManager.getInstance(project).findModuleByName(baseDir.getName());
             if(moduleByName != null) {
@@ -700,7 +1092,7 @@ public class JSGraphQLSchemaLanguageProjectService implements FileEditorManagerL
                 }
             }
         }
-        return project.getName() + "." + JSGraphQLSchemaFileType.INSTANCE.getDefaultExtension();
+        return defaultName + "." + JSGraphQLSchemaFileType.INSTANCE.getDefaultExtension();
     }
 
     private String getSchemaFileNameFromModule(Module module) {
@@ -7,7 +7,9 @@
  */
 package com.intellij.lang.jsgraphql.schema.ide.project;
 
+import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaDiff;
 import com.intellij.util.messages.Topic;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.EventListener;
 
@@ -23,8 +25,9 @@ public interface JSGraphQLSchemaLanguageServiceListener extends EventListener {
     );
 
     /**
-     * Invoked when the GraphQL schema is reloaded
+     * Invoked on a pooled thread when the GraphQL schema is reloaded and its snapshot has been published
+     * @param diff the definitions that were added, removed, or changed by the reload
      */
-    void onSchemaReloaded();
+    void onSchemaReloaded(@NotNull JSGraphQLSchemaDiff diff);
 
 }
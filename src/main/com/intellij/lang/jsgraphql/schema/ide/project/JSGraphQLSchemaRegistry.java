@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.project;
+
+import com.intellij.lang.jsgraphql.schema.ide.type.JSGraphQLSchemaFileElements;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the schemas of the graphql.config.json files in a project, keyed by the URL of the directory that contains the config.
+ * <p>
+ * Schemas are loaded on first use. Each schema retains a PSI tree, so the least recently used schemas are evicted once the
+ * schema text kept by the registry exceeds a budget. An evicted schema is loaded again the next time it's used.
+ */
+class JSGraphQLSchemaRegistry {
+
+    private final long maxRetainedChars;
+
+    // access ordered, so the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> schemas = new LinkedHashMap<>(16, 0.75f, true);
+
+    JSGraphQLSchemaRegistry(long maxRetainedChars) {
+        this.maxRetainedChars = maxRetainedChars;
+    }
+
+    /**
+     * Gets the schema of a config, loading it if the schema isn't loaded or its source has changed since it was loaded
+     * @param configBaseDirUrl the URL of the directory that contains the config
+     * @param sourceStamp the modification stamp of the source the schema is loaded from
+     * @param loader loads the schema
+     */
+    @NotNull
+    synchronized JSGraphQLSchemaFileElements getOrLoad(@NotNull String configBaseDirUrl, long sourceStamp, @NotNull Supplier<JSGraphQLSchemaFileElements> loader) {
+        Entry entry = schemas.get(configBaseDirUrl);
+        if(entry == null || entry.sourceStamp != sourceStamp) {
+            entry = new Entry(loader.get(), sourceStamp);
+            schemas.put(configBaseDirUrl, entry);
+            evictLeastRecentlyUsed();
+        }
+        return entry.schemaFileElements;
+    }
+
+    /**
+     * @return whether the specified schema is still kept by the registry, i.e. it hasn't been evicted or replaced
+     */
+    synchronized boolean contains(@Nullable JSGraphQLSchemaFileElements schemaFileElements) {
+        for (Entry entry : schemas.values()) {
+            if(entry.schemaFileElements == schemaFileElements) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evicts the least recently used schemas until the retained schema text is within budget.
+     * Should be called when a schema has grown, e.g. after the schema text has been read in the background.
+     */
+    synchronized void evictLeastRecentlyUsed() {
+        long retainedChars = 0;
+        for (Entry entry : schemas.values()) {
+            retainedChars += entry.schemaFileElements.getFile().getTextLength();
+        }
+        final Iterator<Map.Entry<String, Entry>> iterator = schemas.entrySet().iterator();
+        while(retainedChars > maxRetainedChars && schemas.size() > 1 && iterator.hasNext()) {
+            // the most recently used schema is always kept, even if it exceeds the budget on its own
+            final Entry evicted = iterator.next().getValue();
+            retainedChars -= evicted.schemaFileElements.getFile().getTextLength();
+            iterator.remove();
+        }
+    }
+
+    private static class Entry {
+        final JSGraphQLSchemaFileElements schemaFileElements;
+        final long sourceStamp;
+        Entry(JSGraphQLSchemaFileElements schemaFileElements, long sourceStamp) {
+            this.schemaFileElements = schemaFileElements;
+            this.sourceStamp = sourceStamp;
+        }
+    }
+}
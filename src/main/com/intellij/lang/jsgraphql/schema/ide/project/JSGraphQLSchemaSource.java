@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.project;
+
+import com.google.gson.Gson;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLSchemaConfiguration;
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLSchemaRequestConfiguration;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionReader;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLSchemaDefinitionReader;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.apache.commons.httpclient.params.HttpClientParams;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The source that the schema of a graphql.config.json is read from, as configured by the 'schema' section of the config:
+ * an introspection result (.json), a schema in the GraphQL schema language (.graphql, .graphqls), or a url that responds with an
+ * introspection result. Sources are read in-process, so they don't depend on the language service, which only serves the project config.
+ */
+class JSGraphQLSchemaSource {
+
+    private static final String INTROSPECTION_QUERY = "query IntrospectionQuery { __schema { " +
+            "queryType { name } mutationType { name } subscriptionType { name } " +
+            "types { ...FullType } " +
+            "directives { name description locations args { ...InputValue } } } } " +
+            "fragment FullType on __Type { kind name description " +
+            "fields(includeDeprecated: true) { name description args { ...InputValue } type { ...TypeRef } isDeprecated deprecationReason } " +
+            "inputFields { ...InputValue } interfaces { ...TypeRef } " +
+            "enumValues(includeDeprecated: true) { name description isDeprecated deprecationReason } " +
+            "possibleTypes { ...TypeRef } } " +
+            "fragment InputValue on __InputValue { name description type { ...TypeRef } defaultValue } " +
+            "fragment TypeRef on __Type { kind name ofType { kind name ofType { kind name ofType { kind name " +
+            "ofType { kind name ofType { kind name ofType { kind name ofType { kind name } } } } } } } }";
+
+    private final String path;
+    private final VirtualFile file;
+    private final JSGraphQLSchemaRequestConfiguration request;
+    private final long modificationStamp;
+
+    private JSGraphQLSchemaSource(String path, @Nullable VirtualFile file, @Nullable JSGraphQLSchemaRequestConfiguration request, long modificationStamp) {
+        this.path = path;
+        this.file = file;
+        this.request = request;
+        this.modificationStamp = modificationStamp;
+    }
+
+    /**
+     * Gets the schema source of the graphql.config.json in a directory
+     * @param configBaseDir the directory that contains the config
+     * @return the source, or <code>null</code> if the config doesn't configure a schema file or url, e.g. a config that only declares endpoints
+     */
+    @Nullable
+    static JSGraphQLSchemaSource forConfig(@NotNull Project project, @NotNull VirtualFile configBaseDir) {
+        final JSGraphQLConfigurationProvider configurationProvider = JSGraphQLConfigurationProvider.getService(project);
+        final VirtualFile configFile = configBaseDir.findChild(JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON);
+        final long configStamp = configFile != null ? configFile.getModificationStamp() : 0;
+        final JSGraphQLSchemaConfiguration schemaConfiguration = configurationProvider.getSchemaConfiguration(configBaseDir);
+        final VirtualFile file = configurationProvider.getSchemaFile(configBaseDir);
+        if(file != null) {
+            return new JSGraphQLSchemaSource(file.getPath(), file, null, 31 * configStamp + file.getModificationStamp());
+        }
+        if(schemaConfiguration != null && StringUtil.isNotEmpty(schemaConfiguration.file)) {
+            // the configured file doesn't exist (yet), which is reported when the schema is read
+            return new JSGraphQLSchemaSource(schemaConfiguration.file, null, null, configStamp);
+        }
+        if(schemaConfiguration != null && schemaConfiguration.request != null && StringUtil.isNotEmpty(schemaConfiguration.request.url)) {
+            // a url is only requested again once the config changes
+            return new JSGraphQLSchemaSource(schemaConfiguration.request.url, null, schemaConfiguration.request, configStamp);
+        }
+        return null;
+    }
+
+    /**
+     * @return the configured schema file, or <code>null</code> if the file doesn't exist or the schema is requested from a url
+     */
+    @Nullable
+    VirtualFile getFile() {
+        return file;
+    }
+
+    /**
+     * @return the path of the schema file or the url that the schema is requested from
+     */
+    @NotNull
+    String getUrl() {
+        return path;
+    }
+
+    @NotNull
+    String getName() {
+        return file != null ? file.getName() : path;
+    }
+
+    /**
+     * @return a stamp that changes when the config or the schema file is modified
+     */
+    long getModificationStamp() {
+        return modificationStamp;
+    }
+
+    /**
+     * Reads the schema from the file or url. Must be called on a pooled thread.
+     * @param indicator indicator that is updated with the fraction read, and which cancels reading when canceled
+     * @return the types and directives of the schema
+     */
+    @NotNull
+    JSGraphQLIntrospectionSchema read(@NotNull ProgressIndicator indicator) throws IOException {
+        if(request != null) {
+            return requestIntrospectionSchema(indicator);
+        }
+        if(file == null || !file.isValid()) {
+            throw new FileNotFoundException(path);
+        }
+        if(!"json".equalsIgnoreCase(file.getExtension())) {
+            // .graphql and .graphqls files use the GraphQL schema language
+            return JSGraphQLSchemaDefinitionReader.read(VfsUtilCore.loadText(file));
+        }
+        try(InputStream inputStream = file.getInputStream()) {
+            return JSGraphQLIntrospectionReader.read(inputStream, file.getLength(), indicator);
+        }
+    }
+
+    // ---- implementation ----
+
+    private JSGraphQLIntrospectionSchema requestIntrospectionSchema(ProgressIndicator indicator) throws IOException {
+        final HttpClientParams params = new HttpClientParams();
+        params.setContentCharset("UTF-8"); // set fallback charset to align with JSON spec
+        final HttpClient httpClient = new HttpClient(params);
+        final HttpMethodBase method;
+        if("GET".equalsIgnoreCase(request.method)) {
+            method = new GetMethod(request.url);
+        } else {
+            final PostMethod postMethod = new PostMethod(request.url);
+            if(request.postIntrospectionQuery) {
+                final String requestJson = new Gson().toJson(Collections.singletonMap("query", INTROSPECTION_QUERY));
+                postMethod.setRequestEntity(new StringRequestEntity(requestJson, "application/json", "UTF-8"));
+            }
+            method = postMethod;
+        }
+        setHeadersFromOptions(method);
+        try {
+            final int status = httpClient.executeMethod(method);
+            if(status < 200 || status >= 300) {
+                throw new IOException("Unexpected status " + status + " from " + request.url);
+            }
+            try(InputStream inputStream = method.getResponseBodyAsStream()) {
+                if(inputStream == null) {
+                    throw new IOException("Empty response from " + request.url);
+                }
+                return JSGraphQLIntrospectionReader.read(inputStream, method.getResponseContentLength(), indicator);
+            }
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setHeadersFromOptions(HttpMethodBase method) {
+        if(request.options != null) {
+            final Object headers = request.options.get("headers");
+            if(headers instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) headers).entrySet()) {
+                    method.setRequestHeader(entry.getKey(), String.valueOf(entry.getValue()));
+                }
+            }
+        }
+    }
+}
@@ -1,42 +1,244 @@
 /**
  * Copyright (c) 2015-present, Jim Kynde Meyer
  * All rights reserved.
- * <p>
+ *
  * This source code is licensed under the MIT license found in the
  * LICENSE file in the root directory of this source tree.
  */
 package com.intellij.lang.jsgraphql.schema.ide.type;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Represents a named type in a GraphQL schema, e.g. Query, Mutation, StarShip etc.
+ * <p>
+ * Large schemas have many types and fields, so the type is kept compact: names are interned, the properties are kept in flat arrays,
+ * and the only PSI reference is a smart pointer to the type definition. The name and property elements are located on demand by their
+ * offset in the definition, which doesn't change as long as the definition itself is unchanged.
+ * <p>
+ * The properties are added while the type is built, after which {@link #completeProperties()} trims the arrays and sorts the property
+ * names for lookups by name.
  */
 public class JSGraphQLNamedType {
 
-    /** PSI element for the type definition, e.g. 'type Foo {}' */
-    public final PsiElement definitionElement;
+    // type names and value type names repeat across the types of a schema and between schema reloads
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    private final String name;
+
+    /** Pointer to the PSI element for the type definition, e.g. 'type Foo {}', or null for types without PSI */
+    private final SmartPsiElementPointer<PsiElement> definitionPointer;
 
-    /** PSI element representing the name of a type definition, e.g. 'Foo' in 'type Foo {}' */
-    public final PsiNamedElement nameElement;
+    /** Offset in the definition of the element representing the name of the type, e.g. 'Foo' in 'type Foo {}' */
+    private final int nameOffset;
+    private final Class<? extends PsiNamedElement> nameElementClass;
 
-    public final Map<String, JSGraphQLPropertyType> properties = Maps.newHashMap();
+    // the properties in declaration order, as parallel arrays which have spare capacity until the properties are complete
+    private String[] propertyNames = ArrayUtil.EMPTY_STRING_ARRAY;
+    private String[] propertyValueTypeNames = ArrayUtil.EMPTY_STRING_ARRAY;
+    private int[] propertyOffsets = ArrayUtil.EMPTY_INT_ARRAY;
+    private int propertyCount;
+    private Class<? extends PsiNamedElement> propertyElementClass;
 
-    public JSGraphQLNamedType(PsiElement definitionElement, PsiNamedElement nameElement) {
-        this.definitionElement = definitionElement;
-        this.nameElement = nameElement;
+    // the property indexes ordered by property name and then by index, or null until the properties are complete
+    private int[] propertyIndexesByName;
+
+    public JSGraphQLNamedType(@NotNull PsiElement definitionElement, @NotNull PsiNamedElement nameElement) {
+        this.name = intern(nameElement.getName());
+        this.definitionPointer = SmartPointerManager.getInstance(definitionElement.getProject()).createSmartPsiElementPointer(definitionElement);
+        this.nameOffset = getOffsetInDefinition(definitionElement, nameElement);
+        this.nameElementClass = nameElement.getClass();
+    }
+
+    /**
+     * Creates a type without PSI, e.g. for a type read from an introspection result, which has no definition, name or property elements
+     */
+    public JSGraphQLNamedType(@NotNull String name) {
+        this.name = intern(name);
+        this.definitionPointer = null;
+        this.nameOffset = -1;
+        this.nameElementClass = null;
     }
 
     public String getName() {
-        return nameElement.getName();
+        return name;
+    }
+
+    /**
+     * @return the PSI element for the type definition, e.g. 'type Foo {}', or <code>null</code> if the definition no longer exists
+     */
+    @Nullable
+    public PsiElement getDefinitionElement() {
+        return definitionPointer != null ? definitionPointer.getElement() : null;
+    }
+
+    /**
+     * @return whether this type was created from a PSI definition, which may since have been removed
+     */
+    public boolean hasDefinition() {
+        return definitionPointer != null;
+    }
+
+    /**
+     * @return the PSI element representing the name of the type, e.g. 'Foo' in 'type Foo {}'
+     */
+    @Nullable
+    public PsiNamedElement getNameElement() {
+        return findElement(nameOffset, nameElementClass, name);
+    }
+
+    /**
+     * Adds a property to this type. Properties should only be added while the type is being built, before it is made available to other threads.
+     * @param propertyElement the PSI element for the property, which must be a descendant of the type definition
+     * @param propertyName the name of the property
+     * @param propertyValueTypeName the name of the type of the property value
+     * @see #completeProperties()
+     */
+    public void addProperty(@NotNull PsiNamedElement propertyElement, @NotNull String propertyName, @Nullable String propertyValueTypeName) {
+        final PsiElement definitionElement = getDefinitionElement();
+        if(definitionElement == null) {
+            return;
+        }
+        appendProperty(propertyName, propertyValueTypeName, getOffsetInDefinition(definitionElement, propertyElement));
+        if(propertyElementClass == null) {
+            propertyElementClass = propertyElement.getClass();
+        } else if(propertyElementClass != propertyElement.getClass()) {
+            propertyElementClass = PsiNamedElement.class;
+        }
+    }
+
+    /**
+     * Adds a property to a type without PSI
+     * @see #JSGraphQLNamedType(String)
+     */
+    public void addProperty(@NotNull String propertyName, @Nullable String propertyValueTypeName) {
+        appendProperty(propertyName, propertyValueTypeName, -1);
+    }
+
+    /**
+     * Completes the properties once they've all been added, trimming the property arrays and indexing the property names
+     */
+    public void completeProperties() {
+        if(propertyNames.length != propertyCount) {
+            propertyNames = Arrays.copyOf(propertyNames, propertyCount);
+            propertyValueTypeNames = Arrays.copyOf(propertyValueTypeNames, propertyCount);
+            propertyOffsets = Arrays.copyOf(propertyOffsets, propertyCount);
+        }
+        final Integer[] indexes = new Integer[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            indexes[i] = i;
+        }
+        // the sort is stable, so properties with the same name stay in declaration order
+        Arrays.sort(indexes, (index, otherIndex) -> propertyNames[index].compareTo(propertyNames[otherIndex]));
+        final int[] propertyIndexesByName = new int[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            propertyIndexesByName[i] = indexes[i];
+        }
+        this.propertyIndexesByName = propertyIndexesByName;
+    }
+
+    /**
+     * Gets a property of this type
+     * @param propertyName the name of the property, e.g. 'username' on type 'User'
+     * @return the property, or <code>null</code> if this type doesn't declare the property
+     */
+    @Nullable
+    public JSGraphQLPropertyType getProperty(String propertyName) {
+        final int index = findPropertyIndex(propertyName);
+        return index != -1 ? new JSGraphQLPropertyType(this, index, propertyNames[index], propertyValueTypeNames[index]) : null;
     }
 
     @Override
     public String toString() {
         return "Type: " + getName();
     }
+
+    // ---- implementation ----
+
+    private void appendProperty(String propertyName, String propertyValueTypeName, int offset) {
+        if(propertyCount == propertyNames.length) {
+            // grow by half to keep building a type with many properties linear
+            final int capacity = Math.max(4, propertyCount + (propertyCount >> 1));
+            propertyNames = Arrays.copyOf(propertyNames, capacity);
+            propertyValueTypeNames = Arrays.copyOf(propertyValueTypeNames, capacity);
+            propertyOffsets = Arrays.copyOf(propertyOffsets, capacity);
+        }
+        final int index = propertyCount++;
+        propertyNames[index] = intern(propertyName);
+        propertyValueTypeNames[index] = intern(propertyValueTypeName);
+        propertyOffsets[index] = offset;
+    }
+
+    /**
+     * @return the index of the last declaration of a property, or -1 if this type doesn't declare the property
+     */
+    private int findPropertyIndex(String propertyName) {
+        final int[] propertyIndexesByName = this.propertyIndexesByName;
+        if(propertyIndexesByName == null) {
+            // the type is still being built
+            for (int i = propertyCount - 1; i >= 0; i--) {
+                if(propertyNames[i].equals(propertyName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int low = 0;
+        int high = propertyIndexesByName.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = propertyNames[propertyIndexesByName[middle]].compareTo(propertyName);
+            if(comparison < 0) {
+                low = middle + 1;
+            } else if(comparison > 0) {
+                high = middle - 1;
+            } else {
+                // the last declaration wins, consistent with the type definitions
+                int last = middle;
+                while (last + 1 < propertyIndexesByName.length && propertyNames[propertyIndexesByName[last + 1]].equals(propertyName)) {
+                    last++;
+                }
+                return propertyIndexesByName[last];
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    PsiNamedElement getPropertyElement(int index) {
+        return findElement(propertyOffsets[index], propertyElementClass, propertyNames[index]);
+    }
+
+    @Nullable
+    private <T extends PsiNamedElement> T findElement(int offset, Class<T> elementClass, String elementName) {
+        final PsiElement definitionElement = getDefinitionElement();
+        if(definitionElement == null || elementClass == null) {
+            return null;
+        }
+        final T element = PsiTreeUtil.getParentOfType(definitionElement.findElementAt(offset), elementClass, false);
+        if(element == null || !Objects.equals(element.getName(), elementName)) {
+            return null;
+        }
+        return element;
+    }
+
+    private static int getOffsetInDefinition(PsiElement definitionElement, PsiElement element) {
+        return element.getTextRange().getStartOffset() - definitionElement.getTextRange().getStartOffset();
+    }
+
+    private static String intern(String value) {
+        return value != null ? NAMES.intern(value) : null;
+    }
 }
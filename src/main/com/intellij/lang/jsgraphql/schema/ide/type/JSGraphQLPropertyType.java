@@ -10,25 +10,47 @@ package com.intellij.lang.jsgraphql.schema.ide.type;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the property aspect of a field in a GraphQL schema, e.g. 'username' on type 'User'.
+ * Property types are views onto the properties kept by the declaring {@link JSGraphQLNamedType}.
  */
 public class JSGraphQLPropertyType {
 
-    public final PsiNamedElement propertyElement;
     public final JSGraphQLNamedType declaringTypeElement;
     public final String propertyValueTypeName;
 
-    public JSGraphQLPropertyType(PsiNamedElement propertyElement, JSGraphQLNamedType declaringTypeElement, String propertyValueTypeName) {
-        this.propertyElement = propertyElement;
+    private final int index;
+    private final String propertyName;
+
+    JSGraphQLPropertyType(JSGraphQLNamedType declaringTypeElement, int index, String propertyName, String propertyValueTypeName) {
         this.declaringTypeElement = declaringTypeElement;
+        this.index = index;
+        this.propertyName = propertyName;
         this.propertyValueTypeName = propertyValueTypeName;
     }
 
-    public JSGraphQLPropertyType(PsiNamedElement propertyElement, JSGraphQLNamedType declaringTypeElement, Class<? extends PsiNamedElement> propertyClass) {
-        this.propertyElement = propertyElement;
-        this.declaringTypeElement = declaringTypeElement;
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * @return the PSI element that declares the property, or <code>null</code> if the property no longer exists
+     */
+    @Nullable
+    public PsiNamedElement getPropertyElement() {
+        return declaringTypeElement.getPropertyElement(index);
+    }
+
+    /**
+     * Gets the value type name of a property in the schema language
+     * @param propertyElement the property element in the schema
+     * @param propertyClass the class of property elements in the declaring type, used to stop at the next property
+     * @return the name of the value type, e.g. 'PropType' for 'myProp(param: String): PropType'
+     */
+    @Nullable
+    public static String getPropertyValueTypeName(PsiNamedElement propertyElement, Class<? extends PsiNamedElement> propertyClass) {
         PsiElement nextSibling = propertyElement.getNextSibling();
         JSGraphQLNamedTypePsiElement valueTypeElement = null;
         while(nextSibling != null) {
@@ -42,11 +64,7 @@ public class JSGraphQLPropertyType {
                 break;
             }
         }
-        propertyValueTypeName = valueTypeElement != null ? valueTypeElement.getName() : null;
-    }
-
-    public String getPropertyName() {
-        return propertyElement != null ? propertyElement.getName() : null;
+        return valueTypeElement != null ? valueTypeElement.getName() : null;
     }
 
     @Override
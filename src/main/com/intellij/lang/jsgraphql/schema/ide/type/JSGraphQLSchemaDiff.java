@@ -0,0 +1,352 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.type;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.lang.jsgraphql.JSGraphQLKeywords;
+import com.intellij.lang.jsgraphql.lexer.JSGraphQLTokenizer;
+import com.intellij.openapi.editor.Document;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The differences between two versions of a GraphQL schema, computed per top level definition.
+ * The schema text from the language service separates definitions with blank lines, so each definition is compared as a block of text.
+ */
+public class JSGraphQLSchemaDiff {
+
+    private static final String BLOCK_SEPARATOR = "\n\n";
+
+    private static final Set<String> TYPE_KEYWORDS = Sets.newHashSet(
+            JSGraphQLKeywords.TYPE,
+            JSGraphQLKeywords.INTERFACE,
+            JSGraphQLKeywords.UNION,
+            JSGraphQLKeywords.SCALAR,
+            JSGraphQLKeywords.ENUM,
+            JSGraphQLKeywords.INPUT
+    );
+
+    private final String newSchema;
+    private final Set<String> addedNames = Sets.newLinkedHashSet();
+    private final Set<String> removedNames = Sets.newLinkedHashSet();
+    private final Set<String> changedNames = Sets.newLinkedHashSet();
+    private boolean typesOnly = true;
+
+    // the edits that turn the old schema text into the new schema text, or null if the text has to be replaced as a whole
+    private List<Edit> edits = Lists.newArrayList();
+
+    private JSGraphQLSchemaDiff(String newSchema) {
+        this.newSchema = newSchema;
+    }
+
+    /**
+     * Computes the per definition differences between two schema texts
+     */
+    @NotNull
+    public static JSGraphQLSchemaDiff compute(@NotNull CharSequence oldSchema, @NotNull String newSchema) {
+        final JSGraphQLSchemaDiff diff = new JSGraphQLSchemaDiff(newSchema);
+        final List<Block> oldBlocks = Block.split(oldSchema);
+        final List<Block> newBlocks = Block.split(newSchema);
+        final Map<String, Block> oldByName = Block.byName(oldBlocks);
+        final Map<String, Block> newByName = Block.byName(newBlocks);
+        if (oldByName == null || newByName == null || oldBlocks.isEmpty()) {
+            // duplicate definition names can't be matched up, so the schema is replaced as a whole
+            diff.edits = null;
+            diff.typesOnly = false;
+            oldBlocks.forEach(block -> diff.removedNames.add(block.name));
+            newBlocks.forEach(block -> diff.addedNames.add(block.name));
+            return diff;
+        }
+
+        int removedRunStart = -1;
+        for (int i = 0; i < oldBlocks.size(); i++) {
+            final Block oldBlock = oldBlocks.get(i);
+            final Block newBlock = newByName.get(oldBlock.name);
+            if (newBlock == null) {
+                diff.removedNames.add(oldBlock.name);
+                if (removedRunStart == -1) {
+                    removedRunStart = i;
+                }
+                continue;
+            }
+            if (removedRunStart != -1) {
+                diff.addRemoval(removedRunStart, i - 1, oldBlocks);
+                removedRunStart = -1;
+            }
+            if (!newBlock.text.equals(oldBlock.text)) {
+                diff.changedNames.add(oldBlock.name);
+                diff.edits.add(new Edit(oldBlock.start, oldBlock.end, newBlock.text));
+            }
+        }
+        if (removedRunStart != -1) {
+            diff.addRemoval(removedRunStart, oldBlocks.size() - 1, oldBlocks);
+        }
+        // added definitions are inserted in front of the next definition that is also in the old schema
+        Block nextOldBlock = null;
+        for (int i = newBlocks.size() - 1; i >= 0; i--) {
+            final Block newBlock = newBlocks.get(i);
+            final Block oldBlock = oldByName.get(newBlock.name);
+            if (oldBlock == null) {
+                diff.addedNames.add(newBlock.name);
+                if (diff.edits != null) {
+                    if (nextOldBlock != null) {
+                        diff.edits.add(new Edit(nextOldBlock.start, nextOldBlock.start, newBlock.text + BLOCK_SEPARATOR));
+                    } else {
+                        final int end = oldBlocks.get(oldBlocks.size() - 1).end;
+                        diff.edits.add(new Edit(end, end, BLOCK_SEPARATOR + newBlock.text));
+                    }
+                }
+            } else {
+                if (nextOldBlock != null && oldBlock.start > nextOldBlock.start) {
+                    // the definitions were re-ordered, so edits in place won't produce the new text
+                    diff.edits = null;
+                }
+                nextOldBlock = oldBlock;
+            }
+        }
+
+        for (Block block : oldBlocks) {
+            if (!block.isType && (diff.removedNames.contains(block.name) || diff.changedNames.contains(block.name))) {
+                diff.typesOnly = false;
+            }
+        }
+        for (Block block : newBlocks) {
+            if (!block.isType && diff.addedNames.contains(block.name)) {
+                diff.typesOnly = false;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * @return true if no definitions were added, removed, or changed
+     */
+    public boolean isEmpty() {
+        return addedNames.isEmpty() && removedNames.isEmpty() && changedNames.isEmpty();
+    }
+
+    /**
+     * @return true if only type definitions differ, e.g. not the schema definition, directives or type extensions
+     */
+    public boolean isTypesOnly() {
+        return typesOnly;
+    }
+
+    @NotNull
+    public Set<String> getAddedNames() {
+        return Collections.unmodifiableSet(addedNames);
+    }
+
+    @NotNull
+    public Set<String> getRemovedNames() {
+        return Collections.unmodifiableSet(removedNames);
+    }
+
+    @NotNull
+    public Set<String> getChangedNames() {
+        return Collections.unmodifiableSet(changedNames);
+    }
+
+    /**
+     * @return the names of all the added, removed, and changed definitions
+     */
+    @NotNull
+    public Set<String> getAllNames() {
+        final Set<String> allNames = Sets.newLinkedHashSet(addedNames);
+        allNames.addAll(removedNames);
+        allNames.addAll(changedNames);
+        return allNames;
+    }
+
+    /**
+     * Updates the document text to the new schema, only replacing the text of the definitions that differ
+     * Must be called from a write action.
+     */
+    public void applyTo(@NotNull Document document) {
+        if (edits != null) {
+            // apply from the end of the document to keep the offsets of the remaining edits intact
+            edits.sort(Comparator.comparingInt((Edit edit) -> edit.start).thenComparingInt(edit -> edit.end).reversed());
+            if (!hasOverlappingEdits()) {
+                for (Edit edit : edits) {
+                    document.replaceString(edit.start, edit.end, edit.replacement);
+                }
+                if (Objects.equals(document.getText(), newSchema)) {
+                    return;
+                }
+            }
+        }
+        document.setText(newSchema);
+    }
+
+    // ---- implementation ----
+
+    private boolean hasOverlappingEdits() {
+        for (int i = 1; i < edits.size(); i++) {
+            if (edits.get(i).end > edits.get(i - 1).start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a run of consecutive blocks along with the separators around them
+     */
+    private void addRemoval(int first, int last, List<Block> oldBlocks) {
+        if (last < oldBlocks.size() - 1) {
+            // remove the blocks along with the separator that follows them
+            edits.add(new Edit(oldBlocks.get(first).start, oldBlocks.get(last + 1).start, ""));
+        } else if (first > 0) {
+            // trailing blocks, so remove the separator that precedes them
+            edits.add(new Edit(oldBlocks.get(first - 1).end, oldBlocks.get(last).end, ""));
+        } else {
+            edits.add(new Edit(oldBlocks.get(first).start, oldBlocks.get(last).end, ""));
+        }
+    }
+
+    private static class Edit {
+
+        final int start;
+        final int end;
+        final String replacement;
+
+        Edit(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * A top level definition in the schema text
+     */
+    private static class Block {
+
+        final String name;
+        final boolean isType;
+        final String text;
+        final int start;
+        final int end;
+
+        Block(String name, boolean isType, String text, int start, int end) {
+            this.name = name;
+            this.isType = isType;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the blocks by name, or <code>null</code> if the names are not unique
+         */
+        static Map<String, Block> byName(List<Block> blocks) {
+            final Map<String, Block> byName = Maps.newHashMapWithExpectedSize(blocks.size());
+            for (Block block : blocks) {
+                if (byName.put(block.name, block) != null) {
+                    return null;
+                }
+            }
+            return byName;
+        }
+
+        /**
+         * Splits the schema text into blocks at blank lines between the tokens outside braces, keeping comments with the block they precede
+         */
+        static List<Block> split(CharSequence text) {
+            final List<Block> blocks = Lists.newArrayList();
+            final JSGraphQLTokenizer tokenizer = new JSGraphQLTokenizer(text);
+            tokenizer.setIncludeComments(true);
+            int blockStart = -1;
+            int blockEnd = -1;
+            int braceDepth = 0;
+            while (tokenizer.next()) {
+                if (blockStart != -1 && braceDepth == 0 && hasBlankLine(text, blockEnd, tokenizer.getStart())) {
+                    blocks.add(create(text, blockStart, blockEnd));
+                    blockStart = -1;
+                }
+                if (blockStart == -1) {
+                    blockStart = tokenizer.getStart();
+                }
+                if (tokenizer.is("{")) {
+                    braceDepth++;
+                } else if (tokenizer.is("}")) {
+                    braceDepth = Math.max(0, braceDepth - 1);
+                }
+                blockEnd = tokenizer.getEnd();
+            }
+            if (blockStart != -1) {
+                blocks.add(create(text, blockStart, blockEnd));
+            }
+            return blocks;
+        }
+
+        private static Block create(CharSequence text, int start, int end) {
+            final String blockText = text.subSequence(start, end).toString();
+            final List<String> names = getLeadingNames(blockText, 3);
+            final String keyword = names.isEmpty() ? "" : names.get(0);
+            if (TYPE_KEYWORDS.contains(keyword) && names.size() > 1) {
+                return new Block(names.get(1), true, blockText, start, end);
+            }
+            final String name;
+            if (JSGraphQLKeywords.DIRECTIVE.equals(keyword) && names.size() > 1) {
+                name = "@" + names.get(1);
+            } else if (JSGraphQLKeywords.EXTEND.equals(keyword)) {
+                name = String.join(" ", names);
+            } else if (JSGraphQLKeywords.SCHEMA.equals(keyword)) {
+                name = JSGraphQLKeywords.SCHEMA;
+            } else {
+                final int lineEnd = blockText.indexOf('\n');
+                name = lineEnd != -1 ? blockText.substring(0, lineEnd).trim() : blockText.trim();
+            }
+            return new Block(name, false, blockText, start, end);
+        }
+
+        /**
+         * Gets the first names in a block, skipping descriptions and comments, e.g. 'type' and 'Foo' for 'type Foo {'
+         */
+        private static List<String> getLeadingNames(String text, int max) {
+            final List<String> names = Lists.newArrayListWithExpectedSize(max);
+            final JSGraphQLTokenizer tokenizer = new JSGraphQLTokenizer(text);
+            while (names.size() < max && tokenizer.next()) {
+                if (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                    names.add(tokenizer.getText());
+                } else if (tokenizer.getKind() != JSGraphQLTokenizer.Kind.STRING && tokenizer.getKind() != JSGraphQLTokenizer.Kind.BLOCK_STRING && !tokenizer.is("@")) {
+                    break;
+                }
+            }
+            return names;
+        }
+
+        /**
+         * @return whether the whitespace between two tokens contains an empty line
+         */
+        private static boolean hasBlankLine(CharSequence text, int start, int end) {
+            boolean lineBreak = false;
+            for (int i = start; i < end; i++) {
+                final char c = text.charAt(i);
+                if (c == '\n') {
+                    if (lineBreak) {
+                        return true;
+                    }
+                    lineBreak = true;
+                } else if (!Character.isWhitespace(c)) {
+                    lineBreak = false;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -7,23 +7,38 @@
  */
 package com.intellij.lang.jsgraphql.schema.ide.type;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLAttributePsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedPropertyPsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedPsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
 import com.intellij.lang.jsgraphql.psi.JSGraphQLPsiElement;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
 import com.intellij.lang.jsgraphql.schema.psi.JSGraphQLSchemaFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
 import com.intellij.psi.util.PsiTreeUtil;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Contains the known types and declared fields contained in a specific GraphQL schema file
+ * Contains the known types and declared fields contained in a specific GraphQL schema file.
+ * The types are published as an immutable {@link JSGraphQLSchemaSnapshot} that is replaced in a single step once a reload has completed,
+ * so readers never block and never see a partially reloaded schema.
+ * <p>
+ * A schema that was read from an introspection result provides its types directly from the result, since parsing the schema file
+ * depends on the language service. The types in the schema file take precedence once it has been parsed.
  */
 public class JSGraphQLSchemaFileElements implements JSGraphQLNamedTypeRegistry {
 
@@ -32,41 +47,100 @@ public class JSGraphQLSchemaFileElements implements JSGraphQLNamedTypeRegistry {
     private static final String MUTATION = "Mutation";
     private static final String SUBSCRIPTION = "Subscription";
 
-    private SchemaWithVersionResponse schemaWithVersion;
-    private final Map<String, JSGraphQLNamedType> nameToTypes = Maps.newConcurrentMap();
-    private final Map<JSGraphQLNamedPsiElement, JSGraphQLNamedType> namedTypeFromPropertyElement = Maps.newConcurrentMap();
+    private volatile SchemaWithVersionResponse schemaWithVersion;
+    private volatile JSGraphQLIntrospectionSchema introspectionSchema;
+    private JSGraphQLSchemaDiff pendingDiff;
+    private boolean pendingFullReload;
+    private final AtomicReference<JSGraphQLSchemaSnapshot> snapshot = new AtomicReference<>();
 
     private final JSGraphQLSchemaFile file;
 
     public JSGraphQLSchemaFileElements(SchemaWithVersionResponse schemaWithVersion, JSGraphQLSchemaFile file) {
         this.schemaWithVersion = schemaWithVersion;
         this.file = file;
-        collectNamedTypesAndProperties(false);
+        collectNamedTypesAndProperties(null);
     }
 
-    public void onPendingReloadSchema(SchemaWithVersionResponse schemaWithVersion) {
+    /**
+     * Sets the schema that the file is about to be updated to
+     * @param schemaWithVersion the new schema
+     * @param diff the differences from the current schema text
+     */
+    public synchronized void onPendingReloadSchema(SchemaWithVersionResponse schemaWithVersion, JSGraphQLSchemaDiff diff) {
+        // the types can only be patched if the root operation types stay the same, since they determine the aliases
+        final boolean sameRootTypes = this.schemaWithVersion != null &&
+                Objects.equals(this.schemaWithVersion.getUrl(), schemaWithVersion.getUrl()) &&
+                Objects.equals(this.schemaWithVersion.getQueryType(), schemaWithVersion.getQueryType()) &&
+                Objects.equals(this.schemaWithVersion.getMutationType(), schemaWithVersion.getMutationType()) &&
+                Objects.equals(this.schemaWithVersion.getSubscriptionType(), schemaWithVersion.getSubscriptionType());
+        if(schemaWithVersion != this.schemaWithVersion) {
+            // the new schema wasn't read from the introspection result
+            this.introspectionSchema = null;
+        }
         this.schemaWithVersion = schemaWithVersion;
+        this.pendingDiff = diff;
+        this.pendingFullReload = pendingFullReload || !sameRootTypes || !diff.isTypesOnly();
     }
 
-    public void reloadSchema() {
-        collectNamedTypesAndProperties(true);
+    /**
+     * Updates the types and properties after the schema file PSI has changed.
+     * Only the types named in the pending diff, and types with PSI that was re-created by the re-parse, are collected again.
+     * Must be called in a read action, and is called on a pooled thread such that the snapshot isn't built on the EDT.
+     * @return the pending diff, or <code>null</code> if no schema update was pending
+     */
+    public synchronized JSGraphQLSchemaDiff reloadSchema() {
+        final JSGraphQLSchemaDiff diff = pendingDiff;
+        if(pendingFullReload) {
+            collectNamedTypesAndProperties(null);
+        } else {
+            collectNamedTypesAndProperties(diff != null ? diff.getAllNames() : Collections.emptySet());
+        }
+        pendingDiff = null;
+        pendingFullReload = false;
+        return diff;
+    }
+
+    /**
+     * Publishes the types of a schema that was read from an introspection result, without waiting for the schema file to be updated
+     * to the schema definition of the result. The types don't have PSI elements until the schema file has been updated and parsed.
+     * @param introspectionSchema the introspection result, or the persisted types of the schema
+     * @param schemaWithVersion the schema that the file is about to be updated to, which must describe the same types as the introspection result
+     */
+    public synchronized void setIntrospectionSchema(JSGraphQLIntrospectionSchema introspectionSchema, SchemaWithVersionResponse schemaWithVersion) {
+        this.introspectionSchema = introspectionSchema;
+        this.schemaWithVersion = schemaWithVersion;
+        collectNamedTypesAndProperties(null);
+    }
+
+    /**
+     * @return the most recently published snapshot of the types in the schema file
+     */
+    public JSGraphQLSchemaSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     @Override
     public JSGraphQLNamedType getNamedType(String typeName) {
-        return nameToTypes.get(typeName);
+        return snapshot.get().getNamedType(typeName);
     }
 
     public JSGraphQLNamedType getNamedType(JSGraphQLNamedPropertyPsiElement propertyPsiElement) {
-        return namedTypeFromPropertyElement.get(propertyPsiElement);
+        return snapshot.get().getNamedType(propertyPsiElement);
     }
 
-    public String getSchemaUrl() {
-        return schemaWithVersion != null ? schemaWithVersion.getUrl() : null;
+    /**
+     * @see JSGraphQLSchemaSnapshot#getDefinitionNameElements(String)
+     */
+    public List<JSGraphQLNamedPsiElement> getDefinitionNameElements(String name) {
+        return snapshot.get().getDefinitionNameElements(name);
     }
 
-    public int getSchemaVersion() {
-        return schemaWithVersion != null ? schemaWithVersion.getVersion() : -1;
+    /**
+     * @return the URL of the schema the file has most recently been set to, which may not have been published in a snapshot yet
+     */
+    public String getSchemaUrl() {
+        final SchemaWithVersionResponse current = schemaWithVersion;
+        return current != null ? current.getUrl() : null;
     }
 
     public JSGraphQLSchemaFile getFile() {
@@ -75,50 +149,142 @@ public class JSGraphQLSchemaFileElements implements JSGraphQLNamedTypeRegistry {
 
     // ---- implementation ----
 
-    private synchronized void collectNamedTypesAndProperties(boolean reload) {
-        if(reload) {
-            nameToTypes.clear();
-            namedTypeFromPropertyElement.clear();
+    /**
+     * Collects the types and properties in the schema file into a new snapshot and publishes it
+     * @param definitionNames the names of the definitions to collect again, or <code>null</code> to collect all definitions
+     */
+    private synchronized void collectNamedTypesAndProperties(Set<String> definitionNames) {
+        final JSGraphQLSchemaSnapshot previous = snapshot.get();
+        final Set<String> namesToCollect;
+        final Map<String, JSGraphQLNamedType> nameToTypes;
+        final Map<String, List<SmartPsiElementPointer<JSGraphQLNamedPsiElement>>> nameToDefinitionNameElements;
+        if(definitionNames == null || previous == null) {
+            namesToCollect = null;
+            nameToTypes = Maps.newHashMap();
+            nameToDefinitionNameElements = Maps.newHashMap();
+        } else {
+            // the previous snapshot is left untouched for readers, so the changes are made to copies of its maps
+            nameToTypes = Maps.newHashMap(previous.getNameToTypes());
+            nameToDefinitionNameElements = Maps.newHashMap(previous.getNameToDefinitionNameElements());
+            namesToCollect = Sets.newHashSet(definitionNames);
+            // unchanged definitions can still have been re-created by the re-parse
+            nameToTypes.forEach((name, namedType) -> {
+                if(namedType.hasDefinition() && namedType.getDefinitionElement() == null) {
+                    namesToCollect.add(name);
+                }
+            });
+            nameToDefinitionNameElements.forEach((name, pointers) -> {
+                if(pointers.stream().anyMatch(pointer -> pointer.getElement() == null)) {
+                    namesToCollect.add(name);
+                }
+            });
+            for (String name : namesToCollect) {
+                removeNamedType(name, nameToTypes);
+                nameToDefinitionNameElements.remove(name);
+            }
         }
-        for (JSGraphQLPsiElement definition : PsiTreeUtil.getChildrenOfTypeAsList(file, JSGraphQLPsiElement.class)) {
+        final SchemaWithVersionResponse schemaWithVersion = this.schemaWithVersion;
+        final SmartPointerManager smartPointerManager = SmartPointerManager.getInstance(file.getProject());
+        for (PsiElement definition : file.getChildren()) {
+            final JSGraphQLNamedPsiElement definitionName = PsiTreeUtil.findChildOfType(definition, JSGraphQLNamedPsiElement.class);
+            if(definitionName != null && definitionName.getName() != null && (namesToCollect == null || namesToCollect.contains(definitionName.getName()))) {
+                nameToDefinitionNameElements.computeIfAbsent(definitionName.getName(), name -> Lists.newArrayListWithExpectedSize(1))
+                        .add(smartPointerManager.createSmartPsiElementPointer(definitionName));
+            }
+            if(!(definition instanceof JSGraphQLPsiElement)) {
+                continue;
+            }
             final JSGraphQLNamedTypePsiElement namedTypePsiElement = PsiTreeUtil.findChildOfType(definition, JSGraphQLNamedTypePsiElement.class);
-            if(namedTypePsiElement != null) {
-                final JSGraphQLNamedType namedType = new JSGraphQLNamedType(definition, namedTypePsiElement);
-                final String typeName = namedTypePsiElement.getName();
-                nameToTypes.put(typeName, namedType);
-                if(Objects.equals(typeName, schemaWithVersion.getQueryType())) {
-                    // 'query' type alias
-                    nameToTypes.put(QUERY, namedType);
-                    nameToTypes.put(ANONYMOUS_QUERY, namedType);
-                } else if(Objects.equals(typeName, schemaWithVersion.getMutationType())) {
-                    // 'mutation' type alias
-                    nameToTypes.put(MUTATION, namedType);
-                } else if(Objects.equals(typeName, schemaWithVersion.getSubscriptionType())) {
-                    // 'subscription' type alias
-                    nameToTypes.put(SUBSCRIPTION, namedType);
+            if(namedTypePsiElement != null && (namesToCollect == null || namesToCollect.contains(namedTypePsiElement.getName()))) {
+                collectNamedType((JSGraphQLPsiElement) definition, namedTypePsiElement, schemaWithVersion, nameToTypes);
+            }
+        }
+        final JSGraphQLIntrospectionSchema introspectionSchema = this.introspectionSchema;
+        if(introspectionSchema != null) {
+            for (JSGraphQLIntrospectionSchema.Type type : introspectionSchema.getTypes().values()) {
+                if(JSGraphQLIntrospectionSchema.isSchemaType(type) && !nameToTypes.containsKey(type.getName()) && (namesToCollect == null || namesToCollect.contains(type.getName()))) {
+                    putNamedType(createNamedType(type), schemaWithVersion, nameToTypes);
                 }
-                definition.acceptChildren(new PsiRecursiveElementVisitor() {
-                    @Override
-                    public void visitElement(PsiElement element) {
-                        if("input".equals(definition.getKeyword())) {
-                            // fields on input types are attributes
-                            if(element instanceof JSGraphQLAttributePsiElement) {
-                                final JSGraphQLAttributePsiElement propertyElement = (JSGraphQLAttributePsiElement) element;
-                                namedType.properties.put(propertyElement.getName(), new JSGraphQLPropertyType(propertyElement, namedType, JSGraphQLAttributePsiElement.class));
-                                namedTypeFromPropertyElement.put(propertyElement, namedType);
-                            } else {
-                                super.visitElement(element);
-                            }
-                        } else if(element instanceof JSGraphQLNamedPropertyPsiElement) {
-                            final JSGraphQLNamedPropertyPsiElement propertyElement = (JSGraphQLNamedPropertyPsiElement) element;
-                            namedType.properties.put(propertyElement.getName(), new JSGraphQLPropertyType(propertyElement, namedType, JSGraphQLNamedPropertyPsiElement.class));
-                            namedTypeFromPropertyElement.put(propertyElement, namedType);
-                            // no need to visit deeper so we don't call super.visitElement
-                        } else {
-                            super.visitElement(element);
-                        }
+            }
+        }
+        snapshot.set(new JSGraphQLSchemaSnapshot(schemaWithVersion, introspectionSchema, nameToTypes, nameToDefinitionNameElements, previous));
+    }
+
+    /**
+     * Creates a type without PSI from a type in an introspection result
+     */
+    private static JSGraphQLNamedType createNamedType(JSGraphQLIntrospectionSchema.Type type) {
+        final JSGraphQLNamedType namedType = new JSGraphQLNamedType(type.getName());
+        if(type.getKind() == JSGraphQLIntrospectionSchema.Kind.INPUT_OBJECT) {
+            for (JSGraphQLIntrospectionSchema.InputValue inputField : type.getInputFields()) {
+                namedType.addProperty(inputField.getName(), JSGraphQLIntrospectionSchema.getNamedType(inputField.getType()));
+            }
+        } else {
+            for (JSGraphQLIntrospectionSchema.Field field : type.getFields()) {
+                namedType.addProperty(field.getName(), JSGraphQLIntrospectionSchema.getNamedType(field.getType()));
+            }
+        }
+        namedType.completeProperties();
+        return namedType;
+    }
+
+    private static void collectNamedType(JSGraphQLPsiElement definition,
+                                         JSGraphQLNamedTypePsiElement namedTypePsiElement,
+                                         SchemaWithVersionResponse schemaWithVersion,
+                                         Map<String, JSGraphQLNamedType> nameToTypes) {
+        final JSGraphQLNamedType namedType = new JSGraphQLNamedType(definition, namedTypePsiElement);
+        putNamedType(namedType, schemaWithVersion, nameToTypes);
+        definition.acceptChildren(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if("input".equals(definition.getKeyword())) {
+                    // fields on input types are attributes
+                    if(element instanceof JSGraphQLAttributePsiElement) {
+                        final JSGraphQLAttributePsiElement propertyElement = (JSGraphQLAttributePsiElement) element;
+                        addProperty(namedType, propertyElement, JSGraphQLAttributePsiElement.class);
+                    } else {
+                        super.visitElement(element);
                     }
-                });
+                } else if(element instanceof JSGraphQLNamedPropertyPsiElement) {
+                    final JSGraphQLNamedPropertyPsiElement propertyElement = (JSGraphQLNamedPropertyPsiElement) element;
+                    addProperty(namedType, propertyElement, JSGraphQLNamedPropertyPsiElement.class);
+                    // no need to visit deeper so we don't call super.visitElement
+                } else {
+                    super.visitElement(element);
+                }
+            }
+        });
+        namedType.completeProperties();
+    }
+
+    private static void putNamedType(JSGraphQLNamedType namedType, SchemaWithVersionResponse schemaWithVersion, Map<String, JSGraphQLNamedType> nameToTypes) {
+        final String typeName = namedType.getName();
+        nameToTypes.put(typeName, namedType);
+        if(Objects.equals(typeName, schemaWithVersion.getQueryType())) {
+            // 'query' type alias
+            nameToTypes.put(QUERY, namedType);
+            nameToTypes.put(ANONYMOUS_QUERY, namedType);
+        } else if(Objects.equals(typeName, schemaWithVersion.getMutationType())) {
+            // 'mutation' type alias
+            nameToTypes.put(MUTATION, namedType);
+        } else if(Objects.equals(typeName, schemaWithVersion.getSubscriptionType())) {
+            // 'subscription' type alias
+            nameToTypes.put(SUBSCRIPTION, namedType);
+        }
+    }
+
+    private static void addProperty(JSGraphQLNamedType namedType, PsiNamedElement propertyElement, Class<? extends PsiNamedElement> propertyClass) {
+        final String propertyName = propertyElement.getName();
+        if(propertyName != null) {
+            namedType.addProperty(propertyElement, propertyName, JSGraphQLPropertyType.getPropertyValueTypeName(propertyElement, propertyClass));
+        }
+    }
+
+    private static void removeNamedType(String typeName, Map<String, JSGraphQLNamedType> nameToTypes) {
+        final JSGraphQLNamedType namedType = nameToTypes.remove(typeName);
+        if(namedType != null) {
+            for (String alias : new String[] {QUERY, ANONYMOUS_QUERY, MUTATION, SUBSCRIPTION}) {
+                nameToTypes.remove(alias, namedType);
             }
         }
     }
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.type;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.ide.validation.JSGraphQLValidator;
+import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedPropertyPsiElement;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedPsiElement;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLNamedTypePsiElement;
+import com.intellij.lang.jsgraphql.psi.JSGraphQLPsiElement;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLSchemaDefinitionReader;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable view of the types and declared fields in a GraphQL schema file at a specific version.
+ * A new snapshot is created for each change to the schema, so readers can use a snapshot without locking.
+ */
+public class JSGraphQLSchemaSnapshot implements JSGraphQLNamedTypeRegistry {
+
+    // versions are unique across schema files, so a version identifies the snapshot it was taken from
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final SchemaWithVersionResponse schemaWithVersion;
+    private final JSGraphQLIntrospectionSchema introspectionSchema;
+    private final Map<String, JSGraphQLNamedType> nameToTypes;
+    // pointers rather than elements, so a snapshot doesn't keep the PSI of a schema file in memory
+    private final Map<String, List<SmartPsiElementPointer<JSGraphQLNamedPsiElement>>> nameToDefinitionNameElements;
+
+    // built with the snapshot, off the EDT, so the annotator never has to read the schema
+    private final JSGraphQLValidator validator;
+
+    /**
+     * @param introspectionSchema the introspection result that the schema was read from, or <code>null</code> if the schema was provided as text
+     * @param previous the snapshot that this snapshot replaces, which provides the validator if the schema text is unchanged
+     */
+    JSGraphQLSchemaSnapshot(SchemaWithVersionResponse schemaWithVersion,
+                            @Nullable JSGraphQLIntrospectionSchema introspectionSchema,
+                            Map<String, JSGraphQLNamedType> nameToTypes,
+                            Map<String, List<SmartPsiElementPointer<JSGraphQLNamedPsiElement>>> nameToDefinitionNameElements,
+                            @Nullable JSGraphQLSchemaSnapshot previous) {
+        this.version = VERSIONS.incrementAndGet();
+        this.schemaWithVersion = schemaWithVersion;
+        this.introspectionSchema = introspectionSchema;
+        this.nameToTypes = Collections.unmodifiableMap(nameToTypes);
+        this.nameToDefinitionNameElements = Collections.unmodifiableMap(nameToDefinitionNameElements);
+        if(previous != null && previous.schemaWithVersion == schemaWithVersion && previous.introspectionSchema == introspectionSchema) {
+            // only the PSI of the schema file changed
+            this.validator = previous.validator;
+        } else {
+            this.validator = createValidator(schemaWithVersion, introspectionSchema);
+        }
+    }
+
+    /**
+     * @return the version of this snapshot, which increases with every change to the schema
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the version of the most recently created snapshot of any schema, which changes whenever a schema changes
+     */
+    public static long getLatestVersion() {
+        return VERSIONS.get();
+    }
+
+    public String getSchemaUrl() {
+        return schemaWithVersion != null ? schemaWithVersion.getUrl() : null;
+    }
+
+    @Override
+    public JSGraphQLNamedType getNamedType(String typeName) {
+        return nameToTypes.get(typeName);
+    }
+
+    /**
+     * Gets the type that declares a property in the schema file
+     * @param propertyPsiElement the property element in the schema file
+     * @return the declaring type, or <code>null</code> if the element isn't a property of a known type
+     */
+    public JSGraphQLNamedType getNamedType(JSGraphQLNamedPropertyPsiElement propertyPsiElement) {
+        // the declaring type is the top level definition that contains the property
+        PsiElement definition = propertyPsiElement;
+        while(definition != null && !(definition.getParent() instanceof PsiFile)) {
+            definition = definition.getParent();
+        }
+        if(!(definition instanceof JSGraphQLPsiElement)) {
+            return null;
+        }
+        final JSGraphQLNamedTypePsiElement namedTypePsiElement = PsiTreeUtil.findChildOfType(definition, JSGraphQLNamedTypePsiElement.class);
+        final JSGraphQLNamedType namedType = namedTypePsiElement != null ? nameToTypes.get(namedTypePsiElement.getName()) : null;
+        if(namedType == null || !definition.equals(namedType.getDefinitionElement())) {
+            return null;
+        }
+        final JSGraphQLPropertyType propertyType = namedType.getProperty(propertyPsiElement.getName());
+        return propertyType != null && propertyPsiElement.equals(propertyType.getPropertyElement()) ? namedType : null;
+    }
+
+    /**
+     * Gets the name elements of the top level definitions in the schema file that have the specified name, in file order
+     * @param name the name of the definition, e.g. 'Foo' for 'type Foo {}'
+     * @return the first named element of each definition that matches the name
+     */
+    public List<JSGraphQLNamedPsiElement> getDefinitionNameElements(String name) {
+        final List<SmartPsiElementPointer<JSGraphQLNamedPsiElement>> pointers = nameToDefinitionNameElements.get(name);
+        if(pointers == null) {
+            return Collections.emptyList();
+        }
+        final List<JSGraphQLNamedPsiElement> nameElements = Lists.newArrayListWithExpectedSize(pointers.size());
+        for (SmartPsiElementPointer<JSGraphQLNamedPsiElement> pointer : pointers) {
+            final JSGraphQLNamedPsiElement nameElement = pointer.getElement();
+            if(nameElement != null) {
+                nameElements.add(nameElement);
+            }
+        }
+        return nameElements;
+    }
+
+    /**
+     * @return a validator for queries against this snapshot of the schema, or <code>null</code> if the schema text isn't available yet
+     */
+    @Nullable
+    public JSGraphQLValidator getValidator() {
+        return validator;
+    }
+
+    Map<String, JSGraphQLNamedType> getNameToTypes() {
+        return nameToTypes;
+    }
+
+    Map<String, List<SmartPsiElementPointer<JSGraphQLNamedPsiElement>>> getNameToDefinitionNameElements() {
+        return nameToDefinitionNameElements;
+    }
+
+    private static JSGraphQLValidator createValidator(SchemaWithVersionResponse schemaWithVersion, JSGraphQLIntrospectionSchema introspectionSchema) {
+        if(introspectionSchema != null) {
+            return new JSGraphQLValidator(introspectionSchema);
+        }
+        final String schema = schemaWithVersion != null ? schemaWithVersion.getSchema() : null;
+        return StringUtils.isBlank(schema) ? null : new JSGraphQLValidator(JSGraphQLSchemaDefinitionReader.read(schema));
+    }
+}
@@ -0,0 +1,525 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.introspection;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a GraphQL introspection query result, e.g. graphql.schema.json, into a {@link JSGraphQLIntrospectionSchema}.
+ * The JSON is streamed token by token without building a document tree, so schemas of tens of megabytes can be read
+ * without the language service and with a memory footprint that is close to the size of the resulting type model.
+ */
+public class JSGraphQLIntrospectionReader {
+
+    private final JsonReader reader;
+    private final CountingInputStream countingStream;
+    private final long length;
+    private final ProgressIndicator indicator;
+
+    // type names and type references repeat throughout a schema, so they're shared between the types that use them
+    private final Map<String, String> strings = Maps.newHashMap();
+
+    private JSGraphQLIntrospectionReader(Reader reader, CountingInputStream countingStream, long length, ProgressIndicator indicator) {
+        this.reader = new JsonReader(reader);
+        this.countingStream = countingStream;
+        this.length = length;
+        this.indicator = indicator;
+    }
+
+    /**
+     * Reads an introspection result
+     * @param inputStream the UTF-8 encoded JSON, either the <code>{"data": {"__schema": ...}}</code> result or the <code>{"__schema": ...}</code> data
+     * @param length the length of the input in bytes, used to report the fraction read, or -1 if unknown
+     * @param indicator optional indicator that is updated with the fraction read, and which cancels reading when canceled
+     */
+    @NotNull
+    public static JSGraphQLIntrospectionSchema read(@NotNull InputStream inputStream, long length, @Nullable ProgressIndicator indicator) throws IOException {
+        final CountingInputStream countingStream = new CountingInputStream(inputStream);
+        final Reader reader = new BufferedReader(new InputStreamReader(countingStream, StandardCharsets.UTF_8));
+        return new JSGraphQLIntrospectionReader(reader, countingStream, length, indicator).readResult();
+    }
+
+    @NotNull
+    public static JSGraphQLIntrospectionSchema read(@NotNull Reader reader) throws IOException {
+        return new JSGraphQLIntrospectionReader(reader, null, -1, null).readResult();
+    }
+
+    // ---- implementation ----
+
+    private JSGraphQLIntrospectionSchema readResult() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = new JSGraphQLIntrospectionSchema();
+        if(!readSchemaFromObject(schema)) {
+            throw new IOException("Expected an introspection result with a '__schema' property");
+        }
+        return schema;
+    }
+
+    /**
+     * Looks for the '__schema' property in the current object, either directly or inside a 'data' property
+     */
+    private boolean readSchemaFromObject(JSGraphQLIntrospectionSchema schema) throws IOException {
+        boolean found = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if("__schema".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readSchema(schema);
+                found = true;
+            } else if("data".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                found |= readSchemaFromObject(schema);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return found;
+    }
+
+    private void readSchema(JSGraphQLIntrospectionSchema schema) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "queryType":
+                    schema.queryType = readTypeName();
+                    break;
+                case "mutationType":
+                    schema.mutationType = readTypeName();
+                    break;
+                case "subscriptionType":
+                    schema.subscriptionType = readTypeName();
+                    break;
+                case "types":
+                    if(beginArray()) {
+                        while (reader.hasNext()) {
+                            final JSGraphQLIntrospectionSchema.Type type = readType();
+                            if(type != null) {
+                                schema.types.put(type.name, type);
+                            }
+                            reportProgress();
+                        }
+                        reader.endArray();
+                    }
+                    break;
+                case "directives":
+                    if(beginArray()) {
+                        while (reader.hasNext()) {
+                            schema.directives.add(readDirective());
+                        }
+                        reader.endArray();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    @Nullable
+    private JSGraphQLIntrospectionSchema.Type readType() throws IOException {
+        // the kind and name typically precede the members, but JSON doesn't guarantee the order so the members are kept until the end
+        String kind = null;
+        String name = null;
+        String description = null;
+        List<JSGraphQLIntrospectionSchema.Field> fields = null;
+        List<String> interfaces = null;
+        List<String> possibleTypes = null;
+        List<JSGraphQLIntrospectionSchema.EnumValue> enumValues = null;
+        List<JSGraphQLIntrospectionSchema.InputValue> inputFields = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "kind":
+                    kind = nextString();
+                    break;
+                case "name":
+                    name = nextSharedString();
+                    break;
+                case "description":
+                    description = nextString();
+                    break;
+                case "fields":
+                    fields = readFields();
+                    break;
+                case "interfaces":
+                    interfaces = readTypeNames();
+                    break;
+                case "possibleTypes":
+                    possibleTypes = readTypeNames();
+                    break;
+                case "enumValues":
+                    enumValues = readEnumValues();
+                    break;
+                case "inputFields":
+                    inputFields = readInputValues();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        final JSGraphQLIntrospectionSchema.Kind typeKind = toKind(kind);
+        if(typeKind == null || name == null) {
+            return null;
+        }
+        final JSGraphQLIntrospectionSchema.Type type = new JSGraphQLIntrospectionSchema.Type(typeKind, name);
+        type.description = description;
+        if(fields != null) {
+            type.fields = fields;
+        }
+        if(interfaces != null) {
+            type.interfaces = interfaces;
+        }
+        if(possibleTypes != null) {
+            type.possibleTypes = possibleTypes;
+        }
+        if(enumValues != null) {
+            type.enumValues = enumValues;
+        }
+        if(inputFields != null) {
+            type.inputFields = inputFields;
+        }
+        return type;
+    }
+
+    private List<JSGraphQLIntrospectionSchema.Field> readFields() throws IOException {
+        if(!beginArray()) {
+            return null;
+        }
+        final List<JSGraphQLIntrospectionSchema.Field> fields = Lists.newArrayList();
+        while (reader.hasNext()) {
+            final JSGraphQLIntrospectionSchema.Field field = new JSGraphQLIntrospectionSchema.Field();
+            boolean deprecated = false;
+            String deprecationReason = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        field.name = nextString();
+                        break;
+                    case "description":
+                        field.description = nextString();
+                        break;
+                    case "type":
+                        field.type = readTypeRef();
+                        break;
+                    case "args":
+                        final List<JSGraphQLIntrospectionSchema.InputValue> args = readInputValues();
+                        if(args != null) {
+                            field.args = args;
+                        }
+                        break;
+                    case "isDeprecated":
+                        deprecated = nextBoolean();
+                        break;
+                    case "deprecationReason":
+                        deprecationReason = nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if(deprecated) {
+                field.deprecationReason = deprecationReason != null ? deprecationReason : "";
+            }
+            fields.add(field);
+        }
+        reader.endArray();
+        return fields;
+    }
+
+    private List<JSGraphQLIntrospectionSchema.InputValue> readInputValues() throws IOException {
+        if(!beginArray()) {
+            return null;
+        }
+        final List<JSGraphQLIntrospectionSchema.InputValue> inputValues = Lists.newArrayList();
+        while (reader.hasNext()) {
+            final JSGraphQLIntrospectionSchema.InputValue inputValue = new JSGraphQLIntrospectionSchema.InputValue();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        inputValue.name = nextString();
+                        break;
+                    case "description":
+                        inputValue.description = nextString();
+                        break;
+                    case "type":
+                        inputValue.type = readTypeRef();
+                        break;
+                    case "defaultValue":
+                        inputValue.defaultValue = nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            inputValues.add(inputValue);
+        }
+        reader.endArray();
+        return inputValues;
+    }
+
+    private List<JSGraphQLIntrospectionSchema.EnumValue> readEnumValues() throws IOException {
+        if(!beginArray()) {
+            return null;
+        }
+        final List<JSGraphQLIntrospectionSchema.EnumValue> enumValues = Lists.newArrayList();
+        while (reader.hasNext()) {
+            final JSGraphQLIntrospectionSchema.EnumValue enumValue = new JSGraphQLIntrospectionSchema.EnumValue();
+            boolean deprecated = false;
+            String deprecationReason = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        enumValue.name = nextString();
+                        break;
+                    case "description":
+                        enumValue.description = nextString();
+                        break;
+                    case "isDeprecated":
+                        deprecated = nextBoolean();
+                        break;
+                    case "deprecationReason":
+                        deprecationReason = nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if(deprecated) {
+                enumValue.deprecationReason = deprecationReason != null ? deprecationReason : "";
+            }
+            enumValues.add(enumValue);
+        }
+        reader.endArray();
+        return enumValues;
+    }
+
+    private JSGraphQLIntrospectionSchema.Directive readDirective() throws IOException {
+        final JSGraphQLIntrospectionSchema.Directive directive = new JSGraphQLIntrospectionSchema.Directive();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    directive.name = nextString();
+                    break;
+                case "description":
+                    directive.description = nextString();
+                    break;
+                case "locations":
+                    if(beginArray()) {
+                        final List<String> locations = Lists.newArrayList();
+                        while (reader.hasNext()) {
+                            locations.add(nextSharedString());
+                        }
+                        reader.endArray();
+                        directive.locations = locations;
+                    }
+                    break;
+                case "args":
+                    final List<JSGraphQLIntrospectionSchema.InputValue> args = readInputValues();
+                    if(args != null) {
+                        directive.args = args;
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return directive;
+    }
+
+    /**
+     * Reads a type reference such as <code>{"kind": "NON_NULL", "ofType": {"kind": "LIST", "ofType": {"kind": "OBJECT", "name": "User"}}}</code> into its GraphQL notation, i.e. '[User]!'
+     */
+    private String readTypeRef() throws IOException {
+        if(reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String kind = null;
+        String name = null;
+        String ofType = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "kind":
+                    kind = nextString();
+                    break;
+                case "name":
+                    name = nextString();
+                    break;
+                case "ofType":
+                    ofType = readTypeRef();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if("NON_NULL".equals(kind)) {
+            return share(ofType + "!");
+        } else if("LIST".equals(kind)) {
+            return share("[" + ofType + "]");
+        }
+        return share(name);
+    }
+
+    private String readTypeName() throws IOException {
+        if(reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if("name".equals(reader.nextName())) {
+                name = nextSharedString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    private List<String> readTypeNames() throws IOException {
+        if(!beginArray()) {
+            return null;
+        }
+        final List<String> names = Lists.newArrayList();
+        while (reader.hasNext()) {
+            final String name = readTypeName();
+            if(name != null) {
+                names.add(name);
+            }
+        }
+        reader.endArray();
+        return names;
+    }
+
+    /**
+     * Begins an array unless the value is null
+     */
+    private boolean beginArray() throws IOException {
+        if(reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        reader.beginArray();
+        return true;
+    }
+
+    private String nextString() throws IOException {
+        if(reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private String nextSharedString() throws IOException {
+        return share(nextString());
+    }
+
+    private boolean nextBoolean() throws IOException {
+        if(reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        return reader.nextBoolean();
+    }
+
+    private String share(String value) {
+        if(value == null) {
+            return null;
+        }
+        final String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    private void reportProgress() {
+        if(indicator != null) {
+            indicator.checkCanceled();
+            if(countingStream != null && length > 0) {
+                indicator.setFraction(Math.min(1.0, (double) countingStream.count / length));
+            }
+        }
+    }
+
+    private static JSGraphQLIntrospectionSchema.Kind toKind(String kind) {
+        if(kind == null) {
+            return null;
+        }
+        switch (kind) {
+            case "SCALAR": return JSGraphQLIntrospectionSchema.Kind.SCALAR;
+            case "OBJECT": return JSGraphQLIntrospectionSchema.Kind.OBJECT;
+            case "INTERFACE": return JSGraphQLIntrospectionSchema.Kind.INTERFACE;
+            case "UNION": return JSGraphQLIntrospectionSchema.Kind.UNION;
+            case "ENUM": return JSGraphQLIntrospectionSchema.Kind.ENUM;
+            case "INPUT_OBJECT": return JSGraphQLIntrospectionSchema.Kind.INPUT_OBJECT;
+            default: return null;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if(b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if(read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.introspection;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The types and directives of a schema as described by a GraphQL introspection query result, e.g. graphql.schema.json.
+ * Type references are kept as their GraphQL type notation, e.g. '[User!]!', rather than as nested objects to keep large schemas compact.
+ * @see JSGraphQLIntrospectionReader
+ */
+public class JSGraphQLIntrospectionSchema {
+
+    private static final Set<String> BUILT_IN_SCALARS = Sets.newHashSet("String", "Boolean", "Int", "Float", "ID");
+    private static final Set<String> BUILT_IN_DIRECTIVES = Sets.newHashSet("skip", "include", "deprecated");
+    private static final String DEFAULT_DEPRECATION_REASON = "No longer supported";
+
+    String queryType;
+    String mutationType;
+    String subscriptionType;
+    final Map<String, Type> types = Maps.newLinkedHashMap();
+    final List<Directive> directives = Lists.newArrayList();
+
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public String getMutationType() {
+        return mutationType;
+    }
+
+    public String getSubscriptionType() {
+        return subscriptionType;
+    }
+
+    /**
+     * @return the types in the schema, including the built-in scalars and introspection types, in the order of the introspection result
+     */
+    public Map<String, Type> getTypes() {
+        return Collections.unmodifiableMap(types);
+    }
+
+    @Nullable
+    public Type getType(@NotNull String name) {
+        return types.get(name);
+    }
+
+    public List<Directive> getDirectives() {
+        return Collections.unmodifiableList(directives);
+    }
+
+    /**
+     * @return whether a type is declared by the schema, as opposed to a built-in scalar or introspection type
+     */
+    public static boolean isSchemaType(@NotNull Type type) {
+        return !type.name.startsWith("__") && !(Kind.SCALAR == type.kind && BUILT_IN_SCALARS.contains(type.name));
+    }
+
+    /**
+     * @return the named type of a type reference, e.g. 'User' for '[User!]!'
+     */
+    @NotNull
+    public static String getNamedType(@NotNull String typeReference) {
+        int start = 0;
+        int end = typeReference.length();
+        while (start < end && typeReference.charAt(start) == '[') {
+            start++;
+        }
+        while (end > start && (typeReference.charAt(end - 1) == ']' || typeReference.charAt(end - 1) == '!')) {
+            end--;
+        }
+        return typeReference.substring(start, end);
+    }
+
+    /**
+     * Prints the schema using the GraphQL schema language.
+     * Each definition is separated by a blank line, and descriptions are printed as comments.
+     */
+    public String toSchemaDefinition() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("schema {\n");
+        appendRootType(sb, "query", queryType);
+        appendRootType(sb, "mutation", mutationType);
+        appendRootType(sb, "subscription", subscriptionType);
+        sb.append("}\n");
+        for (Directive directive : directives) {
+            if(BUILT_IN_DIRECTIVES.contains(directive.name)) {
+                continue;
+            }
+            sb.append('\n');
+            appendDescription(sb, directive.description, "");
+            sb.append("directive @").append(directive.name);
+            appendArguments(sb, directive.args);
+            sb.append(" on ").append(String.join(" | ", directive.locations)).append('\n');
+        }
+        for (Type type : types.values()) {
+            if(!isSchemaType(type)) {
+                continue;
+            }
+            sb.append('\n');
+            appendType(sb, type);
+        }
+        return sb.toString();
+    }
+
+    // ---- implementation ----
+
+    private static void appendRootType(StringBuilder sb, String operation, String typeName) {
+        if(typeName != null) {
+            sb.append("  ").append(operation).append(": ").append(typeName).append('\n');
+        }
+    }
+
+    private static void appendType(StringBuilder sb, Type type) {
+        appendDescription(sb, type.description, "");
+        switch (type.kind) {
+            case SCALAR:
+                sb.append("scalar ").append(type.name).append('\n');
+                return;
+            case UNION:
+                sb.append("union ").append(type.name).append(" = ").append(String.join(" | ", type.possibleTypes)).append('\n');
+                return;
+            case ENUM:
+                sb.append("enum ").append(type.name).append(" {\n");
+                for (EnumValue enumValue : type.enumValues) {
+                    appendDescription(sb, enumValue.description, "  ");
+                    sb.append("  ").append(enumValue.name);
+                    appendDeprecation(sb, enumValue.deprecationReason);
+                    sb.append('\n');
+                }
+                sb.append("}\n");
+                return;
+            case INPUT_OBJECT:
+                sb.append("input ").append(type.name).append(" {\n");
+                for (InputValue inputField : type.inputFields) {
+                    appendDescription(sb, inputField.description, "  ");
+                    sb.append("  ");
+                    appendInputValue(sb, inputField);
+                    sb.append('\n');
+                }
+                sb.append("}\n");
+                return;
+            case INTERFACE:
+                sb.append("interface ").append(type.name);
+                break;
+            default:
+                sb.append("type ").append(type.name);
+                if(!type.interfaces.isEmpty()) {
+                    sb.append(" implements ").append(String.join(", ", type.interfaces));
+                }
+        }
+        sb.append(" {\n");
+        for (Field field : type.fields) {
+            appendDescription(sb, field.description, "  ");
+            sb.append("  ").append(field.name);
+            appendArguments(sb, field.args);
+            sb.append(": ").append(field.type);
+            appendDeprecation(sb, field.deprecationReason);
+            sb.append('\n');
+        }
+        sb.append("}\n");
+    }
+
+    private static void appendArguments(StringBuilder sb, List<InputValue> args) {
+        if(args.isEmpty()) {
+            return;
+        }
+        sb.append('(');
+        for (int i = 0; i < args.size(); i++) {
+            if(i > 0) {
+                sb.append(", ");
+            }
+            appendInputValue(sb, args.get(i));
+        }
+        sb.append(')');
+    }
+
+    private static void appendInputValue(StringBuilder sb, InputValue inputValue) {
+        sb.append(inputValue.name).append(": ").append(inputValue.type);
+        if(inputValue.defaultValue != null) {
+            sb.append(" = ").append(inputValue.defaultValue);
+        }
+    }
+
+    private static void appendDeprecation(StringBuilder sb, String deprecationReason) {
+        if(deprecationReason == null) {
+            return;
+        }
+        sb.append(" @deprecated");
+        if(!deprecationReason.isEmpty() && !DEFAULT_DEPRECATION_REASON.equals(deprecationReason)) {
+            sb.append("(reason: ");
+            appendStringValue(sb, deprecationReason);
+            sb.append(')');
+        }
+    }
+
+    private static void appendDescription(StringBuilder sb, String description, String indent) {
+        if(description == null || description.isEmpty()) {
+            return;
+        }
+        for (String line : description.split("\r?\n", -1)) {
+            sb.append(indent).append('#');
+            if(!line.isEmpty()) {
+                sb.append(' ').append(line);
+            }
+            sb.append('\n');
+        }
+    }
+
+    private static void appendStringValue(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default: sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // ---- model ----
+
+    public enum Kind {
+        SCALAR, OBJECT, INTERFACE, UNION, ENUM, INPUT_OBJECT
+    }
+
+    public static class Type {
+
+        final Kind kind;
+        final String name;
+        String description;
+        List<Field> fields = Collections.emptyList();
+        List<String> interfaces = Collections.emptyList();
+        List<String> possibleTypes = Collections.emptyList();
+        List<EnumValue> enumValues = Collections.emptyList();
+        List<InputValue> inputFields = Collections.emptyList();
+
+        Type(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public List<Field> getFields() {
+            return fields;
+        }
+
+        public List<String> getInterfaces() {
+            return interfaces;
+        }
+
+        public List<String> getPossibleTypes() {
+            return possibleTypes;
+        }
+
+        public List<EnumValue> getEnumValues() {
+            return enumValues;
+        }
+
+        public List<InputValue> getInputFields() {
+            return inputFields;
+        }
+
+        @Nullable
+        public Field getField(String name) {
+            for (Field field : fields) {
+                if(Objects.equals(field.name, name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class Field {
+
+        String name;
+        String description;
+        String type;
+        List<InputValue> args = Collections.emptyList();
+        String deprecationReason;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return the type of the field in GraphQL type notation, e.g. '[User!]!'
+         */
+        public String getType() {
+            return type;
+        }
+
+        public List<InputValue> getArgs() {
+            return args;
+        }
+
+        public String getDeprecationReason() {
+            return deprecationReason;
+        }
+    }
+
+    public static class InputValue {
+
+        String name;
+        String description;
+        String type;
+        String defaultValue;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+    }
+
+    public static class EnumValue {
+
+        String name;
+        String description;
+        String deprecationReason;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getDeprecationReason() {
+            return deprecationReason;
+        }
+    }
+
+    public static class Directive {
+
+        String name;
+        String description;
+        List<String> locations = Collections.emptyList();
+        List<InputValue> args = Collections.emptyList();
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public List<String> getLocations() {
+            return locations;
+        }
+
+        public List<InputValue> getArgs() {
+            return args;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.introspection;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads the types and directives of a schema in a compact binary form, such that the types of a schema can be persisted
+ * between sessions and published without parsing the schema again.
+ * @see JSGraphQLIntrospectionSchema
+ */
+public class JSGraphQLIntrospectionSchemaExternalizer {
+
+    private final DataInput in;
+    private final int maxLength;
+
+    // type names and type references repeat throughout a schema, so they're shared between the types that use them
+    private final Map<String, String> strings = Maps.newHashMap();
+
+    private JSGraphQLIntrospectionSchemaExternalizer(DataInput in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    public static void write(@NotNull JSGraphQLIntrospectionSchema schema, @NotNull DataOutput out) throws IOException {
+        writeString(out, schema.queryType);
+        writeString(out, schema.mutationType);
+        writeString(out, schema.subscriptionType);
+        out.writeInt(schema.types.size());
+        for (JSGraphQLIntrospectionSchema.Type type : schema.types.values()) {
+            out.writeByte(type.kind.ordinal());
+            writeString(out, type.name);
+            writeString(out, type.description);
+            out.writeInt(type.fields.size());
+            for (JSGraphQLIntrospectionSchema.Field field : type.fields) {
+                writeString(out, field.name);
+                writeString(out, field.description);
+                writeString(out, field.type);
+                writeInputValues(out, field.args);
+                writeString(out, field.deprecationReason);
+            }
+            writeStrings(out, type.interfaces);
+            writeStrings(out, type.possibleTypes);
+            out.writeInt(type.enumValues.size());
+            for (JSGraphQLIntrospectionSchema.EnumValue enumValue : type.enumValues) {
+                writeString(out, enumValue.name);
+                writeString(out, enumValue.description);
+                writeString(out, enumValue.deprecationReason);
+            }
+            writeInputValues(out, type.inputFields);
+        }
+        out.writeInt(schema.directives.size());
+        for (JSGraphQLIntrospectionSchema.Directive directive : schema.directives) {
+            writeString(out, directive.name);
+            writeString(out, directive.description);
+            writeStrings(out, directive.locations);
+            writeInputValues(out, directive.args);
+        }
+    }
+
+    /**
+     * Reads a schema that was written by {@link #write(JSGraphQLIntrospectionSchema, DataOutput)}
+     * @param maxLength the maximum length of a string or list, e.g. the size of the file, which guards against reading corrupted data
+     */
+    @NotNull
+    public static JSGraphQLIntrospectionSchema read(@NotNull DataInput in, int maxLength) throws IOException {
+        return new JSGraphQLIntrospectionSchemaExternalizer(in, maxLength).readSchema();
+    }
+
+    // ---- implementation ----
+
+    private JSGraphQLIntrospectionSchema readSchema() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = new JSGraphQLIntrospectionSchema();
+        schema.queryType = readString();
+        schema.mutationType = readString();
+        schema.subscriptionType = readString();
+        final int typeCount = readLength();
+        final JSGraphQLIntrospectionSchema.Kind[] kinds = JSGraphQLIntrospectionSchema.Kind.values();
+        for (int t = 0; t < typeCount; t++) {
+            final int kind = in.readByte();
+            if(kind < 0 || kind >= kinds.length) {
+                throw new IOException("Invalid type kind " + kind);
+            }
+            final JSGraphQLIntrospectionSchema.Type type = new JSGraphQLIntrospectionSchema.Type(kinds[kind], readString());
+            type.description = readString();
+            final int fieldCount = readLength();
+            if(fieldCount > 0) {
+                type.fields = Lists.newArrayListWithCapacity(fieldCount);
+                for (int f = 0; f < fieldCount; f++) {
+                    final JSGraphQLIntrospectionSchema.Field field = new JSGraphQLIntrospectionSchema.Field();
+                    field.name = readString();
+                    field.description = readString();
+                    field.type = readString();
+                    field.args = readInputValues();
+                    field.deprecationReason = readString();
+                    type.fields.add(field);
+                }
+            }
+            type.interfaces = readStrings();
+            type.possibleTypes = readStrings();
+            final int enumValueCount = readLength();
+            if(enumValueCount > 0) {
+                type.enumValues = Lists.newArrayListWithCapacity(enumValueCount);
+                for (int e = 0; e < enumValueCount; e++) {
+                    final JSGraphQLIntrospectionSchema.EnumValue enumValue = new JSGraphQLIntrospectionSchema.EnumValue();
+                    enumValue.name = readString();
+                    enumValue.description = readString();
+                    enumValue.deprecationReason = readString();
+                    type.enumValues.add(enumValue);
+                }
+            }
+            type.inputFields = readInputValues();
+            schema.types.put(type.name, type);
+        }
+        final int directiveCount = readLength();
+        for (int d = 0; d < directiveCount; d++) {
+            final JSGraphQLIntrospectionSchema.Directive directive = new JSGraphQLIntrospectionSchema.Directive();
+            directive.name = readString();
+            directive.description = readString();
+            directive.locations = readStrings();
+            directive.args = readInputValues();
+            schema.directives.add(directive);
+        }
+        return schema;
+    }
+
+    private List<JSGraphQLIntrospectionSchema.InputValue> readInputValues() throws IOException {
+        final int count = readLength();
+        if(count == 0) {
+            return Collections.emptyList();
+        }
+        final List<JSGraphQLIntrospectionSchema.InputValue> inputValues = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            final JSGraphQLIntrospectionSchema.InputValue inputValue = new JSGraphQLIntrospectionSchema.InputValue();
+            inputValue.name = readString();
+            inputValue.description = readString();
+            inputValue.type = readString();
+            inputValue.defaultValue = readString();
+            inputValues.add(inputValue);
+        }
+        return inputValues;
+    }
+
+    private List<String> readStrings() throws IOException {
+        final int count = readLength();
+        if(count == 0) {
+            return Collections.emptyList();
+        }
+        final List<String> values = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    private String readString() throws IOException {
+        final int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        if(length > maxLength) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        final String value = new String(bytes, StandardCharsets.UTF_8);
+        final String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    private int readLength() throws IOException {
+        final int length = in.readInt();
+        if(length < 0 || length > maxLength) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    private static void writeInputValues(DataOutput out, List<JSGraphQLIntrospectionSchema.InputValue> inputValues) throws IOException {
+        out.writeInt(inputValues.size());
+        for (JSGraphQLIntrospectionSchema.InputValue inputValue : inputValues) {
+            writeString(out, inputValue.name);
+            writeString(out, inputValue.description);
+            writeString(out, inputValue.type);
+            writeString(out, inputValue.defaultValue);
+        }
+    }
+
+    private static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,523 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.introspection;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.lexer.JSGraphQLTokenizer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a schema written in the GraphQL schema language, e.g. the schema provided by the language service, into the same model
+ * as introspection results. Descriptions can be string literals or '#' comments. Definitions that can't be read are skipped,
+ * since the schema text is produced by tools rather than edited by hand.
+ * @see JSGraphQLIntrospectionSchema
+ */
+public class JSGraphQLSchemaDefinitionReader {
+
+    private static final String DEFAULT_DEPRECATION_REASON = "No longer supported";
+
+    private final CharSequence text;
+    private final JSGraphQLTokenizer tokenizer;
+    private final JSGraphQLIntrospectionSchema schema = new JSGraphQLIntrospectionSchema();
+
+    private String description;
+    private boolean hasSchemaDefinition;
+
+    private JSGraphQLSchemaDefinitionReader(CharSequence text) {
+        this.text = text;
+        this.tokenizer = new JSGraphQLTokenizer(text);
+    }
+
+    /**
+     * Reads a schema in the GraphQL schema language
+     * @param schemaDefinition the schema, e.g. 'schema { query: Query } type Query { ... }'
+     * @return the types and directives of the schema
+     */
+    @NotNull
+    public static JSGraphQLIntrospectionSchema read(@NotNull CharSequence schemaDefinition) {
+        final JSGraphQLSchemaDefinitionReader reader = new JSGraphQLSchemaDefinitionReader(schemaDefinition);
+        reader.readDocument();
+        return reader.schema;
+    }
+
+    // ---- definitions ----
+
+    private void readDocument() {
+        tokenizer.next();
+        while (tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+            final int start = tokenizer.getStart();
+            readDescription();
+            boolean extension = false;
+            if(tokenizer.isName("extend")) {
+                extension = true;
+                tokenizer.next();
+            }
+            if(tokenizer.getKind() != JSGraphQLTokenizer.Kind.NAME) {
+                tokenizer.next();
+                continue;
+            }
+            final String keyword = tokenizer.getText();
+            tokenizer.next();
+            switch (keyword) {
+                case "schema":
+                    readSchemaDefinition();
+                    break;
+                case "scalar":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.SCALAR, extension);
+                    break;
+                case "type":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.OBJECT, extension);
+                    break;
+                case "interface":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.INTERFACE, extension);
+                    break;
+                case "union":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.UNION, extension);
+                    break;
+                case "enum":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.ENUM, extension);
+                    break;
+                case "input":
+                    readTypeDefinition(JSGraphQLIntrospectionSchema.Kind.INPUT_OBJECT, extension);
+                    break;
+                case "directive":
+                    readDirectiveDefinition();
+                    break;
+                default:
+                    // not part of a schema, e.g. an operation, so skip ahead to the next top level token
+                    skipBlock();
+            }
+            if(tokenizer.getStart() == start) {
+                // make progress on malformed input
+                tokenizer.next();
+            }
+        }
+        if(!hasSchemaDefinition) {
+            // the default root operation types apply when the schema doesn't define them
+            schema.queryType = schema.types.containsKey("Query") ? "Query" : null;
+            schema.mutationType = schema.types.containsKey("Mutation") ? "Mutation" : null;
+            schema.subscriptionType = schema.types.containsKey("Subscription") ? "Subscription" : null;
+        }
+        collectPossibleTypes();
+    }
+
+    private void readSchemaDefinition() {
+        hasSchemaDefinition = true;
+        readDirectives();
+        if(!tokenizer.is("{")) {
+            return;
+        }
+        tokenizer.next();
+        while (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+            final String operation = tokenizer.getText();
+            tokenizer.next();
+            if(!tokenizer.is(":")) {
+                break;
+            }
+            tokenizer.next();
+            final String typeName = readName();
+            if("query".equals(operation)) {
+                schema.queryType = typeName;
+            } else if("mutation".equals(operation)) {
+                schema.mutationType = typeName;
+            } else if("subscription".equals(operation)) {
+                schema.subscriptionType = typeName;
+            }
+        }
+        expect("}");
+    }
+
+    private void readTypeDefinition(JSGraphQLIntrospectionSchema.Kind kind, boolean extension) {
+        final String typeDescription = takeDescription();
+        final String name = readName();
+        if(name == null) {
+            return;
+        }
+        JSGraphQLIntrospectionSchema.Type type = schema.types.get(name);
+        if(type == null || (!extension && type.kind != kind)) {
+            type = new JSGraphQLIntrospectionSchema.Type(kind, name);
+            schema.types.put(name, type);
+        }
+        if(typeDescription != null && !extension) {
+            type.description = typeDescription;
+        }
+        if(tokenizer.isName("implements")) {
+            tokenizer.next();
+            if(tokenizer.is("&")) {
+                tokenizer.next();
+            }
+            while (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                type.interfaces = add(type.interfaces, tokenizer.getText());
+                tokenizer.next();
+                if(tokenizer.is("&")) {
+                    tokenizer.next();
+                }
+            }
+        }
+        readDirectives();
+        switch (kind) {
+            case UNION:
+                if(tokenizer.is("=")) {
+                    tokenizer.next();
+                    if(tokenizer.is("|")) {
+                        tokenizer.next();
+                    }
+                    while (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                        type.possibleTypes = add(type.possibleTypes, tokenizer.getText());
+                        tokenizer.next();
+                        if(!tokenizer.is("|")) {
+                            break;
+                        }
+                        tokenizer.next();
+                    }
+                }
+                break;
+            case ENUM:
+                if(tokenizer.is("{")) {
+                    tokenizer.next();
+                    while (!tokenizer.is("}") && tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                        readDescription();
+                        final JSGraphQLIntrospectionSchema.EnumValue enumValue = new JSGraphQLIntrospectionSchema.EnumValue();
+                        enumValue.description = takeDescription();
+                        enumValue.name = readName();
+                        if(enumValue.name == null) {
+                            tokenizer.next();
+                            continue;
+                        }
+                        enumValue.deprecationReason = readDirectives();
+                        type.enumValues = add(type.enumValues, enumValue);
+                    }
+                    expect("}");
+                }
+                break;
+            case INPUT_OBJECT:
+                if(tokenizer.is("{")) {
+                    tokenizer.next();
+                    while (!tokenizer.is("}") && tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                        final JSGraphQLIntrospectionSchema.InputValue inputField = readInputValue();
+                        if(inputField == null) {
+                            tokenizer.next();
+                            continue;
+                        }
+                        type.inputFields = add(type.inputFields, inputField);
+                    }
+                    expect("}");
+                }
+                break;
+            case OBJECT:
+            case INTERFACE:
+                if(tokenizer.is("{")) {
+                    tokenizer.next();
+                    while (!tokenizer.is("}") && tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                        final JSGraphQLIntrospectionSchema.Field field = readField();
+                        if(field == null) {
+                            tokenizer.next();
+                            continue;
+                        }
+                        type.fields = add(type.fields, field);
+                    }
+                    expect("}");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void readDirectiveDefinition() {
+        final JSGraphQLIntrospectionSchema.Directive directive = new JSGraphQLIntrospectionSchema.Directive();
+        directive.description = takeDescription();
+        if(!expect("@")) {
+            return;
+        }
+        directive.name = readName();
+        if(directive.name == null) {
+            return;
+        }
+        directive.args = readArgumentDefinitions();
+        if(tokenizer.isName("repeatable")) {
+            tokenizer.next();
+        }
+        if(tokenizer.isName("on")) {
+            tokenizer.next();
+            if(tokenizer.is("|")) {
+                tokenizer.next();
+            }
+            while (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                directive.locations = add(directive.locations, tokenizer.getText());
+                tokenizer.next();
+                if(!tokenizer.is("|")) {
+                    break;
+                }
+                tokenizer.next();
+            }
+        }
+        schema.directives.add(directive);
+    }
+
+    // ---- fields and values ----
+
+    private JSGraphQLIntrospectionSchema.Field readField() {
+        readDescription();
+        final JSGraphQLIntrospectionSchema.Field field = new JSGraphQLIntrospectionSchema.Field();
+        field.description = takeDescription();
+        field.name = readName();
+        if(field.name == null) {
+            return null;
+        }
+        field.args = readArgumentDefinitions();
+        if(!expect(":")) {
+            return null;
+        }
+        field.type = readTypeReference();
+        field.deprecationReason = readDirectives();
+        return field;
+    }
+
+    private List<JSGraphQLIntrospectionSchema.InputValue> readArgumentDefinitions() {
+        List<JSGraphQLIntrospectionSchema.InputValue> args = Collections.emptyList();
+        if(tokenizer.is("(")) {
+            tokenizer.next();
+            while (!tokenizer.is(")") && tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+                final JSGraphQLIntrospectionSchema.InputValue arg = readInputValue();
+                if(arg == null) {
+                    tokenizer.next();
+                    continue;
+                }
+                args = add(args, arg);
+            }
+            expect(")");
+        }
+        return args;
+    }
+
+    private JSGraphQLIntrospectionSchema.InputValue readInputValue() {
+        readDescription();
+        final JSGraphQLIntrospectionSchema.InputValue inputValue = new JSGraphQLIntrospectionSchema.InputValue();
+        inputValue.description = takeDescription();
+        inputValue.name = readName();
+        if(inputValue.name == null || !expect(":")) {
+            return null;
+        }
+        inputValue.type = readTypeReference();
+        if(tokenizer.is("=")) {
+            tokenizer.next();
+            final int valueStart = tokenizer.getStart();
+            final int valueEnd = skipValue();
+            inputValue.defaultValue = text.subSequence(valueStart, valueEnd).toString();
+        }
+        readDirectives();
+        return inputValue;
+    }
+
+    /**
+     * Reads a type reference in GraphQL type notation, e.g. '[User!]!'
+     */
+    private String readTypeReference() {
+        final StringBuilder sb = new StringBuilder();
+        int listDepth = 0;
+        while (tokenizer.is("[")) {
+            sb.append('[');
+            listDepth++;
+            tokenizer.next();
+        }
+        final String name = readName();
+        sb.append(name != null ? name : "");
+        if(tokenizer.is("!")) {
+            sb.append('!');
+            tokenizer.next();
+        }
+        while (listDepth > 0 && tokenizer.is("]")) {
+            sb.append(']');
+            listDepth--;
+            tokenizer.next();
+            if(tokenizer.is("!")) {
+                sb.append('!');
+                tokenizer.next();
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the directives at the current position
+     * @return the deprecation reason if the directives include '@deprecated', <code>null</code> otherwise
+     */
+    private String readDirectives() {
+        String deprecationReason = null;
+        while (tokenizer.is("@")) {
+            tokenizer.next();
+            final String name = readName();
+            final boolean deprecated = "deprecated".equals(name);
+            if(deprecated) {
+                deprecationReason = DEFAULT_DEPRECATION_REASON;
+            }
+            if(tokenizer.is("(")) {
+                tokenizer.next();
+                while (tokenizer.getKind() == JSGraphQLTokenizer.Kind.NAME) {
+                    final boolean reason = deprecated && tokenizer.isName("reason");
+                    tokenizer.next();
+                    if(!expect(":")) {
+                        break;
+                    }
+                    if(reason && (tokenizer.getKind() == JSGraphQLTokenizer.Kind.STRING || tokenizer.getKind() == JSGraphQLTokenizer.Kind.BLOCK_STRING)) {
+                        deprecationReason = tokenizer.getStringValue();
+                    }
+                    skipValue();
+                }
+                expect(")");
+            }
+        }
+        return deprecationReason;
+    }
+
+    /**
+     * Skips the value at the current position
+     * @return the end offset of the value
+     */
+    private int skipValue() {
+        int end = tokenizer.getEnd();
+        if(tokenizer.is("[") || tokenizer.is("{")) {
+            int depth = 0;
+            do {
+                if(tokenizer.is("[") || tokenizer.is("{")) {
+                    depth++;
+                } else if(tokenizer.is("]") || tokenizer.is("}")) {
+                    depth--;
+                }
+                end = tokenizer.getEnd();
+                tokenizer.next();
+            } while (depth > 0 && tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF);
+            return end;
+        }
+        if(tokenizer.is("$")) {
+            tokenizer.next();
+            end = tokenizer.getEnd();
+        }
+        tokenizer.next();
+        return end;
+    }
+
+    private void skipBlock() {
+        int depth = 0;
+        while (tokenizer.getKind() != JSGraphQLTokenizer.Kind.EOF) {
+            if(tokenizer.is("{")) {
+                depth++;
+            } else if(tokenizer.is("}")) {
+                if(--depth <= 0) {
+                    tokenizer.next();
+                    return;
+                }
+            }
+            tokenizer.next();
+        }
+    }
+
+    // ---- tokens ----
+
+    /**
+     * Reads a string description, or the '#' comments directly preceding the current token if there is no string description
+     */
+    private void readDescription() {
+        if(tokenizer.getKind() == JSGraphQLTokenizer.Kind.STRING || tokenizer.getKind() == JSGraphQLTokenizer.Kind.BLOCK_STRING) {
+            description = tokenizer.getStringValue();
+            tokenizer.next();
+        } else {
+            description = readCommentDescription(tokenizer.getStart());
+        }
+    }
+
+    private String takeDescription() {
+        final String result = description;
+        description = null;
+        return result;
+    }
+
+    private String readCommentDescription(int tokenStart) {
+        // walk back over the lines before the token as long as they're comments
+        final List<String> lines = Lists.newArrayList();
+        int lineEnd = lineStart(tokenStart);
+        if(!isBlank(lineEnd, tokenStart)) {
+            // the token isn't the first on its line
+            return null;
+        }
+        while (lineEnd > 0) {
+            final int previousLineEnd = lineEnd - 1;
+            final int previousLineStart = lineStart(previousLineEnd);
+            int hash = previousLineStart;
+            while (hash < previousLineEnd && (text.charAt(hash) == ' ' || text.charAt(hash) == '\t')) {
+                hash++;
+            }
+            if(hash >= previousLineEnd || text.charAt(hash) != '#') {
+                break;
+            }
+            String line = text.subSequence(hash + 1, previousLineEnd).toString();
+            if(line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            lines.add(0, line.startsWith(" ") ? line.substring(1) : line);
+            lineEnd = previousLineStart;
+        }
+        return lines.isEmpty() ? null : String.join("\n", lines);
+    }
+
+    private int lineStart(int offset) {
+        int start = offset;
+        while (start > 0 && text.charAt(start - 1) != '\n') {
+            start--;
+        }
+        return start;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if(!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readName() {
+        if(tokenizer.getKind() != JSGraphQLTokenizer.Kind.NAME) {
+            return null;
+        }
+        final String name = tokenizer.getText();
+        tokenizer.next();
+        return name;
+    }
+
+    private boolean expect(String punctuator) {
+        if(tokenizer.is(punctuator)) {
+            tokenizer.next();
+            return true;
+        }
+        return false;
+    }
+
+    private void collectPossibleTypes() {
+        for (JSGraphQLIntrospectionSchema.Type type : schema.types.values()) {
+            for (String interfaceName : type.interfaces) {
+                final JSGraphQLIntrospectionSchema.Type interfaceType = schema.types.get(interfaceName);
+                if(interfaceType != null && interfaceType.kind == JSGraphQLIntrospectionSchema.Kind.INTERFACE && type.kind == JSGraphQLIntrospectionSchema.Kind.OBJECT) {
+                    interfaceType.possibleTypes = add(interfaceType.possibleTypes, type.name);
+                }
+            }
+        }
+    }
+
+    private static <T> List<T> add(List<T> list, T value) {
+        // the model starts out with shared empty lists
+        final List<T> result = list.isEmpty() ? Lists.newArrayListWithExpectedSize(4) : list;
+        result.add(value);
+        return result;
+    }
+}
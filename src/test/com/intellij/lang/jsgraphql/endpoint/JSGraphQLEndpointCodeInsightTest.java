@@ -156,6 +156,14 @@ public class JSGraphQLEndpointCodeInsightTest extends LightCodeInsightFixtureTes
 		doTestCompletion("CompletionImportFiles.graphqle", Lists.newArrayList("folder/import1", "import2", "importable"));
 	}
 
+	@Test
+	public void testCompletionAutoImport() {
+		// extended completion suggests types in files that aren't imported, and imports the file on selection
+		myFixture.configureByFiles("CompletionAutoImport.graphqle");
+		myFixture.complete(CompletionType.BASIC, 2);
+		myFixture.checkResultByFile("CompletionAutoImportExpectedResult.graphqle");
+	}
+
 	private void doTestCompletion(String sourceFile, List<String> expectedCompletions) {
 		myFixture.configureByFiles(sourceFile);
 		myFixture.complete(CompletionType.BASIC, 1);
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.endpoint.ide.project;
+
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.languageservice.api.SchemaWithVersionResponse;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+public class JSGraphQLEndpointSchemaCompilerTest extends LightCodeInsightFixtureTestCase {
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        myFixture.addFileToProject(JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON, "{\n" +
+                "    \"schema\": {\n" +
+                "        \"endpoint\": {\n" +
+                "            \"entry\" : \"main.graphqle\"\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+    }
+
+    public void testCompile() {
+        myFixture.addFileToProject("main.graphqle", "import \"types\"\n" +
+                "\n" +
+                "schema {\n" +
+                "    query: RootQuery\n" +
+                "}\n" +
+                "\n" +
+                "# The root query\n" +
+                "type RootQuery {\n" +
+                "    @DataFetcher(\"user\")\n" +
+                "    user(id: ID!): User\n" +
+                "    search(text: String, kind: Kind): [ SearchResult ]\n" +
+                "}\n");
+        myFixture.addFileToProject("types.graphqle", "scalar Date\n" +
+                "enum Kind { USER POST }\n" +
+                "interface Node { id: ID! }\n" +
+                "type User implements Node {\n" +
+                "    id: ID!\n" +
+                "    # When the user signed up\n" +
+                "    born: Date\n" +
+                "}\n" +
+                "type Post implements Node { id: ID! author: User }\n" +
+                "union SearchResult = User | Post\n" +
+                "input UserInput { name: String! }\n" +
+                "type RootQuery { ignored: String }\n");
+
+        final SchemaWithVersionResponse schema = JSGraphQLEndpointSchemaCompiler.getService(getProject()).compile();
+        assertNotNull(schema);
+        assertEquals("RootQuery", schema.getQueryType());
+        assertNull(schema.getMutationType());
+        assertEquals("schema {\n" +
+                "  query: RootQuery\n" +
+                "}\n" +
+                "\n" +
+                "# The root query\n" +
+                "type RootQuery {\n" +
+                "  user(id: ID!): User\n" +
+                "  search(text: String, kind: Kind): [SearchResult]\n" +
+                "}\n" +
+                "\n" +
+                "scalar Date\n" +
+                "\n" +
+                "enum Kind {\n" +
+                "  USER\n" +
+                "  POST\n" +
+                "}\n" +
+                "\n" +
+                "interface Node {\n" +
+                "  id: ID!\n" +
+                "}\n" +
+                "\n" +
+                "type User implements Node {\n" +
+                "  id: ID!\n" +
+                "  # When the user signed up\n" +
+                "  born: Date\n" +
+                "}\n" +
+                "\n" +
+                "type Post implements Node {\n" +
+                "  id: ID!\n" +
+                "  author: User\n" +
+                "}\n" +
+                "\n" +
+                "union SearchResult = User | Post\n" +
+                "\n" +
+                "input UserInput {\n" +
+                "  name: String!\n" +
+                "}\n" +
+                "\n", schema.getSchema());
+    }
+
+    public void testOnlyEditedFilesAreRecompiled() {
+        final int fileCount = 20;
+        final int typesPerFile = 50;
+        final StringBuilder main = new StringBuilder();
+        for (int f = 0; f < fileCount; f++) {
+            main.append("import \"types").append(f).append("\"\n");
+        }
+        main.append("type Query {\n");
+        for (int f = 0; f < fileCount; f++) {
+            main.append("    type").append(f).append(": Type").append(f).append("_0\n");
+        }
+        main.append("}\n");
+        myFixture.addFileToProject("main.graphqle", main.toString());
+        PsiFile editedFile = null;
+        for (int f = 0; f < fileCount; f++) {
+            final StringBuilder types = new StringBuilder();
+            for (int t = 0; t < typesPerFile; t++) {
+                types.append("# Type ").append(t).append(" of file ").append(f).append("\n");
+                types.append("type Type").append(f).append('_').append(t).append(" {\n");
+                for (int i = 0; i < 10; i++) {
+                    types.append("    field").append(i).append("(arg: String): ").append(i % 3 == 0 ? "Type" + f + "_" + ((t + 1) % typesPerFile) : "String").append('\n');
+                }
+                types.append("}\n");
+            }
+            final PsiFile file = myFixture.addFileToProject("types" + f + ".graphqle", types.toString());
+            if (f == 0) {
+                editedFile = file;
+            }
+        }
+
+        final JSGraphQLEndpointSchemaCompiler compiler = JSGraphQLEndpointSchemaCompiler.getService(getProject());
+        final int compiledBefore = compiler.getCompiledFileCount();
+        final Ref<SchemaWithVersionResponse> coldRef = new Ref<>();
+        // a single attempt, since a second run would be served from the cache and only measure a warm compile
+        PlatformTestUtil.startPerformanceTest("Compiling " + fileCount * typesPerFile + " endpoint types in " + (fileCount + 1) + " files", 5000,
+                () -> coldRef.set(compiler.compile())).cpuBound().attempts(1).assertTiming();
+        final SchemaWithVersionResponse cold = coldRef.get();
+        assertNotNull(cold);
+        assertEquals("Query", cold.getQueryType());
+        assertEquals(fileCount + 1, compiler.getCompiledFileCount() - compiledBefore);
+
+        final PsiFile fileToEdit = editedFile;
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(fileToEdit);
+            assertNotNull(document);
+            document.insertString(document.getTextLength(), "type Added { id: ID }\n");
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+
+        final Ref<SchemaWithVersionResponse> warmRef = new Ref<>();
+        PlatformTestUtil.startPerformanceTest("Recompiling " + fileCount * typesPerFile + " endpoint types with one edited file", 500,
+                () -> warmRef.set(compiler.compile())).cpuBound().attempts(1).assertTiming();
+        final SchemaWithVersionResponse warm = warmRef.get();
+        assertNotNull(warm);
+        assertTrue(warm.getSchema().contains("type Added {\n  id: ID\n}\n"));
+        assertEquals(fileCount + 2, compiler.getCompiledFileCount() - compiledBefore);
+    }
+}
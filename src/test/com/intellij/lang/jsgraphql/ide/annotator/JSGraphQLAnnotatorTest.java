@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.annotator;
+
+import com.intellij.lang.jsgraphql.ide.injection.JSGraphQLLanguageInjectionUtil;
+import com.intellij.lang.jsgraphql.languageservice.api.Annotation;
+import com.intellij.lang.jsgraphql.languageservice.api.AnnotationsResponse;
+import com.intellij.lang.jsgraphql.languageservice.api.Pos;
+import junit.framework.TestCase;
+
+public class JSGraphQLAnnotatorTest extends TestCase {
+
+    public void testLanguageServiceAnnotationsAreKept() {
+        final AnnotationsResponse languageServiceAnnotations = annotations("Syntax Error GraphQL request (1:9) Expected Name, found }");
+        final AnnotationsResponse annotations = JSGraphQLAnnotator.withValidationFallback(languageServiceAnnotations, null, () -> {
+            fail("the in-process validator must not replace the language service annotations");
+            return null;
+        });
+        assertSame(languageServiceAnnotations, annotations);
+        assertEquals(1, annotations.getAnnotations().size());
+        assertEquals("Syntax Error GraphQL request (1:9) Expected Name, found }", annotations.getAnnotations().get(0).getMessage());
+    }
+
+    public void testValidatesInProcessWithoutLanguageService() {
+        final AnnotationsResponse validatorAnnotations = annotations("Cannot query field \"foo\" on type \"Query\".");
+        assertSame(validatorAnnotations, JSGraphQLAnnotator.withValidationFallback(null, null, () -> validatorAnnotations));
+        assertNull(JSGraphQLAnnotator.withValidationFallback(null, null, () -> null));
+    }
+
+    public void testRelayIsOnlyValidatedByLanguageService() {
+        assertNull(JSGraphQLAnnotator.withValidationFallback(null, JSGraphQLLanguageInjectionUtil.RELAY_ENVIRONMENT, () -> {
+            fail("Relay templates must not be validated in-process");
+            return null;
+        }));
+    }
+
+    private static AnnotationsResponse annotations(String message) {
+        final AnnotationsResponse response = new AnnotationsResponse();
+        response.getAnnotations().add(new Annotation(message, "error", new Pos(0, 8), new Pos(0, 9)));
+        return response;
+    }
+}
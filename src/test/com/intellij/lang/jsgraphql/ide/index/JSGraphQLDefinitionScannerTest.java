@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.index;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JSGraphQLDefinitionScannerTest extends TestCase {
+
+    public void testGraphQLDefinitions() {
+        final String text = "# fragment Commented on User\n" +
+                "query Foo($id: ID, $type: String = \"fragment \\\" {\") { node(id: $id) { ...Bar } }\n" +
+                "fragment Bar on Node { id type { name } }\n" +
+                "{ anonymous }\n" +
+                "\"\"\"\ntype Described \\\"\"\" fragment Escaped on User\n\"\"\"\n" +
+                "type User implements Node { id: ID! }\n" +
+                "extend type User { name: String }\n" +
+                "extend schema { query: Query }\n" +
+                "enum Color { RED }\n";
+        final List<JSGraphQLDefinition> definitions = JSGraphQLDefinitionScanner.scanGraphQL(text);
+        assertEquals(5, definitions.size());
+        assertDefinition(text, definitions.get(0), "Foo", JSGraphQLDefinition.Kind.Query, null);
+        assertDefinition(text, definitions.get(1), "Bar", JSGraphQLDefinition.Kind.Fragment, "Node");
+        assertTrue(definitions.get(2).isAnonymous());
+        assertDefinition(text, definitions.get(3), "User", JSGraphQLDefinition.Kind.ObjectType, null);
+        assertDefinition(text, definitions.get(4), "Color", JSGraphQLDefinition.Kind.Enum, null);
+    }
+
+    public void testFragmentSpreads() {
+        final String text = "query Foo($input: Input = { a: 1 }) { node { ...Bar ... on User { ...Baz } ... @include(if: true) { ...Bar } } }\n" +
+                "fragment Bar on Node { id ...Baz }\n" +
+                "fragment Baz on User { name }\n" +
+                "{ viewer { ...Bar } }\n" +
+                "mutation { like { ...Baz } }\n";
+        final List<JSGraphQLDefinition> definitions = JSGraphQLDefinitionScanner.scanGraphQL(text);
+        assertEquals(5, definitions.size());
+        assertEquals(Arrays.asList("Bar", "Baz"), definitions.get(0).getFragmentSpreads());
+        assertEquals(Collections.singletonList("Baz"), definitions.get(1).getFragmentSpreads());
+        assertEquals(Collections.emptyList(), definitions.get(2).getFragmentSpreads());
+        assertEquals(JSGraphQLDefinition.Kind.Query, definitions.get(3).getKind());
+        assertTrue(definitions.get(3).isAnonymous());
+        assertEquals(Collections.singletonList("Bar"), definitions.get(3).getFragmentSpreads());
+        assertEquals(JSGraphQLDefinition.Kind.Mutation, definitions.get(4).getKind());
+        assertEquals(Collections.singletonList("Baz"), definitions.get(4).getFragmentSpreads());
+    }
+
+    public void testJavaScriptTemplates() {
+        final String text = "// graphql`fragment Commented on User`\n" +
+                "const ignored = `fragment Plain on User`;\n" +
+                "const fragment = graphql`\n" +
+                "  fragment Foo_user on User { id ...${Other.getFragment('user')} }\n" +
+                "`;\n" +
+                "const relay = Relay.QL`fragment on User { id }`;\n" +
+                "const query = client.gql`query Bar { viewer { ...Foo_user } }`;\n";
+        final List<JSGraphQLDefinition> definitions = JSGraphQLDefinitionScanner.scanJavaScript(text);
+        assertEquals(2, definitions.size());
+        assertDefinition(text, definitions.get(0), "Foo_user", JSGraphQLDefinition.Kind.Fragment, "User");
+        assertDefinition(text, definitions.get(1), "Bar", JSGraphQLDefinition.Kind.Query, null);
+        assertEquals(Collections.emptyList(), definitions.get(0).getFragmentSpreads());
+        assertEquals(Collections.singletonList("Foo_user"), definitions.get(1).getFragmentSpreads());
+    }
+
+    private static void assertDefinition(String text, JSGraphQLDefinition definition, String name, JSGraphQLDefinition.Kind kind, String typeCondition) {
+        assertEquals(name, definition.getName());
+        assertEquals(kind, definition.getKind());
+        assertEquals(typeCondition, definition.getTypeCondition());
+        assertEquals(name, text.substring(definition.getOffset(), definition.getOffset() + name.length()));
+    }
+}
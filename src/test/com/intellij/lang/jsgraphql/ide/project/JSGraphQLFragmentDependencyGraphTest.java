@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project;
+
+import com.google.common.collect.Sets;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class JSGraphQLFragmentDependencyGraphTest extends LightCodeInsightFixtureTestCase {
+
+    public void testUpdatesEditedAndDeletedFiles() {
+        final PsiFile fragments = myFixture.addFileToProject("fragments.graphql", "fragment A on User { id ...B }\n" +
+                "fragment B on User { name }\n" +
+                "fragment C on User { id }\n");
+        final PsiFile query = myFixture.addFileToProject("query.graphql", "query Viewer { viewer { ...A } }\n");
+
+        final JSGraphQLFragmentDependencyGraph graph = JSGraphQLFragmentDependencyGraph.getService(getProject());
+        assertEquals(Sets.newHashSet("A", "B"), graph.getTransitiveDependencies(Collections.singleton("A")));
+        assertEquals(Collections.singleton(fragments.getVirtualFile()), graph.getDependentFiles("B"));
+        assertEquals(Collections.singleton(query.getVirtualFile()), graph.getDependentFiles("A"));
+        assertEquals(Collections.emptySet(), graph.getDependentFiles("C"));
+
+        // an edit in the editor is picked up without rebuilding the graph
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(fragments);
+            assertNotNull(document);
+            document.replaceString(0, document.getTextLength(), "fragment A on User { id ...C }\n" +
+                    "fragment B on User { name }\n" +
+                    "fragment C on User { id ...B }\n");
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+        assertEquals(Sets.newHashSet("A", "B", "C"), graph.getTransitiveDependencies(Collections.singleton("A")));
+        assertEquals(Collections.singleton(fragments.getVirtualFile()), graph.getDependentFiles("C"));
+
+        // deleting a file removes its spreads
+        final VirtualFile queryFile = query.getVirtualFile();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            try {
+                queryFile.delete(this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertEquals(Collections.emptySet(), graph.getDependentFiles("A"));
+        assertEquals(Collections.singleton(fragments.getVirtualFile()), graph.getDependentFiles("B"));
+    }
+
+    public void testDependentOperationsAndCycles() {
+        myFixture.addFileToProject("fragments.graphql", "fragment A on User { id ...B }\n" +
+                "fragment B on User { name ...C }\n" +
+                "fragment C on User { friends { ...B } }\n" +
+                "fragment D on User { ...D }\n");
+        myFixture.addFileToProject("queries.graphql", "query Viewer { viewer { ...A } }\n" +
+                "query Friends { viewer { ...C } }\n" +
+                "{ viewer { ...B } }\n");
+
+        final JSGraphQLFragmentDependencyGraph graph = JSGraphQLFragmentDependencyGraph.getService(getProject());
+        assertEquals(Sets.newHashSet("Viewer", "Friends"), graph.getDependentOperations("B"));
+        assertEquals(Collections.singleton("Viewer"), graph.getDependentOperations("A"));
+        assertEquals(Collections.emptySet(), graph.getDependentOperations("D"));
+
+        assertEquals(Arrays.asList("B", "C"), graph.findCycle("B"));
+        assertEquals(Arrays.asList("C", "B"), graph.findCycle("C"));
+        assertEquals(Collections.singletonList("D"), graph.findCycle("D"));
+        assertEquals(Collections.emptyList(), graph.findCycle("A"));
+    }
+}
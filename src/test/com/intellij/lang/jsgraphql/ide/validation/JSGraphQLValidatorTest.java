@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.validation;
+
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLSchemaDefinitionReader;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JSGraphQLValidatorTest extends TestCase {
+
+    private static final String SCHEMA = "schema { query: Query mutation: Mutation }\n" +
+            "scalar Date\n" +
+            "enum Color { RED BLUE }\n" +
+            "interface Node { id: ID! }\n" +
+            "type User implements Node { id: ID! name: String friends(first: Int = 10, color: Color): [User!]! born: Date }\n" +
+            "type Post implements Node { id: ID! title(upper: Boolean!): String author: User }\n" +
+            "union SearchResult = User | Post\n" +
+            "input UserInput { name: String! color: Color tags: [String!] }\n" +
+            "type Query { node(id: ID!): Node user(id: ID!): User search(text: String): [SearchResult] }\n" +
+            "type Mutation { createUser(input: UserInput!): User }\n" +
+            "directive @cached(ttl: Int!) on FIELD\n";
+
+    private JSGraphQLValidator validator;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        validator = new JSGraphQLValidator(JSGraphQLSchemaDefinitionReader.read(SCHEMA));
+    }
+
+    public void testValidDocument() {
+        assertErrors("query Q($id: ID!, $first: Int) {\n" +
+                "  user(id: $id) { ...UserFields friends(first: $first, color: RED) { name } }\n" +
+                "  node(id: \"1\") { id ... on Post { title(upper: true) } }\n" +
+                "  search(text: \"x\") { __typename ... on User { born } }\n" +
+                "}\n" +
+                "fragment UserFields on User { id name @include(if: true) @cached(ttl: 60) @client }\n" +
+                "mutation M { createUser(input: {name: \"a\", color: BLUE, tags: \"single\"}) { id } }");
+    }
+
+    public void testUnknownFieldsAndTypes() {
+        assertErrors("{ user(id: 1) { nickname } node(id: 1) { ... on Unknown { id } } }",
+                "Cannot query field \"nickname\" on type \"User\".",
+                "Unknown type \"Unknown\".");
+        assertErrors("fragment F on Color { id } { search { id } }",
+                "Fragment \"F\" cannot condition on non composite type \"Color\".",
+                "Cannot query field \"id\" on type \"SearchResult\".");
+    }
+
+    public void testSelections() {
+        assertErrors("{ user(id: 1) { name { length } friends } }",
+                "Field \"name\" must not have a selection since type \"String\" has no subfields.",
+                "Field \"friends\" of type \"[User!]!\" must have a selection of subfields. Did you mean \"friends { ... }\"?");
+    }
+
+    public void testArguments() {
+        assertErrors("{ user { id } node(id: 1, limit: 2) { id } }",
+                "Field \"user\" argument \"id\" of type \"ID!\" is required but not provided.",
+                "Unknown argument \"limit\" on field \"node\" of type \"Query\".");
+        assertErrors("{ user(id: 1.5) { friends(first: \"2\", color: GREEN) { id } } }",
+                "Argument \"id\" has invalid value 1.5: expected type \"ID!\".",
+                "Argument \"first\" has invalid value \"2\": expected type \"Int\".",
+                "Argument \"color\" has invalid value GREEN: expected type \"Color\".");
+        assertErrors("mutation { a: createUser(input: {color: RED}) { id } b: createUser(input: {name: \"x\", age: 1}) { id } c: createUser(input: null) { id } }",
+                "Argument \"input\" has invalid value {color: RED}: missing required field \"name\" of type \"String!\".",
+                "Argument \"input\" has invalid value {name: \"x\", age: 1}: unknown field \"age\" on input type \"UserInput\".",
+                "Argument \"input\" has invalid value null: expected type \"UserInput!\", found null.");
+        assertErrors("{ user(id: 1) { id @cached } }",
+                "Directive \"@cached\" argument \"ttl\" of type \"Int!\" is required but not provided.");
+    }
+
+    public void testFragmentSpreads() {
+        assertErrors("{ user(id: 1) { ...PostFields ... on Post { id } ...NodeFields ...Other } }\n" +
+                        "fragment PostFields on Post { id }\n" +
+                        "fragment NodeFields on Node { id }",
+                "Fragment \"PostFields\" cannot be spread here as objects of type \"User\" can never be of type \"Post\".",
+                "Fragment cannot be spread here as objects of type \"User\" can never be of type \"Post\".",
+                "Unknown fragment \"Other\".");
+        // fragments in other files are resolved by the caller
+        final List<JSGraphQLValidationError> errors = validator.validate("{ user(id: 1) { ...External } }", name -> "External".equals(name) ? "Post" : null);
+        assertEquals("Fragment \"External\" cannot be spread here as objects of type \"User\" can never be of type \"Post\".", errors.get(0).getMessage());
+        assertTrue(validator.validate("{ user(id: 1) { ...External } }", null).isEmpty());
+    }
+
+    public void testFragmentCycles() {
+        assertErrors("fragment A on User { friends { ...B } }\n" +
+                        "fragment B on User { ...A }\n" +
+                        "fragment C on User { ...C }\n" +
+                        "{ user(id: 1) { ...A ...C } }",
+                "Cannot spread fragment \"A\" within itself via \"B\".",
+                "Cannot spread fragment \"C\" within itself.");
+        final String text = "fragment C on User { id ...C }";
+        final JSGraphQLValidationError error = validator.validate(text, null).get(0);
+        assertEquals("C", text.substring(error.getStartOffset(), error.getEndOffset()));
+
+        // cycles through fragments in other files are found by the project fragment graph
+        final List<JSGraphQLValidationError> errors = validator.validate("fragment A on User { friends { ...External } }", fragmentName -> "User",
+                fragmentName -> "A".equals(fragmentName) ? Arrays.asList("A", "External") : Collections.emptyList());
+        assertEquals(1, errors.size());
+        assertEquals("Cannot spread fragment \"A\" within itself via \"External\".", errors.get(0).getMessage());
+
+        assertEquals(Arrays.asList("B", "C", "D"), JSGraphQLValidator.findFragmentCycle("B", fragmentName -> {
+            switch (fragmentName) {
+                case "B": return Arrays.asList("A", "C");
+                case "C": return Collections.singletonList("D");
+                case "D": return Arrays.asList("C", "B");
+                default: return Collections.emptyList();
+            }
+        }));
+        // a cycle that is only reachable from the fragment doesn't go through it
+        assertEquals(Collections.emptyList(), JSGraphQLValidator.findFragmentCycle("A", fragmentName -> Collections.singletonList("B")));
+    }
+
+    public void testOverlappingFields() {
+        final String useAliases = ". Use different aliases on the fields to fetch both if this was intentional.";
+        assertErrors("{ user(id: 1) { name: id name } }",
+                "Fields \"name\" conflict because \"id\" and \"name\" are different fields" + useAliases);
+        assertErrors("{ user(id: 1) { friends(first: 1) { id } friends(first: 2) { id } friends(first: 1,) { id } } }",
+                "Fields \"friends\" conflict because they have differing arguments" + useAliases,
+                "Fields \"friends\" conflict because they have differing arguments" + useAliases);
+        // fields on different object types are only checked for compatible types
+        assertErrors("{ node(id: 1) { ... on User { title: name } ... on Post { title(upper: true) } } search { ... on User { id: born } ... on Post { id } } }",
+                "Fields \"id\" conflict because they return conflicting types \"Date\" and \"ID!\"" + useAliases);
+        // sub-selections and fragments are merged
+        assertErrors("{ user(id: 1) { ...F friends { id: name } } }\n" +
+                        "fragment F on User { friends { id } }",
+                "Fields \"friends\" conflict because subfields \"id\" conflict because \"name\" and \"id\" are different fields" + useAliases);
+        assertErrors("{ user(id: 1) { ...F ...G } }\n" +
+                        "fragment F on User { name }\n" +
+                        "fragment G on User { name: id }",
+                "Fields \"name\" conflict because \"name\" and \"id\" are different fields" + useAliases);
+    }
+
+    public void testVariables() {
+        assertErrors("query Q($id: ID, $unused: Int, $input: User) { user(id: $id) { ...F } }\n" +
+                        "fragment F on User { friends(first: $first) { id } }",
+                "Variable \"$input\" cannot be non-input type \"User\".",
+                "Variable \"$id\" of type \"ID\" used in position expecting type \"ID!\".",
+                "Variable \"$first\" is not defined by operation \"Q\".",
+                "Variable \"$unused\" is never used in operation \"Q\".",
+                "Variable \"$input\" is never used in operation \"Q\".");
+        assertErrors("query Q($id: ID = \"1\", $first: Int = 10) { user(id: $id) { friends(first: $first) { id } } }");
+    }
+
+    public void testDocument() {
+        assertErrors("query Q { user(id: 1) { id } } query Q { user(id: 2) { id } } { user(id: 3) { id } }",
+                "There can be only one operation named \"Q\".",
+                "This anonymous operation must be the only defined operation.");
+        assertErrors("{ user(id: 1) { id }", "Syntax Error: Expected Name, found <EOF>.");
+        assertErrors("{ user(id: 1) { id } } }", "Syntax Error: Unexpected \"}\".");
+    }
+
+    public void testOffsets() {
+        final String text = "{ user(id: 1) { nickname } }";
+        final JSGraphQLValidationError error = validator.validate(text, null).get(0);
+        assertEquals("nickname", text.substring(error.getStartOffset(), error.getEndOffset()));
+    }
+
+    public void testUnchangedDefinitionsAreReused() {
+        final String first = "query A { user(id: 1) { nickname } }\n";
+        final String second = "query B { user(id: 2) { id } }\n";
+        assertEquals(1, validator.validate(first + second, null).size());
+        assertEquals(2, validator.getValidatedDefinitionCount());
+
+        // moving the erroneous operation reuses its result with updated offsets
+        final String text = second + "\n" + first;
+        final List<JSGraphQLValidationError> errors = validator.validate(text, null);
+        assertEquals(2, validator.getValidatedDefinitionCount());
+        assertEquals("nickname", text.substring(errors.get(0).getStartOffset(), errors.get(0).getEndOffset()));
+
+        // an edit only validates the edited operation
+        validator.validate(second + first.replace("nickname", "name"), null);
+        assertEquals(3, validator.getValidatedDefinitionCount());
+    }
+
+    public void testThroughputOnLargeSchema() {
+        final int typeCount = 2000;
+        final StringBuilder schema = new StringBuilder("type Query {\n");
+        for (int i = 0; i < typeCount; i++) {
+            schema.append("  type").append(i).append("(id: ID!, first: Int = 10): Type").append(i).append("\n");
+        }
+        schema.append("}\n");
+        for (int i = 0; i < typeCount; i++) {
+            schema.append("type Type").append(i).append(" {\n");
+            for (int f = 0; f < 20; f++) {
+                schema.append("  field").append(f).append("(arg: String): ").append(f % 4 == 0 ? "Type" + ((i + 1) % typeCount) : "String").append("\n");
+            }
+            schema.append("}\n");
+        }
+        final JSGraphQLValidator largeSchemaValidator = new JSGraphQLValidator(JSGraphQLSchemaDefinitionReader.read(schema));
+
+        final int operationCount = 200;
+        final List<String> operations = new ArrayList<>();
+        for (int i = 0; i < operationCount; i++) {
+            final int type = i * 7 % typeCount;
+            operations.add("query Q" + i + "($id: ID!) {\n" +
+                    "  type" + type + "(id: $id, first: 5) {\n" +
+                    "    field0 { field1 field2(arg: \"x\") field4 { field3 field5 } }\n" +
+                    "    field1 field2 field3(arg: \"y\") ...F" + i + "\n" +
+                    "  }\n" +
+                    "}\n" +
+                    "fragment F" + i + " on Type" + type + " { field6 field7 field8 { field9 } }\n");
+        }
+        final String document = String.join("", operations);
+
+        final int rounds = 20;
+        long coldNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            final JSGraphQLValidator coldValidator = new JSGraphQLValidator(JSGraphQLSchemaDefinitionReader.read(schema));
+            final long start = System.nanoTime();
+            assertTrue(coldValidator.validate(document, null).isEmpty());
+            coldNanos += System.nanoTime() - start;
+        }
+
+        // each warm pass edits a single operation, as typing in the editor does
+        long warmNanos = 0;
+        largeSchemaValidator.validate(document, null);
+        for (int round = 0; round < rounds; round++) {
+            final String edited = document.replace("query Q" + round + "(", "query Q" + round + "_" + round + "(");
+            final long start = System.nanoTime();
+            assertTrue(largeSchemaValidator.validate(edited, null).isEmpty());
+            warmNanos += System.nanoTime() - start;
+        }
+
+        final String throughput = String.format("%d operations and %d fragments against %d types: %.0f documents/sec cold, %.0f documents/sec with one edited operation",
+                operationCount, operationCount, typeCount, rounds / (coldNanos / 1e9), rounds / (warmNanos / 1e9));
+        assertTrue("Re-validating an edited document should be faster than validating it from scratch, " + throughput, warmNanos < coldNanos);
+    }
+
+    private void assertErrors(String text, String... expectedMessages) {
+        final List<String> messages = new ArrayList<>();
+        for (JSGraphQLValidationError error : validator.validate(text, fragmentName -> null)) {
+            messages.add(error.getMessage());
+        }
+        assertEquals(String.join("\n", expectedMessages), String.join("\n", messages));
+    }
+}
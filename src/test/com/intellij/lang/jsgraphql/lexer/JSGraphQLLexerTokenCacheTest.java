@@ -0,0 +1,69 @@
+/**
+ *  Copyright (c) 2015-present, Jim Kynde Meyer
+ *  All rights reserved.
+ *
+ *  This source code is licensed under the MIT license found in the
+ *  LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.lexer;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.JSGraphQLParserDefinition;
+import com.intellij.lang.jsgraphql.ide.highlighting.JSGraphQLSyntaxHighlighter;
+import com.intellij.lang.jsgraphql.languageservice.api.Token;
+import com.intellij.lang.jsgraphql.languageservice.api.TokensResponse;
+import com.intellij.lexer.Lexer;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+import java.util.List;
+
+public class JSGraphQLLexerTokenCacheTest extends LightCodeInsightFixtureTestCase {
+
+    public void testParserLexerReusesHighlightingTokens() {
+        final String buffer = "{ id }";
+        final JSGraphQLLexerTokenCache tokenCache = JSGraphQLLexerTokenCache.getService(getProject());
+        tokenCache.clear();
+
+        // the preloaded response stands in for the language service, and is only used by the first lexer
+        final TokensResponse response = new TokensResponse();
+        response.getTokens().add(createToken("punctuation", "{", 0));
+        response.getTokens().add(createToken("ws", " ", 1));
+        response.getTokens().add(createToken("property", "id", 2));
+        response.getTokens().add(createToken("ws", " ", 4));
+        response.getTokens().add(createToken("punctuation", "}", 5));
+        tokenCache.preloadResponse(buffer, response);
+
+        final long hitCount = tokenCache.getHitCount();
+        final long missCount = tokenCache.getMissCount();
+
+        final List<String> highlightingTokens = lex(new JSGraphQLSyntaxHighlighter(getProject()).getHighlightingLexer(), buffer);
+        assertEquals(hitCount, tokenCache.getHitCount());
+        assertEquals(missCount + 1, tokenCache.getMissCount());
+
+        final List<String> parserTokens = lex(new JSGraphQLParserDefinition().createLexer(getProject()), buffer);
+        assertEquals(hitCount + 1, tokenCache.getHitCount());
+        assertEquals(missCount + 1, tokenCache.getMissCount());
+        assertEquals(highlightingTokens, parserTokens);
+        assertEquals(5, parserTokens.size());
+    }
+
+    private static List<String> lex(Lexer lexer, String buffer) {
+        final List<String> tokens = Lists.newArrayList();
+        lexer.start(buffer, 0, buffer.length(), 0);
+        while (lexer.getTokenType() != null) {
+            tokens.add(lexer.getTokenType() + "(" + lexer.getTokenStart() + "," + lexer.getTokenEnd() + ")");
+            lexer.advance();
+        }
+        return tokens;
+    }
+
+    private static Token createToken(String type, String text, int start) {
+        final Token token = new Token();
+        token.setType(type);
+        token.setKind(type);
+        token.setText(text);
+        token.setStart(start);
+        token.setEnd(start + text.length());
+        return token;
+    }
+}
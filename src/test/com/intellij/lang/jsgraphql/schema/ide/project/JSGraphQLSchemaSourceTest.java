@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.project;
+
+import com.intellij.lang.jsgraphql.ide.configuration.JSGraphQLConfigurationProvider;
+import com.intellij.lang.jsgraphql.schema.introspection.JSGraphQLIntrospectionSchema;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+public class JSGraphQLSchemaSourceTest extends LightCodeInsightFixtureTestCase {
+
+    public void testSchemaLanguageFile() throws IOException {
+        final PsiFile config = myFixture.addFileToProject("service/" + JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON,
+                "{ \"schema\": { \"file\": \"schemas/service.graphql\" } }");
+        final PsiFile schemaFile = myFixture.addFileToProject("service/schemas/service.graphql",
+                "schema { query: Root }\ntype Root { user(id: ID!): User }\ntype User { id: ID name: String }\n");
+
+        final JSGraphQLSchemaSource source = JSGraphQLSchemaSource.forConfig(getProject(), config.getVirtualFile().getParent());
+        assertNotNull(source);
+        assertEquals(schemaFile.getVirtualFile(), source.getFile());
+        final JSGraphQLIntrospectionSchema schema = source.read(new EmptyProgressIndicator());
+        assertEquals("Root", schema.getQueryType());
+        assertNotNull(schema.getType("User"));
+        assertEquals("ID!", schema.getType("Root").getField("user").getArgs().get(0).getType());
+    }
+
+    public void testIntrospectionFileAndDefault() throws IOException {
+        final String introspection = "{\"data\": {\"__schema\": {\"queryType\": {\"name\": \"Query\"}, \"types\": [" +
+                "{\"kind\": \"OBJECT\", \"name\": \"Query\", \"fields\": [{\"name\": \"id\", \"args\": [], \"type\": {\"kind\": \"SCALAR\", \"name\": \"ID\"}}]}" +
+                "], \"directives\": []}}}";
+        final PsiFile config = myFixture.addFileToProject("named/" + JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON,
+                "{ \"schema\": { \"file\": \"../shared/api.json\" } }");
+        final PsiFile introspectionFile = myFixture.addFileToProject("shared/api.json", introspection);
+        final JSGraphQLSchemaSource source = JSGraphQLSchemaSource.forConfig(getProject(), config.getVirtualFile().getParent());
+        assertNotNull(source);
+        assertEquals(introspectionFile.getVirtualFile(), source.getFile());
+        assertEquals("Query", source.read(new EmptyProgressIndicator()).getQueryType());
+
+        // a config without a 'schema' section uses the graphql.schema.json next to it
+        final PsiFile defaultConfig = myFixture.addFileToProject("default/" + JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON, "{ \"endpoints\": [] }");
+        final VirtualFile defaultDir = defaultConfig.getVirtualFile().getParent();
+        assertNull(JSGraphQLSchemaSource.forConfig(getProject(), defaultDir));
+        final PsiFile defaultSchema = myFixture.addFileToProject("default/" + JSGraphQLConfigurationProvider.GRAPHQL_DEFAULT_SCHEMA, introspection);
+        final JSGraphQLSchemaSource defaultSource = JSGraphQLSchemaSource.forConfig(getProject(), defaultDir);
+        assertNotNull(defaultSource);
+        assertEquals(defaultSchema.getVirtualFile(), defaultSource.getFile());
+    }
+
+    public void testRequestUrlAndMissingFile() {
+        final PsiFile requestConfig = myFixture.addFileToProject("remote/" + JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON,
+                "{ \"schema\": { \"request\": { \"url\": \"http://localhost:8080/graphql\", \"postIntrospectionQuery\": true } } }");
+        final JSGraphQLSchemaSource requestSource = JSGraphQLSchemaSource.forConfig(getProject(), requestConfig.getVirtualFile().getParent());
+        assertNotNull(requestSource);
+        assertNull(requestSource.getFile());
+        assertEquals("http://localhost:8080/graphql", requestSource.getUrl());
+
+        // a configured file that doesn't exist is reported rather than falling back to another schema
+        final PsiFile missingConfig = myFixture.addFileToProject("missing/" + JSGraphQLConfigurationProvider.GRAPHQL_CONFIG_JSON,
+                "{ \"schema\": { \"file\": \"schema.graphql\" } }");
+        final JSGraphQLSchemaSource missingSource = JSGraphQLSchemaSource.forConfig(getProject(), missingConfig.getVirtualFile().getParent());
+        assertNotNull(missingSource);
+        assertNull(missingSource.getFile());
+        try {
+            missingSource.read(new EmptyProgressIndicator());
+            fail("Expected the missing schema file to be reported");
+        } catch (IOException e) {
+            assertTrue(e instanceof FileNotFoundException);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.ide.type;
+
+import com.google.common.collect.Sets;
+import com.intellij.openapi.editor.Document;
+import junit.framework.TestCase;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+public class JSGraphQLSchemaDiffTest extends TestCase {
+
+    public void testAddedRemovedAndChanged() {
+        final String oldSchema = "schema {\n  query: Query\n}\n\n" +
+                "type Query {\n  user: User\n}\n\n" +
+                "type User {\n  id: ID\n}\n\n" +
+                "enum Removed {\n  A\n}\n\n" +
+                "scalar Date\n";
+        final String newSchema = "schema {\n  query: Query\n}\n\n" +
+                "type Query {\n  user: User\n}\n\n" +
+                "type User {\n  id: ID\n  born: Date\n}\n\n" +
+                "input Added {\n  name: String\n}\n\n" +
+                "scalar Date\n";
+        final JSGraphQLSchemaDiff diff = JSGraphQLSchemaDiff.compute(oldSchema, newSchema);
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.isTypesOnly());
+        assertEquals(Collections.singleton("Added"), diff.getAddedNames());
+        assertEquals(Collections.singleton("Removed"), diff.getRemovedNames());
+        assertEquals(Collections.singleton("User"), diff.getChangedNames());
+        assertEquals(Sets.newHashSet("Added", "Removed", "User"), diff.getAllNames());
+
+        final TestDocument document = new TestDocument(oldSchema);
+        diff.applyTo(document.document);
+        assertEquals(newSchema, document.text.toString());
+        assertFalse(document.textReplaced);
+
+        assertTrue(JSGraphQLSchemaDiff.compute(newSchema, newSchema).isEmpty());
+        assertFalse(JSGraphQLSchemaDiff.compute(oldSchema.replace("query: Query", "query: User"), oldSchema).isTypesOnly());
+    }
+
+    public void testBracesInStringsAndComments() {
+        final String oldSchema = "# Unbalanced { in a comment\n" +
+                "type Query {\n  field(arg: String = \"escaped \\\" {\"): String\n}\n\n" +
+                "\"\"\"\nA block string with \\\"\"\" and {\n\"\"\"\n" +
+                "type Described {\n  id: ID\n}\n\n" +
+                "type Last {\n  id: ID\n}\n";
+        final String newSchema = oldSchema.replace("type Last {\n  id: ID\n}", "type Last {\n  id: ID\n  name: String\n}");
+        final JSGraphQLSchemaDiff diff = JSGraphQLSchemaDiff.compute(oldSchema, newSchema);
+        assertEquals(Collections.emptySet(), diff.getAddedNames());
+        assertEquals(Collections.emptySet(), diff.getRemovedNames());
+        assertEquals(Collections.singleton("Last"), diff.getChangedNames());
+
+        final TestDocument document = new TestDocument(oldSchema);
+        diff.applyTo(document.document);
+        assertEquals(newSchema, document.text.toString());
+        assertFalse(document.textReplaced);
+    }
+
+    public void testReplacesTextWhenDefinitionsAreReordered() {
+        final String oldSchema = "type A {\n  id: ID\n}\n\ntype B {\n  id: ID\n}\n";
+        final String newSchema = "type B {\n  id: ID\n}\n\ntype A {\n  id: ID\n  name: String\n}\n";
+        final JSGraphQLSchemaDiff diff = JSGraphQLSchemaDiff.compute(oldSchema, newSchema);
+        assertEquals(Collections.singleton("A"), diff.getChangedNames());
+
+        final TestDocument document = new TestDocument(oldSchema);
+        diff.applyTo(document.document);
+        assertEquals(newSchema, document.text.toString());
+        assertTrue(document.textReplaced);
+    }
+
+    public void testReplacesTextWhenNamesAreNotUnique() {
+        final String oldSchema = "type A {\n  id: ID\n}\n\ntype A {\n  name: String\n}\n";
+        final String newSchema = "type A {\n  id: ID\n}\n";
+        final JSGraphQLSchemaDiff diff = JSGraphQLSchemaDiff.compute(oldSchema, newSchema);
+        assertFalse(diff.isTypesOnly());
+
+        final TestDocument document = new TestDocument(oldSchema);
+        diff.applyTo(document.document);
+        assertEquals(newSchema, document.text.toString());
+        assertTrue(document.textReplaced);
+    }
+
+    /**
+     * A document backed by a string builder, implementing the methods that the diff uses
+     */
+    private static class TestDocument {
+
+        final StringBuilder text;
+        final Document document;
+        boolean textReplaced;
+
+        TestDocument(String text) {
+            this.text = new StringBuilder(text);
+            this.document = (Document) Proxy.newProxyInstance(Document.class.getClassLoader(), new Class[]{Document.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getText":
+                        return this.text.toString();
+                    case "setText":
+                        this.text.setLength(0);
+                        this.text.append((CharSequence) args[0]);
+                        textReplaced = true;
+                        return null;
+                    case "replaceString":
+                        this.text.replace((Integer) args[0], (Integer) args[1], args[2].toString());
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2015-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema.introspection;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JSGraphQLIntrospectionReaderTest extends TestCase {
+
+    private static final String INTROSPECTION = "{\"data\": {\"__schema\": {" +
+            "\"queryType\": {\"name\": \"Query\"}, \"mutationType\": null, \"subscriptionType\": null," +
+            "\"types\": [" +
+            "{\"kind\": \"OBJECT\", \"name\": \"Query\", \"description\": null, \"fields\": [" +
+            "  {\"name\": \"node\", \"description\": \"Fetches an object\", \"args\": [{\"name\": \"id\", \"description\": null, \"type\": {\"kind\": \"NON_NULL\", \"name\": null, \"ofType\": {\"kind\": \"SCALAR\", \"name\": \"ID\", \"ofType\": null}}, \"defaultValue\": null}]," +
+            "   \"type\": {\"kind\": \"INTERFACE\", \"name\": \"Node\", \"ofType\": null}, \"isDeprecated\": false, \"deprecationReason\": null}," +
+            "  {\"name\": \"users\", \"description\": null, \"args\": [{\"name\": \"first\", \"description\": null, \"type\": {\"kind\": \"SCALAR\", \"name\": \"Int\", \"ofType\": null}, \"defaultValue\": \"10\"}]," +
+            "   \"type\": {\"kind\": \"LIST\", \"name\": null, \"ofType\": {\"kind\": \"NON_NULL\", \"name\": null, \"ofType\": {\"kind\": \"OBJECT\", \"name\": \"User\", \"ofType\": null}}}, \"isDeprecated\": true, \"deprecationReason\": \"Use node\"}" +
+            "], \"inputFields\": null, \"interfaces\": [], \"enumValues\": null, \"possibleTypes\": null}," +
+            "{\"kind\": \"INTERFACE\", \"name\": \"Node\", \"description\": null, \"fields\": [{\"name\": \"id\", \"args\": [], \"type\": {\"kind\": \"NON_NULL\", \"name\": null, \"ofType\": {\"kind\": \"SCALAR\", \"name\": \"ID\", \"ofType\": null}}, \"isDeprecated\": false}]," +
+            " \"possibleTypes\": [{\"kind\": \"OBJECT\", \"name\": \"User\"}]}," +
+            "{\"kind\": \"OBJECT\", \"name\": \"User\", \"description\": \"A user\\nof the app\", \"fields\": [{\"name\": \"id\", \"args\": [], \"type\": {\"kind\": \"NON_NULL\", \"name\": null, \"ofType\": {\"kind\": \"SCALAR\", \"name\": \"ID\", \"ofType\": null}}, \"isDeprecated\": false}]," +
+            " \"interfaces\": [{\"kind\": \"INTERFACE\", \"name\": \"Node\"}]}," +
+            "{\"kind\": \"ENUM\", \"name\": \"Color\", \"enumValues\": [{\"name\": \"RED\", \"isDeprecated\": false}, {\"name\": \"BLUE\", \"isDeprecated\": true, \"deprecationReason\": \"No longer supported\"}]}," +
+            "{\"kind\": \"SCALAR\", \"name\": \"ID\"}," +
+            "{\"kind\": \"SCALAR\", \"name\": \"Date\"}," +
+            "{\"kind\": \"OBJECT\", \"name\": \"__Type\", \"fields\": []}" +
+            "]," +
+            "\"directives\": [{\"name\": \"skip\", \"locations\": [\"FIELD\"], \"args\": []}, {\"name\": \"cost\", \"locations\": [\"FIELD_DEFINITION\", \"OBJECT\"], \"args\": [{\"name\": \"value\", \"type\": {\"kind\": \"SCALAR\", \"name\": \"Int\"}}]}]" +
+            "}}}";
+
+    public void testReadIntrospection() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new StringReader(INTROSPECTION));
+        assertEquals("Query", schema.getQueryType());
+        assertNull(schema.getMutationType());
+        assertEquals(Arrays.asList("Query", "Node", "User", "Color", "ID", "Date", "__Type"), Arrays.asList(schema.getTypes().keySet().toArray()));
+
+        final JSGraphQLIntrospectionSchema.Type query = schema.getType("Query");
+        assertNotNull(query);
+        assertEquals("Node", query.getField("node").getType());
+        assertEquals("ID!", query.getField("node").getArgs().get(0).getType());
+        assertEquals("[User!]", query.getField("users").getType());
+        assertEquals("Use node", query.getField("users").getDeprecationReason());
+        assertEquals(Arrays.asList("User"), schema.getType("Node").getPossibleTypes());
+        assertEquals(Arrays.asList("Node"), schema.getType("User").getInterfaces());
+
+        final String expected = "schema {\n" +
+                "  query: Query\n" +
+                "}\n" +
+                "\n" +
+                "directive @cost(value: Int) on FIELD_DEFINITION | OBJECT\n" +
+                "\n" +
+                "type Query {\n" +
+                "  # Fetches an object\n" +
+                "  node(id: ID!): Node\n" +
+                "  users(first: Int = 10): [User!] @deprecated(reason: \"Use node\")\n" +
+                "}\n" +
+                "\n" +
+                "interface Node {\n" +
+                "  id: ID!\n" +
+                "}\n" +
+                "\n" +
+                "# A user\n" +
+                "# of the app\n" +
+                "type User implements Node {\n" +
+                "  id: ID!\n" +
+                "}\n" +
+                "\n" +
+                "enum Color {\n" +
+                "  RED\n" +
+                "  BLUE @deprecated\n" +
+                "}\n" +
+                "\n" +
+                "scalar Date\n";
+        assertEquals(expected, schema.toSchemaDefinition());
+    }
+
+    public void testSchemaTypes() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new StringReader(INTROSPECTION));
+        final List<String> schemaTypeNames = new ArrayList<>();
+        for (JSGraphQLIntrospectionSchema.Type type : schema.getTypes().values()) {
+            if(JSGraphQLIntrospectionSchema.isSchemaType(type)) {
+                schemaTypeNames.add(type.getName());
+            }
+        }
+        assertEquals(Arrays.asList("Query", "Node", "User", "Color", "Date"), schemaTypeNames);
+        assertEquals("User", JSGraphQLIntrospectionSchema.getNamedType(schema.getType("Query").getField("users").getType()));
+        assertEquals("User", JSGraphQLIntrospectionSchema.getNamedType("[[User!]]!"));
+        assertEquals("ID", JSGraphQLIntrospectionSchema.getNamedType("ID"));
+    }
+
+    public void testReadSchemaWithoutData() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new StringReader("{\"__schema\": {\"queryType\": {\"name\": \"Root\"}, \"types\": []}}"));
+        assertEquals("Root", schema.getQueryType());
+        assertTrue(schema.getTypes().isEmpty());
+    }
+
+    public void testRejectsOtherJson() {
+        try {
+            JSGraphQLIntrospectionReader.read(new StringReader("{\"errors\": [{\"message\": \"Not authorized\"}]}"));
+            fail("Expected the missing __schema to be reported");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    public void testExternalizeRoundTrip() throws IOException {
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new StringReader(INTROSPECTION));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JSGraphQLIntrospectionSchemaExternalizer.write(schema, new DataOutputStream(bytes));
+        final JSGraphQLIntrospectionSchema read = JSGraphQLIntrospectionSchemaExternalizer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+
+        assertEquals(schema.getTypes().keySet(), read.getTypes().keySet());
+        assertEquals("[User!]", read.getType("Query").getField("users").getType());
+        assertEquals("10", read.getType("Query").getField("users").getArgs().get(0).getDefaultValue());
+        assertEquals(schema.toSchemaDefinition(), read.toSchemaDefinition());
+
+        try {
+            // a truncated file is rejected rather than read as a partial schema
+            JSGraphQLIntrospectionSchemaExternalizer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray(), 0, bytes.size() / 2)), bytes.size());
+            fail("Expected the truncated schema to be rejected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Reads a schema from a UTF-8 byte stream, as used for graphql.schema.json files
+     */
+    public void testReadStream() throws IOException {
+        final int typeCount = 100;
+        final byte[] bytes = createIntrospection(typeCount);
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new ByteArrayInputStream(bytes), bytes.length, null);
+
+        assertEquals(typeCount, schema.getTypes().size());
+        assertEquals("Type1!", schema.getType("Type0").getField("field0").getType());
+        assertTrue(schema.toSchemaDefinition().contains("# Type number 99\ntype Type99 {\n  field0(first: Int): Type0!\n"));
+    }
+
+    /**
+     * Benchmark that streams a synthetic schema with 20,000 object types, and checks that reading and printing it stays within
+     * a time budget. The timings are part of the failure message, so a regression shows how far off the budget it is.
+     */
+    public void testLargeSchemaBenchmark() throws IOException {
+        final int typeCount = 20000;
+        final byte[] bytes = createIntrospection(typeCount);
+
+        final long start = System.nanoTime();
+        final JSGraphQLIntrospectionSchema schema = JSGraphQLIntrospectionReader.read(new ByteArrayInputStream(bytes), bytes.length, null);
+        final long readMillis = (System.nanoTime() - start) / 1000000;
+        final String schemaDefinition = schema.toSchemaDefinition();
+        final long printMillis = (System.nanoTime() - start) / 1000000 - readMillis;
+
+        assertEquals(typeCount, schema.getTypes().size());
+        assertTrue(schemaDefinition.contains("# Type number 19999\ntype Type19999 {\n  field0(first: Int): Type0!\n"));
+        final String timing = "Read " + typeCount + " types from " + bytes.length / 1024 + " KB in " + readMillis + " ms, printed the schema in " + printMillis + " ms";
+        assertTrue(timing, readMillis + printMillis < 10000);
+    }
+
+    /**
+     * Creates an introspection result where each object type has ten fields that refer to the next types
+     */
+    private static byte[] createIntrospection(int typeCount) {
+        final StringBuilder json = new StringBuilder("{\"data\": {\"__schema\": {\"queryType\": {\"name\": \"Type0\"}, \"types\": [");
+        for (int i = 0; i < typeCount; i++) {
+            if(i > 0) {
+                json.append(',');
+            }
+            json.append("{\"kind\": \"OBJECT\", \"name\": \"Type").append(i).append("\", \"description\": \"Type number ").append(i).append("\", \"fields\": [");
+            for (int f = 0; f < 10; f++) {
+                if(f > 0) {
+                    json.append(',');
+                }
+                json.append("{\"name\": \"field").append(f).append("\", \"description\": null, \"args\": [{\"name\": \"first\", \"type\": {\"kind\": \"SCALAR\", \"name\": \"Int\", \"ofType\": null}, \"defaultValue\": null}], ");
+                json.append("\"type\": {\"kind\": \"NON_NULL\", \"name\": null, \"ofType\": {\"kind\": \"OBJECT\", \"name\": \"Type").append((i + f + 1) % typeCount).append("\", \"ofType\": null}}, \"isDeprecated\": false, \"deprecationReason\": null}");
+            }
+            json.append("], \"inputFields\": null, \"interfaces\": [], \"enumValues\": null, \"possibleTypes\": null}");
+        }
+        json.append("], \"directives\": []}}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}